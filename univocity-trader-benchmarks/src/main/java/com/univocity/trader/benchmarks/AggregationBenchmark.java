@@ -0,0 +1,58 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.base.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures the cost of aggregating one-minute candles into candles of longer time intervals, with one
+ * {@link Aggregator} per interval sharing the same root, as done by the indicators of a strategy.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+	static final int CANDLES = 100_000;
+
+	@Param({"5m", "5m,15m,1h", "5m,15m,1h,4h,1d"})
+	public String intervals;
+
+	private TimeInterval[] timeIntervals;
+	private Candle[] candles;
+
+	@Setup
+	public void setup() {
+		String[] names = intervals.split(",");
+		timeIntervals = new TimeInterval[names.length];
+		for (int i = 0; i < names.length; i++) {
+			timeIntervals[i] = TimeInterval.fromString(names[i]);
+		}
+		candles = SyntheticMarket.candles("BTCUSDT", CANDLES).toArray(new Candle[0]);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CANDLES)
+	public void aggregate(Blackhole blackhole) {
+		Aggregator root = new Aggregator("benchmark");
+		Aggregator[] aggregators = new Aggregator[timeIntervals.length];
+		for (int i = 0; i < aggregators.length; i++) {
+			aggregators[i] = root.getInstance(timeIntervals[i]);
+		}
+
+		for (int c = 0; c < candles.length; c++) {
+			for (int i = 0; i < aggregators.length; i++) {
+				aggregators[i].aggregate(candles[c]);
+				blackhole.consume(aggregators[i].getFull());
+			}
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.univocity.trader.benchmarks;
+
+import org.openjdk.jmh.results.format.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+import java.io.*;
+import java.time.*;
+import java.time.format.*;
+
+/**
+ * Runs the benchmarks of this module and saves the results in JSON format, so that runs made on different commits
+ * can be compared side by side (e.g. with the JMH visualizer or any JSON diff tool).
+ *
+ * Accepts the same command line arguments as the JMH runner, for example a regular expression selecting which
+ * benchmarks to run, or {@code -p indicator=RSI,MACD} to restrict parameters. Unless a result file is given with
+ * {@code -rff}, results are written to {@code <benchmark.results.dir>/<benchmark.label>.json}, where:
+ *
+ * <ul>
+ * <li>{@code benchmark.results.dir} is a system property with the output directory, {@code jmh-results} by default</li>
+ * <li>{@code benchmark.label} is a system property identifying the run, such as a commit hash. Defaults to the
+ * current date and time</li>
+ * </ul>
+ *
+ * Example: {@code java -Dbenchmark.label=$(git rev-parse --short HEAD) -jar univocity-trader-benchmarks-1.0.0.jar Indicator}
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String... args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+		if (!commandLine.getResult().hasValue()) {
+			String label = System.getProperty("benchmark.label");
+			if (label == null || label.isBlank()) {
+				label = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+			}
+			File dir = new File(System.getProperty("benchmark.results.dir", "jmh-results"));
+			if (!dir.exists() && !dir.mkdirs()) {
+				throw new IllegalStateException("Unable to create directory for benchmark results: " + dir.getAbsolutePath());
+			}
+			options.result(new File(dir, label + ".json").getPath()).resultFormat(ResultFormatType.JSON);
+		}
+
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,143 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.*;
+import com.univocity.trader.indicators.base.*;
+import com.univocity.trader.strategy.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Measures the throughput of {@link Indicator#accumulate(Candle)} for each indicator in package
+ * {@code com.univocity.trader.indicators}, fed with one-minute candles. As in a {@link TradingEngine}, candles go
+ * through the aggregators of the indicator before being accumulated.
+ *
+ * Indicators are created through their public constructor with the fewest arguments, which usually applies the
+ * default settings of the indicator. Any length or count required by that constructor is set to
+ * {@value #LENGTH}, any factor or multiplier is set to {@value #FACTOR}, and any nested indicator or value getter
+ * reads the closing price or the volume of each candle.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class IndicatorBenchmark {
+
+	static final int CANDLES = 20_000;
+	static final int LENGTH = 14;
+	static final double FACTOR = 2.0;
+
+	private static final List<ToDoubleFunction<Candle>> VALUE_GETTERS = List.of(c -> c.close, c -> c.volume);
+
+	// CorrelationCoefficient is not listed: its nested variances can't be initialized outside of unit tests.
+	// IndicatorBenchmarkTest fails if any other indicator is missing from this list.
+	@Param({
+			"ADX", "AbstractIchimokuLineIndicator", "AccelerationDecelerationIndicator", "AroonDown", "AroonOscillator",
+			"AroonUp", "AverageTrueRange", "AwesomeOscillator", "BearishEngulfing", "BearishHarami",
+			"BollingerBand", "BullishEngulfing", "BullishHarami", "CHOP", "ChaikinMoneyFlow",
+			"ChandeMomentumOscillator", "ChandelierExitLong", "ChandelierExitShort", "ChangeIndicator", "CloseLocationValue",
+			"CommodityChannelIndex", "ConnorsRSI", "CoppockCurve", "Covariance",
+			"DetrendedPriceOscillator", "DirectionIndicator", "Doji", "DonchianChannel", "DoubleExponentialMovingAverage",
+			"EldersForceIndex", "ExponentialMovingAverage", "FunctionIndicator", "GainIndicator", "HighestValueIndicator",
+			"HullMovingAverage", "IchimokuChikouSpan", "IchimokuKijunSen", "IchimokuSenkouSpanA", "IchimokuSenkouSpanB",
+			"IchimokuTenkanSen", "InstantaneousTrendline", "IntradayIntensityIndex", "KAMA", "KDJ",
+			"KeltnerChannel", "LinearlyWeightedMovingAverage", "LossIndicator", "LowestValueIndicator", "MACD",
+			"MVWAP", "MassIndex", "MeanDeviation", "MedianPrice", "ModifiedMovingAverage",
+			"MovingAverage", "NegativeVolumeIndex", "OBV", "PVT", "ParabolicSAR",
+			"PearsonCorrelation", "PercentB", "PercentRankIndicator", "PercentagePriceOscillator", "PositiveVolumeIndex",
+			"RSI", "RandomWalkIndex", "RangeActionVerificationIndex", "RateOfChange", "RealBodyIndicator",
+			"SigmaIndicator", "StandardDeviation", "StandardError", "StochasticOscillatorD", "StochasticOscillatorK",
+			"StochasticRSI", "StreakIndicator", "TTMTrend", "ThreeBlackCrows", "ThreeWhiteSoldiers",
+			"TripleExponentialMovingAverage", "TrueRange", "TypicalPrice", "UlcerIndex", "VWAP",
+			"Variance", "Volume", "VolumeRateOfChange", "WaddahAttarExplosion", "WeightedMovingAverage",
+			"WilliamsR", "YoYoExitLong", "YoYoExitShort", "ZeroLagMovingAverage"
+	})
+	public String indicator;
+
+	private Constructor<?> constructor;
+	private boolean statistic;
+	private Candle[] candles;
+
+	@Setup
+	public void setup() {
+		Class<?> type;
+		try {
+			type = Class.forName("com.univocity.trader.indicators." + indicator);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("Unknown indicator: " + indicator, e);
+		}
+		constructor = selectConstructor(type);
+		statistic = Statistic.class.isAssignableFrom(type);
+		candles = SyntheticMarket.candles("BTCUSDT", CANDLES).toArray(new Candle[0]);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CANDLES)
+	public double accumulate() throws Exception {
+		Aggregator root = new Aggregator("benchmark");
+		Indicator indicator = (Indicator) constructor.newInstance(arguments(constructor, root));
+		if (!statistic) { //statistics only accumulate the nested indicators they were given
+			indicator.initialize(root);
+		}
+		Aggregator[] aggregators = root.getAggregators();
+
+		for (int i = 0; i < candles.length; i++) {
+			for (int a = 0; a < aggregators.length; a++) {
+				aggregators[a].aggregate(candles[i]);
+			}
+			indicator.accumulate(candles[i]);
+		}
+		return indicator.getValue();
+	}
+
+	static Constructor<?> selectConstructor(Class<?> type) {
+		Constructor<?>[] constructors = type.getConstructors();
+		Arrays.sort(constructors, Comparator.<Constructor<?>>comparingInt(Constructor::getParameterCount).thenComparing(Constructor::toString));
+		for (Constructor<?> constructor : constructors) {
+			if (isSupported(constructor)) {
+				return constructor;
+			}
+		}
+		throw new IllegalArgumentException("No public constructor of " + type.getName() + " can be invoked with a time interval, numbers, value getters and nested indicators");
+	}
+
+	private static boolean isSupported(Constructor<?> constructor) {
+		for (Class<?> parameter : constructor.getParameterTypes()) {
+			if (parameter != TimeInterval.class && parameter != int.class && parameter != double.class && parameter != ToDoubleFunction.class && !parameter.isAssignableFrom(FunctionIndicator.class)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Object[] arguments(Constructor<?> constructor, Aggregator root) {
+		Class<?>[] parameters = constructor.getParameterTypes();
+		Object[] out = new Object[parameters.length];
+		int getter = 0;
+		for (int i = 0; i < parameters.length; i++) {
+			Class<?> parameter = parameters[i];
+			if (parameter == TimeInterval.class) {
+				out[i] = TimeInterval.MINUTE;
+			} else if (parameter == int.class) {
+				out[i] = LENGTH;
+			} else if (parameter == double.class) {
+				out[i] = FACTOR;
+			} else if (parameter == ToDoubleFunction.class) {
+				out[i] = VALUE_GETTERS.get(getter++ % VALUE_GETTERS.size());
+			} else {
+				FunctionIndicator nested = new FunctionIndicator(TimeInterval.MINUTE, VALUE_GETTERS.get(getter++ % VALUE_GETTERS.size()));
+				nested.initialize(root);
+				out[i] = nested;
+			}
+		}
+		return out;
+	}
+}
@@ -0,0 +1,92 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.config.*;
+import com.univocity.trader.utils.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+import org.springframework.jdbc.core.*;
+
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures how fast candles can be read back from a {@link FileCandleRepository} over CSV files and from a
+ * {@link DatabaseCandleRepository} backed by an in-memory H2 database, with and without the candle cache.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+	static final String SYMBOL = "BTCUSDT";
+	static final int CANDLES = 100_000;
+
+	private static final String INSERT = "INSERT INTO candle (symbol,open_time,close_time,open,high,low,close,volume) VALUES (?,?,?,?,?,?,?,?)";
+
+	@Param({"csv", "database"})
+	public String repository;
+
+	@Param({"false", "true"})
+	public boolean cache;
+
+	private Path dir;
+	private CandleRepository candles;
+
+	@Setup
+	public void setup() {
+		if ("csv".equals(repository)) {
+			dir = SyntheticMarket.createTempDir();
+			SyntheticMarket.writeCsv(dir, SYMBOL, CANDLES);
+			candles = new FileCandleRepository(new RepositoryDir(dir), SyntheticMarket.csvFormat());
+		} else {
+			DatabaseCandleRepository database = new DatabaseCandleRepository(new DatabaseConfiguration().inMemory());
+			populate(database.db(), SyntheticMarket.candles(SYMBOL, CANDLES));
+			candles = database;
+		}
+	}
+
+	private static void populate(JdbcTemplate db, CandleSeries series) {
+		db.update("DELETE FROM candle WHERE symbol = ?", SYMBOL);
+		db.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				ps.setString(1, SYMBOL);
+				ps.setLong(2, series.openTime(i));
+				ps.setLong(3, series.closeTime(i));
+				ps.setDouble(4, series.open(i));
+				ps.setDouble(5, series.high(i));
+				ps.setDouble(6, series.low(i));
+				ps.setDouble(7, series.close(i));
+				ps.setDouble(8, series.volume(i));
+			}
+
+			@Override
+			public int getBatchSize() {
+				return series.size();
+			}
+		});
+	}
+
+	@TearDown
+	public void tearDown() {
+		candles.clearCaches();
+		SyntheticMarket.deleteDir(dir);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CANDLES)
+	public void iterate(Blackhole blackhole) {
+		Enumeration<Candle> e = candles.iterate(SYMBOL, null, null, cache);
+		while (e.hasMoreElements()) {
+			blackhole.consume(e.nextElement());
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.account.*;
+import com.univocity.trader.candles.*;
+import com.univocity.trader.config.*;
+import com.univocity.trader.indicators.*;
+import com.univocity.trader.indicators.base.*;
+import com.univocity.trader.simulation.local.Strategy;
+import com.univocity.trader.strategy.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures complete market simulations over CSV files of synthetic candles, from reading the files to processing
+ * orders, with a strategy that trades on the crossing of two exponential moving averages of every symbol.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SimulationBenchmark {
+
+	static final int CANDLES = 50_000;
+	private static final String[] ASSETS = {"AAA", "BBB", "CCC", "DDD", "EEE", "FFF", "GGG", "HHH"};
+
+	@Param({"1", "4", "8"})
+	public int symbols;
+
+	private Path dir;
+
+	@Setup
+	public void setup() {
+		dir = SyntheticMarket.createTempDir();
+		for (int i = 0; i < symbols; i++) {
+			SyntheticMarket.writeCsv(dir, ASSETS[i] + "USD", CANDLES);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		SyntheticMarket.deleteDir(dir);
+	}
+
+	@Benchmark
+	public void simulate() {
+		Strategy.Simulator simulator = Strategy.simulator();
+		simulator.configure().fileRepository()
+				.dir(dir)
+				.rowFormat(SyntheticMarket.csvFormat());
+
+		SimulationAccount account = simulator.configure().account();
+		account.referenceCurrency("USD").maximumInvestmentAmountPerTrade(250.0);
+		for (int i = 0; i < symbols; i++) {
+			account.tradeWith(ASSETS[i]);
+		}
+		account.strategies().add(Crossover::new);
+
+		simulator.configure().simulation()
+				.initialFunds(10_000.0)
+				.fillOrdersImmediately()
+				.simulateFrom(SyntheticMarket.START)
+				.simulateTo(SyntheticMarket.START + CANDLES * TimeInterval.MINUTE.ms);
+
+		simulator.symbolInformation("USD").priceDecimalPlaces(2).quantityDecimalPlaces(2);
+		simulator.run();
+	}
+
+	private static final class Crossover extends IndicatorStrategy {
+		private final ExponentialMovingAverage fast = new ExponentialMovingAverage(9, TimeInterval.MINUTE);
+		private final ExponentialMovingAverage slow = new ExponentialMovingAverage(26, TimeInterval.MINUTE);
+
+		@Override
+		protected Set<Indicator> getAllIndicators() {
+			return Set.of(fast, slow);
+		}
+
+		@Override
+		public Signal getSignal(Candle candle, Context context) {
+			return fast.getValue() > slow.getValue() ? Signal.BUY : Signal.SELL;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.parsers.csv.*;
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.base.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Generates one-minute candles for benchmarks. Prices follow a random walk seeded by the symbol name, so the same
+ * symbol always produces the same candles and benchmark results can be compared between builds.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class SyntheticMarket {
+
+	/**
+	 * Open time of the first candle generated for every symbol.
+	 */
+	public static final long START = LocalDate.of(2020, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+
+	/**
+	 * Format of the CSV files produced by {@link #writeCsv(Path, String, int)}.
+	 */
+	public static RowFormat<String, CsvParserSettings> csvFormat() {
+		return RowFormat.csv()
+				.selectColumnsByName()
+				.dateAndTimeInMillis()
+				.openDateTime("open_time")
+				.closeDateTime("close_time")
+				.openingPrice("open")
+				.highestPrice("high")
+				.lowestPrice("low")
+				.closingPrice("close")
+				.volume("volume")
+				.build();
+	}
+
+	private SyntheticMarket() {
+	}
+
+	/**
+	 * Generates candles of a symbol, one per minute starting at {@link #START}.
+	 *
+	 * @param symbol the symbol whose name seeds the random walk
+	 * @param count  number of candles to generate
+	 *
+	 * @return the generated candles, in chronological order.
+	 */
+	public static CandleSeries candles(String symbol, int count) {
+		Random random = new Random(symbol.hashCode() * 31L + count);
+		CandleSeries out = new CandleSeries(count);
+
+		double price = 100.0 + random.nextInt(900);
+		long time = START;
+		for (int i = 0; i < count; i++) {
+			double open = price;
+			double close = Math.max(0.01, open * (1.0 + random.nextGaussian() * 0.002));
+			double high = Math.max(open, close) * (1.0 + random.nextDouble() * 0.001);
+			double low = Math.min(open, close) * (1.0 - random.nextDouble() * 0.001);
+			double volume = 1.0 + random.nextDouble() * 100.0;
+
+			out.add(time, time + TimeInterval.MINUTE.ms - 1, open, high, low, close, volume);
+
+			price = close;
+			time += TimeInterval.MINUTE.ms;
+		}
+		return out;
+	}
+
+	/**
+	 * Generates candles of a symbol with {@link #candles(String, int)} and writes them into a CSV file named after
+	 * the symbol, in the format given by {@link #csvFormat()}.
+	 *
+	 * @param dir    directory where the file will be created
+	 * @param symbol the symbol whose candles will be written
+	 * @param count  number of candles to generate
+	 *
+	 * @return the file created.
+	 */
+	public static File writeCsv(Path dir, String symbol, int count) {
+		File file = dir.resolve(symbol + ".csv").toFile();
+		CandleSeries candles = candles(symbol, count);
+
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+			out.write("open_time,close_time,open,high,low,close,volume\n");
+			for (int i = 0; i < candles.size(); i++) {
+				out.write(String.valueOf(candles.openTime(i)));
+				out.write(',');
+				out.write(String.valueOf(candles.closeTime(i)));
+				out.write(',');
+				out.write(String.valueOf(candles.open(i)));
+				out.write(',');
+				out.write(String.valueOf(candles.high(i)));
+				out.write(',');
+				out.write(String.valueOf(candles.low(i)));
+				out.write(',');
+				out.write(String.valueOf(candles.close(i)));
+				out.write(',');
+				out.write(String.valueOf(candles.volume(i)));
+				out.write('\n');
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write candles of " + symbol + " to " + file, e);
+		}
+		return file;
+	}
+
+	/**
+	 * Creates a temporary directory for benchmark data.
+	 *
+	 * @return the new directory.
+	 */
+	public static Path createTempDir() {
+		try {
+			return Files.createTempDirectory("univocity-trader-benchmark");
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to create directory for benchmark data", e);
+		}
+	}
+
+	/**
+	 * Deletes a directory created with {@link #createTempDir()} along with its files.
+	 *
+	 * @param dir the directory to delete
+	 */
+	public static void deleteDir(Path dir) {
+		if (dir == null) {
+			return;
+		}
+		File[] files = dir.toFile().listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		dir.toFile().delete();
+	}
+}
@@ -0,0 +1,88 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.benchmarks.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.text.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures the conversion of parsed rows into candles by {@link RowFormat#toCandle(String[])}, with dates given in
+ * milliseconds or as formatted date/time strings. Declared in the same package as {@link RowFormat} to reach its
+ * package-private conversion method.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandleParsingBenchmark {
+
+	static final int ROWS = 10_000;
+	private static final String PATTERN = "yyyy-MM-dd HH:mm";
+
+	@Param({"millis", "pattern"})
+	public String dates;
+
+	private RowFormat<String, ?> format;
+	private String[][] rows;
+
+	@Setup
+	public void setup() {
+		CandleSeries candles = SyntheticMarket.candles("BTCUSDT", ROWS);
+
+		SimpleDateFormat dateFormat = new SimpleDateFormat(PATTERN);
+		dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+		if ("millis".equals(dates)) {
+			format = SyntheticMarket.csvFormat();
+		} else {
+			format = RowFormat.csv()
+					.selectColumnsByName()
+					.dateAndTimePattern(PATTERN)
+					.openDateTime("open_time")
+					.closeDateTime("close_time")
+					.openingPrice("open")
+					.highestPrice("high")
+					.lowestPrice("low")
+					.closingPrice("close")
+					.volume("volume")
+					.build();
+		}
+
+		rows = new String[ROWS][];
+		for (int i = 0; i < ROWS; i++) {
+			String openTime;
+			String closeTime;
+			if ("millis".equals(dates)) {
+				openTime = String.valueOf(candles.openTime(i));
+				closeTime = String.valueOf(candles.closeTime(i));
+			} else {
+				openTime = dateFormat.format(new Date(candles.openTime(i)));
+				closeTime = dateFormat.format(new Date(candles.closeTime(i)));
+			}
+			rows[i] = new String[]{
+					openTime,
+					closeTime,
+					String.valueOf(candles.open(i)),
+					String.valueOf(candles.high(i)),
+					String.valueOf(candles.low(i)),
+					String.valueOf(candles.close(i)),
+					String.valueOf(candles.volume(i))
+			};
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void toCandle(Blackhole blackhole) {
+		for (int i = 0; i < ROWS; i++) {
+			blackhole.consume(format.toCandle(rows[i]));
+		}
+	}
+}
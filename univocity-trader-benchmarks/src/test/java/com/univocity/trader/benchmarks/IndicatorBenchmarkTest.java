@@ -0,0 +1,81 @@
+package com.univocity.trader.benchmarks;
+
+import com.univocity.trader.indicators.*;
+import com.univocity.trader.strategy.*;
+import org.junit.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.jar.*;
+
+import static org.junit.Assert.*;
+
+public class IndicatorBenchmarkTest {
+
+	private static final String PACKAGE = FunctionIndicator.class.getPackageName();
+
+	// indicators that can't be benchmarked, as documented in IndicatorBenchmark
+	private static final Set<String> EXCLUDED = Set.of("CorrelationCoefficient");
+
+	private static Set<String> indicatorClasses() throws Exception {
+		File location = new File(FunctionIndicator.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		String path = PACKAGE.replace('.', '/') + '/';
+
+		List<String> entries = new ArrayList<>();
+		if (location.isDirectory()) {
+			String[] files = new File(location, path).list();
+			if (files != null) {
+				entries.addAll(Arrays.asList(files));
+			}
+		} else {
+			try (JarFile jar = new JarFile(location)) {
+				jar.stream()
+						.map(JarEntry::getName)
+						.filter(name -> name.startsWith(path) && name.indexOf('/', path.length()) < 0)
+						.forEach(name -> entries.add(name.substring(path.length())));
+			}
+		}
+
+		Set<String> out = new TreeSet<>();
+		for (String entry : entries) {
+			if (!entry.endsWith(".class") || entry.contains("$")) {
+				continue;
+			}
+			String name = entry.substring(0, entry.length() - ".class".length());
+			Class<?> type = Class.forName(PACKAGE + '.' + name);
+			int modifiers = type.getModifiers();
+			if (Indicator.class.isAssignableFrom(type) && Modifier.isPublic(modifiers) && !Modifier.isAbstract(modifiers) && !type.isInterface()) {
+				out.add(name);
+			}
+		}
+		return out;
+	}
+
+	private static Set<String> benchmarkedIndicators() throws Exception {
+		return new TreeSet<>(Arrays.asList(IndicatorBenchmark.class.getField("indicator").getAnnotation(Param.class).value()));
+	}
+
+	@Test
+	public void testAllIndicatorsBenchmarked() throws Exception {
+		Set<String> indicators = indicatorClasses();
+		assertTrue("No indicators found in package " + PACKAGE, indicators.size() > 1);
+
+		Set<String> missing = new TreeSet<>(indicators);
+		missing.removeAll(benchmarkedIndicators());
+		missing.removeAll(EXCLUDED);
+		assertEquals("Indicators missing from the @Param list of IndicatorBenchmark", Collections.emptySet(), missing);
+
+		Set<String> unknown = new TreeSet<>(benchmarkedIndicators());
+		unknown.removeAll(indicators);
+		assertEquals("Unknown indicators in the @Param list of IndicatorBenchmark", Collections.emptySet(), unknown);
+	}
+
+	@Test
+	public void testBenchmarkedIndicatorsCanBeCreated() throws Exception {
+		for (String indicator : benchmarkedIndicators()) {
+			assertNotNull(indicator, IndicatorBenchmark.selectConstructor(Class.forName(PACKAGE + '.' + indicator)));
+		}
+	}
+}
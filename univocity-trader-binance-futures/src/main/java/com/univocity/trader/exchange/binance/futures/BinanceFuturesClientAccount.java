@@ -17,7 +17,10 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -336,6 +339,25 @@ class BinanceFuturesClientAccount implements ClientAccount {
 		return translate(order, client.getOrder(order.getSymbol(), Long.valueOf(order.getOrderId()), null));
 	}
 
+	@Override
+	public List<Order> updateOrderStatuses(String symbol, List<Order> orders) {
+		if (orders.size() == 1) {
+			return Collections.singletonList(updateOrderStatus(orders.get(0)));
+		}
+		Map<Long, FuturesOrder> open = new HashMap<>();
+		for (FuturesOrder order : client.getOpenOrders(symbol)) {
+			open.put(order.getOrderId(), order);
+		}
+
+		List<Order> out = new ArrayList<>(orders.size());
+		for (Order order : orders) {
+			FuturesOrder status = open.get(Long.valueOf(order.getOrderId()));
+			// orders no longer open have been filled or cancelled, and need to be queried individually
+			out.add(status == null ? updateOrderStatus(order) : translate(order, status));
+		}
+		return out;
+	}
+
 	private Order translate(Order original, FuturesOrder order) {
 		//Order out = new Order(original.getInternalId(), original.getAssetsSymbol(), original.getFundsSymbol(), translate(order.getSide()), translate(order.getPositionSide()), order.getUpdateTime());
 		Order out = new Order(original.getInternalId(), original.getAssetsSymbol(), original.getFundsSymbol(), translate(order.getSide()), original.getTradeSide(), order.getUpdateTime());
@@ -11,6 +11,7 @@ import com.univocity.trader.exchange.binance.api.client.*;
 import com.univocity.trader.exchange.binance.api.client.domain.*;
 import com.univocity.trader.exchange.binance.api.client.domain.account.*;
 import com.univocity.trader.exchange.binance.api.client.domain.account.request.*;
+import com.univocity.trader.exchange.binance.api.client.domain.event.*;
 import com.univocity.trader.exchange.binance.api.client.domain.market.*;
 import com.univocity.trader.exchange.binance.api.client.exception.*;
 import io.netty.channel.*;
@@ -42,6 +43,10 @@ class BinanceClientAccount implements ClientAccount {
 	private SymbolPriceDetails symbolPriceDetails;
 	private BinanceExchange exchangeApi;
 	private double minimumBnbAmountToKeep = 1.0;
+	private final Map<String, BinanceOrderBookStream> orderBookStreams = new ConcurrentHashMap<>();
+	private BinanceApiWebSocketClient socketClient;
+	private volatile boolean closed;
+	private BinanceUserDataStream userDataStream;
 
 	public BinanceClientAccount(Account clientConfiguration, BinanceExchange exchangeApi) {
 		this.exchangeApi = exchangeApi;
@@ -167,7 +172,18 @@ class BinanceClientAccount implements ClientAccount {
 
 	@Override
 	public OrderBook getOrderBook(String symbol, int depth) {
-		com.univocity.trader.exchange.binance.api.client.domain.market.OrderBook book = client.getOrderBook(symbol, depth == 0 ? 5 : depth);
+		depth = depth == 0 ? 5 : depth;
+		if (depth <= BinanceOrderBookStream.DEPTH && !closed) {
+			BinanceOrderBookStream stream = orderBookStreams.computeIfAbsent(symbol, s -> new BinanceOrderBookStream(this, client, getSocketClient(), s).start());
+			if (stream.isSynchronized()) {
+				return stream.book.copy(depth);
+			}
+			if (stream.isClosed()) {
+				orderBookStreams.remove(symbol, stream); // reopened on the next call
+			}
+		}
+
+		com.univocity.trader.exchange.binance.api.client.domain.market.OrderBook book = client.getOrderBook(symbol, depth);
 
 		OrderBook out = new OrderBook(this, symbol, depth);
 		for (OrderBookEntry bid : book.getBids()) {
@@ -242,7 +258,7 @@ class BinanceClientAccount implements ClientAccount {
 		return child;
 	}
 
-	private Order.Side translate(OrderSide side) {
+	private static Order.Side translate(OrderSide side) {
 		switch (side) {
 			case BUY:
 				return Order.Side.BUY;
@@ -252,7 +268,7 @@ class BinanceClientAccount implements ClientAccount {
 		throw new IllegalStateException("Can't translate " + side + " to Order.Side");
 	}
 
-	private Order.Status translate(OrderStatus status) {
+	private static Order.Status translate(OrderStatus status) {
 		switch (status) {
 			case EXPIRED:
 			case CANCELED:
@@ -270,7 +286,7 @@ class BinanceClientAccount implements ClientAccount {
 		throw new IllegalStateException("Can't translate " + status + " to Order.Status");
 	}
 
-	private Order.Type translate(OrderType type) {
+	private static Order.Type translate(OrderType type) {
 		switch (type) {
 			case LIMIT:
 			case LIMIT_MAKER:
@@ -310,6 +326,25 @@ class BinanceClientAccount implements ClientAccount {
 		return translate(order, client.getOrderStatus(request));
 	}
 
+	@Override
+	public List<Order> updateOrderStatuses(String symbol, List<Order> orders) {
+		if (orders.size() == 1) {
+			return Collections.singletonList(updateOrderStatus(orders.get(0)));
+		}
+		Map<Long, com.univocity.trader.exchange.binance.api.client.domain.account.Order> open = new HashMap<>();
+		for (var order : client.getOpenOrders(new com.univocity.trader.exchange.binance.api.client.domain.account.request.OrderRequest(symbol))) {
+			open.put(order.getOrderId(), order);
+		}
+
+		List<Order> out = new ArrayList<>(orders.size());
+		for (Order order : orders) {
+			var status = open.get(Long.valueOf(order.getOrderId()));
+			// orders no longer open have been filled or cancelled, and need to be queried individually
+			out.add(status == null ? updateOrderStatus(order) : translate(order, status));
+		}
+		return out;
+	}
+
 	private Order translate(Order original, com.univocity.trader.exchange.binance.api.client.domain.account.Order order) {
 		Order out = new Order(original.getInternalId(), original.getAssetsSymbol(), original.getFundsSymbol(), translate(order.getSide()), Trade.Side.LONG, order.getTime());
 		out.setStatus(translate(order.getStatus()));
@@ -328,6 +363,47 @@ class BinanceClientAccount implements ClientAccount {
 		return out;
 	}
 
+	@Override
+	public void close() {
+		closed = true;
+		orderBookStreams.values().forEach(BinanceOrderBookStream::close);
+		orderBookStreams.clear();
+		if (userDataStream != null) {
+			userDataStream.close();
+		}
+	}
+
+	@Override
+	public void streamOrderUpdates(OrderUpdateListener listener) {
+		userDataStream = new BinanceUserDataStream(client, getSocketClient(), listener, BinanceClientAccount::translate);
+		userDataStream.start();
+	}
+
+	private synchronized BinanceApiWebSocketClient getSocketClient() {
+		if (socketClient == null) {
+			socketClient = factory.newWebSocketClient();
+		}
+		return socketClient;
+	}
+
+	static Order translate(Order original, OrderTradeUpdateEvent event) {
+		Order out = new Order(original.getInternalId(), original.getAssetsSymbol(), original.getFundsSymbol(), translate(event.getSide()), Trade.Side.LONG, original.getTime());
+		out.setStatus(translate(event.getOrderStatus()));
+		out.setExecutedQuantity(Double.parseDouble(event.getAccumulatedQuantity()));
+		out.setAveragePrice(Double.parseDouble(event.getPrice()));
+		out.setPrice(Double.parseDouble(event.getPrice()));
+		out.setOrderId(String.valueOf(event.getOrderId()));
+		out.setType(translate(event.getType()));
+		out.setQuantity(Double.parseDouble(event.getOriginalQuantity()));
+		out.setTrade(original.getTrade());
+		if (original.getAttachments() != null) {
+			for (Order attachment : original.getAttachments()) {
+				attachment.setParent(out);
+			}
+		}
+		return out;
+	}
+
 	@Override
 	public void cancel(Order order) {
 		try {
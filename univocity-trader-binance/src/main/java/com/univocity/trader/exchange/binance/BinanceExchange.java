@@ -87,6 +87,23 @@ public class BinanceExchange implements Exchange<Candlestick, Account> {
 		);
 	}
 
+	@Override
+	public Candle generateCandle(Candlestick exchangeCandle) {
+		if (exchangeCandle instanceof DecodedCandlestickEvent) {
+			DecodedCandlestickEvent c = (DecodedCandlestickEvent) exchangeCandle;
+			return new Candle(c.getOpenTimeMillis(), c.getCloseTimeMillis(), c.getOpenValue(), c.getHighValue(), c.getLowValue(), c.getCloseValue(), c.getVolumeValue());
+		}
+		return new Candle(
+				exchangeCandle.getOpenTime(),
+				exchangeCandle.getCloseTime(),
+				DecimalParser.parseDouble(exchangeCandle.getOpen()),
+				DecimalParser.parseDouble(exchangeCandle.getHigh()),
+				DecimalParser.parseDouble(exchangeCandle.getLow()),
+				DecimalParser.parseDouble(exchangeCandle.getClose()),
+				DecimalParser.parseDouble(exchangeCandle.getVolume())
+		);
+	}
+
 	@Override
 	public void startKeepAlive(){
 		new KeepAliveUserDataStream(restClient()).start();
@@ -99,7 +116,8 @@ public class BinanceExchange implements Exchange<Candlestick, Account> {
 			@Override
 			public void onResponse(CandlestickEvent response) {
 				try {
-					priceReceived(response.getSymbol(), Double.parseDouble(response.getClose()));
+					double close = response instanceof DecodedCandlestickEvent ? ((DecodedCandlestickEvent) response).getCloseValue() : DecimalParser.parseDouble(response.getClose());
+					priceReceived(response.getSymbol(), close);
 				} catch (Exception e){
 					log.warn("Error updating latest price of " + response.getSymbol(), e);
 				}
@@ -128,14 +146,12 @@ public class BinanceExchange implements Exchange<Candlestick, Account> {
 	private final Map<String, double[]> latestPrices = new HashMap<>();
 
 	private void priceReceived(String symbol, double price) {
-		latestPrices.compute(symbol, (s, v) -> {
-			if (v == null) {
-				return new double[]{price};
-			} else {
-				v[0] = price;
-				return v;
-			}
-		});
+		double[] latestPrice = latestPrices.get(symbol);
+		if (latestPrice == null) {
+			latestPrices.put(symbol, new double[]{price});
+		} else {
+			latestPrice[0] = price;
+		}
 	}
 
 	@Override
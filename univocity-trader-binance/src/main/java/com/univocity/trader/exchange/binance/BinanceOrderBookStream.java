@@ -0,0 +1,196 @@
+package com.univocity.trader.exchange.binance;
+
+import com.univocity.trader.*;
+import com.univocity.trader.account.OrderBook;
+import com.univocity.trader.exchange.binance.api.client.*;
+import com.univocity.trader.exchange.binance.api.client.domain.event.*;
+import com.univocity.trader.exchange.binance.api.client.domain.market.*;
+import org.asynchttpclient.ws.*;
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Keeps a local {@link OrderBook} of a symbol in sync with Binance by applying the depth diffs streamed by the
+ * exchange over a snapshot of the book, as described in Binance's guide to manage a local order book:
+ *
+ * <ol>
+ * <li>depth events received while the snapshot is not available are buffered;</li>
+ * <li>events already reflected in the snapshot (i.e. with a final update ID up to the snapshot's last update ID) are dropped;</li>
+ * <li>every other event must start right after the last update applied, otherwise events were missed and a new snapshot is loaded.</li>
+ * </ol>
+ *
+ * Books serve up to {@link #DEPTH} price levels, but are loaded with the best {@link #SNAPSHOT_DEPTH} levels of each side
+ * and keep up to that many. Levels worse than these are not tracked, so once updates remove enough levels for a side to
+ * hold fewer than {@link #DEPTH} of them, a new snapshot is loaded to bring back the levels that moved up.
+ *
+ * The depth stream stays open until {@link #close()} is invoked. Depth events are applied in the web socket thread. Snapshots are fetched from a separate thread, as the web socket
+ * thread must never block, and applied while holding the same lock, so the book has a single writer at any time.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class BinanceOrderBookStream {
+
+	private static final Logger log = LoggerFactory.getLogger(BinanceOrderBookStream.class);
+
+	static final int DEPTH = 100;
+	static final int SNAPSHOT_DEPTH = 500;
+	private static final long RETRY_DELAY_SECONDS = 5;
+
+	private static final ScheduledExecutorService snapshotLoader = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "Binance order book loader");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final BinanceApiRestClient client;
+	private final BinanceApiWebSocketClient socketClient;
+	private final String symbol;
+	final OrderBook book;
+	private WebSocket socket;
+
+	private final List<DepthEvent> pending = new ArrayList<>();
+	private boolean loading;
+	private long lastUpdateId;
+	private volatile boolean synced;
+	private volatile boolean closed;
+
+	private double[] bidPrices = new double[SNAPSHOT_DEPTH];
+	private double[] bidQuantities = new double[SNAPSHOT_DEPTH];
+	private double[] askPrices = new double[SNAPSHOT_DEPTH];
+	private double[] askQuantities = new double[SNAPSHOT_DEPTH];
+
+	BinanceOrderBookStream(ClientAccount account, BinanceApiRestClient client, BinanceApiWebSocketClient socketClient, String symbol) {
+		this.client = client;
+		this.socketClient = socketClient;
+		this.symbol = symbol;
+		this.book = new OrderBook(account, symbol, SNAPSHOT_DEPTH);
+	}
+
+	BinanceOrderBookStream start() {
+		socket = socketClient.onDepthEvent(symbol.toLowerCase(), new BinanceApiCallback<>() {
+			@Override
+			public void onResponse(DepthEvent event) {
+				depthUpdated(event);
+			}
+
+			@Override
+			public void onClose() {
+				closed();
+			}
+		});
+		if (socket == null) {
+			log.warn("Unable to open depth stream of {}", symbol);
+			closed();
+		}
+		return this;
+	}
+
+	/**
+	 * Returns whether the local order book reflects the latest depth of the symbol on the exchange.
+	 *
+	 * @return {@code true} if the book was loaded and no depth updates have been missed since.
+	 */
+	boolean isSynchronized() {
+		return synced;
+	}
+
+	/**
+	 * Returns whether the depth stream was closed, in which case the local order book is no longer updated.
+	 *
+	 * @return {@code true} if the depth stream could not be opened or was closed by the exchange.
+	 */
+	boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Closes the depth stream. The local order book is no longer updated afterwards.
+	 */
+	void close() {
+		closed();
+		WebSocket socket = this.socket;
+		this.socket = null;
+		if (socket != null) {
+			socket.sendCloseFrame();
+		}
+	}
+
+	private void closed() {
+		synced = false;
+		closed = true;
+	}
+
+	private synchronized void depthUpdated(DepthEvent event) {
+		if (loading) {
+			pending.add(event);
+		} else if (!apply(event) || book.isMissingLevels(DEPTH)) {
+			synced = false;
+			pending.add(event);
+			loading = true;
+			snapshotLoader.execute(this::loadSnapshot);
+		}
+	}
+
+	private boolean apply(DepthEvent event) {
+		if (lastUpdateId == 0 || event.getFirstUpdateId() > lastUpdateId + 1) {
+			return false;
+		}
+		if (event.getFinalUpdateId() > lastUpdateId) {
+			update(event.getBids(), event.getAsks(), false);
+			lastUpdateId = event.getFinalUpdateId();
+		}
+		return true;
+	}
+
+	private void loadSnapshot() {
+		com.univocity.trader.exchange.binance.api.client.domain.market.OrderBook snapshot;
+		try {
+			snapshot = client.getOrderBook(symbol, SNAPSHOT_DEPTH);
+		} catch (Exception e) {
+			log.error("Error loading order book of " + symbol + ". Retrying in " + RETRY_DELAY_SECONDS + " seconds", e);
+			snapshotLoader.schedule(this::loadSnapshot, RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
+			return;
+		}
+
+		synchronized (this) {
+			update(snapshot.getBids(), snapshot.getAsks(), true);
+			lastUpdateId = snapshot.getLastUpdateId();
+
+			for (int i = 0; i < pending.size(); i++) {
+				if (!apply(pending.get(i))) {
+					// snapshot is older than the buffered events
+					pending.subList(0, i).clear();
+					snapshotLoader.schedule(this::loadSnapshot, 1, TimeUnit.SECONDS);
+					return;
+				}
+			}
+			pending.clear();
+			loading = false;
+			synced = true;
+		}
+	}
+
+	private void update(List<OrderBookEntry> bids, List<OrderBookEntry> asks, boolean replaceAll) {
+		if (bids.size() > bidPrices.length) {
+			bidPrices = new double[bids.size()];
+			bidQuantities = new double[bids.size()];
+		}
+		if (asks.size() > askPrices.length) {
+			askPrices = new double[asks.size()];
+			askQuantities = new double[asks.size()];
+		}
+		for (int i = 0; i < bids.size(); i++) {
+			OrderBookEntry bid = bids.get(i);
+			bidPrices[i] = Double.parseDouble(bid.getPrice());
+			bidQuantities[i] = Double.parseDouble(bid.getQty());
+		}
+		for (int i = 0; i < asks.size(); i++) {
+			OrderBookEntry ask = asks.get(i);
+			askPrices[i] = Double.parseDouble(ask.getPrice());
+			askQuantities[i] = Double.parseDouble(ask.getQty());
+		}
+		book.update(bidPrices, bidQuantities, bids.size(), askPrices, askQuantities, asks.size(), replaceAll);
+	}
+}
@@ -0,0 +1,170 @@
+package com.univocity.trader.exchange.binance;
+
+import com.univocity.trader.account.*;
+import com.univocity.trader.exchange.binance.api.client.*;
+import com.univocity.trader.exchange.binance.api.client.domain.event.*;
+import org.asynchttpclient.ws.*;
+import org.slf4j.*;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static com.univocity.trader.exchange.binance.api.client.domain.event.UserDataUpdateEvent.UserDataUpdateEventType.*;
+
+/**
+ * Keeps the user data stream of a Binance account open, forwarding every {@code executionReport} event to an
+ * {@link OrderUpdateListener}. The listen key is kept alive while the stream is open. The stream is reopened with a
+ * new listen key if it is closed by the exchange, fails, or if its listen key can't be kept alive, until
+ * {@link #close()} is invoked.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class BinanceUserDataStream {
+
+	private static final Logger log = LoggerFactory.getLogger(BinanceUserDataStream.class);
+
+	// listen keys expire after 60 minutes without a keep-alive request
+	private static final long KEEP_ALIVE_INTERVAL_MINUTES = 30;
+	private static final long RECONNECT_DELAY_SECONDS = 5;
+
+	private final BinanceApiRestClient client;
+	private final BinanceApiWebSocketClient socketClient;
+	private final OrderUpdateListener listener;
+	private final BiFunction<Order, OrderTradeUpdateEvent, Order> translator;
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "Binance user data stream");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private String listenKey;
+	private WebSocket socket;
+	// identifies the current connection, so events of connections already replaced are ignored
+	private int connection;
+	private boolean closed;
+
+	BinanceUserDataStream(BinanceApiRestClient client, BinanceApiWebSocketClient socketClient, OrderUpdateListener listener, BiFunction<Order, OrderTradeUpdateEvent, Order> translator) {
+		this.client = client;
+		this.socketClient = socketClient;
+		this.listener = listener;
+		this.translator = translator;
+	}
+
+	void start() {
+		scheduler.execute(this::connect);
+		scheduler.scheduleWithFixedDelay(this::keepAlive, KEEP_ALIVE_INTERVAL_MINUTES, KEEP_ALIVE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+	}
+
+	private void connect() {
+		int connection;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			connection = ++this.connection;
+		}
+		try {
+			String listenKey = client.startUserDataStream();
+			WebSocket socket = socketClient.onUserDataUpdateEvent(listenKey, new BinanceApiCallback<>() {
+				@Override
+				public void onResponse(UserDataUpdateEvent response) {
+					if (response.getEventType() == ORDER_TRADE_UPDATE) {
+						OrderTradeUpdateEvent event = response.getOrderTradeUpdateEvent();
+						listener.orderUpdated(event.getSymbol(), String.valueOf(event.getOrderId()), original -> translator.apply(original, event));
+					}
+				}
+
+				@Override
+				public void onFailure(Throwable cause) {
+					log.error("User data stream failed. Reconnecting in " + RECONNECT_DELAY_SECONDS + " seconds", cause);
+					reconnect(connection, true);
+				}
+
+				@Override
+				public void onClose() {
+					reconnect(connection, false);
+				}
+			});
+			if (socket == null) {
+				throw new IllegalStateException("Unable to open user data stream");
+			}
+			synchronized (this) {
+				if (closed || connection != this.connection) {
+					socket.sendCloseFrame(); // closed or failed while connecting
+					return;
+				}
+				this.listenKey = listenKey;
+				this.socket = socket;
+			}
+			listener.connected();
+		} catch (Exception e) {
+			log.error("Error opening user data stream. Retrying in " + RECONNECT_DELAY_SECONDS + " seconds", e);
+			reconnect(connection, false);
+		}
+	}
+
+	/**
+	 * Closes the stream and stops reconnecting and keeping the listen key alive.
+	 */
+	void close() {
+		WebSocket socket;
+		synchronized (this) {
+			closed = true;
+			socket = this.socket;
+			this.socket = null;
+		}
+		scheduler.shutdownNow();
+		if (socket != null) {
+			socket.sendCloseFrame();
+		}
+	}
+
+	/**
+	 * Discards a connection and opens a new one, with a new listen key, after {@link #RECONNECT_DELAY_SECONDS}.
+	 *
+	 * @param connection  the connection to discard. Nothing happens if it has already been replaced.
+	 * @param closeSocket whether the web socket of the connection is still open and must be closed.
+	 */
+	private void reconnect(int connection, boolean closeSocket) {
+		WebSocket socket;
+		synchronized (this) {
+			if (closed || connection != this.connection) {
+				return;
+			}
+			this.connection++;
+			socket = this.socket;
+			this.socket = null;
+		}
+		if (closeSocket && socket != null) {
+			try {
+				socket.sendCloseFrame();
+			} catch (Exception e) {
+				log.debug("Error closing user data stream", e);
+			}
+		}
+		listener.disconnected();
+		try {
+			scheduler.schedule(this::connect, RECONNECT_DELAY_SECONDS, TimeUnit.SECONDS);
+		} catch (RejectedExecutionException e) {
+			// closed meanwhile
+		}
+	}
+
+	void keepAlive() {
+		int connection;
+		String listenKey;
+		synchronized (this) {
+			if (socket == null) {
+				return;
+			}
+			connection = this.connection;
+			listenKey = this.listenKey;
+		}
+		try {
+			client.keepAliveUserDataStream(listenKey);
+		} catch (Exception e) {
+			log.error("Error keeping user data stream alive. Reconnecting in " + RECONNECT_DELAY_SECONDS + " seconds", e);
+			reconnect(connection, true);
+		}
+	}
+}
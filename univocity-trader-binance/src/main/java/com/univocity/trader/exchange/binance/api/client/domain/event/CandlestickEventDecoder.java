@@ -0,0 +1,284 @@
+package com.univocity.trader.exchange.binance.api.client.domain.event;
+
+import com.univocity.trader.utils.*;
+
+import java.util.function.*;
+
+import static com.univocity.trader.exchange.binance.api.client.domain.event.DecodedCandlestickEvent.*;
+
+/**
+ * Decodes candlestick stream events straight from their JSON payload, as an alternative to
+ * {@link CandlestickEventDeserializer} for the live stream of klines. Times and OHLCV values are parsed into primitives
+ * in a single pass over the payload, without building a JSON tree or intermediate strings. Other fields are only
+ * extracted from the payload when requested (see {@link DecodedCandlestickEvent}).
+ *
+ * Fields not used by {@link CandlestickEvent} are skipped, whatever their values are, and escape sequences are
+ * resolved in the text of the fields that are extracted. Symbol names are cached so the same {@code String} instance
+ * is returned for every event of a symbol.
+ *
+ * @see DecodedCandlestickEvent
+ */
+public final class CandlestickEventDecoder implements Function<String, CandlestickEvent> {
+
+	private volatile String[] symbols = new String[0];
+
+	@Override
+	public CandlestickEvent apply(String payload) {
+		DecodedCandlestickEvent event = new DecodedCandlestickEvent(payload);
+		int i = parseObject(payload, 0, event, false);
+		if (skipWhitespace(payload, i) != payload.length()) {
+			throw unexpected(payload, i);
+		}
+		return event;
+	}
+
+	private int parseObject(String s, int i, DecodedCandlestickEvent event, boolean kline) {
+		i = expect(s, skipWhitespace(s, i), '{');
+		i = skipWhitespace(s, i);
+		if (i < s.length() && s.charAt(i) == '}') {
+			return i + 1;
+		}
+		while (true) {
+			i = expect(s, skipWhitespace(s, i), '"');
+			int keyStart = i;
+			i = endOfString(s, i);
+			char key = i - keyStart == 1 ? s.charAt(keyStart) : 0;
+			i = expect(s, skipWhitespace(s, i + 1), ':');
+			i = skipWhitespace(s, i);
+
+			if (i >= s.length()) {
+				throw unexpected(s, i);
+			}
+			int start;
+			int end;
+			char ch = s.charAt(i);
+			if (ch == '"') {
+				start = i + 1;
+				end = endOfString(s, start);
+				i = end + 1;
+			} else if (ch == '{' && key == 'k' && !kline) {
+				i = parseObject(s, i, event, true);
+				start = end = -1;
+			} else if (ch == '{' || ch == '[') {
+				i = skipNested(s, i);
+				start = end = -1;
+			} else {
+				start = i;
+				while (i < s.length() && (ch = s.charAt(i)) != ',' && ch != '}' && !Character.isWhitespace(ch)) {
+					i++;
+				}
+				end = i;
+			}
+			if (start >= 0) {
+				if (kline) {
+					klineField(s, event, key, start, end);
+				} else {
+					eventField(s, event, key, start, end);
+				}
+			}
+
+			i = skipWhitespace(s, i);
+			if (i < s.length()) {
+				ch = s.charAt(i++);
+				if (ch == '}') {
+					return i;
+				} else if (ch == ',') {
+					continue;
+				}
+			}
+			throw unexpected(s, i - 1);
+		}
+	}
+
+	private void eventField(String s, DecodedCandlestickEvent event, char key, int start, int end) {
+		switch (key) {
+			case 'e':
+				event.setPosition(EVENT_TYPE, start, end);
+				break;
+			case 'E':
+				event.setEventTime(Long.parseLong(s, start, end, 10));
+				break;
+			case 's':
+				event.setSymbol(symbol(s, start, end));
+				break;
+		}
+	}
+
+	private void klineField(String s, DecodedCandlestickEvent event, char key, int start, int end) {
+		switch (key) {
+			case 't':
+				event.openTimeMillis = Long.parseLong(s, start, end, 10);
+				break;
+			case 'T':
+				event.closeTimeMillis = Long.parseLong(s, start, end, 10);
+				break;
+			case 'i':
+				event.setPosition(INTERVAL, start, end);
+				break;
+			case 'f':
+				event.setPosition(FIRST_TRADE_ID, start, end);
+				break;
+			case 'L':
+				event.setPosition(LAST_TRADE_ID, start, end);
+				break;
+			case 'o':
+				event.setPosition(OPEN, start, end);
+				event.openValue = DecimalParser.parseDouble(s, start, end);
+				break;
+			case 'c':
+				event.setPosition(CLOSE, start, end);
+				event.closeValue = DecimalParser.parseDouble(s, start, end);
+				break;
+			case 'h':
+				event.setPosition(HIGH, start, end);
+				event.highValue = DecimalParser.parseDouble(s, start, end);
+				break;
+			case 'l':
+				event.setPosition(LOW, start, end);
+				event.lowValue = DecimalParser.parseDouble(s, start, end);
+				break;
+			case 'v':
+				event.setPosition(VOLUME, start, end);
+				event.volumeValue = DecimalParser.parseDouble(s, start, end);
+				break;
+			case 'n':
+				event.setPosition(NUMBER_OF_TRADES, start, end);
+				break;
+			case 'x':
+				event.setBarFinal(s.startsWith("true", start));
+				break;
+			case 'q':
+				event.setPosition(QUOTE_ASSET_VOLUME, start, end);
+				break;
+			case 'V':
+				event.setPosition(TAKER_BUY_BASE_ASSET_VOLUME, start, end);
+				break;
+			case 'Q':
+				event.setPosition(TAKER_BUY_QUOTE_ASSET_VOLUME, start, end);
+				break;
+		}
+	}
+
+	private String symbol(String s, int start, int end) {
+		if (isEscaped(s, start, end)) {
+			return unescape(s, start, end);
+		}
+		String[] known = symbols;
+		int length = end - start;
+		for (int i = 0; i < known.length; i++) {
+			String symbol = known[i];
+			if (symbol.length() == length && s.regionMatches(start, symbol, 0, length)) {
+				return symbol;
+			}
+		}
+		String symbol = s.substring(start, end);
+		synchronized (this) {
+			String[] tmp = new String[symbols.length + 1];
+			System.arraycopy(symbols, 0, tmp, 0, symbols.length);
+			tmp[symbols.length] = symbol;
+			symbols = tmp;
+		}
+		return symbol;
+	}
+
+	private static int skipNested(String s, int i) {
+		int depth = 0;
+		while (i < s.length()) {
+			char ch = s.charAt(i);
+			if (ch == '"') {
+				i = endOfString(s, i + 1);
+			} else if (ch == '{' || ch == '[') {
+				depth++;
+			} else if ((ch == '}' || ch == ']') && --depth == 0) {
+				return i + 1;
+			}
+			i++;
+		}
+		throw unexpected(s, i);
+	}
+
+	static boolean isEscaped(String s, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (s.charAt(i) == '\\') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the text of a string value of the payload, resolving its escape sequences.
+	 */
+	static String unescape(String s, int start, int end) {
+		StringBuilder out = new StringBuilder(end - start);
+		for (int i = start; i < end; i++) {
+			char ch = s.charAt(i);
+			if (ch != '\\' || i + 1 >= end) {
+				out.append(ch);
+				continue;
+			}
+			ch = s.charAt(++i);
+			switch (ch) {
+				case 'b':
+					out.append('\b');
+					break;
+				case 'f':
+					out.append('\f');
+					break;
+				case 'n':
+					out.append('\n');
+					break;
+				case 'r':
+					out.append('\r');
+					break;
+				case 't':
+					out.append('\t');
+					break;
+				case 'u':
+					if (i + 4 >= end) {
+						throw unexpected(s, end);
+					}
+					out.append((char) Integer.parseInt(s, i + 1, i + 5, 16));
+					i += 4;
+					break;
+				default:
+					out.append(ch);
+			}
+		}
+		return out.toString();
+	}
+
+	private static int skipWhitespace(String s, int i) {
+		while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int expect(String s, int i, char ch) {
+		if (i >= s.length() || s.charAt(i) != ch) {
+			throw unexpected(s, i);
+		}
+		return i + 1;
+	}
+
+	private static int endOfString(String s, int i) {
+		while (i < s.length()) {
+			char ch = s.charAt(i);
+			if (ch == '"') {
+				return i;
+			} else if (ch == '\\') {
+				i++;
+			}
+			i++;
+		}
+		throw unexpected(s, i);
+	}
+
+	private static IllegalArgumentException unexpected(String s, int i) {
+		if (i >= s.length()) {
+			return new IllegalArgumentException("Unexpected end of candlestick event: " + s);
+		}
+		return new IllegalArgumentException("Unexpected character '" + s.charAt(i) + "' at position " + i + " of candlestick event: " + s);
+	}
+}
@@ -0,0 +1,228 @@
+package com.univocity.trader.exchange.binance.api.client.domain.event;
+
+/**
+ * A {@link CandlestickEvent} produced by {@link CandlestickEventDecoder}. Times and OHLCV values are available as
+ * primitives, and the text of each field is only extracted from the original JSON payload if requested through
+ * its getter.
+ */
+public final class DecodedCandlestickEvent extends CandlestickEvent {
+
+	static final int EVENT_TYPE = 0;
+	static final int INTERVAL = 1;
+	static final int OPEN = 2;
+	static final int HIGH = 3;
+	static final int LOW = 4;
+	static final int CLOSE = 5;
+	static final int VOLUME = 6;
+	static final int QUOTE_ASSET_VOLUME = 7;
+	static final int TAKER_BUY_BASE_ASSET_VOLUME = 8;
+	static final int TAKER_BUY_QUOTE_ASSET_VOLUME = 9;
+	static final int FIRST_TRADE_ID = 10;
+	static final int LAST_TRADE_ID = 11;
+	static final int NUMBER_OF_TRADES = 12;
+	static final int FIELD_COUNT = 13;
+
+	private final String payload;
+	// start and end of the value of each field in the payload
+	final int[] positions = new int[FIELD_COUNT * 2];
+
+	long openTimeMillis;
+	long closeTimeMillis;
+	double openValue;
+	double highValue;
+	double lowValue;
+	double closeValue;
+	double volumeValue;
+
+	DecodedCandlestickEvent(String payload) {
+		this.payload = payload;
+	}
+
+	void setPosition(int field, int start, int end) {
+		positions[field * 2] = start;
+		positions[field * 2 + 1] = end;
+	}
+
+	private String text(int field) {
+		int start = positions[field * 2];
+		int end = positions[field * 2 + 1];
+		if (start == end) {
+			return null;
+		}
+		return CandlestickEventDecoder.isEscaped(payload, start, end) ? CandlestickEventDecoder.unescape(payload, start, end) : payload.substring(start, end);
+	}
+
+	private Long number(int field) {
+		int start = positions[field * 2];
+		int end = positions[field * 2 + 1];
+		return start == end ? null : Long.parseLong(payload, start, end, 10);
+	}
+
+	public long getOpenTimeMillis() {
+		return openTimeMillis;
+	}
+
+	public long getCloseTimeMillis() {
+		return closeTimeMillis;
+	}
+
+	public double getOpenValue() {
+		return openValue;
+	}
+
+	public double getHighValue() {
+		return highValue;
+	}
+
+	public double getLowValue() {
+		return lowValue;
+	}
+
+	public double getCloseValue() {
+		return closeValue;
+	}
+
+	public double getVolumeValue() {
+		return volumeValue;
+	}
+
+	@Override
+	public String getEventType() {
+		if (super.getEventType() == null) {
+			setEventType(text(EVENT_TYPE));
+		}
+		return super.getEventType();
+	}
+
+	@Override
+	public String getIntervalId() {
+		if (super.getIntervalId() == null) {
+			setIntervalId(text(INTERVAL));
+		}
+		return super.getIntervalId();
+	}
+
+	@Override
+	public Long getFirstTradeId() {
+		if (super.getFirstTradeId() == null) {
+			setFirstTradeId(number(FIRST_TRADE_ID));
+		}
+		return super.getFirstTradeId();
+	}
+
+	@Override
+	public Long getLastTradeId() {
+		if (super.getLastTradeId() == null) {
+			setLastTradeId(number(LAST_TRADE_ID));
+		}
+		return super.getLastTradeId();
+	}
+
+	@Override
+	public Long getOpenTime() {
+		if (openTime == null) {
+			openTime = openTimeMillis;
+		}
+		return openTime;
+	}
+
+	@Override
+	public Long getCloseTime() {
+		if (closeTime == null) {
+			closeTime = closeTimeMillis;
+		}
+		return closeTime;
+	}
+
+	@Override
+	public String getOpen() {
+		if (open == null) {
+			open = text(OPEN);
+		}
+		return open;
+	}
+
+	@Override
+	public String getHigh() {
+		if (high == null) {
+			high = text(HIGH);
+		}
+		return high;
+	}
+
+	@Override
+	public String getLow() {
+		if (low == null) {
+			low = text(LOW);
+		}
+		return low;
+	}
+
+	@Override
+	public String getClose() {
+		if (close == null) {
+			close = text(CLOSE);
+		}
+		return close;
+	}
+
+	@Override
+	public String getVolume() {
+		if (volume == null) {
+			volume = text(VOLUME);
+		}
+		return volume;
+	}
+
+	@Override
+	public String getQuoteAssetVolume() {
+		if (quoteAssetVolume == null) {
+			quoteAssetVolume = text(QUOTE_ASSET_VOLUME);
+		}
+		return quoteAssetVolume;
+	}
+
+	@Override
+	public Long getNumberOfTrades() {
+		if (numberOfTrades == null) {
+			numberOfTrades = number(NUMBER_OF_TRADES);
+		}
+		return numberOfTrades;
+	}
+
+	@Override
+	public String getTakerBuyBaseAssetVolume() {
+		if (takerBuyBaseAssetVolume == null) {
+			takerBuyBaseAssetVolume = text(TAKER_BUY_BASE_ASSET_VOLUME);
+		}
+		return takerBuyBaseAssetVolume;
+	}
+
+	@Override
+	public String getTakerBuyQuoteAssetVolume() {
+		if (takerBuyQuoteAssetVolume == null) {
+			takerBuyQuoteAssetVolume = text(TAKER_BUY_QUOTE_ASSET_VOLUME);
+		}
+		return takerBuyQuoteAssetVolume;
+	}
+
+	@Override
+	public String toString() {
+		getEventType();
+		getIntervalId();
+		getFirstTradeId();
+		getLastTradeId();
+		getOpenTime();
+		getCloseTime();
+		getOpen();
+		getHigh();
+		getLow();
+		getClose();
+		getVolume();
+		getQuoteAssetVolume();
+		getNumberOfTrades();
+		getTakerBuyBaseAssetVolume();
+		getTakerBuyQuoteAssetVolume();
+		return super.toString();
+	}
+}
@@ -24,7 +24,7 @@ public class Candlestick {
 	protected String takerBuyBaseAssetVolume;
 	protected String takerBuyQuoteAssetVolume;
 
-	public final Long getOpenTime() {
+	public Long getOpenTime() {
 		return openTime;
 	}
 
@@ -32,7 +32,7 @@ public class Candlestick {
 		this.openTime = openTime;
 	}
 
-	public final String getOpen() {
+	public String getOpen() {
 		return open;
 	}
 
@@ -40,7 +40,7 @@ public class Candlestick {
 		this.open = open;
 	}
 
-	public final String getHigh() {
+	public String getHigh() {
 		return high;
 	}
 
@@ -48,7 +48,7 @@ public class Candlestick {
 		this.high = high;
 	}
 
-	public final String getLow() {
+	public String getLow() {
 		return low;
 	}
 
@@ -56,7 +56,7 @@ public class Candlestick {
 		this.low = low;
 	}
 
-	public final String getClose() {
+	public String getClose() {
 		return close;
 	}
 
@@ -64,7 +64,7 @@ public class Candlestick {
 		this.close = close;
 	}
 
-	public final String getVolume() {
+	public String getVolume() {
 		return volume;
 	}
 
@@ -72,7 +72,7 @@ public class Candlestick {
 		this.volume = volume;
 	}
 
-	public final Long getCloseTime() {
+	public Long getCloseTime() {
 		return closeTime;
 	}
 
@@ -80,7 +80,7 @@ public class Candlestick {
 		this.closeTime = closeTime;
 	}
 
-	public final String getQuoteAssetVolume() {
+	public String getQuoteAssetVolume() {
 		return quoteAssetVolume;
 	}
 
@@ -88,7 +88,7 @@ public class Candlestick {
 		this.quoteAssetVolume = quoteAssetVolume;
 	}
 
-	public final Long getNumberOfTrades() {
+	public Long getNumberOfTrades() {
 		return numberOfTrades;
 	}
 
@@ -96,7 +96,7 @@ public class Candlestick {
 		this.numberOfTrades = numberOfTrades;
 	}
 
-	public final String getTakerBuyBaseAssetVolume() {
+	public String getTakerBuyBaseAssetVolume() {
 		return takerBuyBaseAssetVolume;
 	}
 
@@ -104,7 +104,7 @@ public class Candlestick {
 		this.takerBuyBaseAssetVolume = takerBuyBaseAssetVolume;
 	}
 
-	public final String getTakerBuyQuoteAssetVolume() {
+	public String getTakerBuyQuoteAssetVolume() {
 		return takerBuyQuoteAssetVolume;
 	}
 
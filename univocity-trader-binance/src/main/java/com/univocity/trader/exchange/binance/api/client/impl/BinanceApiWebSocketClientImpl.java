@@ -38,7 +38,7 @@ public class BinanceApiWebSocketClientImpl implements BinanceApiWebSocketClient,
                 .map(String::trim)
                 .map(s -> String.format("%s@kline_%s", s, interval.getIntervalId()))
                 .collect(Collectors.joining("/"));
-        return createNewWebSocket(channel, new BinanceApiWebSocketListener<>(callback, CandlestickEvent.class));
+        return createNewWebSocket(channel, new BinanceApiWebSocketListener<>(callback, new CandlestickEventDecoder()));
     }
 
     public WebSocket onAggTradeEvent(String symbols, BinanceApiCallback<AggTradeEvent> callback) {
@@ -9,6 +9,7 @@ import org.asynchttpclient.ws.*;
 import org.slf4j.*;
 
 import java.io.*;
+import java.util.function.*;
 
 public class BinanceApiWebSocketListener<T> implements WebSocketListener {
 
@@ -16,6 +17,7 @@ public class BinanceApiWebSocketListener<T> implements WebSocketListener {
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
     private final ObjectReader objectReader;
+    private final Function<String, T> decoder;
     private final BinanceApiCallback<T> callback;
 
     private WebSocket webSocket = null;
@@ -26,11 +28,25 @@ public class BinanceApiWebSocketListener<T> implements WebSocketListener {
     public BinanceApiWebSocketListener(BinanceApiCallback<T> callback, Class<T> eventClass) {
         this.callback = callback;
         this.objectReader = MAPPER.readerFor(eventClass);
+        this.decoder = null;
+    }
+
+    /**
+     * Creates a listener that converts each message received into an event using the given decoder instead of Jackson.
+     *
+     * @param callback the callback to receive the decoded events
+     * @param decoder  the function that converts each JSON message into an event
+     */
+    public BinanceApiWebSocketListener(BinanceApiCallback<T> callback, Function<String, T> decoder) {
+        this.callback = callback;
+        this.objectReader = null;
+        this.decoder = decoder;
     }
 
     public BinanceApiWebSocketListener(BinanceApiCallback<T> callback, TypeReference reference) {
         this.callback = callback;
         this.objectReader = MAPPER.readerFor(reference);
+        this.decoder = null;
     }
 
     @Override
@@ -45,9 +61,9 @@ public class BinanceApiWebSocketListener<T> implements WebSocketListener {
     @Override
     public void onTextFrame(String payload, boolean finalFragment, int rsv) {
         try {
-            T event = objectReader.readValue(payload);
+            T event = decoder != null ? decoder.apply(payload) : objectReader.readValue(payload);
             this.callback.onResponse(event);
-        } catch (IOException ex) {
+        } catch (IOException | IllegalArgumentException ex) {
             log.error("Error at WebSocket " + wsName, ex);
             throw new BinanceApiException(ex);
         }
@@ -0,0 +1,120 @@
+package com.univocity.trader.exchange.binance;
+
+import com.univocity.trader.exchange.binance.api.client.*;
+import com.univocity.trader.exchange.binance.api.client.domain.event.*;
+import com.univocity.trader.exchange.binance.api.client.domain.market.*;
+import org.asynchttpclient.ws.*;
+import org.junit.*;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static org.junit.Assert.*;
+
+public class BinanceOrderBookStreamTest {
+
+	private final List<Integer> snapshotLimits = new CopyOnWriteArrayList<>();
+	private volatile long snapshotUpdateId = 10;
+	private volatile BinanceApiCallback<DepthEvent> callback;
+
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(Class<T> type, BiFunction<String, Object[], Object> methods) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+			if (method.getDeclaringClass() == Object.class) {
+				return method.getName().equals("equals") ? proxy == args[0] : method.getName().equals("hashCode") ? System.identityHashCode(proxy) : type.getSimpleName();
+			}
+			return methods.apply(method.getName(), args);
+		});
+	}
+
+	private static OrderBookEntry entry(double price, double quantity) {
+		OrderBookEntry out = new OrderBookEntry();
+		out.setPrice(String.valueOf(price));
+		out.setQty(String.valueOf(quantity));
+		return out;
+	}
+
+	private static List<OrderBookEntry> levels(int count, double quantity) {
+		List<OrderBookEntry> out = new ArrayList<>();
+		for (int i = 1; i <= count; i++) {
+			out.add(entry(100 + i, quantity));
+		}
+		return out;
+	}
+
+	private DepthEvent event(long firstUpdateId, long finalUpdateId, List<OrderBookEntry> asks) {
+		DepthEvent out = new DepthEvent();
+		out.setFirstUpdateId(firstUpdateId);
+		out.setFinalUpdateId(finalUpdateId);
+		out.setBids(Collections.singletonList(entry(99, 1)));
+		out.setAsks(asks);
+		return out;
+	}
+
+	@SuppressWarnings("unchecked")
+	private BinanceOrderBookStream start() throws InterruptedException {
+		BinanceApiRestClient client = stub(BinanceApiRestClient.class, (method, args) -> {
+			if (method.equals("getOrderBook")) {
+				int limit = (Integer) args[1];
+				snapshotLimits.add(limit);
+				OrderBook snapshot = new OrderBook();
+				snapshot.setLastUpdateId(snapshotUpdateId);
+				snapshot.setBids(Collections.singletonList(entry(99, 1)));
+				snapshot.setAsks(levels(limit, 1)); // more levels exist on the exchange
+				return snapshot;
+			}
+			throw new UnsupportedOperationException(method);
+		});
+		WebSocket socket = stub(WebSocket.class, (method, args) -> null);
+		BinanceApiWebSocketClient socketClient = stub(BinanceApiWebSocketClient.class, (method, args) -> {
+			if (method.equals("onDepthEvent")) {
+				callback = (BinanceApiCallback<DepthEvent>) args[1];
+				return socket;
+			}
+			throw new UnsupportedOperationException(method);
+		});
+
+		BinanceOrderBookStream stream = new BinanceOrderBookStream(null, client, socketClient, "BTCUSDT").start();
+		callback.onResponse(event(1, 10, Collections.emptyList())); // buffered while the first snapshot loads
+		waitUntilSynchronized(stream);
+		return stream;
+	}
+
+	private static void waitUntilSynchronized(BinanceOrderBookStream stream) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 10_000;
+		while (!stream.isSynchronized()) {
+			assertTrue("Timeout waiting for order book snapshot", System.currentTimeMillis() < timeout);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testReloadsWhenLevelsAreMissing() throws Exception {
+		BinanceOrderBookStream stream = start();
+		assertEquals(Collections.singletonList(BinanceOrderBookStream.SNAPSHOT_DEPTH), snapshotLimits);
+		assertEquals(BinanceOrderBookStream.SNAPSHOT_DEPTH, stream.book.getAsks().size());
+
+		// removes the best asks, leaving exactly DEPTH levels known
+		int removed = BinanceOrderBookStream.SNAPSHOT_DEPTH - BinanceOrderBookStream.DEPTH;
+		callback.onResponse(event(11, 11, levels(removed, 0)));
+		assertTrue(stream.isSynchronized());
+		assertEquals(1, snapshotLimits.size());
+		assertEquals(101.0 + removed, stream.book.getAverageAskAmount(1), 0.0);
+
+		// one more level removed: levels beyond the ones kept are unknown, so the book is reloaded
+		snapshotUpdateId = 12;
+		callback.onResponse(event(12, 12, Collections.singletonList(entry(101.0 + removed, 0))));
+		long timeout = System.currentTimeMillis() + 10_000;
+		while (snapshotLimits.size() < 2) {
+			assertTrue("Timeout waiting for order book reload", System.currentTimeMillis() < timeout);
+			Thread.sleep(10);
+		}
+		waitUntilSynchronized(stream);
+		assertEquals(2, snapshotLimits.size());
+		assertEquals(BinanceOrderBookStream.SNAPSHOT_DEPTH, stream.book.getAsks().size());
+
+		stream.close();
+	}
+}
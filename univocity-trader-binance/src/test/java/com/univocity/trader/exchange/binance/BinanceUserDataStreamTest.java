@@ -0,0 +1,207 @@
+package com.univocity.trader.exchange.binance;
+
+import com.fasterxml.jackson.databind.*;
+import com.univocity.trader.account.*;
+import com.univocity.trader.exchange.binance.api.client.*;
+import com.univocity.trader.exchange.binance.api.client.domain.event.*;
+import org.asynchttpclient.ws.*;
+import org.junit.*;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static org.junit.Assert.*;
+
+public class BinanceUserDataStreamTest {
+
+	private static final String EXECUTION_REPORT = "{\"e\":\"executionReport\",\"E\":1499405658658,\"s\":\"ETHBTC\",\"c\":\"mUvoqJxFIILMdfAW5iGSOW\",\"S\":\"BUY\"," +
+			"\"o\":\"LIMIT\",\"f\":\"GTC\",\"q\":\"1.00000000\",\"p\":\"0.10264410\",\"P\":\"0.00000000\",\"F\":\"0.00000000\",\"g\":-1,\"C\":\"\"," +
+			"\"x\":\"TRADE\",\"X\":\"PARTIALLY_FILLED\",\"r\":\"NONE\",\"i\":4293153,\"l\":\"0.40000000\",\"z\":\"0.40000000\",\"L\":\"0.10264410\"," +
+			"\"n\":\"0.00000400\",\"N\":\"BNB\",\"T\":1499405658657,\"t\":1234,\"I\":8641984,\"w\":true,\"m\":false,\"M\":false,\"O\":1499405658657," +
+			"\"Z\":\"0.04105764\",\"Y\":\"0.04105764\",\"Q\":\"0.00000000\"}";
+
+	private final AtomicInteger closeFrames = new AtomicInteger();
+	private final List<String> listenKeys = new CopyOnWriteArrayList<>();
+	private final List<String> keptAlive = new CopyOnWriteArrayList<>();
+	private volatile boolean keepAliveFails;
+	private volatile BinanceApiCallback<UserDataUpdateEvent> callback;
+
+	private final AtomicInteger connections = new AtomicInteger();
+	private final AtomicInteger disconnections = new AtomicInteger();
+	private final List<String> updates = new ArrayList<>();
+	private final List<UnaryOperator<Order>> updateFunctions = new ArrayList<>();
+
+	private final OrderUpdateListener listener = new OrderUpdateListener() {
+		@Override
+		public void orderUpdated(String symbol, String orderId, UnaryOperator<Order> update) {
+			updates.add(symbol + " " + orderId);
+			updateFunctions.add(update);
+		}
+
+		@Override
+		public void connected() {
+			connections.incrementAndGet();
+		}
+
+		@Override
+		public void disconnected() {
+			disconnections.incrementAndGet();
+		}
+	};
+
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(Class<T> type, BiFunction<String, Object[], Object> methods) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+			if (method.getDeclaringClass() == Object.class) {
+				return method.getName().equals("equals") ? proxy == args[0] : method.getName().equals("hashCode") ? System.identityHashCode(proxy) : type.getSimpleName();
+			}
+			return methods.apply(method.getName(), args);
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private BinanceUserDataStream start() throws InterruptedException {
+		BinanceApiRestClient client = stub(BinanceApiRestClient.class, (method, args) -> {
+			if (method.equals("startUserDataStream")) {
+				return "listen-key-" + (listenKeys.size() + 1);
+			}
+			if (method.equals("keepAliveUserDataStream")) {
+				if (keepAliveFails) {
+					throw new IllegalStateException("Listen key expired");
+				}
+				keptAlive.add((String) args[0]);
+				return null;
+			}
+			throw new UnsupportedOperationException(method);
+		});
+		WebSocket socket = stub(WebSocket.class, (method, args) -> {
+			if (method.equals("sendCloseFrame")) {
+				closeFrames.incrementAndGet();
+				return null;
+			}
+			throw new UnsupportedOperationException(method);
+		});
+		BinanceApiWebSocketClient socketClient = stub(BinanceApiWebSocketClient.class, (method, args) -> {
+			if (method.equals("onUserDataUpdateEvent")) {
+				listenKeys.add((String) args[0]);
+				callback = (BinanceApiCallback<UserDataUpdateEvent>) args[1];
+				return socket;
+			}
+			throw new UnsupportedOperationException(method);
+		});
+
+		BinanceUserDataStream stream = new BinanceUserDataStream(client, socketClient, listener, BinanceClientAccount::translate);
+		stream.start();
+		waitForConnections(1);
+		assertEquals(Collections.singletonList("listen-key-1"), listenKeys);
+		return stream;
+	}
+
+	private void waitForConnections(int count) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 10_000;
+		while (connections.get() < count) {
+			assertTrue("Timeout waiting for connection", System.currentTimeMillis() < timeout);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testOrderTradeUpdate() throws Exception {
+		BinanceUserDataStream stream = start();
+		try {
+			callback.onResponse(new ObjectMapper().readValue(EXECUTION_REPORT, UserDataUpdateEvent.class));
+			assertEquals(Collections.singletonList("ETHBTC 4293153"), updates);
+
+			Order original = new Order(7, "ETH", "BTC", Order.Side.BUY, Trade.Side.LONG, 1499405600000L);
+			original.setOrderId("4293153");
+			original.setType(Order.Type.LIMIT);
+			original.setStatus(Order.Status.NEW);
+			original.setQuantity(1.0);
+			original.setPrice(0.1026441);
+
+			Order updated = updateFunctions.get(0).apply(original);
+			assertNotSame(original, updated);
+			assertEquals(7, updated.getInternalId());
+			assertEquals("4293153", updated.getOrderId());
+			assertEquals("ETH", updated.getAssetsSymbol());
+			assertEquals("BTC", updated.getFundsSymbol());
+			assertEquals(Order.Side.BUY, updated.getSide());
+			assertEquals(Order.Type.LIMIT, updated.getType());
+			assertEquals(Order.Status.PARTIALLY_FILLED, updated.getStatus());
+			assertEquals(1.0, updated.getQuantity(), 0.0);
+			assertEquals(0.4, updated.getExecutedQuantity(), 0.0);
+			assertEquals(0.1026441, updated.getPrice(), 0.0);
+			assertEquals(1499405600000L, updated.getTime());
+
+			// other events are ignored
+			UserDataUpdateEvent accountUpdate = new UserDataUpdateEvent();
+			accountUpdate.setEventType(UserDataUpdateEvent.UserDataUpdateEventType.ACCOUNT_UPDATE);
+			callback.onResponse(accountUpdate);
+			assertEquals(1, updates.size());
+			assertEquals(0, disconnections.get());
+		} finally {
+			stream.close();
+		}
+		assertEquals(1, closeFrames.get());
+	}
+
+	@Test
+	public void testDisconnection() throws Exception {
+		BinanceUserDataStream stream = start();
+		callback.onClose();
+		assertEquals(1, disconnections.get());
+
+		stream.close();
+		assertEquals(0, closeFrames.get()); // socket already closed by the exchange
+
+		callback.onClose();
+		assertEquals("Closed streams must not reconnect", 1, disconnections.get());
+		assertEquals(1, listenKeys.size());
+	}
+
+	@Test
+	public void testReconnectsOnFailure() throws Exception {
+		BinanceUserDataStream stream = start();
+		try {
+			BinanceApiCallback<UserDataUpdateEvent> failed = callback;
+			failed.onFailure(new IOException("Connection reset"));
+			assertEquals(1, disconnections.get());
+			assertEquals(1, closeFrames.get());
+
+			// events of the failed connection are ignored
+			failed.onClose();
+			assertEquals(1, disconnections.get());
+
+			waitForConnections(2);
+			assertEquals(Arrays.asList("listen-key-1", "listen-key-2"), listenKeys);
+		} finally {
+			stream.close();
+		}
+	}
+
+	@Test
+	public void testReconnectsWhenListenKeyExpires() throws Exception {
+		BinanceUserDataStream stream = start();
+		try {
+			stream.keepAlive();
+			assertEquals(Collections.singletonList("listen-key-1"), keptAlive);
+			assertEquals(0, disconnections.get());
+
+			keepAliveFails = true;
+			stream.keepAlive();
+			assertEquals(1, disconnections.get());
+			assertEquals(1, closeFrames.get());
+
+			keepAliveFails = false;
+			waitForConnections(2);
+			stream.keepAlive();
+			assertEquals(Arrays.asList("listen-key-1", "listen-key-2"), keptAlive);
+		} finally {
+			stream.close();
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.univocity.trader.exchange.binance.api.client.domain.event;
+
+import com.fasterxml.jackson.databind.*;
+import org.junit.*;
+
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+public class CandlestickEventDecoderTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final String KLINE = "{\"e\":\"kline\",\"E\":1591261134288,\"s\":\"BTCUSDT\",\"k\":{\"t\":1591261080000,\"T\":1591261139999,\"s\":\"BTCUSDT\",\"i\":\"1m\",\"f\":347658212,\"L\":347658445,\"o\":\"9669.27000000\",\"c\":\"9670.51000000\",\"h\":\"9672.00000000\",\"l\":\"9667.73000000\",\"v\":\"14.06898600\",\"n\":234,\"x\":false,\"q\":\"136048.46328834\",\"V\":\"8.41862100\",\"Q\":\"81411.34584931\",\"B\":\"0\"}}";
+	private static final String FINAL_KLINE = "{\"e\":\"kline\",\"E\":1591261140003,\"s\":\"BTCUSDT\",\"k\":{\"t\":1591261080000,\"T\":1591261139999,\"s\":\"BTCUSDT\",\"i\":\"1m\",\"f\":347658212,\"L\":347658471,\"o\":\"9669.27000000\",\"c\":\"9670.04000000\",\"h\":\"9672.00000000\",\"l\":\"9667.73000000\",\"v\":\"15.31225800\",\"n\":260,\"x\":true,\"q\":\"148070.71741372\",\"V\":\"8.91162600\",\"Q\":\"86178.56298441\",\"B\":\"0\"}}";
+
+	private final CandlestickEventDecoder decoder = new CandlestickEventDecoder();
+
+	private CandlestickEvent decodeAndCompare(String payload) throws IOException {
+		CandlestickEvent expected = MAPPER.readValue(payload, CandlestickEvent.class);
+		DecodedCandlestickEvent actual = (DecodedCandlestickEvent) decoder.apply(payload);
+
+		assertEquals(expected.getEventType(), actual.getEventType());
+		assertEquals(expected.getEventTime(), actual.getEventTime());
+		assertEquals(expected.getSymbol(), actual.getSymbol());
+		assertEquals(expected.getIntervalId(), actual.getIntervalId());
+		assertEquals(expected.getFirstTradeId(), actual.getFirstTradeId());
+		assertEquals(expected.getLastTradeId(), actual.getLastTradeId());
+		assertEquals(expected.getOpenTime(), actual.getOpenTime());
+		assertEquals(expected.getCloseTime(), actual.getCloseTime());
+		assertEquals(expected.getOpen(), actual.getOpen());
+		assertEquals(expected.getHigh(), actual.getHigh());
+		assertEquals(expected.getLow(), actual.getLow());
+		assertEquals(expected.getClose(), actual.getClose());
+		assertEquals(expected.getVolume(), actual.getVolume());
+		assertEquals(expected.getNumberOfTrades(), actual.getNumberOfTrades());
+		assertEquals(expected.getBarFinal(), actual.getBarFinal());
+		assertEquals(expected.getQuoteAssetVolume(), actual.getQuoteAssetVolume());
+		assertEquals(expected.getTakerBuyBaseAssetVolume(), actual.getTakerBuyBaseAssetVolume());
+		assertEquals(expected.getTakerBuyQuoteAssetVolume(), actual.getTakerBuyQuoteAssetVolume());
+
+		assertEquals(expected.getOpenTime().longValue(), actual.getOpenTimeMillis());
+		assertEquals(expected.getCloseTime().longValue(), actual.getCloseTimeMillis());
+		assertEquals(Double.parseDouble(expected.getOpen()), actual.getOpenValue(), 0.0);
+		assertEquals(Double.parseDouble(expected.getHigh()), actual.getHighValue(), 0.0);
+		assertEquals(Double.parseDouble(expected.getLow()), actual.getLowValue(), 0.0);
+		assertEquals(Double.parseDouble(expected.getClose()), actual.getCloseValue(), 0.0);
+		assertEquals(Double.parseDouble(expected.getVolume()), actual.getVolumeValue(), 0.0);
+		return actual;
+	}
+
+	@Test
+	public void testKlinePayloads() throws IOException {
+		CandlestickEvent event = decodeAndCompare(KLINE);
+		assertEquals("BTCUSDT", event.getSymbol());
+		assertEquals(9670.51, ((DecodedCandlestickEvent) event).getCloseValue(), 0.0);
+		assertFalse(event.getBarFinal());
+
+		CandlestickEvent last = decodeAndCompare(FINAL_KLINE);
+		assertTrue(last.getBarFinal());
+		assertEquals(260L, last.getNumberOfTrades().longValue());
+
+		// same symbol instance for every event
+		assertSame(event.getSymbol(), last.getSymbol());
+	}
+
+	@Test
+	public void testReorderedAndUnknownFields() throws IOException {
+		String payload = "{ \"k\" : { \"x\" : true, \"Q\":\"81411.34584931\", \"V\":\"8.41862100\", \"q\":\"136048.46328834\", \"n\":234, " +
+				"\"v\":\"14.06898600\", \"l\":\"9667.73000000\", \"h\":\"9672.00000000\", \"c\":\"9670.51000000\", \"o\":\"9669.27000000\", " +
+				"\"L\":347658445, \"f\":347658212, \"i\":\"1m\", \"s\":\"BTCUSDT\", \"T\":1591261139999, \"t\":1591261080000, \"B\":\"0\", \"unknown\":null },\n" +
+				"\t\"s\":\"BTCUSDT\", \"extra\": false, \"E\":1591261134288, \"e\":\"kline\", \"flag\": true, \"id\": 12 }";
+		CandlestickEvent event = decodeAndCompare(payload);
+		assertTrue(event.getBarFinal());
+		assertEquals(1591261080000L, event.getOpenTime().longValue());
+	}
+
+	@Test
+	public void testEscapedStrings() throws IOException {
+		String payload = "{\"e\":\"kl\\u0069ne\",\"E\":1591261134288,\"note\":\"a \\\"quoted\\\" value with \\\\, } and ]\",\"s\":\"BTC\\u0055SDT\"," +
+				"\"k\":{\"t\":1591261080000,\"T\":1591261139999,\"s\":\"BTCUSDT\",\"i\":\"1\\/m\",\"f\":347658212,\"L\":347658445,\"o\":\"9669.27000000\"," +
+				"\"c\":\"9670.51000000\",\"h\":\"9672.00000000\",\"l\":\"9667.73000000\",\"v\":\"14.06898600\",\"n\":234,\"x\":false,\"q\":\"136048.46328834\"," +
+				"\"V\":\"8.41862100\",\"Q\":\"81411.34584931\",\"B\":\"\\\"}\"}}";
+		CandlestickEvent event = decodeAndCompare(payload);
+		assertEquals("kline", event.getEventType());
+		assertEquals("BTCUSDT", event.getSymbol());
+		assertEquals("1/m", event.getIntervalId());
+	}
+
+	@Test
+	public void testNestedObjects() throws IOException {
+		String payload = "{\"e\":\"kline\",\"E\":1591261134288,\"meta\":{\"k\":{\"t\":1},\"list\":[1,{\"x\":\"]}\"},[2,3]],\"empty\":{}},\"s\":\"BTCUSDT\"," +
+				"\"k\":{\"t\":1591261080000,\"T\":1591261139999,\"s\":\"BTCUSDT\",\"i\":\"1m\",\"f\":347658212,\"L\":347658445,\"o\":\"9669.27000000\"," +
+				"\"extra\":{\"o\":\"1\",\"c\":[\"2\"]},\"c\":\"9670.51000000\",\"h\":\"9672.00000000\",\"l\":\"9667.73000000\",\"v\":\"14.06898600\",\"n\":234," +
+				"\"levels\":[[\"9669.27\",\"1.0\"],[]],\"x\":false,\"q\":\"136048.46328834\",\"V\":\"8.41862100\",\"Q\":\"81411.34584931\",\"B\":\"0\"}}";
+		CandlestickEvent event = decodeAndCompare(payload);
+		assertEquals("9669.27000000", event.getOpen());
+		assertEquals("9670.51000000", event.getClose());
+	}
+
+	@Test
+	public void testExponentAndNegativeNumbers() throws IOException {
+		String payload = "{\"e\":\"kline\",\"E\":1591261134288,\"s\":\"SHIBUSDT\",\"rate\":-1.5e-3,\"k\":{\"t\":1591261080000,\"T\":1591261139999," +
+				"\"s\":\"SHIBUSDT\",\"i\":\"1m\",\"f\":-1,\"L\":-1,\"o\":\"1.5E-7\",\"c\":\"-0.00000021\",\"h\":\"2.5e-7\",\"l\":\"1E-7\",\"v\":\"1.2345E+10\"," +
+				"\"n\":0,\"x\":false,\"q\":\"0\",\"V\":\"-0\",\"Q\":\"0.0\",\"B\":-2E+5}}";
+		DecodedCandlestickEvent event = (DecodedCandlestickEvent) decodeAndCompare(payload);
+		assertEquals(-1L, event.getFirstTradeId().longValue());
+		assertEquals(-1L, event.getLastTradeId().longValue());
+		assertEquals(1.5E-7, event.getOpenValue(), 0.0);
+		assertEquals(-0.00000021, event.getCloseValue(), 0.0);
+		assertEquals(1.2345E+10, event.getVolumeValue(), 0.0);
+	}
+
+	@Test
+	public void testTruncatedMessage() {
+		for (int length = 0; length < KLINE.length(); length++) {
+			String truncated = KLINE.substring(0, length);
+			try {
+				decoder.apply(truncated);
+				fail("Expected truncated message to be rejected: " + truncated);
+			} catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage(), e.getMessage().endsWith(truncated));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTrailingContent() {
+		decoder.apply(KLINE + "}");
+	}
+}
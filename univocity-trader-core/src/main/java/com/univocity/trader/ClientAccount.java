@@ -4,6 +4,7 @@ import com.univocity.trader.account.*;
 import com.univocity.trader.candles.*;
 import com.univocity.trader.config.*;
 
+import java.util.*;
 import java.util.concurrent.*;
 
 /**
@@ -123,6 +124,48 @@ public interface ClientAccount {
 	 */
 	Order updateOrderStatus(Order order);
 
+	/**
+	 * Updates the status of all open {@link Order}s of a given symbol at once. Used by the {@link AccountManager} to poll the exchange
+	 * at the interval specified by {@link OrderManager#getOrderUpdateFrequency) with a single batch of requests for all orders of the symbol.
+	 *
+	 * Implementations connected to exchanges that can list the open orders of a symbol in one request should override this method
+	 * to do so. By default, the status of each order is updated individually via {@link #updateOrderStatus(Order)}.
+	 *
+	 * @param symbol the symbol of all orders whose status needs to be updated.
+	 * @param orders the orders whose status needs to be updated.
+	 *
+	 * @return the updated orders, in the same sequence of the given orders.
+	 */
+	default List<Order> updateOrderStatuses(String symbol, List<Order> orders) {
+		List<Order> out = new ArrayList<>(orders.size());
+		for (Order order : orders) {
+			out.add(updateOrderStatus(order));
+		}
+		return out;
+	}
+
+	/**
+	 * Starts receiving updates on orders of this account pushed by the exchange, if supported. Implementations must
+	 * invoke {@link OrderUpdateListener#connected()} once the stream is established and
+	 * {@link OrderUpdateListener#disconnected()} when it is interrupted. Until connected, open orders are polled
+	 * with {@link #updateOrderStatuses(String, List)}.
+	 *
+	 * By default, order updates are not streamed and all open orders are polled.
+	 *
+	 * @param listener the listener to be notified of updates on any order of this account.
+	 */
+	default void streamOrderUpdates(OrderUpdateListener listener) {
+
+	}
+
+	/**
+	 * Releases any resources held by this account, such as connections opened to stream data from the exchange. Invoked
+	 * when trading stops. By default, does nothing.
+	 */
+	default void close() {
+
+	}
+
 	/**
 	 * Cancels a given {@link Order} if it has not been {@code FILLED} yet.
 	 *
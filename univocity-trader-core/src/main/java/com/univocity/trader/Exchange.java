@@ -79,6 +79,23 @@ public interface Exchange<T, C extends AccountConfiguration<C>> {
 	 */
 	PreciseCandle generatePreciseCandle(T exchangeCandle);
 
+	/**
+	 * Converts an {@code Exchange}-specific candle/tick to a {@link Candle} used for in-memory calculations. Invoked for
+	 * every tick received from the exchange, while {@link #generatePreciseCandle(Object)} is only invoked when a
+	 * candle needs to be stored.
+	 *
+	 * By default, the {@link Candle} is created from the result of {@link #generatePreciseCandle(Object)}. Implementations
+	 * should override this method to produce the {@link Candle} directly, without the cost of producing {@code BigDecimal}
+	 * values.
+	 *
+	 * @param exchangeCandle the {@code Exchange}-specific candle/tick details whose data need to be converted into a {@link Candle}.
+	 *
+	 * @return a {@link Candle} populated with all details available from the given exchange-specific candle
+	 */
+	default Candle generateCandle(T exchangeCandle) {
+		return new Candle(generatePreciseCandle(exchangeCandle));
+	}
+
 	/**
 	 * Starts a thread that periodically sends a keep-alive message to the underlying connection.
 	 */
@@ -203,7 +220,8 @@ public interface Exchange<T, C extends AccountConfiguration<C>> {
 
 	/**
 	 * Returns the minimum time interval required to wait before executing a request for data from the exchange.
-	 * This interval is used in {@link #waitBeforeNextRequest(long)}.
+	 * This interval is used in {@link #waitBeforeNextRequest(long)}, and by {@link CandleHistoryBackfill} to pace
+	 * the requests made for all symbols being backfilled at the same time.
 	 *
 	 * @return the time to wait per request.
 	 */
@@ -215,9 +233,6 @@ public interface Exchange<T, C extends AccountConfiguration<C>> {
 	 * Convenience method used to pace the rate at which requests to the exchange are made. Will make the current
 	 * thread sleep for the time interval specified by {@link #timeToWaitPerRequest()}.
 	 *
-	 * Currently used to when historical data increments are requested when performing a history
-	 * backfill through {@link CandleHistoryBackfill#fillHistoryGaps(Exchange, String, Instant, Instant, TimeInterval)}
-	 *
 	 * @param lastRequestTime timestamp of last request made, use to discount the time already spent processing
 	 *                        the response received from the previous request.
 	 */
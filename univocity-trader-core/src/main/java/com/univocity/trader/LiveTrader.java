@@ -20,6 +20,12 @@ import java.util.function.*;
 import static com.univocity.trader.indicators.base.TimeInterval.*;
 
 /**
+ * Trades live on an {@link Exchange}, feeding every client with candles received from the exchange's live stream, or
+ * polled from the exchange when the stream stops delivering them.
+ *
+ * Candles of each symbol are processed in their own lane, in the order received, on a shared pool of threads. The live
+ * stream (and its reconnections) and candle polling run as tasks of a supervisor, all stopped by {@link #close()}.
+ *
  * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
  */
 public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends AccountConfiguration<A>> implements Closeable {
@@ -38,55 +44,80 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 	private C configuration;
 	private DatabaseCandleRepository candleRepository;
 
-	private class PollThread extends Thread {
-		public PollThread() {
-			super(ThreadName.generateNewName() + "candle poller");
+	private ScheduledExecutorService supervisor;
+	private ExecutorService candleProcessor;
+	private final Map<String, SerialExecutor> symbolLanes = new ConcurrentHashMap<>();
+	private volatile boolean closed;
+
+	private static ThreadFactory daemonThreads(String name) {
+		AtomicInteger count = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private void startRuntime() {
+		if (supervisor == null) {
+			supervisor = Executors.newScheduledThreadPool(2, daemonThreads("Live trader supervisor"));
+			candleProcessor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), daemonThreads("Candle processor"));
 		}
+	}
 
-		public void run() {
-			while (true) {
-				try {
-					long now = System.currentTimeMillis();
-					if (now - lastHour > HOUR.ms) {
-						lastHour = System.currentTimeMillis();
-						log.info("Updating balances");
-						clients.forEach(Client::updateBalances);
-					}
+	/**
+	 * Processes a tick of a symbol in all clients. Ticks of the same symbol are processed one at a time, in the order
+	 * received, while ticks of different symbols are processed in parallel.
+	 */
+	private void processTick(String symbol, T tick) {
+		symbolLanes.computeIfAbsent(symbol, s -> new SerialExecutor(candleProcessor)).execute(() -> {
+			for (int i = 0; i < clients.size(); i++) {
+				clients.get(i).processCandle(symbol, tick, false);
+			}
+		});
+	}
 
-					int[] count = new int[]{0};
-
-					symbols.forEach((symbol, lastUpdate) -> {
-						if (lastUpdate == null || (now - lastUpdate) > tickInterval.ms) {
-							count[0]++;
-							try {
-								log.info("Polling next candle for {} as we didn't get an update since {}", symbol, lastUpdate == null ? "N/A" : Candle.getFormattedDateTimeWithYear(lastUpdate));
-								T tick = exchange.getLatestTick(symbol, tickInterval);
-								if (tick != null) {
-									symbols.put(symbol, now);
-									clients.parallelStream().forEach(c -> c.processCandle(symbol, tick, false));
-								}
-							} catch (Exception e) {
-								TimeInterval waitTime = exchange.handlePollingException(symbol, e);
-								if (waitTime != null) {
-									LiveTrader.sleep(waitTime.ms);
-								}
-							}
-							LiveTrader.sleep(500);
-						}
-					});
+	private void pollCandles() {
+		try {
+			long now = System.currentTimeMillis();
+			if (now - lastHour > HOUR.ms) {
+				lastHour = System.currentTimeMillis();
+				log.info("Updating balances");
+				clients.forEach(Client::updateBalances);
+			}
 
-					if (count[0] == symbols.size()) { //all symbols being polled.
-						log.info("Websocket seems to be offline, trying to start it up");
-						retryRunWebsocket();
+			int count = 0;
+			for (Map.Entry<String, Long> e : symbols.entrySet()) {
+				if (closed) {
+					return;
+				}
+				String symbol = e.getKey();
+				Long lastUpdate = e.getValue();
+				if (lastUpdate == null || (now - lastUpdate) > tickInterval.ms) {
+					count++;
+					try {
+						log.info("Polling next candle for {} as we didn't get an update since {}", symbol, lastUpdate == null ? "N/A" : Candle.getFormattedDateTimeWithYear(lastUpdate));
+						T tick = exchange.getLatestTick(symbol, tickInterval);
+						if (tick != null) {
+							symbols.put(symbol, now);
+							processTick(symbol, tick);
+						}
+					} catch (Exception ex) {
+						TimeInterval waitTime = exchange.handlePollingException(symbol, ex);
+						if (waitTime != null) {
+							LiveTrader.sleep(waitTime.ms);
+						}
 					}
-
-					LiveTrader.sleep(5_000);
-				} catch (Exception e) {
-					log.error("Error polling Candles", e);
+					LiveTrader.sleep(500);
 				}
+			}
 
+			if (count == symbols.size()) { //all symbols being polled.
+				log.info("Websocket seems to be offline, trying to start it up");
+				retryRunWebsocket();
 			}
-			//List<Candle> Candles = client.getCandlestickBars("NEOETH", CandlestickInterval.ONE_MINUTE, 1, null, null);
+		} catch (Exception e) {
+			log.error("Error polling Candles", e);
 		}
 	}
 
@@ -94,7 +125,7 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 		try {
 			Thread.sleep(time);
 		} catch (InterruptedException e) {
-			log.error("Thread polling interrupted", e);
+			Thread.currentThread().interrupt();
 		}
 	}
 
@@ -126,7 +157,7 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 
 	private void initialize() {
 		this.tickInterval = configuration.tickInterval();
-		SignalRepository signalRepository = configuration.signalRepositoryDir() == null ? null : new SignalRepository(configuration.signalRepositoryDir());
+		SignalRepository signalRepository = configuration.signalRepositoryDir() == null ? null : new SignalRepository(configuration.signalRepositoryDir()).binaryFormat(configuration.binarySignals());
 
 		if (clients.isEmpty()) {
 			for (var account : configuration.accounts()) {
@@ -168,13 +199,11 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 
 		if (configuration.updateHistoryBeforeLiveTrading()) {
 			//fill history with last 30 days of data
-			for (String symbol : allPairs.keySet()) {
-				backfill.fillHistoryGaps(exchange, symbol, Instant.now().minus(30, ChronoUnit.DAYS), tickInterval);
-			}
+			backfill.fillHistoryGaps(exchange, allPairs.keySet(), Instant.now().minus(30, ChronoUnit.DAYS), null, tickInterval);
 
 			//quick update for the last 30 minutes in case the previous step takes too long and we miss a few ticks
+			backfill.fillHistoryGaps(exchange, allPairs.keySet(), Instant.now().minus(30, ChronoUnit.MINUTES), null, tickInterval);
 			for (String symbol : allPairs.keySet()) {
-				backfill.fillHistoryGaps(exchange, symbol, Instant.now().minus(30, ChronoUnit.MINUTES), tickInterval);
 				symbols.put(symbol, System.currentTimeMillis());
 			}
 
@@ -221,18 +250,14 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 
 
 	private void runLiveStream() {
-		Thread thread = new Thread(() -> {
+		if (closed) {
+			return;
+		}
+		startRuntime();
+		supervisor.execute(() -> {
 			log.debug("Starting web socket. Retry count: {}", retryCount);
 			if (retryCount.get() > 0) {
-				try {
-					close();
-				} catch (Exception e) {
-					log.error("Error closing socket", e);
-				}
-			} else {
-				if (configuration.pollCandles()) {
-					new PollThread().start();
-				}
+				closeLiveStream();
 			}
 
 			exchange.openLiveStream(allClientPairs, tickInterval, new TickConsumer<T>() {
@@ -241,7 +266,7 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 					String symbol = s.trim().toUpperCase();
 					long now = System.currentTimeMillis();
 					symbols.put(symbol, now);
-					clients.forEach(c -> c.processCandle(symbol, tick, false));
+					processTick(symbol, tick);
 				}
 
 				@Override
@@ -256,10 +281,11 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 				}
 			});
 		});
-		thread.setName(ThreadName.generateNewName());
-		thread.start();
 
 		if (retryCount.get() == 0) {
+			if (configuration.pollCandles()) {
+				supervisor.scheduleWithFixedDelay(this::pollCandles, 0, 5, TimeUnit.SECONDS);
+			}
 			clients.forEach(c -> {
 				c.updateBalances();
 				c.sendBalanceEmail("Trading robot started. Here is your current position.");
@@ -268,8 +294,11 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 	}
 
 	private void retryRunWebsocket() {
+		if (closed) {
+			return;
+		}
 		try {
-			close();
+			closeLiveStream();
 		} finally {
 			retryCount.incrementAndGet();
 			runLiveStream();
@@ -280,18 +309,43 @@ public abstract class LiveTrader<T, C extends Configuration<C, A>, A extends Acc
 		return exchange;
 	}
 
+	private void closeLiveStream() {
+		if (exchange != null) {
+			try {
+				exchange.closeLiveStream();
+			} catch (Exception e) {
+				log.error("Error closing socket client connection", e);
+			}
+		}
+	}
+
+	/**
+	 * Stops live trading: closes the live stream, stops polling for candles, waits briefly for the candles
+	 * received so far to be processed and closes the account of every client, which also stops polling the status of
+	 * their orders.
+	 */
 	@Override
 	public void close() {
-		try {
-			if (exchange != null) {
-				try {
-					exchange.closeLiveStream();
-				} catch (Exception e) {
-					log.error("Error closing socket client connection", e);
+		closed = true;
+		if (supervisor != null) {
+			supervisor.shutdownNow();
+		}
+		closeLiveStream();
+		if (candleProcessor != null) {
+			candleProcessor.shutdown();
+			try {
+				if (!candleProcessor.awaitTermination(10, TimeUnit.SECONDS)) {
+					log.warn("Timeout waiting for candles to be processed");
+					candleProcessor.shutdownNow();
 				}
+			} catch (InterruptedException e) {
+				candleProcessor.shutdownNow();
+				Thread.currentThread().interrupt();
 			}
-		} catch (Exception e) {
-			throw new IllegalStateException(e);
+		}
+		clients.forEach(Client::close);
+		if (candleRepository != null) {
+			candleRepository.close();
 		}
 	}
 }
@@ -120,6 +120,14 @@ public final class SymbolPriceDetails {
 		return getIntOrDefault(info, SymbolInformation::quantityDecimalPlaces, Balance.ROUND_MC.getPrecision());
 	}
 
+	public int priceDecimals() {
+		return getPriceDecimals(info);
+	}
+
+	public int quantityDecimals() {
+		return getQuantityDecimals(info);
+	}
+
 	public String quantityToString(double quantity) {
 		return toString(getQuantityDecimals(info), quantity);
 	}
@@ -21,11 +21,8 @@ import static com.univocity.trader.indicators.base.TimeInterval.*;
 
 public class AccountManager implements ClientAccount {
 	private static final Logger log = LoggerFactory.getLogger(AccountManager.class);
-	private static final AtomicLong NULL = new AtomicLong(0);
 	private final AtomicLong tradeIdGenerator = new AtomicLong(0);
 
-	final Map<String, AtomicLong> balanceUpdateCounts = new ConcurrentHashMap<>();
-
 	final AccountConfiguration<?> configuration;
 
 	private static final long BALANCE_EXPIRATION_TIME = minutes(10).ms;
@@ -33,19 +30,22 @@ public class AccountManager implements ClientAccount {
 
 	private long lastBalanceSync = 0L;
 	final ConcurrentHashMap<String, Balance> balances = new ConcurrentHashMap<>();
-	Balance[] balancesArray;
+	private Balance[] balancesArray;
+	private int[] balanceSymbolIds;
+	private Balance[] balancesById;
+	final SymbolRegistry symbols;
 	private final Lock balanceLock;
 
 	final Client client;
 	private final ClientAccount account;
 	final double marginReserveFactor;
 	final double marginReserveFactorPct;
-	private final int accountHash;
 
 	final Map<String, double[]> latestPrices = new HashMap<>();
 	private static final double[] DEFAULT = new double[]{-1.0};
 	Map<String, TradingManager[]> tradingManagers;
 	final Supplier<SignalRepository> signalRepository;
+	private final OrderUpdateStream orderUpdateStream = new OrderUpdateStream(this);
 
 	public AccountManager(ClientAccount account, AccountConfiguration<?> configuration, Supplier<SignalRepository> signalRepository) {
 		if (StringUtils.isBlank(configuration.referenceCurrency())) {
@@ -54,9 +54,9 @@ public class AccountManager implements ClientAccount {
 		if (configuration.getAllSymbolPairs().isEmpty()) {
 			throw new IllegalConfigurationException("Please configure traded symbol pairs");
 		}
-		this.accountHash = configuration.id().hashCode();
 		this.account = account;
 		this.configuration = configuration;
+		this.symbols = new SymbolRegistry(configuration.getAllSymbolPairs(), configuration.referenceCurrency());
 
 		this.marginReserveFactor = account.marginReservePercentage() / 100.0;
 		this.marginReserveFactorPct = marginReserveFactor;
@@ -101,11 +101,70 @@ public class AccountManager implements ClientAccount {
 		if (out == null) {
 			out = new Balance(this, symbol);
 			balances.put(symbol, out);
-			balancesArray = null;
+			balancesChanged();
 		}
 		return out;
 	}
 
+	private Balance getBalance(int symbolId) {
+		Balance[] byId = balancesById;
+		if (byId == null) {
+			indexBalances();
+			byId = balancesById;
+		}
+		Balance out = symbolId < byId.length ? byId[symbolId] : null;
+		return out != null ? out : getBalance(symbols.symbol(symbolId));
+	}
+
+	/**
+	 * Discards the arrays of balances indexed by symbol ID. Must be invoked whenever {@link #balances} is modified.
+	 */
+	final void balancesChanged() {
+		balancesArray = null;
+		balancesById = null;
+	}
+
+	private void indexBalances() {
+		Balance[] array = new Balance[balances.size()];
+		int[] ids = new int[array.length];
+		Balance[] byId = new Balance[symbols.size()];
+		int i = 0;
+		for (Map.Entry<String, Balance> e : balances.entrySet()) {
+			if (i == array.length) {
+				break; //modified concurrently, will be indexed again
+			}
+			int id = symbols.id(e.getKey());
+			if (id >= byId.length) {
+				byId = Arrays.copyOf(byId, symbols.size());
+			}
+			byId[id] = array[i] = e.getValue();
+			ids[i++] = id;
+		}
+		if (i < array.length) {
+			array = Arrays.copyOf(array, i);
+			ids = Arrays.copyOf(ids, i);
+		}
+		balanceSymbolIds = ids;
+		balancesArray = array;
+		balancesById = byId;
+	}
+
+	/**
+	 * Returns the counter incremented whenever the {@link Balance} of the given symbol changes. Used to determine
+	 * whether funds allocated previously can be reused.
+	 *
+	 * @param symbol the symbol whose balance update counter will be returned
+	 *
+	 * @return the balance update counter of the symbol.
+	 */
+	AtomicLong balanceUpdateCount(String symbol) {
+		return symbols.balanceUpdateCount(symbols.id(symbol));
+	}
+
+	void clearBalanceUpdateCounts() {
+		symbols.clearBalanceUpdateCounts();
+	}
+
 	public final void consumeBalance(String symbol, Consumer<Balance> consumer) {
 		modifyBalance(symbol, consumer);
 	}
@@ -137,6 +196,15 @@ public class AccountManager implements ClientAccount {
 		}
 	}
 
+	final double getBalance(int symbolId, ToDoubleFunction<Balance> function) {
+		balanceLock.lock();
+		try {
+			return function.applyAsDouble(getBalance(symbolId));
+		} finally {
+			balanceLock.unlock();
+		}
+	}
+
 	boolean lockTrading(String assetSymbol) {
 		return queryBalance(assetSymbol, b -> {
 			if (b.isTradingLocked()) {
@@ -151,35 +219,25 @@ public class AccountManager implements ClientAccount {
 		modifyBalance(assetSymbol, Balance::unlockTrading);
 	}
 
-	private int hash(String assetSymbol, String fundSymbol, Trade.Side tradeSide) {
-		int result = 31 + accountHash;
-		result = 31 * result + assetSymbol.hashCode();
-		result = 31 * result + fundSymbol.hashCode();
-		result = 31 * result + tradeSide.hashCode();
-		return result;
-	}
-
-	final double allocateFunds(String assetSymbol, String fundSymbol, Trade.Side tradeSide, TradingManager tradingManager) {
-		long a = balanceUpdateCounts.getOrDefault(assetSymbol, NULL).get();
-		long f = balanceUpdateCounts.getOrDefault(fundSymbol, NULL).get();
-		Integer hash = hash(assetSymbol, fundSymbol, tradeSide);
-		long[] cached = tradingManager.fundAllocationCache.get(hash);
+	final double allocateFunds(Trade.Side tradeSide, TradingManager tradingManager) {
+		long a = tradingManager.assetBalanceUpdates.get();
+		long f = tradingManager.referenceBalanceUpdates.get();
+		long[] cached = tradingManager.fundAllocationCache[tradeSide.ordinal()];
 		if (cached == null) {
-			double funds = tradingManager.executeAllocateFunds(assetSymbol, fundSymbol, tradeSide);
+			double funds = tradingManager.executeAllocateFunds(tradeSide);
 			if (a > 0 && f > 0) {
 				cached = new long[3];
 				cached[0] = a;
 				cached[1] = f;
 				cached[2] = Double.doubleToLongBits(funds);
-				tradingManager.fundAllocationCache.put(hash, cached);
+				tradingManager.fundAllocationCache[tradeSide.ordinal()] = cached;
 			}
 			return funds;
 		} else if (cached[0] != a || cached[1] != f) {
 			cached[0] = a;
 			cached[1] = f;
-			double funds = tradingManager.executeAllocateFunds(assetSymbol, fundSymbol, tradeSide);
+			double funds = tradingManager.executeAllocateFunds(tradeSide);
 			cached[2] = Double.doubleToLongBits(funds);
-			tradingManager.fundAllocationCache.put(hash, cached);
 			return funds;
 		} else {
 			return Double.longBitsToDouble(cached[2]);
@@ -192,39 +250,43 @@ public class AccountManager implements ClientAccount {
 	}
 
 	public double getTotalFundsIn(String currency) {
-		final Balance[] tmp;
+		return getTotalFundsIn(symbols.find(currency));
+	}
+
+	final double getTotalFundsIn(int currencyId) {
 		balanceLock.lock();
 		double total = 0.0;
 		try {
 			if (balancesArray == null) {
-				tmp = balancesArray = balances.values().toArray(new Balance[0]);
-			} else {
-				tmp = balancesArray;
+				indexBalances();
 			}
+			final Balance[] tmp = balancesArray;
+			final int[] ids = balanceSymbolIds;
 			for (int i = 0; i < tmp.length; i++) {
 				Balance b = tmp[i];
-				String symbol = b.getSymbol();
+				int symbolId = ids[i];
 				double quantity = b.getTotal();
 
 				String[] shortedAssetSymbols = b.getShortedAssetSymbols();
 				for (int j = 0; j < shortedAssetSymbols.length; j++) {
 					String shorted = shortedAssetSymbols[j];
+					int shortedId = symbols.id(shorted);
 					double reserve = b.getMarginReserve(shorted);
 					double marginWithoutReserve = reserve / marginReserveFactorPct;
 					double accountBalanceForMargin = reserve - marginWithoutReserve;
-					double shortedQuantity = getBalance(shorted, Balance::getShorted);
+					double shortedQuantity = getBalance(shortedId).getShorted();
 					double originalShortedPrice = marginWithoutReserve / shortedQuantity;
 					double totalInvestmentOnShort = shortedQuantity * originalShortedPrice;
-					double totalAtCurrentPrice = multiplyWithLatestPrice(shortedQuantity, shorted, symbol);
+					double totalAtCurrentPrice = multiplyWithLatestPrice(shortedQuantity, shortedId, symbolId);
 					double shortProfitLoss = totalInvestmentOnShort - totalAtCurrentPrice;
 
 					total += accountBalanceForMargin + shortProfitLoss;
 				}
 
-				if (currency.equals(symbol)) {
+				if (currencyId == symbolId) {
 					total += quantity;
 				} else {
-					total += multiplyWithLatestPrice(quantity, symbol, currency);
+					total += multiplyWithLatestPrice(quantity, symbolId, currencyId);
 				}
 			}
 		} finally {
@@ -237,12 +299,17 @@ public class AccountManager implements ClientAccount {
 		return latestPrices.getOrDefault(symbol, DEFAULT)[0];
 	}
 
-	private double multiplyWithLatestPrice(double quantity, String symbol, String currency) {
-		double price = getLatestPrice(symbol + currency);
+	private double getLatestPrice(int assetId, int fundId) {
+		double[] price = symbols.getLatestPrice(assetId, fundId);
+		return price == null ? -1.0 : price[0];
+	}
+
+	private double multiplyWithLatestPrice(double quantity, int symbolId, int currencyId) {
+		double price = getLatestPrice(symbolId, currencyId);
 		if (price > 0.0) {
 			return quantity * price;
 		} else {
-			price = getLatestPrice(currency + symbol);
+			price = getLatestPrice(currencyId, symbolId);
 			if (price > 0.0) {
 				return quantity / price;
 			}
@@ -276,7 +343,7 @@ public class AccountManager implements ClientAccount {
 
 					this.balances.clear();
 					this.balances.putAll(updatedBalances);
-					this.balancesArray = null;
+					balancesChanged();
 
 
 					updatedBalances.values().removeIf(b -> b.getTotal() == 0);
@@ -336,11 +403,37 @@ public class AccountManager implements ClientAccount {
 		return ClientAccount.super.getTradingFees();
 	}
 
+	@Override
+	public void close() {
+		if (tradingManagers != null) {
+			forEachTradingManager(tradingManager -> tradingManager.orderTracker.close());
+		}
+		account.close();
+	}
+
 	@Override
 	public Order updateOrderStatus(Order order) {
 		return account.updateOrderStatus(order);
 	}
 
+	@Override
+	public List<Order> updateOrderStatuses(String symbol, List<Order> orders) {
+		return account.updateOrderStatuses(symbol, orders);
+	}
+
+	@Override
+	public void streamOrderUpdates(OrderUpdateListener listener) {
+		account.streamOrderUpdates(listener);
+	}
+
+	void startOrderUpdateStream() {
+		orderUpdateStream.start();
+	}
+
+	boolean isStreamingOrderUpdates() {
+		return orderUpdateStream.isConnected();
+	}
+
 	@Override
 	public void cancel(Order order) {
 		account.cancel(order);
@@ -424,7 +517,9 @@ public class AccountManager implements ClientAccount {
 			String assetSymbol = pair[0].intern();
 			String fundSymbol = pair[1].intern();
 
-			latestPrices.put(symbol, new double[1]);
+			double[] latestPrice = new double[1];
+			latestPrices.put(symbol, latestPrice);
+			symbols.setLatestPrice(symbols.id(assetSymbol), symbols.id(fundSymbol), latestPrice);
 
 			TradingManager tradingManager = new TradingManager(group, exchange, priceDetails, this, assetSymbol, fundSymbol, parameters, allInstances);
 			out.computeIfAbsent(symbol, s -> new ArrayList<>()).add(tradingManager);
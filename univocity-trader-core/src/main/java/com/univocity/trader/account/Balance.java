@@ -14,7 +14,7 @@ public final class Balance implements Cloneable {
 	private static final Logger log = LoggerFactory.getLogger(Balance.class);
 	public static final Balance ZERO = new Balance(null, "");
 
-	private final Map<String, AtomicLong> balanceUpdateCounts;
+	private final AtomicLong updateCount;
 	private final String symbol;
 	private double free = 0.0;
 	private double locked = 0.0;
@@ -27,12 +27,12 @@ public final class Balance implements Cloneable {
 	public static final MathContext ROUND_MC = new MathContext(12, RoundingMode.HALF_EVEN);
 
 	public Balance(AccountManager accountManager, String symbol) {
-		this.balanceUpdateCounts = accountManager != null ? accountManager.balanceUpdateCounts : new ConcurrentHashMap<>();
+		this.updateCount = accountManager != null ? accountManager.balanceUpdateCount(symbol) : new AtomicLong();
 		this.symbol = symbol;
 	}
 
 	public Balance(AccountManager accountManager, String symbol, double free) {
-		this.balanceUpdateCounts = accountManager != null ? accountManager.balanceUpdateCounts : new ConcurrentHashMap<>();
+		this.updateCount = accountManager != null ? accountManager.balanceUpdateCount(symbol) : new AtomicLong();
 		this.symbol = symbol;
 		this.free = ensurePositive(free, "free balance");
 	}
@@ -96,11 +96,11 @@ public final class Balance implements Cloneable {
 
 		//bd = round(bd);
 		if (bd >= 0) {
-			balanceUpdateCounts.computeIfAbsent(symbol, (s) -> new AtomicLong(1)).incrementAndGet();
+			updateCount.incrementAndGet();
 			return bd;
 		}
 		if (bd >= -EFFECTIVELY_ZERO) {
-			balanceUpdateCounts.computeIfAbsent(symbol, (s) -> new AtomicLong(1)).incrementAndGet();
+			updateCount.incrementAndGet();
 			return 0.0;
 		} else {
 			throw new IllegalStateException(symbol + ": can't set " + field + " to  " + bd);
@@ -51,6 +51,7 @@ public final class Client<T> {
 
 		Set<Object> allInstances = new HashSet<>();
 		accountManager.getAllSymbolPairs().keySet().forEach(s -> accountManager.createTradingManager(s, exchange, emailNotifier, Parameters.NULL));
+		accountManager.startOrderUpdateStream();
 
 		Map<String, List<CandleProcessor<T>>> tmp = new HashMap<>();
 
@@ -99,4 +100,8 @@ public final class Client<T> {
 	public Map<String, String[]> getAllSymbolPairs() {
 		return accountManager.getAllSymbolPairs();
 	}
+
+	public void close() {
+		accountManager.close();
+	}
 }
@@ -3,33 +3,108 @@ package com.univocity.trader.account;
 import com.univocity.trader.*;
 
 import java.util.*;
-
+import java.util.concurrent.locks.*;
+
+/**
+ * The bids and asks of a symbol, limited to a given depth. Price levels are kept sorted in primitive arrays, best
+ * prices first, so updates and queries do not allocate.
+ *
+ * A book is meant to be updated by a single thread (e.g. the one receiving depth updates from the exchange) while any
+ * number of threads read it. Readers never block the writer: each query runs optimistically and only waits for the
+ * writer if an update happened while the query ran, so the result is always computed from a consistent snapshot.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
 public final class OrderBook {
 
 	private final String symbol;
 	private final int depth;
-	private final TreeMap<Double, Double> bids = new TreeMap<>(Comparator.reverseOrder());
-	private final TreeMap<Double, Double> asks = new TreeMap<>(Comparator.naturalOrder());
+	private final Levels bids;
+	private final Levels asks;
+	private final StampedLock lock = new StampedLock();
 	private ClientAccount account;
 
 	public OrderBook(ClientAccount account, String symbol, int depth) {
 		this.symbol = symbol;
 		this.depth = depth;
 		this.account = account;
+		this.bids = new Levels(depth, true);
+		this.asks = new Levels(depth, false);
 	}
 
+	/**
+	 * Sets the quantity available at a bid price. A quantity of zero removes the price level.
+	 *
+	 * @param price    the bid price
+	 * @param quantity the quantity available at the given price
+	 */
 	public void addBid(double price, double quantity) {
-		add(price, quantity, bids);
+		long stamp = lock.writeLock();
+		try {
+			bids.set(price, quantity);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
 	}
 
+	/**
+	 * Sets the quantity available at an ask price. A quantity of zero removes the price level.
+	 *
+	 * @param price    the ask price
+	 * @param quantity the quantity available at the given price
+	 */
 	public void addAsk(double price, double quantity) {
-		add(price, quantity, asks);
+		long stamp = lock.writeLock();
+		try {
+			asks.set(price, quantity);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Applies a batch of changes to the bids and asks of this book at once, so readers never observe a partially
+	 * applied update. Each change sets the quantity available at a price, and a quantity of zero removes the price
+	 * level, which matches the depth diffs streamed by exchanges. Arrays can be reused by the caller after this method
+	 * returns.
+	 *
+	 * @param bidPrices     prices of the bids to update
+	 * @param bidQuantities new quantities of each bid price
+	 * @param bidCount      number of bids to update
+	 * @param askPrices     prices of the asks to update
+	 * @param askQuantities new quantities of each ask price
+	 * @param askCount      number of asks to update
+	 * @param replaceAll    {@code true} to discard all current price levels before applying the given changes (i.e. the
+	 *                      changes are a full snapshot of the book), {@code false} to update the current price levels.
+	 */
+	public void update(double[] bidPrices, double[] bidQuantities, int bidCount, double[] askPrices, double[] askQuantities, int askCount, boolean replaceAll) {
+		long stamp = lock.writeLock();
+		try {
+			if (replaceAll) {
+				bids.clear();
+				asks.clear();
+			}
+			for (int i = 0; i < bidCount; i++) {
+				bids.set(bidPrices[i], bidQuantities[i]);
+			}
+			for (int i = 0; i < askCount; i++) {
+				asks.set(askPrices[i], askQuantities[i]);
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
 	}
 
-	private void add(double price, double quantity, TreeMap<Double, Double> map) {
-		map.put(price, quantity);
-		while (map.size() > depth) {
-			map.remove(map.lastKey());
+	/**
+	 * Removes all bids and asks of this book.
+	 */
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			bids.clear();
+			asks.clear();
+		} finally {
+			lock.unlockWrite(stamp);
 		}
 	}
 
@@ -41,50 +116,32 @@ public final class OrderBook {
 		return getAverageAmount(bids, depth);
 	}
 
-	private double getAverageAmount(Map<Double, Double> m, int depth) {
-		double pricesTimesQuantities = 0.0;
-		double totalQuantity = 0.0;
-
-		for (Map.Entry<Double, Double> e : m.entrySet()) {
-			pricesTimesQuantities += e.getKey() * e.getValue();
-			totalQuantity += e.getValue();
-
-			if (--depth <= 0) {
-				break;
+	private double getAverageAmount(Levels levels, int depth) {
+		long stamp = lock.tryOptimisticRead();
+		double out = levels.getAverageAmount(depth);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				out = levels.getAverageAmount(depth);
+			} finally {
+				lock.unlockRead(stamp);
 			}
 		}
-
-		if (totalQuantity == 0.0) {
-			return 0.0;
-		}
-		return pricesTimesQuantities / totalQuantity;
+		return out;
 	}
 
-	private double estimateFillPrice(Map<Double, Double> m, double quantityToFill) {
-		double pricesTimesQuantities = 0.0;
-		double totalQuantity = 0.0;
-
-		for (Map.Entry<Double, Double> e : m.entrySet()) {
-			double maxQuantity = e.getValue();
-			double quantity = quantityToFill;
-			quantityToFill -= maxQuantity;
-
-			if (quantityToFill > 0) {
-				quantity = maxQuantity;
-			}
-
-			pricesTimesQuantities += e.getKey() * quantity;
-			totalQuantity += quantity;
-
-			if (quantityToFill <= 0) {
-				break;
+	private double estimateFillPrice(Levels levels, double quantityToFill) {
+		long stamp = lock.tryOptimisticRead();
+		double out = levels.estimateFillPrice(quantityToFill);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				out = levels.estimateFillPrice(quantityToFill);
+			} finally {
+				lock.unlockRead(stamp);
 			}
 		}
-
-		if (totalQuantity <= 0.0) {
-			return 0.0;
-		}
-		return pricesTimesQuantities / totalQuantity;
+		return out;
 	}
 
 	public double getSpread(int depth) {
@@ -117,12 +174,55 @@ public final class OrderBook {
 		return depth;
 	}
 
+	/**
+	 * Returns a copy of the current bids of this book, best prices first.
+	 *
+	 * @return a map of bid prices to the quantity available at each price.
+	 */
 	public Map<Double, Double> getBids() {
-		return bids;
+		return copy(bids);
 	}
 
+	/**
+	 * Returns a copy of the current asks of this book, best prices first.
+	 *
+	 * @return a map of ask prices to the quantity available at each price.
+	 */
 	public Map<Double, Double> getAsks() {
-		return asks;
+		return copy(asks);
+	}
+
+	private Map<Double, Double> copy(Levels levels) {
+		long stamp = lock.readLock();
+		try {
+			Map<Double, Double> out = new LinkedHashMap<>();
+			for (int i = 0; i < levels.size; i++) {
+				out.put(levels.prices[i], levels.quantities[i]);
+			}
+			return out;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Returns a copy of this book with its best bids and asks, up to a given depth. The copy is not updated along with
+	 * this book.
+	 *
+	 * @param depth the maximum number of price levels of each side of the copy.
+	 *
+	 * @return a new book with the current best price levels of this book.
+	 */
+	public OrderBook copy(int depth) {
+		OrderBook out = new OrderBook(account, symbol, depth);
+		long stamp = lock.readLock();
+		try {
+			out.bids.copyFrom(bids);
+			out.asks.copyFrom(asks);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+		return out;
 	}
 
 	public OrderBook update(int depth) {
@@ -133,12 +233,172 @@ public final class OrderBook {
 	public String toString() {
 		return "OrderBook{" +
 				"symbol='" + symbol + '\'' +
-				", bids=" + bids +
-				", asks=" + asks +
+				", bids=" + getBids() +
+				", asks=" + getAsks() +
 				'}';
 	}
 
+	/**
+	 * Returns whether price levels may be missing among the best levels of a side of this book. Once a side is full,
+	 * levels worse than the ones it holds are not tracked, so if levels are then removed and the side holds fewer than
+	 * the given number of levels, the levels that would now take their place are unknown. The book must be reloaded
+	 * from a full snapshot (with {@code replaceAll}) when that happens.
+	 *
+	 * @param depth the number of best price levels of each side that must be known.
+	 *
+	 * @return {@code true} if a side was full at some point since the book was last cleared, and now holds fewer than
+	 * {@code depth} price levels.
+	 */
+	public boolean isMissingLevels(int depth) {
+		long stamp = lock.tryOptimisticRead();
+		boolean out = bids.isMissingLevels(depth) || asks.isMissingLevels(depth);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				out = bids.isMissingLevels(depth) || asks.isMissingLevels(depth);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return out;
+	}
+
 	public boolean isEmpty() {
-		return bids.isEmpty() || asks.isEmpty();
+		long stamp = lock.tryOptimisticRead();
+		boolean out = bids.size == 0 || asks.size == 0;
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				out = bids.size == 0 || asks.size == 0;
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Price levels of one side of the book, sorted from best to worst price. Arrays are allocated once and never
+	 * replaced, so that optimistic readers can never index outside of them, even if they observe a size that is
+	 * being updated.
+	 */
+	private static final class Levels {
+		final double[] prices;
+		final double[] quantities;
+		final boolean descending;
+		int size;
+		boolean truncated; // levels worse than the ones held may exist
+
+		Levels(int depth, boolean descending) {
+			this.prices = new double[Math.max(0, depth)];
+			this.quantities = new double[prices.length];
+			this.descending = descending;
+		}
+
+		private int indexOf(double price) {
+			int low = 0;
+			int high = size - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				double p = prices[mid];
+				if (p == price) {
+					return mid;
+				}
+				if (descending ? p > price : p < price) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return -(low + 1);
+		}
+
+		void set(double price, double quantity) {
+			int i = indexOf(price);
+			if (i >= 0) {
+				if (quantity > 0.0) {
+					quantities[i] = quantity;
+				} else {
+					size--;
+					System.arraycopy(prices, i + 1, prices, i, size - i);
+					System.arraycopy(quantities, i + 1, quantities, i, size - i);
+				}
+			} else if (quantity > 0.0) {
+				i = -(i + 1);
+				if (i >= prices.length) {
+					return; //worse than all prices in a full book
+				}
+				if (size == prices.length - 1 || size == prices.length) {
+					truncated = true;
+				}
+				int moved = (size == prices.length ? size - 1 : size) - i;
+				System.arraycopy(prices, i, prices, i + 1, moved);
+				System.arraycopy(quantities, i, quantities, i + 1, moved);
+				prices[i] = price;
+				quantities[i] = quantity;
+				if (size < prices.length) {
+					size++;
+				}
+			}
+		}
+
+		void clear() {
+			size = 0;
+			truncated = false;
+		}
+
+		boolean isMissingLevels(int depth) {
+			return truncated && size < Math.min(depth, prices.length);
+		}
+
+		void copyFrom(Levels levels) {
+			size = Math.min(levels.size, prices.length);
+			System.arraycopy(levels.prices, 0, prices, 0, size);
+			System.arraycopy(levels.quantities, 0, quantities, 0, size);
+		}
+
+		double getAverageAmount(int depth) {
+			double pricesTimesQuantities = 0.0;
+			double totalQuantity = 0.0;
+
+			int n = Math.min(Math.min(size, prices.length), Math.max(depth, 1));
+			for (int i = 0; i < n; i++) {
+				pricesTimesQuantities += prices[i] * quantities[i];
+				totalQuantity += quantities[i];
+			}
+
+			if (totalQuantity == 0.0) {
+				return 0.0;
+			}
+			return pricesTimesQuantities / totalQuantity;
+		}
+
+		double estimateFillPrice(double quantityToFill) {
+			double pricesTimesQuantities = 0.0;
+			double totalQuantity = 0.0;
+
+			int n = Math.min(size, prices.length);
+			for (int i = 0; i < n; i++) {
+				double maxQuantity = quantities[i];
+				double quantity = quantityToFill;
+				quantityToFill -= maxQuantity;
+
+				if (quantityToFill > 0) {
+					quantity = maxQuantity;
+				}
+
+				pricesTimesQuantities += prices[i] * quantity;
+				totalQuantity += quantity;
+
+				if (quantityToFill <= 0) {
+					break;
+				}
+			}
+
+			if (totalQuantity <= 0.0) {
+				return 0.0;
+			}
+			return pricesTimesQuantities / totalQuantity;
+		}
 	}
 }
@@ -22,8 +22,8 @@ import java.util.function.*;
  * order type, etc.
  *
  * Once the {@link OrderRequest} is submitted to the exchange, an {@link Order} will be returned and tracked until it's {@code FILLED} or {@code CANCELLED}.
- * This happens in a separate thread that requests a new order status using {@link AccountManager#updateOrderStatus(Order)}, at the rate specified by
- * {@link OrderManager#getOrderUpdateFrequency()}. Once the updated {@link Order} details are available, the order monitor thread will invoke
+ * This happens in a thread shared by all symbols, which requests the status of all open orders of the symbol at once using {@link AccountManager#updateOrderStatuses(String, java.util.List)}, at the rate specified by
+ * {@link OrderManager#getOrderUpdateFrequency()}. Once the updated {@link Order} details are available, the order monitor will invoke
  * {@link #unchanged(Order, Trader, Consumer)} if no changes happened to the order since the last status update,
  * {@link #updated(Order, Trader, Consumer)} if the executed quantity changed
  * (i.e. the order is being {@code PARTIALLY_FILLED}), or {@link #finalized(Order, Trader)} when the order was {@code FILLED} or {@code CANCELLED}.
@@ -1,9 +1,11 @@
 package com.univocity.trader.account;
 
-import com.univocity.trader.utils.ThreadName;
 import org.slf4j.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
 
 import static com.univocity.trader.account.Order.Side.*;
 import static com.univocity.trader.account.Order.Status.*;
@@ -13,12 +15,25 @@ public final class OrderTracker {
 
 	private static final Logger log = LoggerFactory.getLogger(OrderTracker.class);
 
+	private static final AtomicInteger pollerThreads = new AtomicInteger();
+	static final ScheduledExecutorService poller = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2), r -> {
+		Thread thread = new Thread(r);
+		thread.setName("Order status poller-" + pollerThreads.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	private final OrderSet pendingOrders = new OrderSet();
 	private final OrderSet finalizedOrders = new OrderSet();
 	private final TradingManager tradingManager;
 	private final AccountManager account;
 	private final OrderManager orderManager;
 	private final Trader trader;
+	private final Object updateLock = new Object();
+	private final Set<Long> unpolled = new HashSet<>();
+	private ScheduledFuture<?> polling;
+	private boolean reconcile;
+	private boolean closed;
 
 	OrderTracker(TradingManager tradingManager) {
 		this.tradingManager = tradingManager;
@@ -34,35 +49,152 @@ public final class OrderTracker {
 		}
 		synchronized (pendingOrders) {
 			pendingOrders.addOrReplace(order);
+			if (account.isSimulated()) {
+				return;
+			}
+			unpolled.add(order.getInternalId());
+			if (polling != null || closed) {
+				return;
+			}
+			long frequency = Math.max(1, orderManager.getOrderUpdateFrequency().ms);
+			polling = poller.scheduleWithFixedDelay(this::pollPendingOrders, frequency, frequency, TimeUnit.MILLISECONDS);
 		}
-		if (account.isSimulated()) {
-			return;
+	}
+
+	/**
+	 * Polls the exchange for the status of all pending orders of the symbol in a single batch. Runs on the shared
+	 * {@link #poller} until there are no more pending orders to track.
+	 *
+	 * If the exchange is pushing order updates, only orders not polled yet are requested from the exchange (unless the
+	 * stream reconnected and all orders must be reconciled), and the {@link OrderManager} receives the latest state
+	 * pushed for the others.
+	 */
+	private void pollPendingOrders() {
+		boolean streaming = account.isStreamingOrderUpdates();
+		List<Order> orders;
+		List<Order> toPoll;
+		synchronized (pendingOrders) {
+			orders = new ArrayList<>(pendingOrders.i);
+			for (int i = 0; i < pendingOrders.i; i++) {
+				Order order = pendingOrders.elements[i];
+				if (order != null && !order.isFinalized()) {
+					orders.add(order);
+				}
+			}
+			if (orders.isEmpty()) {
+				polling.cancel(false);
+				polling = null;
+				unpolled.clear();
+				return;
+			}
+
+			if (streaming && !reconcile) {
+				toPoll = new ArrayList<>(unpolled.size());
+				for (Order order : orders) {
+					if (unpolled.contains(order.getInternalId())) {
+						toPoll.add(order);
+					}
+				}
+			} else {
+				toPoll = orders;
+				reconcile = false;
+			}
+			unpolled.clear();
 		}
-		Thread thread = new Thread(() -> {
-			Order o = order;
-			Order updated;
-			while (true) {
-				try {
-					try {
-						Thread.sleep(orderManager.getOrderUpdateFrequency().ms);
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
+
+		Map<Order, Order> updates = new IdentityHashMap<>();
+		if (!toPoll.isEmpty()) {
+			try {
+				List<Order> polled = account.updateOrderStatuses(tradingManager.symbol, toPoll);
+				for (int i = 0; i < toPoll.size(); i++) {
+					updates.put(toPoll.get(i), polled.get(i));
+				}
+			} catch (Exception e) {
+				log.error("Error updating state of " + toPoll.size() + " pending orders of " + tradingManager.symbol, e);
+				synchronized (pendingOrders) {
+					if (toPoll == orders) {
+						reconcile = true;
+					} else {
+						toPoll.forEach(order -> unpolled.add(order.getInternalId()));
 					}
+				}
+				return;
+			}
+		}
 
-					updated = account.updateOrderStatus(o);
-					processOrderUpdate(o, updated);
-					if (o.isFinalized()) {
-						return;
+		for (Order order : orders) {
+			// orders not polled are kept up to date by the exchange
+			Order update = updates.getOrDefault(order, order);
+			if (update == null) {
+				continue;
+			}
+			try {
+				synchronized (updateLock) {
+					synchronized (pendingOrders) {
+						if (pendingOrders.get(order) != order) {
+							continue; // finalized or updated while the exchange was being polled
+						}
 					}
-					o = updated;
-				} catch (Exception e) {
-					log.error("Error tracking state of order " + o, e);
-					return;
+					processOrderUpdate(order, update);
 				}
+			} catch (Exception e) {
+				log.error("Error tracking state of order " + order, e);
 			}
-		});
-		thread.setName(ThreadName.generateNewName() + "-Order " + order.getOrderId() + " monitor: " + order.getSide() + " " + order.getSymbol());
-		thread.start();
+		}
+	}
+
+	/**
+	 * Applies an update pushed by the exchange to a pending order.
+	 *
+	 * @param orderId the order ID assigned by the exchange
+	 * @param update  produces the updated order from its latest known state
+	 *
+	 * @return {@code true} if the order is tracked by this {@code OrderTracker}, otherwise {@code false}.
+	 */
+	boolean orderUpdated(String orderId, UnaryOperator<Order> update) {
+		synchronized (updateLock) {
+			Order order = null;
+			synchronized (pendingOrders) {
+				for (int i = pendingOrders.i - 1; i >= 0; i--) {
+					Order pending = pendingOrders.elements[i];
+					if (pending != null && orderId.equals(pending.getOrderId())) {
+						order = pending;
+						break;
+					}
+				}
+			}
+			if (order == null) {
+				return false;
+			}
+			Order updated = update.apply(order);
+			if (updated != null) {
+				processOrderUpdate(order, updated);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Stops polling the exchange for the status of pending orders. Orders submitted afterwards are not polled.
+	 */
+	void close() {
+		synchronized (pendingOrders) {
+			closed = true;
+			if (polling != null) {
+				polling.cancel(false);
+				polling = null;
+			}
+			unpolled.clear();
+		}
+	}
+
+	/**
+	 * Polls the status of all pending orders on the next update cycle, even if the exchange is pushing order updates.
+	 */
+	void reconcile() {
+		synchronized (pendingOrders) {
+			reconcile = true;
+		}
 	}
 
 	public boolean waitingForFill(String assetSymbol, Order.Side side, Trade.Side tradeSide) {
@@ -0,0 +1,43 @@
+package com.univocity.trader.account;
+
+import com.univocity.trader.*;
+
+import java.util.function.*;
+
+/**
+ * Receives updates on {@link Order}s pushed by the exchange as soon as they happen (e.g. through a web socket), so that
+ * fills are processed without waiting for the next status poll.
+ *
+ * While the stream of updates is connected, the status of open orders is not polled from the exchange, except once for
+ * each new order and once for all open orders whenever the stream (re)connects, to reconcile any updates missed in
+ * the meantime. The {@link OrderManager} of each symbol keeps receiving updates at the interval specified by
+ * {@link OrderManager#getOrderUpdateFrequency()}.
+ *
+ * @see ClientAccount#streamOrderUpdates(OrderUpdateListener)
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public interface OrderUpdateListener {
+
+	/**
+	 * Notifies that an order of the account was updated on the exchange.
+	 *
+	 * @param symbol  the symbol traded by the order (e.g. BTCUSDT)
+	 * @param orderId the order ID assigned by the exchange
+	 * @param update  a function that receives the latest known state of the order and produces its updated state.
+	 *                Not invoked if the order is not being tracked.
+	 */
+	void orderUpdated(String symbol, String orderId, UnaryOperator<Order> update);
+
+	/**
+	 * Notifies that the stream of updates is connected. Open orders are polled once to reconcile updates that might have
+	 * been missed while disconnected.
+	 */
+	void connected();
+
+	/**
+	 * Notifies that the stream of updates was interrupted. Open orders are polled from the exchange until
+	 * {@link #connected()} is invoked again.
+	 */
+	void disconnected();
+}
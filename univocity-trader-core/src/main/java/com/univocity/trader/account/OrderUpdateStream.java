@@ -0,0 +1,75 @@
+package com.univocity.trader.account;
+
+import com.univocity.trader.utils.*;
+import org.slf4j.*;
+
+import java.util.function.*;
+
+/**
+ * Routes order updates pushed by the exchange to the {@link OrderTracker} of the {@link TradingManager} that submitted
+ * the order.
+ *
+ * Updates are processed one at a time, in the order they are received, by the threads that poll the status of orders
+ * (see {@link OrderTracker}). Processing an update may block, e.g. to update balances on the exchange, so the thread
+ * that delivers updates (usually the web socket thread of the exchange client) is never used to process them.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class OrderUpdateStream implements OrderUpdateListener {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderUpdateStream.class);
+
+	private final AccountManager account;
+	private final SerialExecutor updates = new SerialExecutor(OrderTracker.poller);
+	private volatile boolean connected;
+	private boolean started;
+
+	OrderUpdateStream(AccountManager account) {
+		this.account = account;
+	}
+
+	synchronized void start() {
+		if (!started && !account.isSimulated()) {
+			started = true;
+			account.streamOrderUpdates(this);
+		}
+	}
+
+	boolean isConnected() {
+		return connected;
+	}
+
+	@Override
+	public void orderUpdated(String symbol, String orderId, UnaryOperator<Order> update) {
+		updates.execute(() -> processUpdate(symbol, orderId, update));
+	}
+
+	private void processUpdate(String symbol, String orderId, UnaryOperator<Order> update) {
+		try {
+			TradingManager[] tradingManagers = account.getTradingManagersOf(symbol);
+			if (tradingManagers != null) {
+				for (int i = 0; i < tradingManagers.length; i++) {
+					if (tradingManagers[i].orderTracker.orderUpdated(orderId, update)) {
+						return;
+					}
+				}
+			}
+			log.debug("Ignoring update of untracked order {} of {}", orderId, symbol);
+		} catch (Exception e) {
+			log.error("Error processing update of order " + orderId + " of " + symbol, e);
+		}
+	}
+
+	@Override
+	public void connected() {
+		log.info("Order update stream of account {} connected", account.accountId());
+		account.forEachTradingManager(tradingManager -> tradingManager.orderTracker.reconcile());
+		connected = true;
+	}
+
+	@Override
+	public void disconnected() {
+		log.warn("Order update stream of account {} disconnected. Polling exchange for order updates.", account.accountId());
+		connected = false;
+	}
+}
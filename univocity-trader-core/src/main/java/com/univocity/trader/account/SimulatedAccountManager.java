@@ -120,7 +120,7 @@ public class SimulatedAccountManager extends AccountManager implements Simulated
 		}
 		if (configuration.isSymbolSupported(symbol)) {
 			balances.put(symbol, new Balance(this, symbol, amount));
-			this.balancesArray = null;
+			balancesChanged();
 			return this;
 		}
 		throw configuration.reportUnknownSymbol("Can't set funds", symbol);
@@ -128,9 +128,10 @@ public class SimulatedAccountManager extends AccountManager implements Simulated
 
 	public SimulatedAccountConfiguration resetBalances() {
 		this.balances.clear();
-		this.balancesArray = null;
+		balancesChanged();
 
 		latestPrices.clear();
+		symbols.clearLatestPrices();
 		if (tradingManagers != null) {
 			tradingManagers.clear();
 			tradingManagers = null;
@@ -151,6 +152,7 @@ public class SimulatedAccountManager extends AccountManager implements Simulated
 		forEachTradingManager(t -> t.orderTracker.cancelAllOrders());
 		forEachTradingManager(t -> t.orderTracker.updateOpenOrders());
 		balances.clear();
+		balancesChanged();
 		forEachTradingManager(t -> t.orderTracker.clear());
 	}
 
@@ -0,0 +1,136 @@
+package com.univocity.trader.account;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Assigns a sequential ID to every symbol known by an {@link AccountManager}, so that per-symbol state such as
+ * balance update counts and the latest price of each traded pair can be kept in arrays indexed by symbol ID, instead
+ * of maps that hash symbol names (and concatenations of symbol names) on every access.
+ *
+ * The symbols of all pairs traded by the account are registered when the account is created. Any other symbol is
+ * registered when first seen.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class SymbolRegistry {
+
+	private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+	private volatile String[] symbols = new String[0];
+	private volatile AtomicLong[] balanceUpdateCounts = new AtomicLong[0];
+	private volatile double[][][] latestPrices = new double[0][][];
+
+	SymbolRegistry(Map<String, String[]> symbolPairs, String referenceCurrency) {
+		id(referenceCurrency);
+		for (String[] pair : symbolPairs.values()) {
+			id(pair[0]);
+			id(pair[1]);
+		}
+	}
+
+	/**
+	 * Returns the ID of a symbol, registering it if not known yet.
+	 *
+	 * @param symbol the symbol whose ID will be returned
+	 *
+	 * @return the ID of the given symbol.
+	 */
+	int id(String symbol) {
+		Integer id = ids.get(symbol);
+		return id != null ? id : register(symbol);
+	}
+
+	/**
+	 * Returns the ID of a symbol without registering it.
+	 *
+	 * @param symbol the symbol whose ID will be returned
+	 *
+	 * @return the ID of the given symbol, or {@code -1} if the symbol is not registered.
+	 */
+	int find(String symbol) {
+		Integer id = ids.get(symbol);
+		return id != null ? id : -1;
+	}
+
+	private synchronized int register(String symbol) {
+		Integer id = ids.get(symbol);
+		if (id != null) {
+			return id;
+		}
+		int out = symbols.length;
+
+		String[] s = Arrays.copyOf(symbols, out + 1);
+		s[out] = symbol;
+		AtomicLong[] counts = Arrays.copyOf(balanceUpdateCounts, out + 1);
+		counts[out] = new AtomicLong();
+
+		balanceUpdateCounts = counts;
+		symbols = s;
+		ids.put(symbol, out);
+		return out;
+	}
+
+	int size() {
+		return symbols.length;
+	}
+
+	String symbol(int id) {
+		return symbols[id];
+	}
+
+	/**
+	 * Returns the counter incremented whenever the balance of a symbol changes. Counters are never replaced, so the
+	 * result can be kept for the lifetime of the account.
+	 *
+	 * @param id the symbol ID
+	 *
+	 * @return the balance update counter of the given symbol.
+	 */
+	AtomicLong balanceUpdateCount(int id) {
+		return balanceUpdateCounts[id];
+	}
+
+	void clearBalanceUpdateCounts() {
+		for (AtomicLong count : balanceUpdateCounts) {
+			count.set(0);
+		}
+	}
+
+	/**
+	 * Associates the holder of the latest price of a pair with the IDs of its asset and fund symbols.
+	 *
+	 * @param assetId the ID of the asset symbol (e.g. BTC)
+	 * @param fundId  the ID of the fund symbol (e.g. USDT)
+	 * @param price   single element array with the latest price of the pair, updated as new candles arrive.
+	 */
+	synchronized void setLatestPrice(int assetId, int fundId, double[] price) {
+		double[][][] prices = Arrays.copyOf(latestPrices, Math.max(latestPrices.length, assetId + 1));
+		double[][] row = prices[assetId];
+		row = row == null ? new double[fundId + 1][] : Arrays.copyOf(row, Math.max(row.length, fundId + 1));
+		row[fundId] = price;
+		prices[assetId] = row;
+		latestPrices = prices;
+	}
+
+	/**
+	 * Returns the holder of the latest price of a pair.
+	 *
+	 * @param assetId the ID of the asset symbol (e.g. BTC)
+	 * @param fundId  the ID of the fund symbol (e.g. USDT)
+	 *
+	 * @return single element array with the latest price of the pair, or {@code null} if the pair is not traded.
+	 */
+	double[] getLatestPrice(int assetId, int fundId) {
+		double[][][] prices = latestPrices;
+		if (assetId < 0 || fundId < 0 || assetId >= prices.length) {
+			return null;
+		}
+		double[][] row = prices[assetId];
+		return row == null || fundId >= row.length ? null : row[fundId];
+	}
+
+	synchronized void clearLatestPrices() {
+		latestPrices = new double[0][][];
+	}
+}
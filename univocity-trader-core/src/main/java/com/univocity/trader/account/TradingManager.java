@@ -14,6 +14,7 @@ import org.slf4j.*;
 import java.math.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import static com.univocity.trader.account.Order.Side.*;
 import static com.univocity.trader.account.Trade.Side.*;
@@ -41,7 +42,11 @@ public final class TradingManager {
 	final OrderManager orderManager;
 	final OrderTracker orderTracker;
 
-	final Map<Integer, long[]> fundAllocationCache = new ConcurrentHashMap<>();
+	final long[][] fundAllocationCache = new long[Trade.Side.values().length][];
+	private final int assetId;
+	private final int referenceCurrencyId;
+	final AtomicLong assetBalanceUpdates;
+	final AtomicLong referenceBalanceUpdates;
 
 	final Context context;
 
@@ -71,6 +76,10 @@ public final class TradingManager {
 		Instances<OrderListener> listenerProvider = configuration.listeners();
 		this.notifications = listenerProvider != null ? listenerProvider.create(symbol, params) : new OrderListener[0];
 		this.tradingAccount = client.getAccountManager();
+		this.assetId = tradingAccount.symbols.id(this.assetSymbol);
+		this.referenceCurrencyId = tradingAccount.symbols.id(getReferenceCurrencySymbol());
+		this.assetBalanceUpdates = tradingAccount.balanceUpdateCount(this.assetSymbol);
+		this.referenceBalanceUpdates = tradingAccount.balanceUpdateCount(getReferenceCurrencySymbol());
 		this.emailNotifier = getEmailNotifier();
 
 		this.priceDetails = priceDetails.switchToSymbol(symbol);
@@ -422,7 +431,7 @@ public final class TradingManager {
 		notifySimulationEnd(this.notifications);
 		notifySimulationEnd(trader.notifications);
 		SimulatedAccountManager account = (SimulatedAccountManager) getAccount();
-		account.balanceUpdateCounts.clear();
+		account.clearBalanceUpdateCounts();
 		account.notifySimulationEnd();
 	}
 
@@ -449,10 +458,10 @@ public final class TradingManager {
 	}
 
 	public final double allocateFunds(Trade.Side tradeSide) {
-		return tradingAccount.allocateFunds(assetSymbol, getReferenceCurrencySymbol(), tradeSide, this);
+		return tradingAccount.allocateFunds(tradeSide, this);
 	}
 
-	double executeAllocateFunds(String assetSymbol, String fundSymbol, Trade.Side tradeSide) {
+	double executeAllocateFunds(Trade.Side tradeSide) {
 		double minimumInvestment = configuration.minimumInvestmentAmountPerTrade(assetSymbol);
 		double percentage = configuration.maximumInvestmentPercentagePerAsset(assetSymbol) / 100.0;
 		double maxAmount = configuration.maximumInvestmentAmountPerAsset(assetSymbol);
@@ -463,11 +472,11 @@ public final class TradingManager {
 			return 0.0;
 		}
 
-		double totalFunds = getTotalFundsIn(fundSymbol);
+		double totalFunds = tradingAccount.getTotalFundsIn(referenceCurrencyId);
 		maxAmountPerTrade = Math.min(totalFunds * percentagePerTrade, maxAmountPerTrade);
 
-		double allocated = tradingAccount.getAmount(assetSymbol);
-		double shorted = tradingAccount.getShortedAmount(assetSymbol);
+		double allocated = tradingAccount.getBalance(assetId, Balance::getFree);
+		double shorted = tradingAccount.getBalance(assetId, Balance::getShorted);
 		double unitPrice = getLatestPrice();
 		allocated = allocated * unitPrice;
 		shorted = shorted * unitPrice;
@@ -483,7 +492,7 @@ public final class TradingManager {
 		}
 		available = Math.min(maxAmountPerTrade, Math.min(maxAmount, available));
 
-		final double freeAmount = tradingAccount.getAmount(fundSymbol);
+		final double freeAmount = tradingAccount.getBalance(referenceCurrencyId, Balance::getFree);
 		double out = Math.min(available, freeAmount);
 
 		if (tradeSide == SHORT) {
@@ -18,6 +18,7 @@ public final class Aggregator {
 
 	protected Candle full;
 	protected Candle partial;
+	private long tickCount;
 
 	public Aggregator(String description) {
 		this(new ConcurrentHashMap<>(), description, TimeInterval.millis(0));
@@ -48,6 +49,7 @@ public final class Aggregator {
 	}
 
 	public void aggregate(Candle candle) {
+		tickCount++;
 		if (partial == null) {
 			partial = candle;
 			full = null;
@@ -78,9 +80,20 @@ public final class Aggregator {
 	}
 
 	public void setFull(Candle candle){
+		tickCount++;
 		this.full = candle;
 	}
 
+	/**
+	 * Returns the number of candles received by this aggregator. Indicators use this count to identify whether the
+	 * state of the aggregator changed since they last read it.
+	 *
+	 * @return the number of times {@link #aggregate(Candle)} or {@link #setFull(Candle)} were invoked.
+	 */
+	public long getTickCount() {
+		return tickCount;
+	}
+
 	public Candle getFull() {
 		return full;
 	}
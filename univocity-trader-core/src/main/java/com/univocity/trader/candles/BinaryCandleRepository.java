@@ -0,0 +1,313 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.utils.*;
+import org.apache.commons.io.*;
+import org.slf4j.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static com.univocity.trader.candles.Candle.*;
+
+/**
+ * A {@link CandleRepository} that reads candles stored in a columnar binary format, where each symbol has its own
+ * directory with one file per candle attribute. Files are memory mapped and read directly into primitive values,
+ * so no parsing is involved when loading candles. As the time columns are sorted, reading candles from a given
+ * point in time is a binary search away. The mapped files of each symbol are reused until their length or last
+ * modification time changes.
+ *
+ * Use {@link #importFrom(CandleRepository)} to convert the candles of any other {@link CandleRepository} (i.e. CSV
+ * files through a {@link FileCandleRepository} or a database through a {@link DatabaseCandleRepository}) into
+ * this format.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public class BinaryCandleRepository extends CandleRepository {
+
+	private static final Logger log = LoggerFactory.getLogger(BinaryCandleRepository.class);
+
+	static final String[] COLUMNS = {"open_time.bin", "close_time.bin", "open.bin", "high.bin", "low.bin", "close.bin", "volume.bin"};
+	static final int OPEN_TIME = 0;
+	static final int CLOSE_TIME = 1;
+	static final int OPEN = 2;
+	static final int HIGH = 3;
+	static final int LOW = 4;
+	static final int CLOSE = 5;
+	static final int VOLUME = 6;
+
+	private final RepositoryDir repositoryDir;
+	private final ConcurrentHashMap<String, Columns> columns = new ConcurrentHashMap<>();
+
+	public BinaryCandleRepository(RepositoryDir repositoryDir) {
+		this.repositoryDir = repositoryDir;
+	}
+
+	public RepositoryDir getRepositoryDir() {
+		return repositoryDir;
+	}
+
+	@Override
+	public boolean isWritingSupported() {
+		return false;
+	}
+
+	@Override
+	public boolean addToHistory(String symbol, PreciseCandle tick, boolean initializing) {
+		throw new UnsupportedOperationException("Can't store live candles to binary files. Use a database for that and import its history with importFrom()");
+	}
+
+	@Override
+	String buildCandleQuery(String symbol, Instant from, Instant to) {
+		String start = "";
+		if (from != null) {
+			start = " from " + getFormattedDateTimeWithYear(from.toEpochMilli());
+		}
+		String end = "";
+		if (to != null) {
+			end = " until " + getFormattedDateTimeWithYear(to.toEpochMilli());
+		}
+		return "Read " + symbol + " binary candles" + start + end;
+	}
+
+	@Override
+	public Set<String> getKnownSymbols() {
+		Set<String> out = new TreeSet<>();
+		File[] dirs = repositoryDir.get().listFiles(File::isDirectory);
+		if (dirs != null) {
+			for (File dir : dirs) {
+				if (new File(dir, COLUMNS[OPEN_TIME]).isFile()) {
+					out.add(dir.getName());
+				}
+			}
+		}
+		return out;
+	}
+
+	private File symbolDir(String symbol) {
+		return new File(repositoryDir.get(), cleanSymbol(symbol));
+	}
+
+	private Columns open(String symbol) {
+		File dir = symbolDir(symbol);
+		if (!new File(dir, COLUMNS[OPEN_TIME]).isFile()) {
+			columns.remove(dir.getName());
+			return null;
+		}
+		return columns.compute(dir.getName(), (s, cached) -> {
+			if (cached != null && cached.isValid()) {
+				return cached;
+			}
+			try {
+				return new Columns(dir);
+			} catch (IOException e) {
+				throw new IllegalStateException("Unable to read binary candles of " + symbol + " from " + dir.getAbsolutePath(), e);
+			}
+		});
+	}
+
+	@Override
+	protected long performCandleCounting(String symbol, Instant from, Instant to) {
+		return loadCandles(symbol, null, from, to, null);
+	}
+
+	@Override
+	protected long loadCandles(String symbol, String query, Instant from, Instant to, Consumer<Candle> out) {
+		Columns columns = open(symbol);
+		if (columns == null) {
+			log.warn("No binary candle data available for {} under {}", symbol, repositoryDir);
+			return 0;
+		}
+
+		int start = from == null ? 0 : columns.firstOpenFrom(from.toEpochMilli());
+		int end = to == null ? columns.size : columns.endAt(to.toEpochMilli());
+		if (end <= start) {
+			return 0;
+		}
+		if (out == null) {
+			return end - start;
+		}
+
+		if (out instanceof CandleSeries) {
+			CandleSeries series = (CandleSeries) out;
+			for (int i = start; i < end; i++) {
+				series.add(columns.openTime.get(i), columns.closeTime.get(i), columns.open.get(i), columns.high.get(i), columns.low.get(i), columns.close.get(i), columns.volume.get(i));
+			}
+		} else {
+			for (int i = start; i < end; i++) {
+				storeCandle(symbol, from, to, out, columns.candleAt(i));
+			}
+		}
+		return end - start;
+	}
+
+	@Override
+	public Candle lastCandle(String symbol) {
+		Columns columns = open(symbol);
+		return columns == null || columns.size == 0 ? null : columns.candleAt(columns.size - 1);
+	}
+
+	@Override
+	public Candle firstCandle(String symbol) {
+		Columns columns = open(symbol);
+		return columns == null || columns.size == 0 ? null : columns.candleAt(0);
+	}
+
+	/**
+	 * Converts the history of all symbols known by the given repository into binary files.
+	 *
+	 * @param source the repository to read candles from
+	 *
+	 * @return the total number of candles written
+	 */
+	public long importFrom(CandleRepository source) {
+		return importFrom(source, source.getKnownSymbols());
+	}
+
+	/**
+	 * Converts the history of the given symbols into binary files, replacing any binary history previously
+	 * stored for them.
+	 *
+	 * @param source  the repository to read candles from
+	 * @param symbols the symbols whose history should be converted
+	 *
+	 * @return the total number of candles written
+	 */
+	public long importFrom(CandleRepository source, Collection<String> symbols) {
+		long total = 0;
+		for (String symbol : symbols) {
+			total += importFrom(source, symbol);
+		}
+		return total;
+	}
+
+	/**
+	 * Converts the history of a symbol into binary files, replacing any binary history previously stored for it.
+	 * Candles are written to a temporary directory first, which replaces the symbol directory once the conversion
+	 * completes.
+	 *
+	 * @param source the repository to read candles from
+	 * @param symbol the symbol whose history should be converted
+	 *
+	 * @return the number of candles written
+	 */
+	public long importFrom(CandleRepository source, String symbol) {
+		final long start = System.currentTimeMillis();
+		File target = symbolDir(symbol);
+		File tmp = new File(target.getAbsolutePath() + ".tmp");
+		FileUtils.deleteQuietly(tmp);
+
+		long count;
+		long skipped = 0;
+		try (BinaryCandleWriter writer = new BinaryCandleWriter(tmp, false)) {
+			Enumeration<Candle> candles = source.iterate(symbol, null, null, false);
+			while (candles.hasMoreElements()) {
+				Candle candle = candles.nextElement();
+				if (candle != null && !writer.write(candle)) {
+					skipped++;
+				}
+			}
+			count = writer.rowCount();
+		}
+
+		try {
+			FileUtils.deleteDirectory(target);
+			Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to move converted candles of " + symbol + " to " + target.getAbsolutePath(), e);
+		}
+		if (skipped > 0) {
+			log.warn("Skipped {} candles of {} that were out of order or duplicated", skipped, symbol);
+		}
+		log.info("Converted {} candles of {} to binary in {} seconds", count, symbol, (System.currentTimeMillis() - start) / 1000.0);
+		return count;
+	}
+
+	private static final class Columns {
+		final LongBuffer openTime;
+		final LongBuffer closeTime;
+		final DoubleBuffer open;
+		final DoubleBuffer high;
+		final DoubleBuffer low;
+		final DoubleBuffer close;
+		final DoubleBuffer volume;
+		final int size;
+		private final File[] files = new File[COLUMNS.length];
+		private final long[] lengths = new long[COLUMNS.length];
+		private final long[] lastModified = new long[COLUMNS.length];
+
+		Columns(File dir) throws IOException {
+			ByteBuffer[] mapped = new ByteBuffer[COLUMNS.length];
+			long rows = Long.MAX_VALUE;
+			for (int i = 0; i < COLUMNS.length; i++) {
+				files[i] = new File(dir, COLUMNS[i]);
+				lastModified[i] = files[i].lastModified();
+				mapped[i] = map(files[i]);
+				lengths[i] = mapped[i].capacity();
+				rows = Math.min(rows, lengths[i] / Long.BYTES);
+			}
+			size = (int) rows;
+			openTime = mapped[OPEN_TIME].asLongBuffer();
+			closeTime = mapped[CLOSE_TIME].asLongBuffer();
+			open = mapped[OPEN].asDoubleBuffer();
+			high = mapped[HIGH].asDoubleBuffer();
+			low = mapped[LOW].asDoubleBuffer();
+			close = mapped[CLOSE].asDoubleBuffer();
+			volume = mapped[VOLUME].asDoubleBuffer();
+		}
+
+		private static ByteBuffer map(File file) throws IOException {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				long length = channel.size();
+				if (length > Integer.MAX_VALUE) {
+					throw new IllegalStateException("Candle file too large to be mapped: " + file.getAbsolutePath());
+				}
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+
+		boolean isValid() {
+			for (int i = 0; i < files.length; i++) {
+				if (files[i].length() != lengths[i] || files[i].lastModified() != lastModified[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		Candle candleAt(int i) {
+			return new Candle(openTime.get(i), closeTime.get(i), open.get(i), high.get(i), low.get(i), close.get(i), volume.get(i));
+		}
+
+		int firstOpenFrom(long time) {
+			return lowerBound(openTime, size, time);
+		}
+
+		/**
+		 * Same bound as {@link FileCandleRepository}: candles are read up to, and including, the first candle
+		 * closing at or after the given time.
+		 */
+		int endAt(long time) {
+			return Math.min(size, lowerBound(closeTime, size, time) + 1);
+		}
+
+		private static int lowerBound(LongBuffer column, int size, long value) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (column.get(mid) < value) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.univocity.trader.candles;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+import static com.univocity.trader.candles.BinaryCandleRepository.*;
+
+/**
+ * Writes candles of a single symbol into the columnar binary layout read by {@link BinaryCandleRepository}: one file
+ * per column (open time, close time, open, high, low, close and volume), each holding fixed-width 8 byte values
+ * in little-endian order. Row {@code n} of a symbol is the {@code n}-th value of every column file.
+ *
+ * Candles must be written in ascending order of {@link Candle#openTime}. Any candle that doesn't come after the
+ * last one written is rejected, as the reader relies on the time columns being sorted to seek by time.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class BinaryCandleWriter implements Closeable {
+
+	private static final int ROWS_PER_FLUSH = 8192;
+
+	private final FileChannel[] channels = new FileChannel[COLUMNS.length];
+	private final ByteBuffer[] buffers = new ByteBuffer[COLUMNS.length];
+	private long lastOpenTime = Long.MIN_VALUE;
+	private long rows;
+
+	/**
+	 * Opens the column files under the given directory for writing, creating them if required.
+	 *
+	 * @param symbolDir the directory that holds the column files of a symbol.
+	 * @param append    flag indicating whether to keep candles previously written to the directory. If {@code false}
+	 *                  any existing data is discarded.
+	 */
+	public BinaryCandleWriter(File symbolDir, boolean append) {
+		if (!symbolDir.exists() && !symbolDir.mkdirs()) {
+			throw new IllegalArgumentException("Can't create candle directory: " + symbolDir.getAbsolutePath());
+		}
+		try {
+			long existingRows = Long.MAX_VALUE;
+			for (int i = 0; i < COLUMNS.length; i++) {
+				Path path = new File(symbolDir, COLUMNS[i]).toPath();
+				channels[i] = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+				buffers[i] = ByteBuffer.allocateDirect(ROWS_PER_FLUSH * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+				existingRows = Math.min(existingRows, channels[i].size() / Long.BYTES);
+			}
+			rows = append ? existingRows : 0;
+
+			//discards partially written rows, if any
+			for (FileChannel channel : channels) {
+				channel.truncate(rows * Long.BYTES);
+				channel.position(rows * Long.BYTES);
+			}
+
+			if (rows > 0) {
+				ByteBuffer last = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+				channels[OPEN_TIME].read(last, (rows - 1) * Long.BYTES);
+				lastOpenTime = last.getLong(0);
+			}
+		} catch (IOException e) {
+			closeQuietly();
+			throw new IllegalStateException("Unable to open candle files under " + symbolDir.getAbsolutePath(), e);
+		}
+	}
+
+	/**
+	 * Appends a candle to the column files.
+	 *
+	 * @param candle the candle to write
+	 *
+	 * @return {@code true} if the candle was written, or {@code false} if it was rejected for not being more recent
+	 * than the last candle written.
+	 */
+	public boolean write(Candle candle) {
+		if (candle.openTime <= lastOpenTime) {
+			return false;
+		}
+		lastOpenTime = candle.openTime;
+
+		buffers[OPEN_TIME].putLong(candle.openTime);
+		buffers[CLOSE_TIME].putLong(candle.closeTime);
+		buffers[OPEN].putDouble(candle.open);
+		buffers[HIGH].putDouble(candle.high);
+		buffers[LOW].putDouble(candle.low);
+		buffers[CLOSE].putDouble(candle.close);
+		buffers[VOLUME].putDouble(candle.volume);
+		rows++;
+
+		if (!buffers[OPEN_TIME].hasRemaining()) {
+			flush();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the total number of rows available in the column files, including the ones still buffered.
+	 *
+	 * @return the number of candles stored.
+	 */
+	public long rowCount() {
+		return rows;
+	}
+
+	public void flush() {
+		try {
+			for (int i = 0; i < COLUMNS.length; i++) {
+				ByteBuffer buffer = buffers[i];
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channels[i].write(buffer);
+				}
+				buffer.clear();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write candles", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			flush();
+		} finally {
+			closeQuietly();
+		}
+	}
+
+	private void closeQuietly() {
+		for (FileChannel channel : channels) {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					//ignore
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package com.univocity.trader.candles;
+
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Candles loaded by a {@link CandleRepository} with caching enabled. Entries are stored as a {@link CandleSeries}
+ * and the total size of the cache is limited to a maximum number of bytes. When adding an entry makes the cache
+ * grow over that limit, the least recently used entries are evicted.
+ *
+ * Threads that request an entry that is still being loaded by another thread wait until it becomes available
+ * instead of loading the same candles again.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class CandleCache {
+
+	private static final Logger log = LoggerFactory.getLogger(CandleCache.class);
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long maximumSize;
+	private long size;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	CandleCache(long maximumSize) {
+		maximumSize(maximumSize);
+	}
+
+	/**
+	 * Returns the cached candles stored under the given key, waiting for them to be loaded if another thread is
+	 * loading them. If nothing is cached, the key is reserved and the caller is expected to load the candles and
+	 * hand them to {@link #put(String, CandleSeries)}, or call {@link #failed(String, Throwable)}.
+	 *
+	 * @param key    identifies the candles of a symbol over a period of time
+	 * @param symbol the symbol whose candles are identified by the given key
+	 *
+	 * @return the cached candles or {@code null} if the caller must load them.
+	 */
+	CandleSeries get(String key, String symbol) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+			if (entry == null) {
+				misses.incrementAndGet();
+				entries.put(key, new Entry(symbol));
+				return null;
+			}
+		}
+		hits.incrementAndGet();
+		try {
+			return entry.candles.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted waiting for cached candles of " + symbol, e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error loading cached candles of " + symbol, e.getCause());
+		}
+	}
+
+	/**
+	 * Stores the candles loaded after a call to {@link #get(String, String)} returned {@code null}, and releases
+	 * any threads waiting for them.
+	 *
+	 * @param key     the key reserved for the candles
+	 * @param candles the candles loaded.
+	 */
+	void put(String key, CandleSeries candles) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+			if (entry != null && !entry.candles.isDone()) {
+				candles.trim();
+				entry.size = candles.sizeInBytes();
+				size += entry.size;
+				evictToFit(entry);
+			}
+		}
+		if (entry != null) {
+			entry.candles.complete(candles);
+		}
+	}
+
+	/**
+	 * Releases the key reserved after a call to {@link #get(String, String)} returned {@code null}, as the candles
+	 * could not be loaded. Threads waiting for them get an exception.
+	 *
+	 * @param key   the key reserved for the candles
+	 * @param error the error that prevented the candles from being loaded.
+	 */
+	void failed(String key, Throwable error) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+			if (entry != null && !entry.candles.isDone()) {
+				entries.remove(key);
+			}
+		}
+		if (entry != null) {
+			entry.candles.completeExceptionally(error);
+		}
+	}
+
+	private void evictToFit(Entry added) {
+		if (size <= maximumSize) {
+			return;
+		}
+		if (added.size > maximumSize) {
+			log.debug("Candles of {} use {} bytes, which exceeds the cache limit of {} bytes. Not caching them", added.symbol, added.size, maximumSize);
+			entries.values().remove(added);
+			size -= added.size;
+			evictions.incrementAndGet();
+			return;
+		}
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while (size > maximumSize && it.hasNext()) {
+			Map.Entry<String, Entry> e = it.next();
+			Entry entry = e.getValue();
+			if (entry != added && entry.candles.isDone()) {
+				evict(it, e.getKey(), entry);
+			}
+		}
+	}
+
+	private void evict(Iterator<?> it, String key, Entry entry) {
+		if (log.isTraceEnabled()) {
+			log.trace("Evicting cached candles of {} ({} bytes)", key, entry.size);
+		}
+		it.remove();
+		size -= entry.size;
+		evictions.incrementAndGet();
+	}
+
+	/**
+	 * Removes all cached candles of a given symbol.
+	 *
+	 * @param symbol the symbol whose candles should be removed from the cache.
+	 */
+	void evict(String symbol) {
+		synchronized (entries) {
+			Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<String, Entry> e = it.next();
+				if (e.getValue().symbol.equals(symbol) && e.getValue().candles.isDone()) {
+					evict(it, e.getKey(), e.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached candles. Entries of candles still being loaded are kept, so threads waiting for them are
+	 * released once loading completes.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.values().removeIf(entry -> entry.candles.isDone());
+			size = 0;
+		}
+	}
+
+	/**
+	 * @return the maximum number of bytes the cached candles can use.
+	 */
+	public long maximumSize() {
+		synchronized (entries) {
+			return maximumSize;
+		}
+	}
+
+	/**
+	 * Updates the maximum number of bytes the cached candles can use, evicting the least recently used entries if
+	 * needed.
+	 *
+	 * @param maximumSize the new size limit, in bytes.
+	 */
+	public void maximumSize(long maximumSize) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("Maximum cache size can't be negative");
+		}
+		synchronized (entries) {
+			this.maximumSize = maximumSize;
+			Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+			while (this.size > maximumSize && it.hasNext()) {
+				Map.Entry<String, Entry> e = it.next();
+				if (e.getValue().candles.isDone()) {
+					evict(it, e.getKey(), e.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of bytes currently used by the cached candles.
+	 */
+	public long size() {
+		synchronized (entries) {
+			return size;
+		}
+	}
+
+	/**
+	 * @return how many requests for candles were answered from the cache.
+	 */
+	public long hits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return how many requests for candles had to load them from the repository.
+	 */
+	public long misses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return how many entries were removed from the cache to keep it within its size limit.
+	 */
+	public long evictions() {
+		return evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return "CandleCache{size=" + size() + ", maximumSize=" + maximumSize() + ", hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions() + '}';
+	}
+
+	private static final class Entry {
+		final String symbol;
+		final CompletableFuture<CandleSeries> candles = new CompletableFuture<>();
+		long size;
+
+		Entry(String symbol) {
+			this.symbol = symbol;
+		}
+	}
+}
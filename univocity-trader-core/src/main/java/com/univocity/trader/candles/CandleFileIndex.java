@@ -0,0 +1,263 @@
+package com.univocity.trader.candles;
+
+import com.univocity.parsers.common.*;
+import org.slf4j.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * A sparse time index over a candle file read by a {@link FileCandleRepository}. Holds the byte offset and
+ * open time of one row every {@code interval} rows, so a reader can start parsing right before the first
+ * candle of interest instead of going through the entire file.
+ *
+ * The index is persisted to a sidecar file next to the candle file (with an additional {@code .idx} extension)
+ * and rebuilt whenever the length or the last modification time of the candle file change.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class CandleFileIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(CandleFileIndex.class);
+	private static final int VERSION = 1;
+
+	final File file;
+	private final long lastModified;
+	private final long length;
+	private final int interval;
+	private final byte[] header;
+	private final long[] times;
+	private final long[] offsets;
+
+	private CandleFileIndex(File file, long lastModified, long length, int interval, byte[] header, long[] times, long[] offsets) {
+		this.file = file;
+		this.lastModified = lastModified;
+		this.length = length;
+		this.interval = interval;
+		this.header = header;
+		this.times = times;
+		this.offsets = offsets;
+	}
+
+	boolean isValid(int interval) {
+		return this.interval == interval && file.lastModified() == lastModified && file.length() == length;
+	}
+
+	int size() {
+		return times.length;
+	}
+
+	/**
+	 * Finds the byte offset of an indexed row that comes before any candle opened at or after the given time.
+	 *
+	 * @param time the open time of the first candle the caller is interested in
+	 *
+	 * @return the byte offset to start reading from, or {@code -1} if the file must be read from the beginning.
+	 */
+	long offsetBefore(long time) {
+		int i = Arrays.binarySearch(times, time);
+		if (i < 0) {
+			i = -i - 2; //last entry with time < given time
+		} else {
+			i--; //rows with same open time may come before the matched entry.
+			while (i >= 0 && times[i] == time) {
+				i--;
+			}
+		}
+		return i < 0 ? -1 : offsets[i];
+	}
+
+	/**
+	 * Opens the candle file from the given byte offset. The header row, if any, is placed in front of the
+	 * returned input so the parser can still select columns by name.
+	 *
+	 * @param offset byte offset of the first row to read
+	 *
+	 * @return a reader of the candle file that starts at the given offset
+	 */
+	Reader readFrom(long offset) {
+		try {
+			FileInputStream in = new FileInputStream(file);
+			in.getChannel().position(offset);
+			InputStream input = new SequenceInputStream(new ByteArrayInputStream(header), new BufferedInputStream(in));
+			return ArgumentUtils.newReader(input, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read " + file.getAbsolutePath() + " from position " + offset, e);
+		}
+	}
+
+	private static File indexFileOf(File file) {
+		return new File(file.getAbsolutePath() + ".idx");
+	}
+
+	static CandleFileIndex load(File file, RowFormat<?, ?> rowFormat, int interval) {
+		CandleFileIndex index = read(file);
+		if (index != null && index.isValid(interval)) {
+			return index;
+		}
+		final long start = System.currentTimeMillis();
+		index = build(file, rowFormat, interval);
+		log.debug("Built time index of {} with {} entries in {} seconds", file, index.size(), (System.currentTimeMillis() - start) / 1000.0);
+		write(index);
+		return index;
+	}
+
+	private static CandleFileIndex read(File file) {
+		File indexFile = indexFileOf(file);
+		if (!indexFile.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (in.readInt() != VERSION) {
+				return null;
+			}
+			long lastModified = in.readLong();
+			long length = in.readLong();
+			int interval = in.readInt();
+			byte[] header = new byte[in.readInt()];
+			in.readFully(header);
+			int size = in.readInt();
+			long[] times = new long[size];
+			long[] offsets = new long[size];
+			for (int i = 0; i < size; i++) {
+				times[i] = in.readLong();
+				offsets[i] = in.readLong();
+			}
+			return new CandleFileIndex(file, lastModified, length, interval, header, times, offsets);
+		} catch (IOException e) {
+			log.debug("Discarding unreadable time index " + indexFile, e);
+			return null;
+		}
+	}
+
+	private static void write(CandleFileIndex index) {
+		File indexFile = indexFileOf(index.file);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+			out.writeInt(VERSION);
+			out.writeLong(index.lastModified);
+			out.writeLong(index.length);
+			out.writeInt(index.interval);
+			out.writeInt(index.header.length);
+			out.write(index.header);
+			out.writeInt(index.times.length);
+			for (int i = 0; i < index.times.length; i++) {
+				out.writeLong(index.times[i]);
+				out.writeLong(index.offsets[i]);
+			}
+		} catch (IOException e) {
+			//index will be kept in memory only.
+			log.debug("Unable to write time index " + indexFile, e);
+		}
+	}
+
+	private static CandleFileIndex build(File file, RowFormat<?, ?> rowFormat, int interval) {
+		long lastModified = file.lastModified();
+		long length = file.length();
+
+		Builder builder = new Builder(rowFormat, interval);
+		try (InputStream in = new FileInputStream(file)) {
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				for (int i = 0; i < read; i++) {
+					builder.append(buffer[i]);
+				}
+			}
+			builder.endOfLine();
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to build time index of " + file.getAbsolutePath(), e);
+		} finally {
+			builder.parser.stopParsing();
+		}
+
+		return new CandleFileIndex(file, lastModified, length, interval, builder.header, Arrays.copyOf(builder.times, builder.size), Arrays.copyOf(builder.offsets, builder.size));
+	}
+
+	private static final class Builder {
+		final RowFormat<?, ?> rowFormat;
+		final AbstractParser<?> parser;
+		final int interval;
+		final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+
+		byte[] header = new byte[0];
+		long[] times = new long[16];
+		long[] offsets = new long[16];
+		int size;
+
+		long position;
+		long lineStart;
+		int rowsToSkip;
+		boolean readingHeader;
+		boolean capture = true;
+
+		Builder(RowFormat<?, ?> rowFormat, int interval) {
+			this.rowFormat = rowFormat;
+			this.parser = rowFormat.createParser();
+			this.interval = interval;
+			this.readingHeader = rowFormat.hasHeaders;
+		}
+
+		void append(byte b) {
+			position++;
+			if (capture) {
+				line.write(b);
+			}
+			if (b == '\n') {
+				endOfLine();
+			}
+		}
+
+		void endOfLine() {
+			if (readingHeader) {
+				header = stripBom(line.toByteArray());
+				readingHeader = false;
+			} else if (capture) {
+				Candle candle = parse(rowFormat, parser, header, line.toByteArray());
+				if (candle != null) {
+					add(candle.openTime, lineStart);
+					rowsToSkip = interval - 1;
+					capture = rowsToSkip <= 0;
+				}
+			} else if (--rowsToSkip <= 0) {
+				capture = true;
+			}
+			line.reset();
+			lineStart = position;
+		}
+
+		private void add(long time, long offset) {
+			if (size > 0 && time < times[size - 1]) {
+				return; //rows out of order can't be searched
+			}
+			if (size == times.length) {
+				times = Arrays.copyOf(times, size * 2);
+				offsets = Arrays.copyOf(offsets, size * 2);
+			}
+			times[size] = time;
+			offsets[size] = offset;
+			size++;
+		}
+	}
+
+	private static byte[] stripBom(byte[] header) {
+		if (header.length >= 3 && header[0] == (byte) 0xEF && header[1] == (byte) 0xBB && header[2] == (byte) 0xBF) {
+			return Arrays.copyOfRange(header, 3, header.length);
+		}
+		return header;
+	}
+
+	private static Candle parse(RowFormat<?, ?> rowFormat, AbstractParser<?> parser, byte[] header, byte[] line) {
+		if (line.length == 0) {
+			return null;
+		}
+		String content = new String(header, StandardCharsets.UTF_8) + new String(line, StandardCharsets.UTF_8);
+		parser.beginParsing(new StringReader(content));
+		try {
+			String[] row = parser.parseNext();
+			return row == null ? null : rowFormat.toCandle(row);
+		} finally {
+			parser.stopParsing();
+		}
+	}
+}
@@ -8,17 +8,33 @@ import org.slf4j.*;
 
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import static com.univocity.trader.candles.Candle.*;
 
 /**
+ * Fills gaps in the candle history stored in a {@link DatabaseCandleRepository} with data requested from an
+ * {@link Exchange}.
+ *
+ * All requests made to the same exchange share a {@link RateLimiter} that releases one request every
+ * {@link Exchange#timeToWaitPerRequest()}, each request covering up to {@link Exchange#historicalCandleCountLimit()}
+ * candles. When many symbols are backfilled at once through
+ * {@link #fillHistoryGaps(Exchange, Collection, Instant, Instant, TimeInterval)}, their gaps are fetched concurrently
+ * so the budget of requests is not wasted waiting for responses. The candles received for a symbol are persisted in
+ * the order requested, in a separate thread, while the next requests for that symbol are made.
+ *
  * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
  */
 public final class CandleHistoryBackfill {
 
 	private static final Logger log = LoggerFactory.getLogger(CandleHistoryBackfill.class);
+	private static final int MAX_PENDING_WRITES = 2;
+
 	private final DatabaseCandleRepository candleRepository;
 	private boolean resumeBackfill = false;
+	private int parallelism = 4;
+	private final Map<Exchange<?, ?>, RateLimiter> rateLimiters = Collections.synchronizedMap(new IdentityHashMap<>());
 
 	public CandleHistoryBackfill(DatabaseCandleRepository candleRepository) {
 		this.candleRepository = candleRepository;
@@ -32,10 +48,39 @@ public final class CandleHistoryBackfill {
 		this.resumeBackfill = resumeBackfill;
 	}
 
+	/**
+	 * Returns the maximum number of symbols backfilled concurrently by
+	 * {@link #fillHistoryGaps(Exchange, Collection, Instant, Instant, TimeInterval)}.
+	 *
+	 * @return the number of symbols processed in parallel.
+	 */
+	public int parallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Defines the maximum number of symbols backfilled concurrently by
+	 * {@link #fillHistoryGaps(Exchange, Collection, Instant, Instant, TimeInterval)}. Requests are still paced by the
+	 * rate limit of the exchange, regardless of how many symbols are being processed.
+	 *
+	 * @param parallelism the number of symbols to process in parallel.
+	 */
+	public void parallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		this.parallelism = parallelism;
+	}
+
+	private RateLimiter rateLimiter(Exchange<?, ?> exchange) {
+		return rateLimiters.computeIfAbsent(exchange, e -> new RateLimiter(Math.max(0, e.timeToWaitPerRequest())));
+	}
+
 	public <T> void fillHistory(Exchange<T, ?> exchange, String symbol, Instant from, Instant to, TimeInterval minGap) {
 		long start = resumeIfPossible(symbol, from).toEpochMilli();
 		long end = to.toEpochMilli();
 		log.info("Refreshing history of {} from {} to {}.", symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+		rateLimiter(exchange).acquire();
 		IncomingCandles<T> ticks = exchange.getHistoricalTicks(symbol, minGap, start, end);
 		persistIncomingCandles(exchange, ticks, symbol, start);
 		log.info("{} history backfill process complete.", symbol);
@@ -47,20 +92,17 @@ public final class CandleHistoryBackfill {
 
 		log.info("Refreshing tick history of {} from {} to {}.", symbol, getFormattedDateTimeWithYear(stop), getFormattedDateTimeWithYear(end));
 		long start = end - TimeInterval.HOUR.ms;
-		long lastRequest = -1;
+		RateLimiter rateLimiter = rateLimiter(exchange);
 
 		while (end > stop) {
-			if (lastRequest != -1) {
-				exchange.waitBeforeNextRequest(lastRequest);
-			}
-			lastRequest = System.currentTimeMillis();
+			rateLimiter.acquire();
 			IncomingCandles<T> ticks = exchange.getHistoricalTicks(symbol, minGap, start, end);
-			persistIncomingCandles(exchange, ticks, symbol, start);
-			if (firstCandleReceived == null) {
+			Received received = persistIncomingCandles(exchange, ticks, symbol, start);
+			if (received.first == null) {
 				log.info("No more ticks available for {}.", symbol);
 				break;
 			}
-			end = firstCandleReceived.closeTime;
+			end = received.first.closeTime;
 			start = end - TimeInterval.HOUR.ms;
 		}
 
@@ -94,6 +136,75 @@ public final class CandleHistoryBackfill {
 	}
 
 	public <T> void fillHistoryGaps(Exchange<T, ?> exchange, String symbol, Instant from, Instant to, TimeInterval minGap) {
+		ExecutorService writer = Executors.newSingleThreadExecutor(daemonThreads("Backfill writer"));
+		try {
+			fillHistoryGaps(exchange, symbol, from, to, minGap, writer);
+		} finally {
+			writer.shutdown();
+		}
+	}
+
+	/**
+	 * Fills the gaps in the history of multiple symbols, processing up to {@link #parallelism()} symbols at the same
+	 * time. The history of every symbol is processed even if some of them fail. Once all symbols are processed, the
+	 * first error found (if any) is rethrown.
+	 *
+	 * @param exchange the exchange to request candles from
+	 * @param symbols  the symbols whose history must be updated
+	 * @param from     the start of the period to update
+	 * @param to       the end of the period to update ({@code null} to update up to the current time)
+	 * @param minGap   the interval of the candles to request
+	 * @param <T>      the type of candle returned by the exchange
+	 */
+	public <T> void fillHistoryGaps(Exchange<T, ?> exchange, Collection<String> symbols, Instant from, Instant to, TimeInterval minGap) {
+		if (symbols.isEmpty()) {
+			return;
+		}
+		int threads = Math.min(parallelism, symbols.size());
+		ExecutorService fetchers = Executors.newFixedThreadPool(threads, daemonThreads("Backfill fetcher"));
+		ExecutorService writers = Executors.newFixedThreadPool(threads, daemonThreads("Backfill writer"));
+		RuntimeException error = null;
+		try {
+			Map<String, Future<?>> results = new LinkedHashMap<>();
+			for (String symbol : symbols) {
+				results.put(symbol, fetchers.submit(() -> fillHistoryGaps(exchange, symbol, from, to, minGap, writers)));
+			}
+			for (Map.Entry<String, Future<?>> e : results.entrySet()) {
+				try {
+					e.getValue().get();
+				} catch (ExecutionException ex) {
+					Throwable cause = ex.getCause();
+					log.error("Error filling gaps in history of " + e.getKey(), cause);
+					RuntimeException failure = cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException("Error filling gaps in history of " + e.getKey(), cause);
+					if (error == null) {
+						error = failure;
+					} else {
+						error.addSuppressed(failure);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while filling gaps in history", e);
+		} finally {
+			fetchers.shutdownNow();
+			writers.shutdown();
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	private static ThreadFactory daemonThreads(String name) {
+		AtomicInteger count = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private <T> void fillHistoryGaps(Exchange<T, ?> exchange, String symbol, Instant from, Instant to, TimeInterval minGap, Executor writers) {
 		to = to == null ? Instant.now() : to;
 		final int limitPerRequest = exchange.historicalCandleCountLimit();
 		if (limitPerRequest <= 0) {
@@ -108,46 +219,32 @@ public final class CandleHistoryBackfill {
 
 		log.info("Looking for gaps in history of {} between {} and {}", symbol, getFormattedDateTimeWithYear(from.toEpochMilli()), getFormattedDateTimeWithYear(to.toEpochMilli()));
 
+		rateLimiter(exchange).acquire();
 		IncomingCandles<T> ticks = exchange.getLatestTicks(symbol, minGap);
-		if (persistIncomingCandles(exchange, ticks, symbol, from.toEpochMilli()) == 0) {
+		if (persistIncomingCandles(exchange, ticks, symbol, from.toEpochMilli()).count == 0) {
 			throw new IllegalStateException("No recent history data received");
 		}
 
 		List<long[]> gaps = new ArrayList<>();
 
-		long previous = from == null ? -1 : from.toEpochMilli();
-
-		Enumeration<Candle> result = candleRepository.iterate(symbol, from, to, false);
-		outer:
-		while (result.hasMoreElements()) {
-			Candle candle = result.nextElement();
-			if (candle == null) {
-				break;
-			}
-
-			long minute = candle.openTime;
-			if (previous == -1) {
-				previous = minute;
-				continue;
-			}
-			final long gapStart = previous;
+		for (long[] hole : candleRepository.findGaps(symbol, from, to, minGap.ms)) {
+			final long gapStart = hole[0];
+			final long minute = hole[1];
+			long previous = gapStart;
 			long gap = minute - previous;
-			if (gap > minGap.ms) {
-				long limit = gap / minGap.ms;
-				do {
-					long start = previous;
-					long end = minute;
-
-					limit -= limitPerRequest;
-					if (limit > 0) {
-						end = start + (limitPerRequest * minGap.ms);
-					}
-					gaps.add(new long[]{start, end});
-					previous = end;
-				} while (limit > 0);
-				log.warn("Historical data of {} has a gap of {} minutes between {} and {}", symbol, (gap / minGap.ms), getFormattedDateTimeWithYear(gapStart), getFormattedDateTimeWithYear(minute));
-			}
-			previous = minute;
+			long limit = gap / minGap.ms;
+			do {
+				long start = previous;
+				long end = minute;
+
+				limit -= limitPerRequest;
+				if (limit > 0) {
+					end = start + (limitPerRequest * minGap.ms);
+				}
+				gaps.add(new long[]{start, end});
+				previous = end;
+			} while (limit > 0);
+			log.warn("Historical data of {} has a gap of {} minutes between {} and {}", symbol, (gap / minGap.ms), getFormattedDateTimeWithYear(gapStart), getFormattedDateTimeWithYear(minute));
 		}
 
 //		settings.removeIgnoredIntervals(gaps);
@@ -158,62 +255,92 @@ public final class CandleHistoryBackfill {
 //				gaps = gaps.subList(gaps.size() - 30, gaps.size());
 //			}
 			Collections.reverse(gaps);
-			fillGaps(exchange, symbol, minGap, gaps);
+			fillGaps(exchange, symbol, minGap, gaps, writers);
 		}
 		log.info("{} history backfill process complete", symbol);
 	}
 
-	private <T> void fillGaps(Exchange<T, ?> exchange, String symbol, TimeInterval minGap, List<long[]> gaps) {
+	/**
+	 * Requests the candles of each gap from the exchange and hands them over to a lane of the writer threads, which
+	 * persists them in the order requested. Up to {@link #MAX_PENDING_WRITES} responses are kept waiting to be
+	 * persisted before further requests are made.
+	 */
+	private <T> void fillGaps(Exchange<T, ?> exchange, String symbol, TimeInterval minGap, List<long[]> gaps, Executor writers) {
 		log.info("Filling {} gaps in history of {}", gaps.size(), symbol);
 
-		int noDataCount = 0;
-		for (long[] gap : gaps) {
-			long start = gap[0];
-			long end = gap[1];
-
-			if (noDataCount > 20) {
-				log.info("Aborting gap filling of {} as there is no data before {}", symbol, getFormattedDateTimeWithYear(start));
-				return;
-			}
-
-			if (isKnownGap(symbol, start, end)) {
-				noDataCount++;
-				continue;
-			}
+		RateLimiter rateLimiter = rateLimiter(exchange);
+		KnownGaps knownGaps = loadKnownGaps(symbol);
+		SerialExecutor lane = new SerialExecutor(writers);
+		Semaphore pendingWrites = new Semaphore(MAX_PENDING_WRITES);
+		AtomicInteger noDataCount = new AtomicInteger();
+		try {
+			for (long[] gap : gaps) {
+				long start = gap[0];
+				long end = gap[1];
 
-			try {
-				long lastRequest = System.currentTimeMillis();
-				IncomingCandles<T> ticks = exchange.getHistoricalTicks(symbol.toUpperCase(), minGap, start, end);
-				int count = 0;
-				for (T tick : ticks) {
-					count++;
-					PreciseCandle candle = exchange.generatePreciseCandle(tick);
-					candleRepository.addToHistory(symbol, candle, true);
+				if (noDataCount.get() > 20) {
+					log.info("Aborting gap filling of {} as there is no data before {}", symbol, getFormattedDateTimeWithYear(start));
+					return;
 				}
 
-				if (count <= 2 && exchange.historicalCandleCountLimit() > 0) {
-					noDataCount++;
-//						log.info("No Candles found for {} between {} and {}", symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
-					log.warn("Found a historical gap between {} and {}. Interval blacklisted.", getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
-					addGap(symbol, start, end);
-				} else {
-					log.info("Loaded {} {} candles between {} and {}", count, symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
-					noDataCount = 0;
+				if (knownGaps.contains(start, end)) {
+					noDataCount.incrementAndGet();
+					continue;
 				}
 
-				if (ticks.consumerStopped()) {
-					log.warn("Process interrupted while retrieving {} history between {} and {}", symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+				try {
+					pendingWrites.acquire();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					log.warn("Process interrupted while filling gaps in history of {}", symbol);
+					return;
+				}
+				try {
+					rateLimiter.acquire();
+					IncomingCandles<T> ticks = exchange.getHistoricalTicks(symbol.toUpperCase(), minGap, start, end);
+					lane.execute(() -> {
+						try {
+							persistGap(exchange, ticks, symbol, start, end, noDataCount);
+						} finally {
+							pendingWrites.release();
+						}
+					});
+				} catch (Exception e) {
+					pendingWrites.release();
+					log.error("Error retrieving history between {} and {}", start, end);
 				}
+			}
+		} finally {
+			pendingWrites.acquireUninterruptibly(MAX_PENDING_WRITES);
+		}
+	}
 
-				exchange.waitBeforeNextRequest(lastRequest);
-			} catch (Exception e) {
-				log.error("Error retrieving history between {} and {}", start, end);
+	private <T> void persistGap(Exchange<T, ?> exchange, IncomingCandles<T> ticks, String symbol, long start, long end, AtomicInteger noDataCount) {
+		try {
+			Received received = new Received();
+			candleRepository.addToHistory(symbol, toCandles(exchange, ticks, received), true);
+
+			if (received.count <= 2 && exchange.historicalCandleCountLimit() > 0) {
+				noDataCount.incrementAndGet();
+//				log.info("No Candles found for {} between {} and {}", symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+				log.warn("Found a historical gap between {} and {}. Interval blacklisted.", getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+				addGap(symbol, start, end);
+			} else {
+				log.info("Loaded {} {} candles between {} and {}", received.count, symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+				noDataCount.set(0);
 			}
+
+			if (ticks.consumerStopped()) {
+				log.warn("Process interrupted while retrieving {} history between {} and {}", symbol, getFormattedDateTimeWithYear(start), getFormattedDateTimeWithYear(end));
+			}
+		} catch (Exception e) {
+			log.error("Error retrieving history between {} and {}", start, end);
 		}
 	}
 
-	private boolean isKnownGap(String symbol, long start, long end) {
-		return candleRepository.count("SELECT COUNT(*) FROM gap WHERE symbol = ? AND open_time = ? AND close_time = ?", symbol.toUpperCase(), start, end) > 0;
+	private KnownGaps loadKnownGaps(String symbol) {
+		List<long[]> gaps = candleRepository.db().query("SELECT open_time, close_time FROM gap WHERE symbol = ?", new Object[]{symbol.toUpperCase()}, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+		return new KnownGaps(gaps);
 	}
 
 	private void addGap(String symbol, long start, long end) {
@@ -224,29 +351,43 @@ public final class CandleHistoryBackfill {
 		}
 	}
 
-	private PreciseCandle firstCandleReceived;
+	private static final class Received {
+		int count;
+		PreciseCandle first;
+	}
 
-	private <T> int persistIncomingCandles(Exchange<T, ?> exchange, IncomingCandles<T> ticks, String symbol, long start) {
-		firstCandleReceived = null;
-		int persisted = 0;
-		int received = 0;
-		for (T tick : ticks) {
-			PreciseCandle candle = exchange.generatePreciseCandle(tick);
-			if (firstCandleReceived == null) {
-				firstCandleReceived = candle;
+	private <T> Iterable<PreciseCandle> toCandles(Exchange<T, ?> exchange, IncomingCandles<T> ticks, Received received) {
+		return () -> new Iterator<>() {
+			final Iterator<T> it = ticks.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
 			}
-			if (candleRepository.addToHistory(symbol, candle, true)) {
-				persisted++;
+
+			@Override
+			public PreciseCandle next() {
+				PreciseCandle candle = exchange.generatePreciseCandle(it.next());
+				if (received.first == null) {
+					received.first = candle;
+				}
+				received.count++;
+				return candle;
 			}
-			received++;
-		}
+		};
+	}
+
+	private <T> Received persistIncomingCandles(Exchange<T, ?> exchange, IncomingCandles<T> ticks, String symbol, long start) {
+		Received received = new Received();
+		int persisted = candleRepository.addToHistory(symbol, toCandles(exchange, ticks, received), true);
+		PreciseCandle firstCandleReceived = received.first;
 		if (ticks.consumerStopped()) {
 			log.warn("Process interrupted while retrieving {} history since {}", symbol, getFormattedDateTimeWithYear(start));
 		}
 
 		//all candles received are already in the database. Making a checkpoint so the backfill process can be
 		//interrupted and resume from there.
-		if (received > 0 && persisted == 0) {
+		if (received.count > 0 && persisted == 0) {
 			// deleting then inserting on purpose to avoid using a database-specific function to update the
 			// timestamp is column `candle.ts`. This allows people to use the database they prefer.
 			var delete = "DELETE FROM candle WHERE symbol = ? AND open_time = ? AND close_time = ?";
@@ -257,7 +398,7 @@ public final class CandleHistoryBackfill {
 			}
 		}
 
-		log.info("{} {} candles received, {} new candles added to history.", received, symbol, persisted);
+		log.info("{} {} candles received, {} new candles added to history.", received.count, symbol, persisted);
 		return received;
 	}
 
@@ -0,0 +1,454 @@
+package com.univocity.trader.candles;
+
+import org.slf4j.*;
+
+import java.io.*;
+import java.math.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Append-only log of candles waiting to be written to a database, used by {@link DatabaseCandleRepository} in
+ * write-behind mode. Candles are appended to memory-mapped segment files and written to the database in batches
+ * by a background thread, so the threads receiving ticks from an exchange never wait on the database.
+ *
+ * Each segment file starts with a header holding the offset of the first candle not yet written to the database.
+ * Candles follow the header as length-prefixed records, and the length is written only after the record itself, so
+ * a record cut short by a crash is never read. Segments are deleted once all their candles are written. When a
+ * journal is opened over an existing directory, any candles left in it are written to the database again.
+ *
+ * A journal holds an exclusive lock on its directory while open, so no two journals (of this or of any other process)
+ * append to the same segments. Use {@link #open(Path, int, Sink)} to share the journal of a directory among all
+ * repositories of a process.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class CandleJournal implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(CandleJournal.class);
+
+	/**
+	 * Receives batches of candles of a symbol read from the journal. Any exception thrown makes the journal retry
+	 * the same candles later, so duplicates must be ignored.
+	 */
+	interface Sink {
+		void persist(String symbol, List<PreciseCandle> candles) throws Exception;
+	}
+
+	static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+	static final int HEADER_SIZE = 64;
+	private static final int END_OF_SEGMENT = -1;
+	private static final String PREFIX = "candles-";
+	private static final String SUFFIX = ".journal";
+	private static final String LOCK_FILE = "journal.lock";
+	private static final long MAX_RETRY_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+	private static final long IDLE_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private static final Map<Path, CandleJournal> OPEN_JOURNALS = new HashMap<>();
+
+	private final Path dir;
+	private final FileChannel lockChannel;
+	private final FileLock lock;
+	private int references = 1; //guarded by OPEN_JOURNALS
+	private final int segmentSize;
+	private final int batchSize;
+	private final Sink sink;
+
+	private final Deque<Segment> segments = new ConcurrentLinkedDeque<>();
+	private final Map<String, Long> lastOpenTimes = new ConcurrentHashMap<>();
+	private final Thread flusher;
+	private volatile boolean closed;
+	private volatile Exception lastError;
+
+	private Segment writing;
+	private long nextSequence;
+
+	private static final class Segment {
+		final File file;
+		final MappedByteBuffer buffer;
+		volatile int limit = HEADER_SIZE;
+		volatile boolean sealed;
+
+		Segment(File file, MappedByteBuffer buffer) {
+			this.file = file;
+			this.buffer = buffer;
+		}
+
+		int flushed() {
+			long flushed = buffer.getLong(0);
+			return flushed < HEADER_SIZE ? HEADER_SIZE : (int) flushed;
+		}
+	}
+
+	CandleJournal(Path dir, int batchSize, Sink sink) {
+		this(dir, DEFAULT_SEGMENT_SIZE, batchSize, sink);
+	}
+
+	CandleJournal(Path dir, int segmentSize, int batchSize, Sink sink) {
+		this.dir = dir.toAbsolutePath().normalize();
+		this.segmentSize = segmentSize;
+		this.batchSize = batchSize;
+		this.sink = sink;
+
+		FileChannel lockChannel = null;
+		try {
+			Files.createDirectories(this.dir);
+			lockChannel = FileChannel.open(this.dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			FileLock lock;
+			try {
+				lock = lockChannel.tryLock();
+			} catch (OverlappingFileLockException e) {
+				lock = null;
+			}
+			if (lock == null) {
+				throw new IllegalStateException("Candle journal at " + this.dir + " is already in use");
+			}
+			this.lockChannel = lockChannel;
+			this.lock = lock;
+			recover();
+		} catch (IOException | RuntimeException e) {
+			closeQuietly(lockChannel);
+			if (e instanceof IllegalStateException) {
+				throw (IllegalStateException) e;
+			}
+			throw new IllegalStateException("Unable to open candle journal at " + this.dir, e);
+		}
+
+		flusher = new Thread(this::flushContinuously, "candle journal flusher (" + dir.getFileName() + ")");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Returns the journal open over a directory in this process, or opens a new one. Every call must be matched by a
+	 * call to {@link #close()}, and the journal is only closed when all users close it. The sink given when the
+	 * journal is first opened is used by all of them.
+	 *
+	 * @param dir       the journal directory
+	 * @param batchSize maximum number of candles written to the sink at once
+	 * @param sink      receives the journaled candles
+	 *
+	 * @return the journal of the given directory.
+	 */
+	static CandleJournal open(Path dir, int batchSize, Sink sink) {
+		Path key = dir.toAbsolutePath().normalize();
+		synchronized (OPEN_JOURNALS) {
+			CandleJournal journal = OPEN_JOURNALS.get(key);
+			if (journal != null) {
+				journal.references++;
+			} else {
+				journal = new CandleJournal(key, batchSize, sink);
+				OPEN_JOURNALS.put(key, journal);
+			}
+			return journal;
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				log.debug("Error closing " + closeable, e);
+			}
+		}
+	}
+
+	private void recover() throws IOException {
+		File[] files = dir.toFile().listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+		if (files != null) {
+			Arrays.sort(files);
+			for (File file : files) {
+				Segment segment = new Segment(file, map(file));
+				int position = segment.flushed();
+				while (position + 4 <= segmentSize) {
+					int length = segment.buffer.getInt(position);
+					if (length == END_OF_SEGMENT) {
+						segment.sealed = true;
+						break;
+					} else if (length <= 0) {
+						break;
+					}
+					Record record = read(segment.buffer, position + 4, length);
+					lastOpenTimes.merge(record.symbol, record.candle.openTime, Math::max);
+					position += 4 + length;
+				}
+				segment.limit = position;
+				segments.addLast(segment);
+				nextSequence = sequenceOf(file) + 1;
+			}
+		}
+
+		int pending = segments.stream().mapToInt(s -> s.limit - s.flushed()).sum();
+		if (pending > 0) {
+			log.info("Candle journal at {} has {} bytes of candles not yet written to the database. Replaying.", dir, pending);
+		}
+
+		Segment last = segments.peekLast();
+		if (last != null && !last.sealed && last.limit + 4 < segmentSize) {
+			writing = last;
+		} else {
+			if (last != null) {
+				last.sealed = true;
+			}
+			writing = newSegment();
+		}
+	}
+
+	private static long sequenceOf(File file) {
+		String name = file.getName();
+		return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+	}
+
+	private MappedByteBuffer map(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		}
+	}
+
+	private Segment newSegment() throws IOException {
+		File file = dir.resolve(String.format("%s%020d%s", PREFIX, nextSequence++, SUFFIX)).toFile();
+		Segment segment = new Segment(file, map(file));
+		segments.addLast(segment);
+		return segment;
+	}
+
+	/**
+	 * Appends a candle to the journal. Returns as soon as the candle is in the memory-mapped segment.
+	 *
+	 * @param symbol the symbol of the candle
+	 * @param candle the candle to be written to the database
+	 */
+	synchronized void append(String symbol, PreciseCandle candle) {
+		if (closed) {
+			throw new IllegalStateException("Candle journal at " + dir + " is closed");
+		}
+		byte[] record = encode(symbol, candle);
+
+		try {
+			if (writing.limit + 4 + record.length + 4 > segmentSize) {
+				writing.buffer.putInt(writing.limit, END_OF_SEGMENT);
+				writing.buffer.force();
+				writing.sealed = true;
+				writing = newSegment();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to create new segment of candle journal at " + dir, e);
+		}
+
+		int position = writing.limit;
+		ByteBuffer buffer = writing.buffer.duplicate();
+		buffer.position(position + 4);
+		buffer.put(record);
+		writing.buffer.putInt(position, record.length); //length goes last: records cut short by a crash are ignored.
+		writing.limit = position + 4 + record.length;
+
+		lastOpenTimes.merge(symbol, candle.openTime, Math::max);
+	}
+
+	/**
+	 * @param symbol a symbol whose candles might be in this journal
+	 *
+	 * @return the latest open time of the candles of the given symbol appended to this journal, or
+	 * {@link Long#MIN_VALUE} if none.
+	 */
+	long lastOpenTime(String symbol) {
+		return lastOpenTimes.getOrDefault(symbol, Long.MIN_VALUE);
+	}
+
+	/**
+	 * @return the number of bytes of candles not yet written to the database.
+	 */
+	long pending() {
+		long pending = 0;
+		for (Segment segment : segments) {
+			pending += segment.limit - segment.flushed();
+		}
+		return pending;
+	}
+
+	/**
+	 * @return the last error produced while writing candles to the database, or {@code null} if the last write
+	 * succeeded.
+	 */
+	Exception lastError() {
+		return lastError;
+	}
+
+	/**
+	 * Waits until every candle appended to this journal is written to the database.
+	 *
+	 * @param timeout maximum time to wait, in milliseconds.
+	 *
+	 * @return {@code true} if all candles were written, or {@code false} if the timeout elapsed first.
+	 */
+	boolean awaitFlush(long timeout) {
+		long deadline = System.currentTimeMillis() + timeout;
+		while (pending() > 0) {
+			if (System.currentTimeMillis() > deadline) {
+				return false;
+			}
+			LockSupport.unpark(flusher);
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Stops the background thread and releases the lock on the journal directory, once every user of a journal shared
+	 * through {@link #open(Path, int, Sink)} closes it. Candles not yet written remain in the journal and are written
+	 * once it is opened again.
+	 */
+	@Override
+	public void close() {
+		synchronized (OPEN_JOURNALS) {
+			if (closed || --references > 0) {
+				return;
+			}
+			OPEN_JOURNALS.remove(dir, this);
+			closed = true;
+		}
+		LockSupport.unpark(flusher);
+		try {
+			flusher.join(TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (Segment segment : segments) {
+			segment.buffer.force();
+		}
+		try {
+			lock.release();
+		} catch (IOException e) {
+			log.debug("Error releasing lock of candle journal at " + dir, e);
+		}
+		closeQuietly(lockChannel);
+	}
+
+	private void flushContinuously() {
+		long retryInterval = 0;
+		while (!closed) {
+			boolean flushed;
+			try {
+				flushed = flushNextBatch();
+				lastError = null;
+				retryInterval = 0;
+			} catch (Exception e) {
+				if (lastError == null) {
+					log.warn("Unable to write journaled candles to the database. Will retry.", e);
+				}
+				lastError = e;
+				retryInterval = Math.min(MAX_RETRY_INTERVAL, Math.max(retryInterval * 2, IDLE_INTERVAL));
+				LockSupport.parkNanos(this, retryInterval);
+				continue;
+			}
+			if (!flushed) {
+				LockSupport.parkNanos(this, IDLE_INTERVAL);
+			}
+		}
+	}
+
+	private boolean flushNextBatch() throws Exception {
+		Segment segment = segments.peekFirst();
+		if (segment == null) {
+			return false;
+		}
+
+		Map<String, List<PreciseCandle>> batch = new LinkedHashMap<>();
+		int count = 0;
+		int position = segment.flushed();
+		int limit = segment.limit;
+		boolean endOfSegment = false;
+
+		while (count < batchSize) {
+			if (position >= limit) {
+				endOfSegment = segment.sealed && position >= segment.limit;
+				break;
+			}
+			int length = segment.buffer.getInt(position);
+			if (length == END_OF_SEGMENT) {
+				endOfSegment = true;
+				break;
+			}
+			Record record = read(segment.buffer, position + 4, length);
+			batch.computeIfAbsent(record.symbol, s -> new ArrayList<>()).add(record.candle);
+			position += 4 + length;
+			count++;
+		}
+
+		for (Map.Entry<String, List<PreciseCandle>> e : batch.entrySet()) {
+			sink.persist(e.getKey(), e.getValue());
+		}
+		if (count > 0) {
+			segment.buffer.putLong(0, position);
+		}
+
+		if (endOfSegment) {
+			segments.pollFirst();
+			if (!segment.file.delete()) {
+				log.debug("Could not delete candle journal segment {}", segment.file);
+			}
+			return true;
+		}
+		return count > 0;
+	}
+
+	private static final class Record {
+		final String symbol;
+		final PreciseCandle candle;
+
+		Record(String symbol, PreciseCandle candle) {
+			this.symbol = symbol;
+			this.candle = candle;
+		}
+	}
+
+	private static byte[] encode(String symbol, PreciseCandle candle) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeUTF(symbol);
+			out.writeLong(candle.openTime);
+			out.writeLong(candle.closeTime);
+			out.writeUTF(candle.open.toString());
+			out.writeUTF(candle.high.toString());
+			out.writeUTF(candle.low.toString());
+			out.writeUTF(candle.close.toString());
+			out.writeUTF(candle.volume.toString());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Record read(MappedByteBuffer buffer, int position, int length) {
+		ByteBuffer record = buffer.duplicate();
+		record.position(position).limit(position + length);
+		String symbol = readString(record);
+		PreciseCandle candle = new PreciseCandle(
+				record.getLong(),
+				record.getLong(),
+				new BigDecimal(readString(record)),
+				new BigDecimal(readString(record)),
+				new BigDecimal(readString(record)),
+				new BigDecimal(readString(record)),
+				new BigDecimal(readString(record)));
+		return new Record(symbol, candle);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8); //writeUTF output is plain UTF-8 for symbols and numbers
+	}
+}
@@ -31,12 +31,11 @@ public final class CandleProcessor<T> {
 	public void processCandle(T realTimeTick, boolean initializing) {
 		try {
 			synchronized (consumer) {
-				PreciseCandle tick = exchange.generatePreciseCandle(realTimeTick);
-				if (!candleRepository.addToHistory(consumer.getSymbol(), tick, initializing)) {  //already processed, skip.
+				Candle candle = exchange.generateCandle(realTimeTick);
+				if (!candleRepository.addToHistory(consumer.getSymbol(), candle.openTime, candle.closeTime, () -> exchange.generatePreciseCandle(realTimeTick), initializing)) {  //already processed, skip.
 					return;
 				}
 
-				Candle candle;
 				if (processFullCandlesOnly && !initializing && candleRepository.isWritingSupported()) {
 					PreciseCandle fullCandle = ((DatabaseCandleRepository)candleRepository).lastFullCandle(consumer.getSymbol());
 					if (fullCandle == null) {
@@ -44,8 +43,6 @@ public final class CandleProcessor<T> {
 					} else {
 						candle = new Candle(fullCandle);
 					}
-				} else {
-					candle = new Candle(tick);
 				}
 
 				processCandle(candle, initializing);
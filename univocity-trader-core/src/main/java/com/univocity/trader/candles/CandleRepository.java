@@ -6,13 +6,21 @@ import org.slf4j.*;
 import java.time.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.*;
 
 import static com.univocity.trader.utils.RepositoryDir.*;
 
 public abstract class CandleRepository {
 	private static final Logger log = LoggerFactory.getLogger(CandleRepository.class);
 
-	protected final ConcurrentHashMap<String, Collection<Candle>> cachedResults = new ConcurrentHashMap<>();
+	private static final ExecutorService readers = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r);
+		thread.setName(ThreadName.generateNewName());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final CandleCache candleCache = new CandleCache(Runtime.getRuntime().maxMemory() / 4);
 	protected final ConcurrentHashMap<String, Long> candleCounts = new ConcurrentHashMap<>();
 
 	public CandleRepository() {
@@ -23,63 +31,86 @@ public abstract class CandleRepository {
 
 	public abstract boolean addToHistory(String symbol, PreciseCandle tick, boolean initializing);
 
-	protected Enumeration<Candle> cacheAndReturnResults(String symbol, String query, Instant from, Instant to, Collection<Candle> out) {
-		cachedResults.put(symbol, out);
-		return Collections.enumeration(out);
+	/**
+	 * Adds a tick to the history of a symbol, generating its {@link PreciseCandle} only if it has to be stored. Ticks
+	 * received from a live stream are mostly updates of the latest candle, which replace each other until the next
+	 * candle begins, so most of them never need to be stored.
+	 *
+	 * @param symbol       the symbol whose history is being updated
+	 * @param openTime     the open time of the tick
+	 * @param closeTime    the close time of the tick
+	 * @param tick         supplier of the {@link PreciseCandle} with the details of the tick
+	 * @param initializing flag indicating whether the history is being backfilled, in which case duplicates are not
+	 *                     logged
+	 *
+	 * @return {@code false} if the tick was already added to the history, {@code true} otherwise.
+	 */
+	public boolean addToHistory(String symbol, long openTime, long closeTime, Supplier<PreciseCandle> tick, boolean initializing) {
+		return addToHistory(symbol, tick.get(), initializing);
 	}
 
-	final Enumeration<Candle> toEnumeration(String symbol, String query, Instant from, Instant to, Runnable readingProcess, Collection<Candle> out, boolean[] ended) {
-		if (!(out instanceof BlockingQueue)) {
-			readingProcess.run();
-			return cacheAndReturnResults(symbol, query, from, to, out);
-		}
+	/**
+	 * Returns the cache of candles loaded with {@link #iterate(String, Instant, Instant, boolean)} when caching is
+	 * enabled. Use it to adjust the cache size limit or to check the cache hit, miss and eviction counts.
+	 *
+	 * @return the candle cache of this repository.
+	 */
+	public final CandleCache getCache() {
+		return candleCache;
+	}
+
+	private static String cacheKey(String symbol, Instant from, Instant to) {
+		return cleanSymbol(symbol) + "_" + (from == null ? "" : from.toEpochMilli()) + "_" + (to == null ? "" : to.toEpochMilli());
+	}
 
-		final BlockingQueue<Candle> queue = (BlockingQueue<Candle>) out;
-		Thread process = new Thread(readingProcess);
-		process.setName(ThreadName.generateNewName());
-		process.setDaemon(true);
-		process.start();
+	protected Enumeration<Candle> cacheAndReturnResults(String symbol, String query, Instant from, Instant to, Consumer<Candle> out) {
+		if (out instanceof CandleSeries) {
+			CandleSeries candles = (CandleSeries) out;
+			candleCache.put(cacheKey(symbol, from, to), candles);
+			return candles.enumeration();
+		}
+		throw new IllegalArgumentException("Unsupported candle sink: " + out.getClass().getName());
+	}
 
-		return new Enumeration<>() {
-			@Override
-			public boolean hasMoreElements() {
-				return !ended[0] || !queue.isEmpty();
+	final Enumeration<Candle> toEnumeration(String symbol, String query, Instant from, Instant to, Runnable readingProcess, Consumer<Candle> out, boolean[] ended) {
+		if (!(out instanceof CandleStream)) {
+			try {
+				readingProcess.run();
+			} catch (RuntimeException | Error e) {
+				candleCache.failed(cacheKey(symbol, from, to), e);
+				throw e;
 			}
+			return cacheAndReturnResults(symbol, query, from, to, out);
+		}
 
-			@Override
-			public Candle nextElement() {
-				while (hasMoreElements()) {
-					Candle next = null;
-					try {
-						next = queue.poll(100L, TimeUnit.MILLISECONDS);
-					} catch (InterruptedException e) {
-						log.error("Candle reading process interrupted", e);
-						Thread.currentThread().interrupt();
-					}
-					if (next != null) {
-						return next;
-					}
-				}
-				return null;
+		final CandleStream stream = (CandleStream) out;
+		readers.execute(() -> {
+			try {
+				readingProcess.run();
+			} finally {
+				stream.close();
 			}
-		};
+		});
+		return stream;
 	}
 
-	protected void storeCandle(String symbol, Instant from, Instant to, Collection<Candle> out, Candle candle) {
-		out.add(candle);
+	protected void storeCandle(String symbol, Instant from, Instant to, Consumer<Candle> out, Candle candle) {
+		if (out != null) { // null when only counting candles
+			out.accept(candle);
+		}
 	}
 
 	protected void ended(String symbol, boolean[] ended) {
 		ended[0] = true;
 	}
 
-	protected abstract long loadCandles(String symbol, String query, Instant from, Instant to, Collection<Candle> out);
+	protected abstract long loadCandles(String symbol, String query, Instant from, Instant to, Consumer<Candle> out);
 
 	public static String cleanSymbol(String symbol) {
 		return symbol.replaceAll("[^A-Za-z0-9]", "");
 	}
 
-	protected Enumeration<Candle> executeQuery(String symbl, String query, Instant from, Instant to, Collection<Candle> out) {
+	protected Enumeration<Candle> executeQuery(String symbl, String query, Instant from, Instant to, Consumer<Candle> out) {
 		String symbol = cleanSymbol(symbl);
 		boolean[] ended = new boolean[]{false};
 
@@ -114,82 +145,72 @@ public abstract class CandleRepository {
 	}
 
 	public final void clearCaches() {
-		cachedResults.clear();
+		candleCache.clear();
 	}
 
 	public final void evictFromCache(String symbol) {
 		if (log.isTraceEnabled()) {
 			log.trace("Evicting cached candles of {}", symbol);
 		}
-		Collection<Candle> candles = cachedResults.remove(symbol);
-		if (candles != null) {
-			candles.clear();
-		}
-	}
-
-	protected Enumeration<Candle> getCachedResults(String symbol, String query, Instant from, Instant to) {
-		Collection<Candle> cachedResult;
-		boolean waitForCache;
-		synchronized (cachedResults) {
-			cachedResult = cachedResults.get(symbol);
-			if (cachedResult != null) {
-				waitForCache = true;
-			} else {
-				cachedResults.put(symbol, Collections.emptyList());
-				waitForCache = false;
-			}
-		}
-
-		if (waitForCache) {
-			while (cachedResult == Collections.EMPTY_LIST) {
-				try {
-					Thread.sleep(100);
-					cachedResult = cachedResults.get(symbol);
-				} catch (InterruptedException e) {
-					log.error("Error waiting for cached result for: " + query, e);
-					clearCaches();
-					Thread.currentThread().interrupt();
-				}
-			}
-			return Collections.enumeration(cachedResult);
-		}
-		return null;
+		candleCache.evict(cleanSymbol(symbol));
 	}
 
-	protected Collection<Candle> getCacheStorage(long cacheSize) {
-		return new ArrayList<>((int) cacheSize);
+	protected CandleSeries getCacheStorage(long cacheSize) {
+		return new CandleSeries((int) cacheSize);
 	}
 
 	abstract String buildCandleQuery(String symbol, Instant from, Instant to);
 
-	public final Enumeration<Candle> iterate(String symbol, Instant from, Instant to, boolean cache) {
-		Collection<Candle> out;
-
-		String query = buildCandleQuery(symbol, from, to) + " ORDER BY open_time";
+	private String buildOrderedCandleQuery(String symbol, Instant from, Instant to) {
+		return buildCandleQuery(symbol, from, to) + " ORDER BY open_time";
+	}
 
+	/**
+	 * Loads all candles of a symbol in a given period into a {@link CandleSeries}, which stores them in primitive
+	 * columns instead of individual {@link Candle} objects.
+	 *
+	 * @param symbol the symbol whose candles should be loaded
+	 * @param from   the earliest open time of the candles to load, or {@code null} to load from the first candle
+	 * @param to     the latest close time of the candles to load, or {@code null} to load up to the last candle
+	 * @param cache  whether to keep the candles loaded in the cache of this repository (see {@link #getCache()}),
+	 *               and to reuse previously cached candles.
+	 *
+	 * @return the candles of the given symbol in the given period.
+	 */
+	public final CandleSeries loadSeries(String symbol, Instant from, Instant to, boolean cache) {
+		String query = buildOrderedCandleQuery(symbol, from, to);
+
+		CandleSeries out;
 		if (cache) {
-			Enumeration<Candle> cached = getCachedResults(symbol, query, from, to);
+			String key = cacheKey(symbol, from, to);
+			CandleSeries cached = candleCache.get(key, cleanSymbol(symbol));
 			if (cached != null) {
 				return cached;
 			}
-			long cacheSize = countCandles(symbol, from, to);
-			out = getCacheStorage(cacheSize);
+			try {
+				long cacheSize = countCandles(symbol, from, to);
+				out = getCacheStorage(cacheSize);
+			} catch (RuntimeException e) {
+				candleCache.failed(key, e);
+				throw e;
+			}
 		} else {
-			out = new ArrayBlockingQueue<>(5000) {
-				public boolean add(Candle e) {
-					try {
-						super.put(e);
-					} catch (InterruptedException ex) {
-						log.error("Candle loading process interrupted", ex);
-						Thread.currentThread().interrupt();
-						return false;
-					}
-					return true;
-				}
-			};
+			out = new CandleSeries();
 		}
 
-		return executeQuery(symbol, query, from, to, out);
+		executeQuery(symbol, query, from, to, out);
+		out.trim();
+		return out;
+	}
+
+	public final Enumeration<Candle> iterate(String symbol, Instant from, Instant to, boolean cache) {
+		if (cache) {
+			return loadSeries(symbol, from, to, true).enumeration();
+		}
+
+		Consumer<Candle> out = new CandleStream();
+
+		return executeQuery(symbol, buildOrderedCandleQuery(symbol, from, to), from, to, out);
 	}
 
 	public final long countCandles(String symbol) {
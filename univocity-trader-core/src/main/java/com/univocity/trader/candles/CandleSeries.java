@@ -0,0 +1,281 @@
+package com.univocity.trader.candles;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * A sequence of candles stored as parallel primitive columns, one array per candle attribute. Storing a candle
+ * takes {@value #BYTES_PER_CANDLE} bytes, with no object headers or references involved.
+ *
+ * Candles added to a series are not retained: their values are copied into the columns. Iterating over the series
+ * through {@link #iterator()} or {@link #enumeration()} produces new {@link Candle} instances, which can be safely
+ * kept by indicators, aggregators and strategies. A {@link Cursor} reads the columns directly through primitive
+ * accessors, for consumers that don't need a {@link Candle} object per position.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class CandleSeries extends AbstractCollection<Candle> implements Consumer<Candle> {
+
+	/**
+	 * Bytes used to store a candle: 2 longs for open and close times, and 5 doubles for open, high, low, close and
+	 * volume.
+	 */
+	public static final int BYTES_PER_CANDLE = 7 * 8;
+
+	private long[] openTime;
+	private long[] closeTime;
+	private double[] open;
+	private double[] high;
+	private double[] low;
+	private double[] close;
+	private double[] volume;
+	private int size;
+
+	public CandleSeries() {
+		this(16);
+	}
+
+	public CandleSeries(int capacity) {
+		openTime = new long[capacity];
+		closeTime = new long[capacity];
+		open = new double[capacity];
+		high = new double[capacity];
+		low = new double[capacity];
+		close = new double[capacity];
+		volume = new double[capacity];
+	}
+
+	@Override
+	public boolean add(Candle candle) {
+		add(candle.openTime, candle.closeTime, candle.open, candle.high, candle.low, candle.close, candle.volume);
+		return true;
+	}
+
+	/**
+	 * Adds a candle to this series. Used when this series is the destination of candles loaded by a
+	 * {@link CandleRepository}.
+	 *
+	 * @param candle the candle whose values will be copied into this series.
+	 */
+	@Override
+	public void accept(Candle candle) {
+		add(candle);
+	}
+
+	public void add(long openTime, long closeTime, double open, double high, double low, double close, double volume) {
+		if (size == this.openTime.length) {
+			grow(Math.max(16, size + (size >> 1)));
+		}
+		this.openTime[size] = openTime;
+		this.closeTime[size] = closeTime;
+		this.open[size] = open;
+		this.high[size] = high;
+		this.low[size] = low;
+		this.close[size] = close;
+		this.volume[size] = volume;
+		size++;
+	}
+
+	private void grow(int capacity) {
+		openTime = Arrays.copyOf(openTime, capacity);
+		closeTime = Arrays.copyOf(closeTime, capacity);
+		open = Arrays.copyOf(open, capacity);
+		high = Arrays.copyOf(high, capacity);
+		low = Arrays.copyOf(low, capacity);
+		close = Arrays.copyOf(close, capacity);
+		volume = Arrays.copyOf(volume, capacity);
+	}
+
+	/**
+	 * Releases the unused capacity of the columns.
+	 */
+	public void trim() {
+		if (size < openTime.length) {
+			grow(size);
+		}
+	}
+
+	/**
+	 * @return the number of bytes allocated by the columns of this series.
+	 */
+	public long sizeInBytes() {
+		return (long) openTime.length * BYTES_PER_CANDLE;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Creates a new {@link Candle} with the values stored at a given position.
+	 *
+	 * @param i position of the candle in this series
+	 *
+	 * @return a new candle instance.
+	 */
+	public Candle get(int i) {
+		Objects.checkIndex(i, size);
+		return new Candle(openTime[i], closeTime[i], open[i], high[i], low[i], close[i], volume[i]);
+	}
+
+	public long openTime(int i) {
+		return openTime[i];
+	}
+
+	public long closeTime(int i) {
+		return closeTime[i];
+	}
+
+	public double open(int i) {
+		return open[i];
+	}
+
+	public double high(int i) {
+		return high[i];
+	}
+
+	public double low(int i) {
+		return low[i];
+	}
+
+	public double close(int i) {
+		return close[i];
+	}
+
+	public double volume(int i) {
+		return volume[i];
+	}
+
+	/**
+	 * Finds the position of the first candle opened at or after the given time, assuming candles were added in
+	 * chronological order.
+	 *
+	 * @param time the time in milliseconds
+	 *
+	 * @return the position of the first candle opened at or after the given time, or {@link #size()} if none.
+	 */
+	public int indexOf(long time) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (openTime[mid] < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	public Iterator<Candle> iterator() {
+		return new Iterator<>() {
+			int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < size;
+			}
+
+			@Override
+			public Candle next() {
+				if (i >= size) {
+					throw new NoSuchElementException();
+				}
+				return get(i++);
+			}
+		};
+	}
+
+	/**
+	 * @return an enumeration of new {@link Candle} instances, one for each position of this series.
+	 */
+	public Enumeration<Candle> enumeration() {
+		return Collections.enumeration(this);
+	}
+
+	/**
+	 * @return a new cursor positioned before the first candle of this series.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Reads candles of a {@link CandleSeries} without creating new objects. The cursor is a view of the candle at its
+	 * current position: its accessors return the values of that candle, and {@link #candle()} creates a {@link Candle}
+	 * with them when one must be kept. {@link Candle} instances are never reused, as the trading engine, indicators
+	 * and strategies retain the candles they process.
+	 */
+	public final class Cursor {
+		private int position = -1;
+
+		private Cursor() {
+		}
+
+		/**
+		 * Moves to the next candle of the series.
+		 *
+		 * @return {@code true} if the cursor moved to a candle, or {@code false} if the end of the series was reached.
+		 */
+		public boolean next() {
+			if (position < size) {
+				position++;
+			}
+			return position < size;
+		}
+
+		/**
+		 * @return the current position of this cursor.
+		 */
+		public int position() {
+			return position;
+		}
+
+		/**
+		 * Moves this cursor so that the next call to {@link #next()} positions it on the given index.
+		 *
+		 * @param position the position of the next candle to read.
+		 */
+		public void seek(int position) {
+			this.position = Math.max(-1, Math.min(position, size) - 1);
+		}
+
+		/**
+		 * @return a new {@link Candle} with the values at the current position.
+		 */
+		public Candle candle() {
+			return get(position);
+		}
+
+		public long openTime() {
+			return openTime[position];
+		}
+
+		public long closeTime() {
+			return closeTime[position];
+		}
+
+		public double open() {
+			return open[position];
+		}
+
+		public double high() {
+			return high[position];
+		}
+
+		public double low() {
+			return low[position];
+		}
+
+		public double close() {
+			return close[position];
+		}
+
+		public double volume() {
+			return volume[position];
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package com.univocity.trader.candles;
+
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Hands candles over from the thread that reads them from a {@link CandleRepository} to the thread that processes
+ * them, when candles are not cached. This is a single-producer, single-consumer ring of candle chunks: the reader
+ * fills a chunk with {@link #accept(Candle)} and publishes it once it is full, and the consumer takes whole chunks at
+ * a time through {@link #hasMoreElements()} and {@link #nextElement()}. Threads only synchronize once per chunk,
+ * and only block when the ring is full (reader) or empty (consumer).
+ *
+ * The reader must call {@link #close()} once it has no more candles to add.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class CandleStream implements Enumeration<Candle>, Consumer<Candle> {
+
+	private static final Logger log = LoggerFactory.getLogger(CandleStream.class);
+
+	static final int CHUNK_SIZE = 512;
+	static final int CHUNKS = 16;
+	private static final int MASK = CHUNKS - 1;
+
+	private final Candle[][] ring = new Candle[CHUNKS][];
+	private final int[] chunkSizes = new int[CHUNKS];
+
+	private volatile long head;
+	private volatile long tail;
+	private volatile boolean closed;
+	private volatile boolean abandoned;
+	private volatile Thread waitingConsumer;
+	private volatile Thread waitingProducer;
+
+	// producer state
+	private Candle[] writing = new Candle[CHUNK_SIZE];
+	private int writingSize;
+
+	// consumer state
+	private Candle[] reading;
+	private int readingSize;
+	private int readingPosition;
+
+	/**
+	 * Adds a candle to the chunk being filled, publishing the chunk to the consumer once it is full. Blocks while
+	 * the ring is full, and discards the candle if the consumer stopped reading.
+	 *
+	 * @param candle the candle to hand over to the consumer
+	 */
+	@Override
+	public void accept(Candle candle) {
+		if (abandoned) {
+			return;
+		}
+		writing[writingSize++] = candle;
+		if (writingSize == CHUNK_SIZE) {
+			publish();
+		}
+	}
+
+	private void publish() {
+		long t = tail;
+		while (t - head == CHUNKS) {
+			waitingProducer = Thread.currentThread();
+			if (t - head == CHUNKS && !abandoned) {
+				LockSupport.park(this);
+			}
+			waitingProducer = null;
+			if (abandoned || Thread.interrupted()) {
+				log.error("Candle loading process interrupted");
+				abandoned = true;
+				Thread.currentThread().interrupt();
+				writingSize = 0;
+				return;
+			}
+		}
+		int slot = (int) (t & MASK);
+		ring[slot] = writing;
+		chunkSizes[slot] = writingSize;
+		tail = t + 1;
+		LockSupport.unpark(waitingConsumer);
+
+		writing = new Candle[CHUNK_SIZE];
+		writingSize = 0;
+	}
+
+	/**
+	 * Publishes any pending candles and signals the consumer that no more candles will be added.
+	 */
+	void close() {
+		if (writingSize > 0) {
+			publish();
+		}
+		closed = true;
+		LockSupport.unpark(waitingConsumer);
+	}
+
+	@Override
+	public boolean hasMoreElements() {
+		while (readingPosition >= readingSize) {
+			long h = head;
+			if (h < tail) {
+				int slot = (int) (h & MASK);
+				reading = ring[slot];
+				readingSize = chunkSizes[slot];
+				readingPosition = 0;
+				ring[slot] = null;
+				head = h + 1;
+				LockSupport.unpark(waitingProducer);
+			} else if (closed) {
+				if (h == tail) {
+					reading = null;
+					return false;
+				}
+			} else {
+				waitingConsumer = Thread.currentThread();
+				if (h == tail && !closed) {
+					LockSupport.park(this);
+				}
+				waitingConsumer = null;
+				if (Thread.interrupted()) {
+					log.error("Candle reading process interrupted");
+					abandoned = true;
+					LockSupport.unpark(waitingProducer);
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Candle nextElement() {
+		if (hasMoreElements()) {
+			Candle out = reading[readingPosition];
+			reading[readingPosition++] = null;
+			return out;
+		}
+		return null;
+	}
+}
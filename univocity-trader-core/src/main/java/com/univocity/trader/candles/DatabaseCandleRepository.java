@@ -3,18 +3,25 @@ package com.univocity.trader.candles;
 import com.univocity.trader.config.*;
 import org.slf4j.*;
 import org.springframework.dao.*;
+import org.springframework.jdbc.*;
 import org.springframework.jdbc.core.*;
 
+import java.io.*;
 import java.nio.charset.*;
+import java.nio.file.*;
 import java.sql.*;
 import java.time.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.*;
 
-public class DatabaseCandleRepository extends CandleRepository {
+public class DatabaseCandleRepository extends CandleRepository implements Closeable {
 	private static final Logger log = LoggerFactory.getLogger(DatabaseCandleRepository.class);
+
+	private static final long JOURNAL_FLUSH_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
 	private String databaseName;
 	private static final String INSERT = "INSERT INTO candle (symbol,open_time,close_time,open,high,low,close,volume) VALUES (?,?,?,?,?,?,?,?)";
+	private static final String LOAD_DATA = "LOAD DATA LOCAL INFILE 'candles' IGNORE INTO TABLE candle FIELDS TERMINATED BY ',' LINES TERMINATED BY '\\n' (symbol,open_time,close_time,open,high,low,close,volume)";
 	private static final RowMapper<Candle> CANDLE_MAPPER = (rs, rowNum) -> {
 		Candle out = new Candle(
 				rs.getLong(1),
@@ -28,10 +35,18 @@ public class DatabaseCandleRepository extends CandleRepository {
 	};
 
 	private final ThreadLocal<JdbcTemplate> db;
+	private final int batchSize;
+	private volatile boolean loadDataEnabled;
+	private volatile boolean windowFunctionsEnabled = true;
+	private final CandleJournal journal;
+	private final ConcurrentHashMap<String, Long> journaledOpenTimes = new ConcurrentHashMap<>();
 
 	public DatabaseCandleRepository(DatabaseConfiguration config) {
 		this.db = ThreadLocal.withInitial(() -> new JdbcTemplate(config.dataSource()));
+		this.batchSize = config.batchSize();
+		this.loadDataEnabled = config.loadLocalInfile();
 		initializeDatabase();
+		this.journal = config.journalDir() == null ? null : CandleJournal.open(config.journalDir(), batchSize, this::persistJournaled);
 	}
 
 
@@ -93,46 +108,308 @@ public class DatabaseCandleRepository extends CandleRepository {
 		return ps;
 	}
 
-	private final ConcurrentHashMap<String, PreciseCandle> processingCandles = new ConcurrentHashMap<>();
+	/**
+	 * Latest tick of a symbol, whose {@link PreciseCandle} is only generated once the tick has to be stored.
+	 */
+	private static final class LatestTick {
+		final long openTime;
+		final long closeTime;
+		private Supplier<PreciseCandle> supplier;
+		private PreciseCandle candle;
+
+		LatestTick(PreciseCandle candle) {
+			this.openTime = candle.openTime;
+			this.closeTime = candle.closeTime;
+			this.candle = candle;
+		}
+
+		LatestTick(long openTime, long closeTime, Supplier<PreciseCandle> supplier) {
+			this.openTime = openTime;
+			this.closeTime = closeTime;
+			this.supplier = supplier;
+		}
+
+		PreciseCandle get() {
+			if (candle == null) {
+				candle = supplier.get();
+				supplier = null;
+			}
+			return candle;
+		}
+	}
+
+	private final ConcurrentHashMap<String, LatestTick> processingCandles = new ConcurrentHashMap<>();
 	private final ConcurrentHashMap<String, PreciseCandle> fullCandles = new ConcurrentHashMap<>();
 
 	public boolean addToHistory(String symbol, PreciseCandle tick, boolean initializing) {
+		return addToHistory(symbol, new LatestTick(tick), initializing);
+	}
+
+	@Override
+	public boolean addToHistory(String symbol, long openTime, long closeTime, Supplier<PreciseCandle> tick, boolean initializing) {
+		return addToHistory(symbol, new LatestTick(openTime, closeTime, tick), initializing);
+	}
+
+	private boolean addToHistory(String symbol, LatestTick tick, boolean initializing) {
 		candleCounts.clear();
+		LatestTick processingTick = processingCandles.get(symbol);
+		if (processingTick != null && processingTick.openTime == tick.openTime && processingTick.closeTime == tick.closeTime) {
+			processingCandles.put(symbol, tick); //saving update of latest candle
+			return true;
+		}
 		try {
-			PreciseCandle processingCandle = processingCandles.get(symbol);
-			if (processingCandle != null && processingCandle.openTime == tick.openTime && processingCandle.closeTime == tick.closeTime) {
-				processingCandles.put(symbol, tick); //saving update of latest candle
-				return true;
-			} else {
-				try {
-					if (processingCandle != null) { //save fully populated candle
-						if (db().execute(INSERT, (PreparedStatementCallback<Integer>) ps -> prepareInsert(ps, symbol, processingCandle).executeUpdate()) == 0) {
-							if(!initializing) {
-								log.warn("Could not persist " + symbol + " Tick: " + processingCandle);
-							}
-							return false;
-						}
-						fullCandles.put(symbol, processingCandle);
+			if (processingTick != null) { //save fully populated candle
+				PreciseCandle processingCandle = processingTick.get();
+				if (!(journal == null ? insert(symbol, processingCandle, initializing) : journal(symbol, processingCandle, initializing))) {
+					return false;
+				}
+				fullCandles.put(symbol, processingCandle);
+			}
+		} finally {
+			processingCandles.put(symbol, tick);
+		}
+		return true;
+	}
+
+	/**
+	 * Adds a sequence of candles to the history of a symbol, sending them to the database in batches of
+	 * {@link DatabaseConfiguration#batchSize()} rows. The outcome is the same as invoking
+	 * {@link #addToHistory(String, PreciseCandle, boolean)} with each candle: the latest candle is kept in memory until
+	 * a newer one is received, and candles already in the database are skipped.
+	 *
+	 * On MySQL and MariaDB, batches are sent with {@code LOAD DATA LOCAL INFILE} if enabled with
+	 * {@link DatabaseConfiguration#loadLocalInfile(boolean)} and allowed by the driver and server, otherwise as JDBC
+	 * batch inserts.
+	 *
+	 * @param symbol       the symbol whose history is being updated
+	 * @param ticks        candles in chronological order
+	 * @param initializing flag indicating whether the history is being backfilled, in which case duplicates are not
+	 *                     logged
+	 *
+	 * @return the number of candles for which {@link #addToHistory(String, PreciseCandle, boolean)} would have
+	 * returned {@code true}.
+	 */
+	public int addToHistory(String symbol, Iterable<PreciseCandle> ticks, boolean initializing) {
+		candleCounts.clear();
+		int accepted = 0;
+		List<PreciseCandle> batch = new ArrayList<>(Math.min(batchSize, 1024));
+		LatestTick processingTick = processingCandles.get(symbol);
+		PreciseCandle processingCandle = processingTick == null ? null : processingTick.get();
+		try {
+			for (PreciseCandle tick : ticks) {
+				if (processingCandle != null && processingCandle.openTime == tick.openTime && processingCandle.closeTime == tick.closeTime) {
+					accepted++; //update of latest candle
+				} else if (processingCandle == null) {
+					accepted++;
+				} else {
+					batch.add(processingCandle);
+					if (batch.size() == batchSize) {
+						accepted += insertBatch(symbol, batch, initializing);
+						batch.clear();
 					}
-				} finally {
-					processingCandles.put(symbol, tick);
 				}
+				processingCandle = tick;
 			}
-		} catch (Exception ex) {
-			if (ex instanceof DuplicateKeyException) {
+		} finally {
+			if (!batch.isEmpty()) {
+				accepted += insertBatch(symbol, batch, initializing);
+			}
+			if (processingCandle != null) {
+				processingCandles.put(symbol, new LatestTick(processingCandle));
+			}
+		}
+		return accepted;
+	}
+
+	private boolean insert(String symbol, PreciseCandle candle, boolean initializing) {
+		try {
+			if (db().execute(INSERT, (PreparedStatementCallback<Integer>) ps -> prepareInsert(ps, symbol, candle).executeUpdate()) == 0) {
 				if (!initializing) {
-					log.warn("Skipping duplicate " + symbol + " Tick: " + tick);
+					log.warn("Could not persist " + symbol + " Tick: " + candle);
 				}
-			} else {
-				log.error("Error persisting " + symbol + " Tick: " + tick, ex);
+				return false;
+			}
+			return true;
+		} catch (DuplicateKeyException ex) {
+			if (!initializing) {
+				log.warn("Skipping duplicate " + symbol + " Tick: " + candle);
+			}
+		} catch (Exception ex) {
+			log.error("Error persisting " + symbol + " Tick: " + candle, ex);
+		}
+		return false;
+	}
+
+	/**
+	 * Appends a candle to the journal instead of inserting it, so the caller doesn't wait on the database. As the
+	 * database can't reject duplicates at this point, candles not newer than the latest one journaled or stored for
+	 * the symbol are rejected here.
+	 */
+	private boolean journal(String symbol, PreciseCandle candle, boolean initializing) {
+		long last = journaledOpenTimes.computeIfAbsent(symbol, this::lastPersistedOpenTime);
+		if (candle.openTime <= last) {
+			if (!initializing) {
+				log.warn("Skipping duplicate " + symbol + " Tick: " + candle);
 			}
 			return false;
 		}
+		journal.append(symbol, candle);
+		journaledOpenTimes.put(symbol, candle.openTime);
 		return true;
 	}
 
+	private long lastPersistedOpenTime(String symbol) {
+		long last = journal.lastOpenTime(symbol);
+		try {
+			Candle candle = lastCandle(symbol);
+			if (candle != null) {
+				last = Math.max(last, candle.openTime);
+			}
+		} catch (Exception e) {
+			log.warn("Unable to read latest " + symbol + " candle from database. Duplicates will be discarded when the journal is written.", e);
+		}
+		return last;
+	}
+
+	/**
+	 * Writes candles read from the journal. Any error other than a duplicate is rethrown so the journal keeps the
+	 * candles and tries again later.
+	 */
+	private void persistJournaled(String symbol, List<PreciseCandle> candles) {
+		if (loadDataEnabled && isDatabaseMySQL() && loadData(symbol, candles, true) >= 0) {
+			return;
+		}
+		int[] counts = executeBatch(symbol, candles);
+		for (int i = 0; i < candles.size(); i++) {
+			if (i >= counts.length || counts[i] == Statement.EXECUTE_FAILED) {
+				PreciseCandle candle = candles.get(i);
+				try {
+					db().execute(INSERT, (PreparedStatementCallback<Integer>) ps -> prepareInsert(ps, symbol, candle).executeUpdate());
+				} catch (DuplicateKeyException ex) {
+					//already written before a crash or restart
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits until all candles in the journal are written to the database. Returns immediately if the journal is not
+	 * enabled with {@link DatabaseConfiguration#journalDir(Path)}.
+	 *
+	 * @param timeout maximum time to wait, in milliseconds.
+	 *
+	 * @return {@code true} if no candles are left to write, or {@code false} if the timeout elapsed first.
+	 */
+	public boolean awaitJournalFlush(long timeout) {
+		return journal == null || journal.awaitFlush(timeout);
+	}
+
+	/**
+	 * Waits for the journal (if enabled) to write its candles to the database, then closes it. Candles that couldn't be
+	 * written remain in the journal directory and are written when a repository opens it again.
+	 */
 	@Override
-	protected final long loadCandles(String symbol, String query, Instant from, Instant to, Collection<Candle> out) {
+	public void close() {
+		if (journal != null) {
+			if (!journal.awaitFlush(JOURNAL_FLUSH_TIMEOUT)) {
+				log.warn("Timeout waiting for journaled candles to be written to the database. {} bytes of candles remain in the journal.", journal.pending());
+			}
+			journal.close();
+		}
+	}
+
+	private int insertBatch(String symbol, List<PreciseCandle> batch, boolean initializing) {
+		int inserted = -1;
+		if (loadDataEnabled && isDatabaseMySQL()) {
+			inserted = loadData(symbol, batch, initializing);
+		}
+		if (inserted < 0) {
+			inserted = batchInsert(symbol, batch, initializing);
+		} else if (inserted == batch.size()) {
+			// LOAD DATA doesn't report which rows were skipped, so the latest candle is only known to be new if none were
+			fullCandles.put(symbol, batch.get(batch.size() - 1));
+		}
+		return inserted;
+	}
+
+	private int loadData(String symbol, List<PreciseCandle> batch, boolean initializing) {
+		StringBuilder rows = new StringBuilder(batch.size() * 128);
+		for (PreciseCandle candle : batch) {
+			rows.append(symbol).append(',')
+					.append(candle.openTime).append(',')
+					.append(candle.closeTime).append(',')
+					.append(candle.open.toPlainString()).append(',')
+					.append(candle.high.toPlainString()).append(',')
+					.append(candle.low.toPlainString()).append(',')
+					.append(candle.close.toPlainString()).append(',')
+					.append(candle.volume.toPlainString()).append('\n');
+		}
+		byte[] data = rows.toString().getBytes(StandardCharsets.UTF_8);
+
+		int inserted;
+		try {
+			inserted = db().execute((StatementCallback<Integer>) statement -> {
+				statement.unwrap(com.mysql.jdbc.Statement.class).setLocalInfileInputStream(new ByteArrayInputStream(data));
+				return statement.executeUpdate(LOAD_DATA);
+			});
+		} catch (Exception e) {
+			loadDataEnabled = false;
+			log.warn("Unable to load candles with LOAD DATA LOCAL INFILE, using batch inserts instead. " +
+					"Make sure allowLoadLocalInfile=true is in the JDBC URL and local_infile is enabled on the server to use it. Error: {}", e.getMessage());
+			return -1;
+		}
+
+		if (inserted < batch.size() && !initializing) {
+			log.warn("Skipping {} duplicate {} ticks between {} and {}", batch.size() - inserted, symbol, batch.get(0), batch.get(batch.size() - 1));
+		}
+		return inserted;
+	}
+
+	private int batchInsert(String symbol, List<PreciseCandle> batch, boolean initializing) {
+		int[] counts;
+		try {
+			counts = executeBatch(symbol, batch);
+		} catch (Exception e) {
+			log.error("Error persisting batch of " + batch.size() + " " + symbol + " ticks", e);
+			return 0;
+		}
+
+		int inserted = 0;
+		PreciseCandle last = null;
+		for (int i = 0; i < batch.size(); i++) {
+			if (i < counts.length && counts[i] != Statement.EXECUTE_FAILED) {
+				if (counts[i] != 0) {
+					inserted++;
+					last = batch.get(i);
+				} else if (!initializing) {
+					log.warn("Could not persist " + symbol + " Tick: " + batch.get(i));
+				}
+			} else if (insert(symbol, batch.get(i), initializing)) {
+				inserted++;
+				last = batch.get(i);
+			}
+		}
+		if (last != null) {
+			fullCandles.put(symbol, last);
+		}
+		return inserted;
+	}
+
+	private int[] executeBatch(String symbol, List<PreciseCandle> batch) {
+		return db().execute(INSERT, (PreparedStatementCallback<int[]>) ps -> {
+			for (PreciseCandle candle : batch) {
+				prepareInsert(ps, symbol, candle).addBatch();
+			}
+			try {
+				return ps.executeBatch();
+			} catch (BatchUpdateException e) {
+				return e.getUpdateCounts(); //duplicates and other failures are retried one by one
+			}
+		});
+	}
+
+	@Override
+	protected final long loadCandles(String symbol, String query, Instant from, Instant to, Consumer<Candle> out) {
 		long count = 0;
 		boolean retry;
 		try (Connection c = db().getDataSource().getConnection();
@@ -206,6 +483,66 @@ public class DatabaseCandleRepository extends CandleRepository {
 		return result;
 	}
 
+	/**
+	 * Finds holes in the history of a symbol, i.e. consecutive candles whose open times are more than {@code minGap}
+	 * milliseconds apart. When {@code from} is given, the period between it and the first candle is reported as a
+	 * hole too if longer than {@code minGap}.
+	 *
+	 * Holes are computed by the database with the {@code LAG} window function, so only the holes found are
+	 * transferred. If the database rejects the query as invalid or unsupported (e.g. MySQL before 8.0 has no window
+	 * functions), only the open times of the candles are read from then on, and the holes are computed in memory, one
+	 * row at a time. Other errors are rethrown.
+	 *
+	 * @param symbol the symbol whose history will be checked
+	 * @param from   the start of the period to check, or {@code null} to check from the first candle
+	 * @param to     the end of the period to check, or {@code null} to check up to the last candle
+	 * @param minGap the maximum distance, in milliseconds, expected between the open times of consecutive candles
+	 *
+	 * @return the holes found in ascending order, each one an array with the open time before the hole (or
+	 * {@code from}) and the open time of the candle after the hole.
+	 */
+	public List<long[]> findGaps(String symbol, Instant from, Instant to, long minGap) {
+		if (windowFunctionsEnabled) {
+			try {
+				String lag = from == null ? "LAG(open_time)" : "LAG(open_time, 1, " + from.toEpochMilli() + ")";
+				String times = narrowQueryToTimeInterval("SELECT open_time, " + lag + " OVER (ORDER BY open_time) AS previous_open FROM candle WHERE symbol = ?", from, to);
+				String query = "SELECT previous_open, open_time FROM (" + times + ") t WHERE open_time - previous_open > ? ORDER BY open_time";
+				return db().query(query, new Object[]{symbol, minGap}, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+			} catch (DataAccessException e) {
+				if (!(e instanceof BadSqlGrammarException || e.getCause() instanceof SQLFeatureNotSupportedException)) {
+					throw e; //not caused by the query, e.g. connection errors
+				}
+				windowFunctionsEnabled = false;
+				log.warn("Unable to find gaps in history with window functions, reading open times of candles instead. Error: {}", e.getMessage());
+			}
+		}
+		return findGapsFromOpenTimes(symbol, from, to, minGap);
+	}
+
+	List<long[]> findGapsFromOpenTimes(String symbol, Instant from, Instant to, long minGap) {
+		List<long[]> gaps = new ArrayList<>();
+		String query = narrowQueryToTimeInterval("SELECT open_time FROM candle WHERE symbol = ?", from, to) + " ORDER BY open_time";
+		try (Connection c = db().getDataSource().getConnection();
+			 final PreparedStatement s = c.prepareStatement(query)) {
+			s.setString(1, symbol);
+			try (ResultSet rs = executeQuery(s)) {
+				boolean first = true;
+				long previous = from == null ? 0 : from.toEpochMilli();
+				while (rs.next()) {
+					long openTime = rs.getLong(1);
+					if ((!first || from != null) && openTime - previous > minGap) {
+						gaps.add(new long[]{previous, openTime});
+					}
+					first = false;
+					previous = openTime;
+				}
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Error reading open times of " + symbol + " candles from database", e);
+		}
+		return gaps;
+	}
+
 	public Set<String> getKnownSymbols() {
 		return new TreeSet<>(db().queryForList("SELECT DISTINCT symbol FROM candle", String.class));
 	}
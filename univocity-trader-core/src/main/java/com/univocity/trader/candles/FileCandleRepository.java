@@ -9,6 +9,8 @@ import java.io.*;
 import java.nio.charset.*;
 import java.time.*;
 import java.util.*;
+import java.util.function.*;
+import java.util.concurrent.*;
 
 import static com.univocity.trader.candles.Candle.*;
 
@@ -18,11 +20,26 @@ public class FileCandleRepository extends CandleRepository {
 
 	private final RepositoryDir repositoryDir;
 	private final RowFormat<?, ?> rowFormat;
-
+	private final int indexInterval;
+	private final ConcurrentHashMap<String, CandleFileIndex> indexes = new ConcurrentHashMap<>();
 
 	public FileCandleRepository(RepositoryDir repositoryDir, RowFormat<?, ?> rowFormat) {
+		this(repositoryDir, rowFormat, 1000);
+	}
+
+	/**
+	 * Creates a repository of candles stored in text files.
+	 *
+	 * @param repositoryDir the directory with the candle files
+	 * @param rowFormat     the format of the rows in each file
+	 * @param indexInterval number of rows between each entry of the sparse time index kept along with each file,
+	 *                      which is used to skip straight to the first candle of interest when a start time is
+	 *                      given. Use {@code 0} to disable indexing and always parse files from the beginning.
+	 */
+	public FileCandleRepository(RepositoryDir repositoryDir, RowFormat<?, ?> rowFormat, int indexInterval) {
 		this.repositoryDir = repositoryDir;
 		this.rowFormat = rowFormat;
+		this.indexInterval = indexInterval;
 	}
 
 	public RepositoryDir getRepositoryDir() {
@@ -62,7 +79,7 @@ public class FileCandleRepository extends CandleRepository {
 	}
 
 	@Override
-	protected long loadCandles(String symbol, String query, Instant from, Instant to, Collection<Candle> out) {
+	protected long loadCandles(String symbol, String query, Instant from, Instant to, Consumer<Candle> out) {
 		AbstractParser<?> parser = null;
 		long count = 0;
 
@@ -102,11 +119,38 @@ public class FileCandleRepository extends CandleRepository {
 		return beginParsing(input);
 	}
 
-	private AbstractParser<?> prepareToParse(String symbol, Instant from, Instant to, Collection<Candle> out) {
-		AbstractParser<?> parser = beginParsing(symbol);
+	private CandleFileIndex getIndex(String symbol) {
+		if (indexInterval <= 0) {
+			return null;
+		}
+		File file = repositoryDir.entries().get(symbol);
+		if (file == null) {
+			return null;
+		}
+		return indexes.compute(symbol, (s, index) -> {
+			if (index != null && index.file.equals(file) && index.isValid(indexInterval)) {
+				return index;
+			}
+			return CandleFileIndex.load(file, rowFormat, indexInterval);
+		});
+	}
+
+	private AbstractParser<?> prepareToParse(String symbol, Instant from, Instant to, Consumer<Candle> out) {
+		AbstractParser<?> parser = null;
 
 		if (from != null) {
 			long start = from.toEpochMilli();
+
+			CandleFileIndex index = getIndex(symbol);
+			if (index != null) {
+				long offset = index.offsetBefore(start);
+				if (offset >= 0) {
+					parser = beginParsing(index.readFrom(offset));
+				}
+			}
+			if (parser == null) {
+				parser = beginParsing(symbol);
+			}
 			long open = 0;
 
 			Candle candle = null;
@@ -122,6 +166,8 @@ public class FileCandleRepository extends CandleRepository {
 			if (out != null && candle != null) {
 				storeCandle(symbol, from, to, out, candle);
 			}
+		} else {
+			parser = beginParsing(symbol);
 		}
 
 		return parser;
@@ -0,0 +1,65 @@
+package com.univocity.trader.candles;
+
+import java.util.*;
+
+/**
+ * The intervals of history of a symbol that are known to have no data in the exchange (as recorded in the
+ * {@code gap} table), merged into a sorted set of disjoint intervals for quick lookups.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class KnownGaps {
+
+	private final long[] starts;
+	private final long[] ends;
+	private final int size;
+
+	/**
+	 * Builds the set from intervals in any order, possibly overlapping or adjacent.
+	 *
+	 * @param intervals arrays with the start and end of each interval.
+	 */
+	KnownGaps(Collection<long[]> intervals) {
+		long[][] sorted = intervals.toArray(new long[0][]);
+		Arrays.sort(sorted, Comparator.comparingLong(i -> i[0]));
+
+		starts = new long[sorted.length];
+		ends = new long[sorted.length];
+		int count = 0;
+		for (long[] interval : sorted) {
+			if (count > 0 && interval[0] <= ends[count - 1]) {
+				ends[count - 1] = Math.max(ends[count - 1], interval[1]);
+			} else {
+				starts[count] = interval[0];
+				ends[count] = interval[1];
+				count++;
+			}
+		}
+		size = count;
+	}
+
+	/**
+	 * Tests whether a period is entirely covered by known gaps.
+	 *
+	 * @param start start of the period
+	 * @param end   end of the period
+	 *
+	 * @return {@code true} if no data is expected to be available in the given period.
+	 */
+	boolean contains(long start, long end) {
+		int i = Arrays.binarySearch(starts, 0, size, start);
+		if (i < 0) {
+			i = -i - 2; //last interval starting before the period
+		}
+		return i >= 0 && ends[i] >= end;
+	}
+
+	/**
+	 * Returns the number of disjoint intervals in this set.
+	 *
+	 * @return the number of intervals after merging the ones that overlap.
+	 */
+	int size() {
+		return size;
+	}
+}
@@ -25,6 +25,7 @@ public abstract class Configuration<C extends Configuration<C, T>, T extends Acc
 	private boolean pollCandles = true;
 	private Period warmUpPeriod;
 	private final RepositoryDir signalRepositoryDir = new RepositoryDir();
+	private boolean binarySignals;
 	private boolean isTestNet;
 
 	protected Configuration() {
@@ -163,6 +164,21 @@ public abstract class Configuration<C extends Configuration<C, T>, T extends Acc
 		return (C) this;
 	}
 
+	/**
+	 * Whether signals are saved into the {@link #signalRepositoryDir()} as binary files, which are smaller and faster to
+	 * load, instead of CSV files.
+	 *
+	 * @return {@code true} if signals are saved in binary format. Defaults to {@code false}.
+	 */
+	public boolean binarySignals() {
+		return binarySignals;
+	}
+
+	public C binarySignals(boolean binarySignals) {
+		this.binarySignals = binarySignals;
+		return (C) this;
+	}
+
 	public boolean isTestNet() {
 		return isTestNet;
 	}
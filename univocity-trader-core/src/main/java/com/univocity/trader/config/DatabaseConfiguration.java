@@ -4,6 +4,7 @@ import org.apache.commons.lang3.*;
 import org.springframework.jdbc.datasource.*;
 
 import javax.sql.*;
+import java.nio.file.*;
 import java.util.function.*;
 
 public class DatabaseConfiguration implements ConfigurationGroup {
@@ -13,6 +14,9 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 	private char[] password;
 	private String jdbcDriver;
 	private Supplier<DataSource> dataSource;
+	private int batchSize = 1000;
+	private Path journalDir;
+	private boolean loadLocalInfile;
 
 	@Override
 	public void readProperties(PropertyBasedConfiguration properties) {
@@ -22,6 +26,15 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 
 		String pwd = properties.getProperty("database.password");
 		password = pwd == null ? null : pwd.toCharArray();
+
+		batchSize(properties.getInteger("database.batch.size", batchSize));
+
+		loadLocalInfile(properties.getBoolean("database.load.local.infile", loadLocalInfile));
+
+		String journal = properties.getProperty("database.journal.dir");
+		if (StringUtils.isNotBlank(journal)) {
+			journalDir(journal);
+		}
 	}
 
 	public DatabaseConfiguration embedded() {
@@ -80,11 +93,71 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 		return this;
 	}
 
+	/**
+	 * Number of candles sent to the database in a single batch of inserts when history is persisted in bulk, e.g.
+	 * while backfilling candles from an exchange.
+	 *
+	 * @return the maximum number of rows inserted per batch.
+	 */
+	public int batchSize() {
+		return batchSize;
+	}
+
+	public DatabaseConfiguration batchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1, got " + batchSize);
+		}
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Directory of the journal used to write live candles to the database in the background. When set, candles
+	 * received from an exchange are appended to the journal and passed on to the strategies immediately, while a
+	 * separate thread writes them to the database in batches. Candles still in the journal after a crash or restart
+	 * are written once the journal is opened again.
+	 *
+	 * The directory is locked while in use, so it can't be shared with other processes. Repositories of the same process
+	 * share a single journal per directory.
+	 *
+	 * @return the journal directory, or {@code null} if candles are written to the database as they arrive.
+	 */
+	public Path journalDir() {
+		return journalDir;
+	}
+
+	public DatabaseConfiguration journalDir(Path journalDir) {
+		this.journalDir = journalDir;
+		return this;
+	}
+
+	public DatabaseConfiguration journalDir(String journalDir) {
+		return journalDir(journalDir == null ? null : Paths.get(journalDir));
+	}
+
 	@Override
 	public boolean isConfigured() {
 		return dataSource != null || StringUtils.isNoneBlank(jdbcUrl, jdbcDriver, user);
 	}
 
+	/**
+	 * Whether batches of candles sent to MySQL or MariaDB may use {@code LOAD DATA LOCAL INFILE}, which is faster than
+	 * batch inserts. Disabled by default: the JDBC driver must be allowed to send local files to the server (with
+	 * {@code allowLoadLocalInfile=true} in the JDBC URL), which a malicious or compromised server can abuse to read
+	 * files of the client. When enabled, the option is added to the default JDBC URL. A custom JDBC URL must include
+	 * it explicitly.
+	 *
+	 * @return {@code true} if candles can be sent to the database with {@code LOAD DATA LOCAL INFILE}
+	 */
+	public boolean loadLocalInfile() {
+		return loadLocalInfile;
+	}
+
+	public DatabaseConfiguration loadLocalInfile(boolean loadLocalInfile) {
+		this.loadLocalInfile = loadLocalInfile;
+		return this;
+	}
+
 	public DataSource dataSource() {
 		if (dataSource == null) {
 			return defaultDataSource();
@@ -112,7 +185,7 @@ public class DatabaseConfiguration implements ConfigurationGroup {
 	private DataSource defaultDataSource() {
 		if (!isConfigured()) {
 			jdbcDriver("com.mysql.jdbc.Driver")
-					.jdbcUrl("jdbc:mysql://localhost:3306/trading?autoReconnect=true&useUnicode=true&useJDBCCompliantTimezoneShift=true&useLegacyDatetimeCode=false&serverTimezone=UTC&zeroDateTimeBehavior=convertToNull&useSSL=false")
+					.jdbcUrl("jdbc:mysql://localhost:3306/trading?autoReconnect=true&useUnicode=true&useJDBCCompliantTimezoneShift=true&useLegacyDatetimeCode=false&serverTimezone=UTC&zeroDateTimeBehavior=convertToNull&useSSL=false&rewriteBatchedStatements=true" + (loadLocalInfile ? "&allowLoadLocalInfile=true" : ""))
 					.user("root");
 		}
 
@@ -14,6 +14,7 @@ public class FileRepositoryConfiguration implements ConfigurationGroup {
 
 	private final RepositoryDir repositoryDir = new RepositoryDir();
 	private RowFormat<?, ?> rowFormat;
+	private boolean binary;
 
 	@Override
 	public void readProperties(PropertyBasedConfiguration properties) {
@@ -22,7 +23,7 @@ public class FileRepositoryConfiguration implements ConfigurationGroup {
 
 	@Override
 	public boolean isConfigured() {
-		return rowFormat != null && repositoryDir.isConfigured();
+		return (binary || rowFormat != null) && repositoryDir.isConfigured();
 	}
 
 	public RepositoryDir dir() {
@@ -51,8 +52,25 @@ public class FileRepositoryConfiguration implements ConfigurationGroup {
 		return RowFormat.fixedWidth(fixedWidthFields, this::rowFormat);
 	}
 
+	/**
+	 * Indicates that the repository directory holds candles in the columnar binary format
+	 * produced by {@link BinaryCandleRepository#importFrom(CandleRepository)}.
+	 *
+	 * @return this configuration object, for further settings.
+	 */
+	public FileRepositoryConfiguration binary() {
+		this.binary = true;
+		this.rowFormat = null;
+		return this;
+	}
+
+	public boolean isBinary() {
+		return binary;
+	}
+
 	public FileRepositoryConfiguration rowFormat(RowFormat<?, ?> rowFormat) {
 		this.rowFormat = rowFormat;
+		this.binary = false;
 		return this;
 	}
 
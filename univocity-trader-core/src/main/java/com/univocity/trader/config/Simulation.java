@@ -43,7 +43,10 @@ public class Simulation implements ConfigurationGroup, Cloneable {
 	private LocalDateTime simulationStart;
 	private LocalDateTime simulationEnd;
 	private boolean cacheCandles = false;
+	private long candleCacheSize = -1;
 	private int activeQueryLimit = 15;
+	private int parallelism = 1;
+	private int batchSize = 1;
 	private TradingFees tradingFees = SimpleTradingFees.percentage(0.1);
 	private OrderFillEmulator orderFillEmulator = new PriceMatchEmulator();
 
@@ -140,7 +143,11 @@ public class Simulation implements ConfigurationGroup, Cloneable {
 		simulateFrom(parseDateTime(properties, "simulation.start"));
 		simulateTo(parseDateTime(properties, "simulation.end"));
 		cacheCandles(properties.getBoolean("simulation.cache.candles", false));
+		int candleCacheMb = properties.getInteger("simulation.cache.candles.mb", -1);
+		candleCacheSize(candleCacheMb < 0 ? -1 : candleCacheMb * 1024L * 1024L);
 		activeQueryLimit(properties.getInteger("simulation.active.query.limit", 15));
+		parallelism(properties.getInteger("simulation.parallelism", 1));
+		batchSize(properties.getInteger("simulation.batch.size", 1));
 		tradingFees(parseTradingFees(properties, "simulation.trade.fees"));
 		orderFillEmulator(loadOrderFillEmulator(properties));
 		String backfill = properties.getOptionalProperty("simulation.history.backfill");
@@ -297,6 +304,22 @@ public class Simulation implements ConfigurationGroup, Cloneable {
 		return this;
 	}
 
+	/**
+	 * Maximum number of bytes used to hold cached candles in memory when {@link #cacheCandles()} is enabled. Once
+	 * this limit is reached, the candles of the least recently used symbols are evicted from the cache. Each candle
+	 * takes {@value com.univocity.trader.candles.CandleSeries#BYTES_PER_CANDLE} bytes.
+	 *
+	 * @return the candle cache size limit in bytes, or a negative number to use a quarter of the maximum heap size.
+	 */
+	public long candleCacheSize() {
+		return candleCacheSize;
+	}
+
+	public Simulation candleCacheSize(long candleCacheSize) {
+		this.candleCacheSize = candleCacheSize;
+		return this;
+	}
+
 	public Simulation initialFunds(double initialFunds) {
 		initialAmount("", initialFunds);
 		return this;
@@ -355,6 +378,46 @@ public class Simulation implements ConfigurationGroup, Cloneable {
 		return this;
 	}
 
+	/**
+	 * Number of parameter sets simulated at the same time. When greater than 1, the candles of every symbol are
+	 * loaded into memory once and shared by all workers, and each worker runs its simulations against its own
+	 * accounts. Order listeners, strategies and monitors given as single instances (instead of suppliers) will be
+	 * shared between workers and must be thread-safe.
+	 *
+	 * @return the number of worker threads used to run simulations with different parameters.
+	 */
+	public int parallelism() {
+		return parallelism;
+	}
+
+	public Simulation parallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Number of parameter sets simulated together in a single pass over the candles. Each candle read is handed to
+	 * the engines of every parameter set in the batch before the next candle is read, so the candle history is
+	 * iterated once per batch instead of once per parameter set. Each parameter set still trades with its own
+	 * accounts.
+	 *
+	 * @return the number of parameter sets processed in lockstep.
+	 */
+	public int batchSize() {
+		return batchSize;
+	}
+
+	public Simulation batchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1, got " + batchSize);
+		}
+		this.batchSize = batchSize;
+		return this;
+	}
+
 	private void loadParameters(File parametersFile, Class<? extends Parameters> typeOfParameters) {
 		//TODO: load with univocity-parsers
 	}
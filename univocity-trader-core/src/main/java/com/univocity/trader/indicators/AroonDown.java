@@ -10,8 +10,6 @@ public class AroonDown extends LowestValueIndicator {
 
 	private double value;
 	private final double length;
-	private double ticksSinceLow;
-	private double tmpTicksSinceLow;
 
 	public AroonDown(TimeInterval interval) {
 		this(25, interval);
@@ -26,37 +24,9 @@ public class AroonDown extends LowestValueIndicator {
 		this.length = length;
 	}
 
-	@Override
-	protected void valueUpdated(boolean recalculated, boolean updating) {
-		if (recalculated) {
-			double selected = super.getValue();
-			int size = this.values.size();
-
-			for (int i = 1; i <= size; i++) {
-				if (selected == values.getRecentValue(i)) {
-					if (updating) {
-						tmpTicksSinceLow = i - 1;
-					} else {
-						ticksSinceLow = i - 1;
-					}
-					break;
-				}
-			}
-		} else if (updating) {
-			tmpTicksSinceLow = 0;
-		} else {
-			ticksSinceLow = 0;
-		}
-	}
-
 	protected boolean calculateIndicatorValue(Candle candle, double value, boolean updating) {
 		if (super.calculateIndicatorValue(candle, value, updating)) {
-			if (!updating) {
-				this.value = ((length - ticksSinceLow) / length) * 100.0;
-				ticksSinceLow++;
-			} else {
-				this.value = ((length - tmpTicksSinceLow) / length) * 100.0;
-			}
+			this.value = ((length - periodsSinceSelectedValue()) / length) * 100.0;
 			return true;
 		}
 		return false;
@@ -5,10 +5,29 @@ import com.univocity.trader.indicators.base.*;
 
 import java.util.function.*;
 
+/**
+ * Population variance of the values in a moving window. Runs in constant time per candle by keeping running sums of
+ * the values and of their squares, which are corrected for the values leaving the window. To keep rounding errors
+ * from accumulating, the sums are recalculated from the window once every {@code length} changes (or every
+ * {@value #MIN_RESYNC_INTERVAL} changes for short windows), also serving as the point where values are re-centered
+ * around the current average.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
 public class Variance extends MovingAverage {
 
+	private static final int MIN_RESYNC_INTERVAL = 64;
+
 	protected double value;
 
+	private double shift;
+	private double sum;
+	private double sumCompensation;
+	private double sumOfSquares;
+	private double sumOfSquaresCompensation;
+	private int windowSize;
+	private int changesUntilResync;
+
 	public Variance(TimeInterval interval) {
 		this(4, interval);
 	}
@@ -24,25 +43,64 @@ public class Variance extends MovingAverage {
 	@Override
 	protected boolean calculateIndicatorValue(Candle candle, double value, boolean updating) {
 		if (super.calculateIndicatorValue(candle, value, updating)) {
-			final double average = super.getValue();
-
-			final int count = this.values.size();
-			int from = values.getStartingIndex();
-			int c = count;
-
-			double variance = 0;
-			while (c-- > 0) {
-				double v = values.get(from) - average;
-				variance += v * v;
-				from = (from + 1) % count;
+			final int count = values.size();
+			if (--changesUntilResync <= 0) {
+				resync(count);
+			} else {
+				if (count == windowSize) { // window didn't grow, so a value was replaced
+					remove(values.replaced() - shift);
+				} else {
+					windowSize = count;
+				}
+				add(value - shift);
 			}
 
-			this.value = variance / count;
+			double variance = (sumOfSquares - sum * sum / count) / count;
+			this.value = variance > 0 ? variance : 0; //cancellation may produce tiny negative values when all values are equal
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Recalculates the sums from the values in the window, shifting them by the current average so the sums stay small
+	 * and the subtraction in the variance formula doesn't lose precision.
+	 */
+	private void resync(int count) {
+		shift = super.getValue();
+		sum = sumCompensation = sumOfSquares = sumOfSquaresCompensation = 0;
+		for (int i = 0; i < count; i++) {
+			add(values.get(i) - shift);
+		}
+		windowSize = count;
+		changesUntilResync = Math.max(values.capacity(), MIN_RESYNC_INTERVAL);
+	}
+
+	private void add(double v) {
+		// Kahan summation
+		double y = v - sumCompensation;
+		double t = sum + y;
+		sumCompensation = (t - sum) - y;
+		sum = t;
+
+		y = v * v - sumOfSquaresCompensation;
+		t = sumOfSquares + y;
+		sumOfSquaresCompensation = (t - sumOfSquares) - y;
+		sumOfSquares = t;
+	}
+
+	private void remove(double v) {
+		double y = -v - sumCompensation;
+		double t = sum + y;
+		sumCompensation = (t - sum) - y;
+		sum = t;
+
+		y = -(v * v) - sumOfSquaresCompensation;
+		t = sumOfSquares + y;
+		sumOfSquaresCompensation = (t - sumOfSquares) - y;
+		sumOfSquares = t;
+	}
+
 	@Override
 	public double getValue() {
 		return this.value;
@@ -13,6 +13,8 @@ public class AggregatedTicksIndicator implements Indicator {
 	long accumulationCount;
 	private boolean recalculateEveryTick = false;
 	private Candle lastFullCandle;
+	private long lastTick = -1;
+	private boolean lastResult;
 
 	public AggregatedTicksIndicator(TimeInterval timeInterval) {
 		this.timeInterval = timeInterval;
@@ -58,6 +60,16 @@ public class AggregatedTicksIndicator implements Indicator {
 			aggregator.aggregate(candle);
 		}
 
+		long tick = aggregator.getTickCount();
+		if (tick != lastTick) { //instances shared by multiple indicators and strategies must process each tick only once
+			lastTick = tick;
+			lastResult = accumulateTick();
+		}
+		return lastResult;
+	}
+
+	private boolean accumulateTick() {
+		Candle candle;
 		if (recalculateEveryTick) {
 			candle = aggregator.getPartial();
 			if (candle != null) {
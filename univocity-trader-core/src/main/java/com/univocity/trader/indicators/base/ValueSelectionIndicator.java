@@ -1,17 +1,18 @@
 package com.univocity.trader.indicators.base;
 
 import com.univocity.trader.candles.*;
+import com.univocity.trader.utils.*;
 
 import java.util.function.*;
 
 /**
+ * Selects the highest or lowest value of a moving window, as determined by {@link #select(double, double)}.
+ *
  * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
  */
 public abstract class ValueSelectionIndicator extends MultiValueIndicator {
 
-	private double updateValue = initialValue();
-	private double selectedValue = initialValue();
-	private int ticksLeft;
+	private final MonotonicDeque window;
 
 	public ValueSelectionIndicator(int length, TimeInterval interval) {
 		this(length, interval, c -> c.close);
@@ -19,59 +20,42 @@ public abstract class ValueSelectionIndicator extends MultiValueIndicator {
 
 	public ValueSelectionIndicator(int length, TimeInterval interval, ToDoubleFunction<Candle> valueGetter) {
 		super(length, interval, valueGetter);
+		// select() must pick either the highest or the lowest of two values
+		this.window = new MonotonicDeque(length, select(1.0, 0.0) == 1.0);
 	}
 
-	private void recalculate(boolean updating) {
-		updateValue = selectedValue = initialValue();
-		final int len = values.size();
-		int tmp = len;
-		int start = values.i - 1;
-		while (--tmp >= 0) {
-			if (start < 0) {
-				start = len - 1;
+	@Override
+	protected boolean calculateIndicatorValue(Candle candle, double value, boolean updating) {
+		if (updating) {
+			window.update(value);
+		} else {
+			window.add(value);
+			if (window.age() == 0) {
+				valueUpdated(false, false);
 			}
-			double v = values.get(start--);
-			updateSelection(v, tmp);
 		}
-		valueUpdated(true, updating);
-	}
-
-	private boolean updateSelection(double value, int ticksLeft) {
-		double selected = select(value, selectedValue);
-		if (selected != selectedValue) {
-			selectedValue = value;
-			this.ticksLeft = ticksLeft;
-			return true;
-		}
-		return false;
+		return true;
 	}
 
+	/**
+	 * Invoked when the latest value added becomes the selected value.
+	 *
+	 * @param recalculated always {@code false}: the window is no longer rescanned to find the selected value.
+	 * @param updating     always {@code false}: partial values don't trigger this method.
+	 *
+	 * @deprecated use {@link #periodsSinceSelectedValue()} to find out whether the latest value was selected.
+	 */
+	@Deprecated
 	protected void valueUpdated(boolean recalculated, boolean updating) {
 
 	}
 
-	@Override
-	protected boolean calculateIndicatorValue(Candle candle, double value, boolean updating) {
-		if (updating) {
-			if (ticksLeft <= 0) {
-				recalculate(true);
-			}
-			double selected = select(value, selectedValue);
-			updateValue = selected == value ? selected : initialValue();
-		} else {
-			updateValue = initialValue();
-
-			ticksLeft--;
-			if (ticksLeft <= 0) {
-				recalculate(false);
-			} else {
-				if(updateSelection(value, values.size() - 1)) {
-					valueUpdated(false, false);
-				}
-			}
-		}
-
-		return true;
+	/**
+	 * @return the number of candles received after the one that produced the selected value, i.e. {@code 0} if the
+	 * selected value comes from the latest candle.
+	 */
+	protected final int periodsSinceSelectedValue() {
+		return window.age();
 	}
 
 	protected abstract double select(double v1, double v2);
@@ -80,7 +64,8 @@ public abstract class ValueSelectionIndicator extends MultiValueIndicator {
 
 	@Override
 	public double getValue() {
-		return select(selectedValue, updateValue);
+		double value = window.get();
+		return Double.isNaN(value) ? initialValue() : value;
 	}
 
 }
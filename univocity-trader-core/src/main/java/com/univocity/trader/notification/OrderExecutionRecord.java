@@ -0,0 +1,339 @@
+package com.univocity.trader.notification;
+
+import com.univocity.trader.*;
+import com.univocity.trader.account.*;
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.base.*;
+
+import java.io.*;
+import java.sql.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * The details of an order execution captured when the event happens, with the same columns written by
+ * {@link OrderExecutionToCsv}. Amounts are kept unformatted along with the number of decimal places used to print them,
+ * so a record can be written to a {@link DataOutput} in a fixed layout and turned into a CSV row later.
+ *
+ * Symbols and other repetitive strings are written as identifiers assigned by the caller. The order ID is the only
+ * field written inline, with variable length.
+ *
+ * Instances are mutable and meant to be reused for every event.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class OrderExecutionRecord {
+
+	static final byte ORDER = 2;
+	static final byte END = 3;
+
+	private static final Order.Status[] STATUSES = Order.Status.values();
+	private static final Order.Type[] TYPES = Order.Type.values();
+
+	private static final byte BUY = 1;
+	private static final byte FINALIZED = 1 << 1;
+	private static final byte NO_ORDER_ID = 1 << 2;
+
+	boolean end;
+
+	String orderId;
+	String clientId;
+	String assetSymbol;
+	String fundSymbol;
+	String referenceCurrency;
+	String operation;
+	String exitReason;
+
+	long closeTime;
+	long tradeId;
+	long duration;
+	int ticks;
+	Order.Status status;
+	Order.Type orderType;
+	boolean buy;
+	boolean finalized;
+
+	int priceDecimals;
+	int quantityDecimals;
+	int amountDecimals;
+	int referenceDecimals;
+
+	double quantity;
+	double price;
+	double averagePrice;
+	double orderAmount;
+	double fillPct;
+	double executedQuantity;
+	double valueTransacted;
+	double estimatedProfitLossPct;
+	double profitLossPct;
+	double profitLoss;
+	double freeBalance;
+	double priceChangePct;
+	double minPrice;
+	double minChangePct;
+	double maxChangePct;
+	double maxPrice;
+	double shortedQuantity;
+	double marginReserve;
+	double profitLossReferenceCurrency;
+	double holdings;
+	double freeBalanceReferenceCurrency;
+
+	/**
+	 * Captures the state of an order of a trade, as {@link OrderExecutionLine} does.
+	 */
+	void set(Order order, Trade trade, Trader trader, Client client) {
+		end = false;
+		setBalances(trader, client);
+
+		SymbolPriceDetails priceDetails = trader.priceDetails();
+		fundSymbol = trader.fundSymbol();
+		assetSymbol = trader.assetSymbol();
+		SymbolPriceDetails amountDetails = fundSymbol.equals(referenceCurrency) ? trader.referencePriceDetails() : priceDetails;
+		priceDecimals = priceDetails.priceDecimals();
+		quantityDecimals = priceDetails.quantityDecimals();
+		amountDecimals = amountDetails.priceDecimals();
+
+		Candle latestCandle = trader.latestCandle();
+		closeTime = latestCandle.closeTime;
+
+		orderId = order.getOrderId();
+		operation = order.sideDescription();
+		status = order.getStatus();
+		orderType = order.getType();
+		buy = order.isBuy();
+		price = buy || order.getPrice() != 0.0 ? order.getPrice() : latestCandle.close;
+		quantity = order.getQuantity();
+		averagePrice = order.getAveragePrice();
+		fillPct = order.getFillPct();
+		executedQuantity = order.getExecutedQuantity();
+		valueTransacted = order.getTotalTraded();
+		if (orderType == Order.Type.MARKET && fillPct == 0.0) {
+			orderAmount = order.getQuantity() * trader.lastClosingPrice();
+		} else {
+			orderAmount = order.getTotalOrderAmount();
+		}
+
+		Balance balance = trader.balanceOf(fundSymbol);
+		freeBalance = balance.getFree();
+		marginReserve = balance.getMarginReserve(assetSymbol);
+		shortedQuantity = trader.shortedQuantity();
+
+		tradeId = trade.id();
+		exitReason = trade.exitReason();
+		ticks = trade.ticks();
+		duration = order.getTimeElapsed(trade.latestCandle().closeTime);
+		estimatedProfitLossPct = trade.estimateProfitLossPercentage(order);
+		priceChangePct = trade.priceChangePct();
+		minChangePct = trade.minChange();
+		maxChangePct = trade.maxChange();
+		minPrice = trade.minPrice();
+		maxPrice = trade.maxPrice();
+		finalized = trade.isFinalized();
+		if (finalized) {
+			profitLoss = trade.actualProfitLoss();
+			profitLossPct = trade.actualProfitLossPct();
+			profitLossReferenceCurrency = trade.actualProfitLossInReferenceCurrency();
+		}
+	}
+
+	/**
+	 * Captures the balances of a trader at the end of a simulation.
+	 */
+	void setEnd(Trader trader, Client client) {
+		end = true;
+		setBalances(trader, client);
+	}
+
+	private void setBalances(Trader trader, Client client) {
+		clientId = client == null ? "N/A" : client.getId();
+		referenceCurrency = trader.referenceCurrencySymbol();
+		referenceDecimals = trader.referencePriceDetails().priceDecimals();
+		holdings = trader.holdings();
+		freeBalanceReferenceCurrency = trader.freeBalance();
+	}
+
+	/**
+	 * Writes this record, starting with its type ({@link #ORDER} or {@link #END}). Strings are converted into identifiers
+	 * before anything else is written, so the given function can write the definitions of strings not seen before into
+	 * the same output.
+	 */
+	void writeTo(DataOutput out, ToIntFunction<String> ids) throws IOException {
+		int client = ids.applyAsInt(clientId);
+		int reference = ids.applyAsInt(referenceCurrency);
+		int asset = end ? -1 : ids.applyAsInt(assetSymbol);
+		int fund = end ? -1 : ids.applyAsInt(fundSymbol);
+		int side = end ? -1 : ids.applyAsInt(operation);
+		int reason = end ? -1 : ids.applyAsInt(exitReason);
+
+		out.writeByte(end ? END : ORDER);
+		out.writeInt(client);
+		out.writeInt(reference);
+		out.writeByte(referenceDecimals);
+		out.writeDouble(holdings);
+		out.writeDouble(freeBalanceReferenceCurrency);
+		if (end) {
+			return;
+		}
+
+		out.writeInt(asset);
+		out.writeInt(fund);
+		out.writeInt(side);
+		out.writeInt(reason);
+		out.writeLong(closeTime);
+		out.writeLong(tradeId);
+		out.writeLong(duration);
+		out.writeInt(ticks);
+		out.writeByte(status == null ? 0 : status.ordinal() + 1);
+		out.writeByte(orderType == null ? 0 : orderType.ordinal() + 1);
+		out.writeByte((buy ? BUY : 0) | (finalized ? FINALIZED : 0) | (orderId == null ? NO_ORDER_ID : 0));
+		out.writeByte(priceDecimals);
+		out.writeByte(quantityDecimals);
+		out.writeByte(amountDecimals);
+
+		out.writeDouble(quantity);
+		out.writeDouble(price);
+		out.writeDouble(averagePrice);
+		out.writeDouble(orderAmount);
+		out.writeDouble(fillPct);
+		out.writeDouble(executedQuantity);
+		out.writeDouble(valueTransacted);
+		out.writeDouble(estimatedProfitLossPct);
+		out.writeDouble(profitLossPct);
+		out.writeDouble(profitLoss);
+		out.writeDouble(freeBalance);
+		out.writeDouble(priceChangePct);
+		out.writeDouble(minPrice);
+		out.writeDouble(minChangePct);
+		out.writeDouble(maxChangePct);
+		out.writeDouble(maxPrice);
+		out.writeDouble(shortedQuantity);
+		out.writeDouble(marginReserve);
+		out.writeDouble(profitLossReferenceCurrency);
+
+		out.writeUTF(orderId == null ? "" : orderId);
+	}
+
+	/**
+	 * Reads a record written by {@link #writeTo(DataOutput, ToIntFunction)}, after its type, replacing the current
+	 * state of this instance.
+	 */
+	void readFrom(DataInput in, boolean end, IntFunction<String> strings) throws IOException {
+		this.end = end;
+		clientId = strings.apply(in.readInt());
+		referenceCurrency = strings.apply(in.readInt());
+		referenceDecimals = in.readByte();
+		holdings = in.readDouble();
+		freeBalanceReferenceCurrency = in.readDouble();
+		if (end) {
+			return;
+		}
+
+		assetSymbol = strings.apply(in.readInt());
+		fundSymbol = strings.apply(in.readInt());
+		operation = strings.apply(in.readInt());
+		exitReason = strings.apply(in.readInt());
+		closeTime = in.readLong();
+		tradeId = in.readLong();
+		duration = in.readLong();
+		ticks = in.readInt();
+		status = constant(STATUSES, in.readByte());
+		orderType = constant(TYPES, in.readByte());
+		byte flags = in.readByte();
+		buy = (flags & BUY) != 0;
+		finalized = (flags & FINALIZED) != 0;
+		priceDecimals = in.readByte();
+		quantityDecimals = in.readByte();
+		amountDecimals = in.readByte();
+
+		quantity = in.readDouble();
+		price = in.readDouble();
+		averagePrice = in.readDouble();
+		orderAmount = in.readDouble();
+		fillPct = in.readDouble();
+		executedQuantity = in.readDouble();
+		valueTransacted = in.readDouble();
+		estimatedProfitLossPct = in.readDouble();
+		profitLossPct = in.readDouble();
+		profitLoss = in.readDouble();
+		freeBalance = in.readDouble();
+		priceChangePct = in.readDouble();
+		minPrice = in.readDouble();
+		minChangePct = in.readDouble();
+		maxChangePct = in.readDouble();
+		maxPrice = in.readDouble();
+		shortedQuantity = in.readDouble();
+		marginReserve = in.readDouble();
+		profitLossReferenceCurrency = in.readDouble();
+
+		orderId = in.readUTF();
+		if ((flags & NO_ORDER_ID) != 0) {
+			orderId = null;
+		}
+	}
+
+	private static <T> T constant(T[] values, byte code) throws IOException {
+		if (code < 0 || code > values.length) {
+			throw new IOException("Invalid constant code " + code);
+		}
+		return code == 0 ? null : values[code - 1];
+	}
+
+	private static String pct(double percentage) {
+		return Candle.CHANGE_FORMAT.get().format(percentage / 100.0);
+	}
+
+	private static String amount(int decimals, double value) {
+		return SymbolPriceDetails.toString(decimals, value);
+	}
+
+	private static Double rounded(int decimals, double value) {
+		return Double.parseDouble(amount(decimals, value));
+	}
+
+	private String fillPercentage() {
+		String out = pct(fillPct);
+		if (status != Order.Status.FILLED && out.equals("100.00%")) {
+			return "99.99%";
+		}
+		return out;
+	}
+
+	/**
+	 * Returns the values of this record in the order of {@link OrderExecutionToCsv#HEADERS}, formatted the same way.
+	 */
+	Object[] toRow() {
+		String holdings = amount(referenceDecimals, this.holdings);
+		Double freeBalanceReferenceCurrency = rounded(referenceDecimals, this.freeBalanceReferenceCurrency);
+		if (end) {
+			return new Object[]{
+					null, clientId, 0L, "END",
+					null, null, null, null, null, null,
+					null, null, null,
+					null, null, null,
+					null, null, null,
+					null, null, null,
+					null, null, null, null, null,
+					null, null,
+					referenceCurrency, null, holdings, freeBalanceReferenceCurrency
+			};
+		}
+		return new Object[]{
+				new Timestamp(closeTime), clientId, tradeId, operation,
+				amount(quantityDecimals, quantity), assetSymbol, amount(buy ? amountDecimals : priceDecimals, price), amount(amountDecimals, averagePrice), fundSymbol, amount(amountDecimals, orderAmount),
+				orderType, status, TimeInterval.getFormattedDurationShort(duration),
+				fillPercentage(), amount(quantityDecimals, executedQuantity), amount(amountDecimals, valueTransacted),
+				pct(estimatedProfitLossPct), exitReason, ticks,
+				finalized ? pct(profitLossPct) : null, finalized ? rounded(priceDecimals, profitLoss) : null, amount(amountDecimals, freeBalance),
+				pct(priceChangePct), amount(priceDecimals, minPrice), pct(minChangePct), pct(maxChangePct), amount(priceDecimals, maxPrice),
+				amount(quantityDecimals, shortedQuantity), amount(amountDecimals, marginReserve),
+				referenceCurrency, finalized ? rounded(referenceDecimals, profitLossReferenceCurrency) : null, holdings, freeBalanceReferenceCurrency
+		};
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toRow());
+	}
+}
@@ -0,0 +1,349 @@
+package com.univocity.trader.notification;
+
+import com.univocity.parsers.csv.*;
+import com.univocity.trader.account.*;
+import org.slf4j.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Streams the details of every order execution into a binary file as the events happen, producing the same
+ * information written by {@link OrderExecutionToCsv} without keeping any of it in memory. Use this listener when
+ * simulating many symbols or parameter sweeps that produce more orders than it is reasonable to hold until the
+ * simulation ends, then convert the file to CSV with {@link #toCsv(File, File, boolean, boolean)}.
+ *
+ * Each order event is appended as a record of fixed layout. Symbols, sides and exit reasons are written once per
+ * simulation and referenced by identifier afterwards. The end of each simulation is marked with the final balances
+ * of its trader, which become the {@code END} rows of the CSV output.
+ *
+ * Values are captured when each event happens, whereas {@link OrderExecutionToCsv} formats some columns (such as the
+ * executed quantity and minimum and maximum prices) from the state of the order and trade when the simulation ends.
+ *
+ * A file is truncated the first time this listener writes to it, and appended to by every simulation that ends up
+ * using the same file name afterwards. Records are flushed to the file whenever a trade is finalized, so the orders of
+ * a simulation interrupted before it ends (e.g. by a crash) are mostly preserved, and converted without an {@code END}
+ * row.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public class OrderExecutionToBinary implements OrderListener {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderExecutionToBinary.class);
+
+	static final String EXTENSION = ".orders";
+
+	private static final int MAGIC = 0x4F524453; // "ORDS"
+	private static final int VERSION = 1;
+
+	private static final byte STRING = 1;
+	private static final byte RESET = 4;
+
+	private File outputDir;
+	private Supplier<String> fileNameSupplier;
+
+	private final OrderExecutionRecord record = new OrderExecutionRecord();
+	private final Map<String, Integer> strings = new HashMap<>();
+	private final Set<File> written = new HashSet<>();
+	private DataOutputStream out;
+	private File file;
+	private boolean unfinished;
+
+	public OrderExecutionToBinary() {
+		this(new File(System.getProperty("user.home") + "/Documents"), "market_simulation");
+	}
+
+	public OrderExecutionToBinary(String fileName) {
+		this(new File(System.getProperty("user.home") + "/Documents"), fileName);
+	}
+
+	public OrderExecutionToBinary(File outputDir, String fileName) {
+		this.outputDir = outputDir;
+		this.fileNameSupplier = () -> fileName;
+	}
+
+	public OrderExecutionToBinary(File outputDir, Supplier<String> fileName) {
+		this.outputDir = outputDir;
+		this.fileNameSupplier = fileName;
+	}
+
+	public OrderExecutionToBinary(Supplier<String> fileName) {
+		this.fileNameSupplier = fileName;
+	}
+
+	@Override
+	public void orderSubmitted(Order order, Trade trade, Client client) {
+		logDetails(order, client, false);
+	}
+
+	@Override
+	public void orderFinalized(Order order, Trade trade, Client client) {
+		logDetails(order, client, true);
+	}
+
+	private synchronized void logDetails(Order order, Client client, boolean orderFinalized) {
+		Trade trade = order.getTrade();
+		if (trade != null) {
+			record.set(order, trade, trade.trader(), client);
+			write();
+			if (orderFinalized && trade.isFinalized()) {
+				flush();
+			}
+		}
+	}
+
+	private void flush() {
+		try {
+			out.flush();
+		} catch (IOException e) {
+			throw new IllegalStateException("Error writing order details to " + file.getAbsolutePath(), e);
+		}
+	}
+
+	@Override
+	public synchronized void simulationEnded(Trader trader, Client client) {
+		if (unfinished) {
+			record.setEnd(trader, client);
+			write();
+			unfinished = false;
+			log.info("Written simulation orders to {}", file.getAbsolutePath());
+			close();
+		}
+	}
+
+	private File resolveFile() {
+		String dirPath = "";
+		if (outputDir != null) {
+			dirPath = outputDir.getAbsolutePath() + "/";
+		}
+		String fileName = fileNameSupplier.get();
+		if (fileName.indexOf('.') < 0) {
+			fileName += EXTENSION;
+		}
+		return new File(dirPath + fileName);
+	}
+
+	private void write() {
+		try {
+			if (out == null) {
+				if (!unfinished) {
+					file = resolveFile();
+				}
+				boolean append = !written.add(file);
+				out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, append), 64 * 1024));
+				if (append) {
+					out.writeByte(RESET); // strings defined before the file was closed are not known by this instance anymore
+				} else {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+				}
+			}
+			record.writeTo(out, this::stringId);
+			unfinished = true;
+		} catch (IOException | UncheckedIOException e) {
+			throw new IllegalStateException("Error writing order details to " + file.getAbsolutePath(), e);
+		}
+	}
+
+	private int stringId(String value) {
+		if (value == null) {
+			return -1;
+		}
+		Integer id = strings.get(value);
+		if (id == null) {
+			id = strings.size();
+			strings.put(value, id);
+			try {
+				out.writeByte(STRING);
+				out.writeUTF(value);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Flushes and closes the file currently being written, if any. Events received afterwards are appended to the same
+	 * file until the simulation in progress ends.
+	 */
+	public synchronized void close() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				throw new IllegalStateException("Error closing " + file.getAbsolutePath(), e);
+			} finally {
+				out = null;
+				strings.clear();
+			}
+		}
+	}
+
+	/**
+	 * Converts a file produced by this listener into the CSV layout produced by {@link OrderExecutionToCsv}, applying
+	 * the same filters to the orders of each simulation. The input is read twice, one simulation at a time, so the
+	 * memory required doesn't depend on the size of the file.
+	 *
+	 * Orders written after the end of the last simulation in the file (i.e. by a simulation that didn't finish) are
+	 * converted without an {@code END} row.
+	 *
+	 * @param input            the binary file with order details
+	 * @param output           the CSV file to create
+	 * @param omitZeroTrades   see {@link OrderExecutionToCsv#omitZeroTrades(boolean)}
+	 * @param omitOrderOpening see {@link OrderExecutionToCsv#omitOrderOpening(boolean)}
+	 *
+	 * @return the number of order rows written to the output, excluding {@code END} rows.
+	 */
+	public static long toCsv(File input, File output, boolean omitZeroTrades, boolean omitOrderOpening) {
+		CsvWriterSettings settings = Csv.writeExcel();
+		settings.setHeaders(OrderExecutionToCsv.HEADERS);
+		settings.setHeaderWritingEnabled(true);
+
+		long rows = 0;
+		try (Reader scan = new Reader(input); Reader reader = new Reader(input)) {
+			CsvWriter writer = new CsvWriter(output, OrderExecutionToCsv.CHARSET, settings);
+			try {
+				Set<String> toRemove = new HashSet<>();
+				long pending = 0;
+				byte type;
+				do {
+					type = scan.next();
+					if (type == OrderExecutionRecord.ORDER) {
+						pending++;
+						if (omitZeroTrades) {
+							OrderExecutionRecord r = scan.record;
+							toRemove.add(OrderExecutionToCsv.isZeroTrade(r.status, r.fillPct) ? r.orderId : "");
+						}
+						continue;
+					}
+					if (pending == 0) {
+						if (type == OrderExecutionRecord.END) {
+							reader.next();
+						}
+						continue;
+					}
+					if (type == 0) {
+						log.warn("{} orders at the end of {} don't belong to a finished simulation. Converting them without an END row.", pending, input.getAbsolutePath());
+					}
+
+					boolean retained = false;
+					while (pending-- > 0) {
+						reader.next();
+						OrderExecutionRecord r = reader.record;
+						if (!OrderExecutionToCsv.isOmitted(r.status, r.orderId, toRemove, omitOrderOpening)) {
+							writer.writeRow(r.toRow());
+							retained = true;
+							rows++;
+						}
+					}
+					pending = 0;
+					if (type == OrderExecutionRecord.END && reader.next() == OrderExecutionRecord.END && retained) {
+						writer.writeRow(reader.record.toRow());
+					}
+					toRemove.clear();
+				} while (type != 0);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Error converting " + input.getAbsolutePath() + " to CSV", e);
+		}
+		log.info("Written {} order rows from {} to {}", rows, input.getAbsolutePath(), output.getAbsolutePath());
+		return rows;
+	}
+
+	/**
+	 * Reads the records of a file, one at a time into the same {@link OrderExecutionRecord}.
+	 */
+	private static final class Reader implements Closeable {
+		private final File file;
+		private final DataInputStream in;
+		private final List<String> strings = new ArrayList<>();
+		final OrderExecutionRecord record = new OrderExecutionRecord();
+
+		Reader(File file) throws IOException {
+			this.file = file;
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+			if (in.readInt() != MAGIC) {
+				in.close();
+				throw new IOException("Not an order execution file: " + file.getAbsolutePath());
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				in.close();
+				throw new IOException("Unsupported order execution file version " + version + " in file " + file.getAbsolutePath());
+			}
+		}
+
+		private String string(int id) {
+			if (id == -1) {
+				return null;
+			}
+			if (id < 0 || id >= strings.size()) {
+				throw new IllegalStateException("Undefined string " + id + " in file " + file.getAbsolutePath());
+			}
+			return strings.get(id);
+		}
+
+		/**
+		 * Reads the next record.
+		 *
+		 * @return the type of record read ({@link OrderExecutionRecord#ORDER} or {@link OrderExecutionRecord#END}), or
+		 * {@code 0} at the end of the file.
+		 */
+		byte next() throws IOException {
+			while (true) {
+				int type = in.read();
+				try {
+					switch (type) {
+						case -1:
+							return 0;
+						case STRING:
+							strings.add(in.readUTF());
+							break;
+						case RESET:
+							strings.clear();
+							break;
+						case OrderExecutionRecord.ORDER:
+						case OrderExecutionRecord.END:
+							record.readFrom(in, type == OrderExecutionRecord.END, this::string);
+							if (type == OrderExecutionRecord.END) {
+								strings.clear();
+							}
+							return (byte) type;
+						default:
+							throw new IOException("Corrupted order execution file: " + file.getAbsolutePath());
+					}
+				} catch (EOFException e) {
+					// last record only partially written by a simulation that didn't finish
+					return 0;
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	public File outputDir() {
+		return outputDir;
+	}
+
+	public OrderExecutionToBinary outputDir(File outputDir) {
+		this.outputDir = outputDir;
+		return this;
+	}
+
+	public OrderExecutionToBinary fileName(String fileName) {
+		return this.fileName(() -> fileName);
+	}
+
+	public OrderExecutionToBinary fileName(Supplier<String> fileName) {
+		this.fileNameSupplier = fileName;
+		return this;
+	}
+}
@@ -13,6 +13,20 @@ public class OrderExecutionToCsv implements OrderListener {
 
 	private static final Logger log = LoggerFactory.getLogger(OrderExecutionToCsv.class);
 
+	static final Charset CHARSET = Charset.forName("windows-1252");
+
+	static final String[] HEADERS = new String[]{
+			"closeTime", "clientId", "tradeId", "operation",
+			"quantity", "assetSymbol", "price", "averagePrice", "fundSymbol", "orderAmount",
+			"orderType", "status", "duration",
+			"orderFillPercentage", "executedQuantity", "valueTransacted",
+			"estimatedProfitLossPct", "exitReason", "ticks",
+			"profitLossPct", "profitLoss", "freeBalance",
+			"priceChangePct", "minPrice", "minChangePct", "maxChangePct", "maxPrice",
+			"shortedQuantity", "marginReserve",
+			"referenceCurrency", "profitLossReferenceCurrency", "holdings", "freeBalanceReferenceCurrency",
+	};
+
 	private File outputDir;
 	private Supplier<String> fileNameSupplier;
 	private boolean omitZeroTrades = true;
@@ -59,13 +73,21 @@ public class OrderExecutionToCsv implements OrderListener {
 		}
 	}
 
+	static boolean isZeroTrade(Order.Status status, double fillPct) {
+		return fillPct == 0.0 && status != Order.Status.NEW;
+	}
+
+	static boolean isOmitted(Order.Status status, String orderId, Set<String> toRemove, boolean omitOrderOpening) {
+		return (omitOrderOpening && status != Order.Status.NEW) || !toRemove.contains(orderId);
+	}
+
 	private List<OrderExecutionLine> filterLines() {
 		Set<String> toRemove = new HashSet<>();
 		List<OrderExecutionLine> lines = new ArrayList<>(this.lines);
 		if (omitZeroTrades) {
-			lines.forEach(l -> toRemove.add(l.fillPct == 0.0 && l.status != Order.Status.NEW ? l.orderId : ""));
+			lines.forEach(l -> toRemove.add(isZeroTrade(l.status, l.fillPct) ? l.orderId : ""));
 		}
-		lines.removeIf(l -> (omitOrderOpening && l.status != Order.Status.NEW) || !toRemove.contains(l.orderId));
+		lines.removeIf(l -> isOmitted(l.status, l.orderId, toRemove, omitOrderOpening));
 		return lines;
 	}
 
@@ -84,23 +106,11 @@ public class OrderExecutionToCsv implements OrderListener {
 		CsvRoutines routines = new CsvRoutines(Csv.writeExcel());
 		routines.getWriterSettings().setHeaderWritingEnabled(true);
 
-		String[] headers = new String[]{
-				"closeTime", "clientId", "tradeId", "operation",
-				"quantity", "assetSymbol", "price", "averagePrice", "fundSymbol", "orderAmount",
-				"orderType", "status", "duration",
-				"orderFillPercentage", "executedQuantity", "valueTransacted",
-				"estimatedProfitLossPct", "exitReason", "ticks",
-				"profitLossPct", "profitLoss", "freeBalance",
-				"priceChangePct", "minPrice", "minChangePct", "maxChangePct", "maxPrice",
-				"shortedQuantity", "marginReserve",
-				"referenceCurrency", "profitLossReferenceCurrency", "holdings", "freeBalanceReferenceCurrency",
-		};
-
 		List<OrderExecutionLine> lines = filterLines();
 		if (!lines.isEmpty()) {
 			lines.add(new OrderExecutionLine(null, null, trader, client));
 
-			routines.writeAll(lines, OrderExecutionLine.class, out, Charset.forName("windows-1252"), headers);
+			routines.writeAll(lines, OrderExecutionLine.class, out, CHARSET, HEADERS);
 			log.info("Written simulation statistics to {}", out.getAbsolutePath());
 
 			this.lines.clear();
@@ -2,16 +2,29 @@ package com.univocity.trader.notification;
 
 import com.univocity.trader.account.*;
 import com.univocity.trader.candles.*;
+import com.univocity.trader.simulation.*;
 
 import java.text.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static com.univocity.trader.candles.Candle.*;
 
+/**
+ * Collects {@link TradeStatistics} of long and short trades for each set of {@link Parameters} used by a strategy,
+ * and prints them once the simulation ends. Statistics are updated as trades are finalized, so the memory used
+ * doesn't grow with the number of trades. Results are also available through {@link #longTradeStatistics()} and
+ * {@link #shortTradeStatistics()}, and the statistics collected by different instances (e.g. by parallel
+ * simulations) can be combined with {@link #merge(SimpleStrategyStatistics)}.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
 public class SimpleStrategyStatistics implements OrderListener {
 
-	private Map<String, List<double[]>> longReturns = new TreeMap<>();
-	private Map<String, List<double[]>> shortReturns = new TreeMap<>();
+	private static final ThreadLocal<DecimalFormat> RATIO_FORMAT = ThreadLocal.withInitial(() -> new DecimalFormat("#,##0.00"));
+
+	private final Map<Parameters, TradeStatistics> longReturns = new ConcurrentHashMap<>();
+	private final Map<Parameters, TradeStatistics> shortReturns = new ConcurrentHashMap<>();
 	private double initialInvestment = 0.0;
 	private Trader trader;
 
@@ -28,10 +41,52 @@ public class SimpleStrategyStatistics implements OrderListener {
 		this.symbol = symbol;
 	}
 
-	private void register(Map<String, List<double[]>> returns, Trade trade) {
-		returns
-				.computeIfAbsent(trader.parameters().toString(), s -> new ArrayList<>())
-				.add(new double[]{trade.actualProfitLoss(), trade.actualProfitLossPct()});
+	private void register(Map<Parameters, TradeStatistics> returns, Trade trade) {
+		returns.compute(trader.parameters(), (p, stats) -> {
+			stats = stats == null ? new TradeStatistics() : stats;
+			stats.add(trade);
+			return stats;
+		});
+	}
+
+	/**
+	 * Returns the statistics of long trades, for each set of parameters used by the strategy.
+	 *
+	 * @return the statistics of long trades, sorted by parameters.
+	 */
+	public Map<Parameters, TradeStatistics> longTradeStatistics() {
+		return sorted(longReturns);
+	}
+
+	/**
+	 * Returns the statistics of short trades, for each set of parameters used by the strategy.
+	 *
+	 * @return the statistics of short trades, sorted by parameters.
+	 */
+	public Map<Parameters, TradeStatistics> shortTradeStatistics() {
+		return sorted(shortReturns);
+	}
+
+	private static Map<Parameters, TradeStatistics> sorted(Map<Parameters, TradeStatistics> returns) {
+		Map<Parameters, TradeStatistics> out = new TreeMap<>(Comparator.comparing(Parameters::toString));
+		out.putAll(returns);
+		return Collections.unmodifiableMap(out);
+	}
+
+	/**
+	 * Adds the statistics collected by another instance to the statistics of this one.
+	 *
+	 * @param other the statistics to merge into this instance
+	 */
+	public void merge(SimpleStrategyStatistics other) {
+		other.longReturns.forEach((p, stats) -> longReturns.merge(p, new TradeStatistics().merge(stats), TradeStatistics::merge));
+		other.shortReturns.forEach((p, stats) -> shortReturns.merge(p, new TradeStatistics().merge(stats), TradeStatistics::merge));
+		if (this.trader == null && other.trader != null) {
+			this.trader = other.trader;
+			this.initialInvestment = other.initialInvestment;
+			this.firstCandle = other.firstCandle;
+			this.lastCandle = other.lastCandle;
+		}
 	}
 
 	@Override
@@ -57,35 +112,9 @@ public class SimpleStrategyStatistics implements OrderListener {
 		printTradeStats(shortReturns);
 	}
 
-	private void printTradeStats(Map<String, List<double[]>> returns) {
-		for (Map.Entry<String, List<double[]>> e : returns.entrySet()) {
-			double totalNegativeAmount = 0.0;
-			double totalPositiveAmount = 0.0;
-			double totalNegativePct = 0.0;
-			double totalPositivePct = 0.0;
-			int negativeCount = 0;
-			int positiveCount = 0;
-
-			for (double[] v : e.getValue()) {
-				double returnPct = v[1];
-				double returnAmount = v[0];
-				if (returnAmount <= 0.0) {
-					totalNegativePct += returnPct;
-					totalNegativeAmount += returnAmount;
-					negativeCount++;
-
-				} else {
-					totalPositivePct += returnPct;
-					totalPositiveAmount += returnAmount;
-					positiveCount++;
-				}
-			}
-
-			double averageGainPct = positiveCount == 0 ? 0 : totalPositivePct / positiveCount;
-			double averageLossPct = negativeCount == 0 ? 0 : totalNegativePct / negativeCount;
-
-			double averageGainAmount = positiveCount == 0 ? 0 : totalPositiveAmount / positiveCount;
-			double averageLossAmount = negativeCount == 0 ? 0 : totalNegativeAmount / negativeCount;
+	private void printTradeStats(Map<Parameters, TradeStatistics> returns) {
+		for (Map.Entry<Parameters, TradeStatistics> e : sorted(returns).entrySet()) {
+			TradeStatistics stats = e.getValue();
 
 			String side;
 			if (returns == longReturns) {
@@ -95,10 +124,12 @@ public class SimpleStrategyStatistics implements OrderListener {
 				side = "short trades";
 			}
 
-			double pl = totalPositiveAmount + totalNegativeAmount;
-			System.out.println("Negative " + side + ": " + negativeCount + " trades, avg. loss: " + printAmountAndPercentage(averageLossAmount, averageLossPct));
-			System.out.println("Positive " + side + ": " + positiveCount + " trades, avg. gain: " + printAmountAndPercentage(averageGainAmount, averageGainPct));
+			double pl = stats.netProfitLoss();
+			System.out.println("Negative " + side + ": " + stats.losses() + " trades, avg. loss: " + printAmountAndPercentage(stats.averageLoss(), stats.averageLossPct()));
+			System.out.println("Positive " + side + ": " + stats.wins() + " trades, avg. gain: " + printAmountAndPercentage(stats.averageGain(), stats.averageGainPct()));
 			System.out.println("Returns  " + side + ": " + printAmountAndPercentage(pl, (pl / initialInvestment) * 100));
+			System.out.println("Win rate " + side + ": " + CHANGE_FORMAT.get().format(stats.winRate()) + ", profit factor: " + RATIO_FORMAT.get().format(stats.profitFactor()) + ", max. drawdown: " + printAmountAndPercentage(-stats.maxDrawdown(), (-stats.maxDrawdown() / initialInvestment) * 100));
+			System.out.println("Risk     " + side + ": avg. return " + CHANGE_FORMAT.get().format(stats.averageReturnPct() / 100) + " +/- " + CHANGE_FORMAT.get().format(stats.returnPctStandardDeviation() / 100) + ", Sharpe: " + RATIO_FORMAT.get().format(stats.sharpeRatio()) + ", Sortino: " + RATIO_FORMAT.get().format(stats.sortinoRatio()) + ", exposure: " + CHANGE_FORMAT.get().format(stats.exposure()));
 
 
 			if (returns == shortReturns) {
@@ -0,0 +1,315 @@
+package com.univocity.trader.notification;
+
+import com.univocity.trader.account.*;
+
+/**
+ * Statistics of a sequence of trades, updated in constant time as each trade is finalized without retaining the
+ * trades themselves.
+ *
+ * Means and variances of returns are accumulated with Welford's algorithm, which is numerically stable over millions
+ * of trades. Instances built over different sequences of trades (e.g. by parallel simulations) can be combined with
+ * {@link #merge(TradeStatistics)}.
+ *
+ * Ratios are computed over the return percentages of individual trades and are not annualized. The Sharpe ratio
+ * assumes a risk-free rate of zero, and the Sortino ratio uses the downside deviation of returns below zero.
+ *
+ * This class is not thread-safe.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class TradeStatistics {
+
+	private long count;
+	private long wins;
+
+	private double grossProfit;
+	private double grossLoss;
+	private double totalGainPct;
+	private double totalLossPct;
+
+	private double meanReturnPct;
+	private double m2;
+	private double downsideSquares;
+
+	// profit/loss accumulated after each trade, used to compute the maximum drawdown
+	private double equity;
+	private double peak;
+	private double trough;
+	private double maxDrawdown;
+
+	private long exposureTime;
+	private long firstEntryTime = Long.MAX_VALUE;
+	private long lastExitTime = Long.MIN_VALUE;
+
+	/**
+	 * Registers a finalized trade.
+	 *
+	 * @param trade the trade to register
+	 */
+	public void add(Trade trade) {
+		long exitTime = trade.trader().latestCandle().closeTime;
+		add(trade.actualProfitLoss(), trade.actualProfitLossPct(), exitTime - trade.tradeDuration(), exitTime);
+	}
+
+	/**
+	 * Registers the results of a trade.
+	 *
+	 * @param profitLoss the profit (or loss, if negative) of the trade
+	 * @param returnPct  the percentage returned by the trade
+	 * @param entryTime  the time the trade was opened
+	 * @param exitTime   the time the trade was closed
+	 */
+	public void add(double profitLoss, double returnPct, long entryTime, long exitTime) {
+		count++;
+		if (profitLoss > 0.0) {
+			wins++;
+			grossProfit += profitLoss;
+			totalGainPct += returnPct;
+		} else {
+			grossLoss -= profitLoss;
+			totalLossPct += returnPct;
+		}
+
+		double delta = returnPct - meanReturnPct;
+		meanReturnPct += delta / count;
+		m2 += delta * (returnPct - meanReturnPct);
+		if (returnPct < 0.0) {
+			downsideSquares += returnPct * returnPct;
+		}
+
+		equity += profitLoss;
+		if (equity > peak) {
+			peak = equity;
+		} else if (peak - equity > maxDrawdown) {
+			maxDrawdown = peak - equity;
+		}
+		trough = Math.min(trough, equity);
+
+		exposureTime += Math.max(0L, exitTime - entryTime);
+		firstEntryTime = Math.min(firstEntryTime, entryTime);
+		lastExitTime = Math.max(lastExitTime, exitTime);
+	}
+
+	/**
+	 * Adds the statistics of another sequence of trades to this one. The trades of the given statistics are
+	 * considered to have happened after the trades registered here, which only matters for the computation of
+	 * the {@link #maxDrawdown()}.
+	 *
+	 * @param other the statistics to merge into this one
+	 *
+	 * @return this instance, for convenience.
+	 */
+	public TradeStatistics merge(TradeStatistics other) {
+		if (other.count == 0) {
+			return this;
+		}
+		if (count == 0) {
+			copy(other);
+			return this;
+		}
+
+		long total = count + other.count;
+		double delta = other.meanReturnPct - meanReturnPct;
+		meanReturnPct += delta * other.count / total;
+		m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+		downsideSquares += other.downsideSquares;
+
+		maxDrawdown = Math.max(Math.max(maxDrawdown, other.maxDrawdown), peak - (equity + other.trough));
+		trough = Math.min(trough, equity + other.trough);
+		peak = Math.max(peak, equity + other.peak);
+		equity += other.equity;
+
+		count = total;
+		wins += other.wins;
+		grossProfit += other.grossProfit;
+		grossLoss += other.grossLoss;
+		totalGainPct += other.totalGainPct;
+		totalLossPct += other.totalLossPct;
+
+		exposureTime += other.exposureTime;
+		firstEntryTime = Math.min(firstEntryTime, other.firstEntryTime);
+		lastExitTime = Math.max(lastExitTime, other.lastExitTime);
+		return this;
+	}
+
+	private void copy(TradeStatistics other) {
+		count = other.count;
+		wins = other.wins;
+		grossProfit = other.grossProfit;
+		grossLoss = other.grossLoss;
+		totalGainPct = other.totalGainPct;
+		totalLossPct = other.totalLossPct;
+		meanReturnPct = other.meanReturnPct;
+		m2 = other.m2;
+		downsideSquares = other.downsideSquares;
+		equity = other.equity;
+		peak = other.peak;
+		trough = other.trough;
+		maxDrawdown = other.maxDrawdown;
+		exposureTime = other.exposureTime;
+		firstEntryTime = other.firstEntryTime;
+		lastExitTime = other.lastExitTime;
+	}
+
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of trades closed with a profit.
+	 *
+	 * @return the number of winning trades
+	 */
+	public long wins() {
+		return wins;
+	}
+
+	/**
+	 * Returns the number of trades closed with a loss, or without any profit.
+	 *
+	 * @return the number of losing trades
+	 */
+	public long losses() {
+		return count - wins;
+	}
+
+	/**
+	 * Returns the fraction of trades closed with a profit.
+	 *
+	 * @return the win rate, between {@code 0.0} and {@code 1.0}
+	 */
+	public double winRate() {
+		return count == 0 ? 0.0 : (double) wins / count;
+	}
+
+	public double grossProfit() {
+		return grossProfit;
+	}
+
+	/**
+	 * Returns the sum of all losses, as a positive amount.
+	 *
+	 * @return the total amount lost
+	 */
+	public double grossLoss() {
+		return grossLoss;
+	}
+
+	public double netProfitLoss() {
+		return grossProfit - grossLoss;
+	}
+
+	public double averageGain() {
+		return wins == 0 ? 0.0 : grossProfit / wins;
+	}
+
+	/**
+	 * Returns the average loss of losing trades, as a negative amount.
+	 *
+	 * @return the average loss
+	 */
+	public double averageLoss() {
+		return wins == count ? 0.0 : -grossLoss / (count - wins);
+	}
+
+	public double averageGainPct() {
+		return wins == 0 ? 0.0 : totalGainPct / wins;
+	}
+
+	public double averageLossPct() {
+		return wins == count ? 0.0 : totalLossPct / (count - wins);
+	}
+
+	/**
+	 * Returns the ratio between the gross profit and the gross loss.
+	 *
+	 * @return the profit factor, or {@link Double#POSITIVE_INFINITY} if there were profits but no losses.
+	 */
+	public double profitFactor() {
+		if (grossLoss == 0.0) {
+			return grossProfit == 0.0 ? 0.0 : Double.POSITIVE_INFINITY;
+		}
+		return grossProfit / grossLoss;
+	}
+
+	public double averageReturnPct() {
+		return meanReturnPct;
+	}
+
+	/**
+	 * Returns the sample variance of the return percentages.
+	 *
+	 * @return the variance of returns
+	 */
+	public double returnPctVariance() {
+		return count < 2 ? 0.0 : m2 / (count - 1);
+	}
+
+	public double returnPctStandardDeviation() {
+		return Math.sqrt(returnPctVariance());
+	}
+
+	/**
+	 * Returns the deviation of the return percentages below zero.
+	 *
+	 * @return the downside deviation of returns
+	 */
+	public double downsideDeviation() {
+		return count == 0 ? 0.0 : Math.sqrt(downsideSquares / count);
+	}
+
+	public double sharpeRatio() {
+		double deviation = returnPctStandardDeviation();
+		return deviation == 0.0 ? 0.0 : meanReturnPct / deviation;
+	}
+
+	public double sortinoRatio() {
+		double deviation = downsideDeviation();
+		return deviation == 0.0 ? 0.0 : meanReturnPct / deviation;
+	}
+
+	/**
+	 * Returns the largest drop of the accumulated profit/loss from a previous peak, after any trade.
+	 *
+	 * @return the maximum drawdown, as a positive amount
+	 */
+	public double maxDrawdown() {
+		return maxDrawdown;
+	}
+
+	/**
+	 * Returns the sum of the durations of all trades.
+	 *
+	 * @return the total time spent in trades, in milliseconds
+	 */
+	public long exposureTime() {
+		return exposureTime;
+	}
+
+	/**
+	 * Returns the time spent in trades relative to the period between the first entry and the last exit. Might
+	 * exceed {@code 1.0} when trades overlap (e.g. when merging statistics of different symbols).
+	 *
+	 * @return the fraction of time exposed to the market
+	 */
+	public double exposure() {
+		long period = lastExitTime - firstEntryTime;
+		return count == 0 || period <= 0 ? 0.0 : (double) exposureTime / period;
+	}
+
+	@Override
+	public String toString() {
+		return "TradeStatistics{" +
+				"count=" + count +
+				", winRate=" + winRate() +
+				", netProfitLoss=" + netProfitLoss() +
+				", averageReturnPct=" + averageReturnPct() +
+				", returnPctStandardDeviation=" + returnPctStandardDeviation() +
+				", sharpeRatio=" + sharpeRatio() +
+				", sortinoRatio=" + sortinoRatio() +
+				", profitFactor=" + profitFactor() +
+				", maxDrawdown=" + maxDrawdown +
+				", exposure=" + exposure() +
+				'}';
+	}
+}
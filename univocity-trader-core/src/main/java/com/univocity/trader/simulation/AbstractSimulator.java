@@ -16,6 +16,7 @@ public abstract class AbstractSimulator<C extends Configuration<C, A>, A extends
 
 	protected Map<String, SymbolInformation> symbolInformation = new TreeMap<>();
 	private SimulatedAccountManager[] accounts;
+	private final ThreadLocal<SimulatedAccountManager[]> workerAccounts = new ThreadLocal<>();
 	protected final Simulation simulation;
 	protected final C configuration;
 	private Map<String, String[]> allPairs;
@@ -28,20 +29,59 @@ public abstract class AbstractSimulator<C extends Configuration<C, A>, A extends
 	}
 
 	protected SimulatedAccountManager[] accounts() {
+		SimulatedAccountManager[] local = workerAccounts.get();
+		if (local != null) {
+			return local;
+		}
 		if (accounts == null) {
-			List<A> accountConfigs = configuration.accounts();
-			if (accountConfigs.isEmpty()) {
-				throw new IllegalStateException("No account configuration defined");
-			}
-			this.accounts = new SimulatedAccountManager[accountConfigs.size()];
-			int i = 0;
-			for (A accountConfig : accountConfigs) {
-				this.accounts[i++] = createAccountInstance(accountConfig).getAccount();
-			}
+			accounts = createAccounts();
 		}
 		return accounts;
 	}
 
+	/**
+	 * Creates a new set of accounts from the account configuration. The accounts returned are not used by this
+	 * simulator until given to {@link #useAccounts(SimulatedAccountManager[])}.
+	 *
+	 * @return a new instance of each configured account.
+	 */
+	protected final SimulatedAccountManager[] createAccounts() {
+		List<A> accountConfigs = configuration.accounts();
+		if (accountConfigs.isEmpty()) {
+			throw new IllegalStateException("No account configuration defined");
+		}
+		SimulatedAccountManager[] out = new SimulatedAccountManager[accountConfigs.size()];
+		int i = 0;
+		for (A accountConfig : accountConfigs) {
+			out[i++] = createAccountInstance(accountConfig).getAccount();
+		}
+		return out;
+	}
+
+	/**
+	 * Gives the current thread its own set of accounts, so that {@link #accounts()} returns instances that are not
+	 * shared with simulations running in other threads. Does nothing if the current thread already has its accounts.
+	 */
+	protected final void isolateAccounts() {
+		if (workerAccounts.get() == null) {
+			workerAccounts.set(createAccounts());
+		}
+	}
+
+	/**
+	 * Makes {@link #accounts()} return the given accounts when invoked from the current thread.
+	 *
+	 * @param accounts the accounts to use in the current thread, or {@code null} to go back to the shared accounts
+	 *                 of this simulator.
+	 */
+	protected final void useAccounts(SimulatedAccountManager[] accounts) {
+		if (accounts == null) {
+			workerAccounts.remove();
+		} else {
+			workerAccounts.set(accounts);
+		}
+	}
+
 	protected SimulatedClientAccount createAccountInstance(A accountConfiguration) {
 		return new SimulatedClientAccount(accountConfiguration, configuration.simulation(), this::getSignalRepository);
 	}
@@ -148,7 +188,7 @@ public abstract class AbstractSimulator<C extends Configuration<C, A>, A extends
 
 	private SignalRepository getSignalRepository() {
 		if(signalRepository == null && configuration.signalRepositoryDir() != null){
-			signalRepository = new SignalRepository(configuration.signalRepositoryDir());
+			signalRepository = new SignalRepository(configuration.signalRepositoryDir()).binaryFormat(configuration.binarySignals());
 		}
 		return signalRepository;
 	}
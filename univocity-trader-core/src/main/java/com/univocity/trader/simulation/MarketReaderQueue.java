@@ -0,0 +1,74 @@
+package com.univocity.trader.simulation;
+
+/**
+ * A primitive binary min-heap of market reader indexes, keyed by the time slot of their pending candle. Readers
+ * with the same key come out in ascending order of index, which preserves the order in which markets are
+ * processed when multiple symbols have candles for the same time slot.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class MarketReaderQueue {
+
+	private final int[] heap;
+	private final long[] keys;
+	private int size;
+
+	MarketReaderQueue(int readerCount) {
+		heap = new int[readerCount];
+		keys = new long[readerCount];
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	long peekKey() {
+		return keys[heap[0]];
+	}
+
+	void push(int reader, long key) {
+		keys[reader] = key;
+		int i = size++;
+		heap[i] = reader;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!less(heap[i], heap[parent])) {
+				break;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	int pop() {
+		int out = heap[0];
+		heap[0] = heap[--size];
+		int i = 0;
+		while (true) {
+			int left = (i << 1) + 1;
+			if (left >= size) {
+				break;
+			}
+			int right = left + 1;
+			int smallest = right < size && less(heap[right], heap[left]) ? right : left;
+			if (!less(heap[smallest], heap[i])) {
+				break;
+			}
+			swap(i, smallest);
+			i = smallest;
+		}
+		return out;
+	}
+
+	private boolean less(int a, int b) {
+		long ka = keys[a];
+		long kb = keys[b];
+		return ka < kb || (ka == kb && a < b);
+	}
+
+	private void swap(int i, int j) {
+		int tmp = heap[i];
+		heap[i] = heap[j];
+		heap[j] = tmp;
+	}
+}
@@ -5,12 +5,14 @@ import com.univocity.trader.account.*;
 import com.univocity.trader.candles.*;
 import com.univocity.trader.config.*;
 import com.univocity.trader.strategy.*;
+import com.univocity.trader.utils.*;
 import org.apache.commons.lang3.*;
 import org.slf4j.*;
 
 import java.time.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.function.*;
 import java.util.stream.*;
 
@@ -26,6 +28,9 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 	private final Supplier<Exchange<?, A>> exchangeSupplier;
 	private CandleRepository candleRepository;
 	private ExecutorService executor;
+	private Map<String, CandleSeries> sharedCandles;
+	private final Object reportLock = new Object();
+	private final ThreadLocal<List<SimulatedAccountManager[]>> batchAccounts = ThreadLocal.withInitial(ArrayList::new);
 
 	protected MarketSimulator(C configuration, Supplier<Exchange<?, A>> exchangeSupplier) {
 		super(configuration);
@@ -40,6 +45,9 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 	protected CandleRepository createCandleRepository() {
 		FileRepositoryConfiguration fileRepository = configure().fileRepository();
 		if (fileRepository.isConfigured()) {
+			if (fileRepository.isBinary()) {
+				return new BinaryCandleRepository(fileRepository.dir());
+			}
 			return new FileCandleRepository(fileRepository.dir(), fileRepository.rowFormat());
 		} else {
 			return new DatabaseCandleRepository(configure().database());
@@ -59,15 +67,152 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 	}
 
 	protected void executeWithParameters(Stream<Parameters> parameters) {
-		parameters.forEach(p -> {
-			initialize();
-			try {
-				executeSimulation(createEngines(p));
-				//			liquidateOpenPositions();
-			} finally {
+		Iterator<List<Parameters>> batches = batches(parameters.iterator(), simulation.batchSize());
+		int parallelism = simulation.parallelism();
+		if (parallelism > 1) {
+			executeInParallel(batches, parallelism);
+			return;
+		}
+		batches.forEachRemaining(this::executeBatch);
+	}
+
+	private static Iterator<List<Parameters>> batches(Iterator<Parameters> parameters, int batchSize) {
+		return new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return parameters.hasNext();
+			}
+
+			@Override
+			public List<Parameters> next() {
+				List<Parameters> batch = new ArrayList<>(batchSize);
+				while (batch.size() < batchSize && parameters.hasNext()) {
+					batch.add(parameters.next());
+				}
+				return batch;
+			}
+		};
+	}
+
+	private void executeBatch(List<Parameters> batch) {
+		if (batch.size() == 1) {
+			executeWithParameters(batch.get(0));
+		} else {
+			executeInLockstep(batch);
+		}
+	}
+
+	private void executeWithParameters(Parameters p) {
+		initialize();
+		try {
+			executeSimulation(createEngines(p));
+			//			liquidateOpenPositions();
+		} finally {
+			synchronized (reportLock) {
 				reportResults(p);
 			}
+		}
+	}
+
+	/**
+	 * Simulates a batch of parameter sets in a single pass over the candles. The engines created for each
+	 * parameter set are grouped by symbol into the same {@link MarketReader}, so every candle read is processed by
+	 * all parameter sets of the batch before the next one is read. Each parameter set uses its own accounts.
+	 */
+	private void executeInLockstep(List<Parameters> batch) {
+		SimulatedAccountManager[] previous = accounts();
+		List<SimulatedAccountManager[]> available = batchAccounts.get();
+		while (available.size() < batch.size()) {
+			available.add(createAccounts());
+		}
+
+		Map<String, List<Engine>> tmp = new HashMap<>();
+		try {
+			for (int i = 0; i < batch.size(); i++) {
+				useAccounts(available.get(i));
+				initialize();
+				createEngines(batch.get(i)).forEach((symbol, engines) -> Collections.addAll(tmp.computeIfAbsent(symbol, s -> new ArrayList<>()), engines));
+			}
+			useAccounts(previous);
+
+			Map<String, Engine[]> symbolHandlers = new HashMap<>();
+			tmp.forEach((symbol, engines) -> symbolHandlers.put(symbol, engines.toArray(Engine[]::new)));
+			executeSimulation(symbolHandlers);
+		} finally {
+			synchronized (reportLock) {
+				for (int i = 0; i < batch.size(); i++) {
+					useAccounts(available.get(i));
+					reportResults(batch.get(i));
+				}
+			}
+			useAccounts(previous);
+		}
+	}
+
+	/**
+	 * Runs each batch of parameter sets in one of {@code parallelism} worker threads. Candles are loaded only once
+	 * and shared by all workers, and each worker uses its own accounts (see {@link #isolateAccounts()}). Results are
+	 * reported one parameter set at a time, so {@link #reportResults(Parameters)} doesn't need to be thread-safe.
+	 */
+	private void executeInParallel(Iterator<List<Parameters>> batches, int parallelism) {
+		sharedCandles = loadCandles(accounts());
+		ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread thread = new Thread(r);
+			thread.setName(ThreadName.generateNewName() + " simulation worker");
+			thread.setDaemon(true);
+			return thread;
 		});
+		Semaphore slots = new Semaphore(parallelism * 2);
+		AtomicReference<RuntimeException> error = new AtomicReference<>();
+		try {
+			while (batches.hasNext() && error.get() == null) {
+				List<Parameters> batch = batches.next();
+				slots.acquireUninterruptibly();
+				workers.execute(() -> {
+					try {
+						isolateAccounts();
+						executeBatch(batch);
+					} catch (RuntimeException e) {
+						log.error("Error running simulation with parameters " + batch, e);
+						error.compareAndSet(null, e);
+					} finally {
+						slots.release();
+					}
+				});
+			}
+			slots.acquireUninterruptibly(parallelism * 2);
+		} finally {
+			workers.shutdownNow();
+			sharedCandles = null;
+		}
+		if (error.get() != null) {
+			throw error.get();
+		}
+	}
+
+	private Map<String, CandleSeries> loadCandles(SimulatedAccountManager[] accounts) {
+		Set<String> symbols = new TreeSet<>();
+		for (AccountManager account : accounts) {
+			symbols.addAll(account.getAllSymbolPairs().keySet());
+		}
+
+		Instant from = getSimulationStart().minus(configuration.warmUpPeriod()).toInstant(ZoneOffset.UTC);
+		Instant to = getSimulationEnd().toInstant(ZoneOffset.UTC);
+
+		Map<String, CompletableFuture<CandleSeries>> futures = new HashMap<>();
+		for (String symbol : symbols) {
+			futures.put(symbol, CompletableFuture.supplyAsync(() -> candleRepository.loadSeries(symbol, from, to, simulation.cacheCandles()), executor));
+		}
+
+		Map<String, CandleSeries> out = new HashMap<>();
+		futures.forEach((symbol, candles) -> {
+			try {
+				out.put(symbol, candles.get());
+			} catch (Exception e) {
+				log.error("Error querying " + symbol + " candles from database", e);
+			}
+		});
+		return out;
 	}
 
 	protected final Map<String, Engine[]> createEngines(Parameters parameters) {
@@ -97,6 +242,27 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 	}
 
 	protected final void executeSimulation(Map<String, Engine[]> symbolHandlers) {
+		Map<String, Enumeration<Candle>> markets;
+		Map<String, CandleSeries> shared = sharedCandles;
+		if (shared != null) {
+			markets = new HashMap<>();
+			for (String symbol : symbolHandlers.keySet()) {
+				CandleSeries candles = shared.get(symbol);
+				if (candles != null) {
+					markets.put(symbol, candles.enumeration());
+				}
+			}
+		} else {
+			markets = queryMarkets(symbolHandlers.keySet());
+		}
+
+		final var sortedMarkets = new TreeMap<>(markets);
+		MarketReader[] readers = buildMarketReaderList(sortedMarkets, symbolHandlers);
+
+		executeSimulation(readers);
+	}
+
+	private Map<String, Enumeration<Candle>> queryMarkets(Collection<String> symbols) {
 		ConcurrentHashMap<String, Enumeration<Candle>> markets = new ConcurrentHashMap<>();
 
 		LocalDateTime start = getSimulationStart();
@@ -108,7 +274,7 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 
 		int activeQueries = 0;
 		Map<String, CompletableFuture<Enumeration<Candle>>> futures = new HashMap<>();
-		for (String symbol : symbolHandlers.keySet()) {
+		for (String symbol : symbols) {
 			activeQueries++;
 			boolean loadAllDataFirst = simulation.cacheCandles() || activeQueries > simulation.activeQueryLimit();
 
@@ -125,10 +291,7 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 			}
 		});
 
-		final var sortedMarkets = new TreeMap<>(markets);
-		MarketReader[] readers = buildMarketReaderList(sortedMarkets, symbolHandlers);
-
-		executeSimulation(readers);
+		return markets;
 	}
 
 	private void determineStartTimes(MarketReader[] readers) {
@@ -167,6 +330,18 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 		}
 	}
 
+	/**
+	 * Processes the candles of all markets in time order. Each candle is assigned to the one-minute time slot of
+	 * its open time and the readers are merged through a min-heap keyed on that slot, so the cost of the simulation
+	 * depends on the number of candles available rather than on the number of minutes between start and end.
+	 *
+	 * Within a time slot, readers are processed in passes: every reader with a candle in the slot is processed once
+	 * per pass, in the order they appear in the given array (or in random order if
+	 * {@link com.univocity.trader.config.Simulation#randomizeTicks()} is enabled). A reader that has more than one
+	 * candle in the same time slot has its next candle processed in the following pass.
+	 *
+	 * @param readers the readers of each market to simulate.
+	 */
 	protected void executeSimulation(MarketReader[] readers) {
 		final long startTime = getStartTime(configuration.warmUpPeriod());
 		final long endTime = getEndTime();
@@ -175,45 +350,85 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 
 		determineStartTimes(readers);
 
+		MarketReaderQueue queue = new MarketReaderQueue(readers.length);
+		for (int i = 0; i < readers.length; i++) {
+			MarketReader reader = readers[i];
+			if (reader.pending != null && reader.pending.close > 0 || nextCandle(reader)) {
+				queue.push(i, slotKey(reader.pending, startTime, -1L));
+			}
+		}
+
+		int[] batch = new int[readers.length];
+		while (!queue.isEmpty()) {
+			final long key = queue.peekKey();
+			final long clock = startTime + (key >>> 32) * MINUTE.ms;
+			if (clock > endTime) {
+				break;
+			}
 
-		for (long clock = startTime; clock <= endTime; clock += MINUTE.ms) {
-			if (randomize) {
-				ArrayUtils.shuffle(readers);
+			int batchSize = 0;
+			while (!queue.isEmpty() && queue.peekKey() == key) {
+				batch[batchSize++] = queue.pop();
 			}
-			boolean resetClock = false;
-			for (int i = 0; i < readers.length; i++) {
-				MarketReader reader = readers[i];
+			if (randomize && batchSize > 1) {
+				shuffle(batch, batchSize);
+			}
+
+			for (int i = 0; i < batchSize; i++) {
+				MarketReader reader = readers[batch[i]];
 				Candle candle = reader.pending;
-				if (candle != null && candle.close > 0) {
-					if (candle.openTime + 1 >= clock && candle.openTime <= clock + MINUTE.ms - 1) {
-						for (int j = 0; j < reader.engines.length; j++) {
-							reader.engines[j].process(candle, clock <= reader.startTime);
-						}
-
-						reader.pending = null;
-						if (reader.input.hasMoreElements()) {
-							Candle next = reader.input.nextElement();
-							if (next != null) {
-								reader.pending = next;
-								if (!resetClock && next.openTime + 1 >= clock && next.openTime <= clock + MINUTE.ms - 1) {
-									resetClock = true;
-								}
-							}
-						}
-					}
-				} else {
-					if (reader.input.hasMoreElements()) {
-						Candle next = reader.input.nextElement();
-						if (next != null) {
-							reader.pending = next;
-						}
-					}
+				for (int j = 0; j < reader.engines.length; j++) {
+					reader.engines[j].process(candle, clock <= reader.startTime);
+				}
+				if (nextCandle(reader)) {
+					queue.push(batch[i], slotKey(reader.pending, startTime, key));
 				}
 			}
-			if (resetClock) {
-				clock -= MINUTE.ms;
+		}
+	}
+
+	private static void shuffle(int[] batch, int length) {
+		Random random = ThreadLocalRandom.current();
+		for (int i = length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = batch[i];
+			batch[i] = batch[j];
+			batch[j] = tmp;
+		}
+	}
+
+	/**
+	 * Replaces the pending candle of a reader with the next candle of its input, skipping candles without a closing
+	 * price. Returns {@code false} once the input is exhausted.
+	 */
+	private static boolean nextCandle(MarketReader reader) {
+		reader.pending = null;
+		while (reader.input.hasMoreElements()) {
+			Candle next = reader.input.nextElement();
+			if (next != null && next.close > 0) {
+				reader.pending = next;
+				return true;
 			}
 		}
+		return false;
+	}
+
+	/**
+	 * Heap key of a candle: the index of its one-minute time slot (counting from the start of the simulation) in the
+	 * upper 32 bits, and the pass within that slot in the lower 32 bits. A candle that falls in the slot of the
+	 * previous candle of the same reader goes to the next pass.
+	 */
+	private static long slotKey(Candle candle, long startTime, long previous) {
+		// a candle goes to the first slot whose one-minute window [slot - 1, slot + 1 minute - 1] contains its open time
+		long slot = -Math.floorDiv(startTime - candle.openTime + MINUTE.ms - 1, MINUTE.ms);
+		if (slot < 0) {
+			slot = 0;
+		}
+		long key = slot << 32;
+		if (previous >= 0 && key <= previous) {
+			return previous + 1;
+		}
+		return key;
 	}
 
 	private MarketReader[] buildMarketReaderList(Map<String, Enumeration<Candle>> markets, Map<String, Engine[]> symbolHandlers) {
@@ -263,7 +478,9 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 	public final void backfillHistory() {
 		TreeSet<String> allSymbols = new TreeSet<>();
 		configuration.accounts().forEach(a -> allSymbols.addAll(a.symbolPairs().keySet()));
-		allSymbols.addAll(new DatabaseCandleRepository(configure().database()).getKnownSymbols());
+		try (DatabaseCandleRepository candleRepository = new DatabaseCandleRepository(configure().database())) {
+			allSymbols.addAll(candleRepository.getKnownSymbols());
+		}
 		backfillHistory(allSymbols);
 	}
 
@@ -279,13 +496,12 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 	}
 
 	protected void backfillHistory(Exchange<?, A> exchange, Collection<String> symbols) {
-		DatabaseCandleRepository candleRepository = new DatabaseCandleRepository(configure().database());
 		final Instant start = simulation.backfillFrom().toInstant(ZoneOffset.UTC);
 		final Instant end = simulation.backfillTo().toInstant(ZoneOffset.UTC);
-		CandleHistoryBackfill backfill = new CandleHistoryBackfill(candleRepository);
-		backfill.resumeBackfill(configuration.simulation().resumeBackfill());
-		for (String symbol : symbols) {
-			backfill.fillHistoryGaps(exchange, symbol, start, end, configuration.tickInterval());
+		try (DatabaseCandleRepository candleRepository = new DatabaseCandleRepository(configure().database())) {
+			CandleHistoryBackfill backfill = new CandleHistoryBackfill(candleRepository);
+			backfill.resumeBackfill(configuration.simulation().resumeBackfill());
+			backfill.fillHistoryGaps(exchange, symbols, start, end, configuration.tickInterval());
 		}
 	}
 
@@ -300,6 +516,9 @@ public abstract class MarketSimulator<C extends Configuration<C, A>, A extends A
 	public final CandleRepository getCandleRepository() {
 		if (candleRepository == null) {
 			candleRepository = createCandleRepository();
+			if (simulation.candleCacheSize() >= 0) {
+				candleRepository.getCache().maximumSize(simulation.candleCacheSize());
+			}
 		}
 		return candleRepository;
 	}
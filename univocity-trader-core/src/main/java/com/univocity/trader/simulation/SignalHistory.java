@@ -0,0 +1,252 @@
+package com.univocity.trader.simulation;
+
+import com.univocity.trader.indicators.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Signals of a symbol, stored in columns of primitives sorted by the open time of their candles.
+ *
+ * Lookups by open time are a binary search away, and a {@link Cursor} makes lookups of candles in chronological order
+ * (as done when replaying signals in a simulation) resolve in constant time from the position of the previous lookup.
+ *
+ * The history can be written to and read from a binary file, with a small header followed by each column written in
+ * full. Signals are stored by their {@link Signal#code}.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class SignalHistory {
+
+	static final String EXTENSION = ".signals";
+
+	private static final int MAGIC = 0x5349474E; // "SIGN"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 12;
+	private static final int ROW_SIZE = 7 * 8 + 1;
+
+	private static final Signal[] SIGNALS_BY_CODE = new Signal[128];
+
+	static {
+		for (Signal signal : Signal.values()) {
+			SIGNALS_BY_CODE[signal.code] = signal;
+		}
+	}
+
+	private long[] openTimes;
+	private long[] closeTimes;
+	private double[] open;
+	private double[] high;
+	private double[] low;
+	private double[] close;
+	private double[] volume;
+	private byte[] signals;
+	private int size;
+
+	SignalHistory() {
+		this(16);
+	}
+
+	private SignalHistory(int capacity) {
+		openTimes = new long[capacity];
+		closeTimes = new long[capacity];
+		open = new double[capacity];
+		high = new double[capacity];
+		low = new double[capacity];
+		close = new double[capacity];
+		volume = new double[capacity];
+		signals = new byte[capacity];
+	}
+
+	private static Signal signalOf(byte code) {
+		Signal signal = code >= 0 ? SIGNALS_BY_CODE[code] : null;
+		if (signal == null) {
+			throw new IllegalStateException("Unknown signal code '" + (char) code + "'");
+		}
+		return signal;
+	}
+
+	/**
+	 * Adds the signal produced for a candle, replacing any signal previously stored for a candle with the same open
+	 * time.
+	 */
+	synchronized void add(long openTime, long closeTime, double open, double high, double low, double close, double volume, Signal signal) {
+		int i;
+		if (size == 0 || openTimes[size - 1] < openTime) {
+			i = size;
+		} else {
+			i = Arrays.binarySearch(openTimes, 0, size, openTime);
+		}
+
+		if (i < 0 || i == size) {
+			i = i < 0 ? -i - 1 : i;
+			if (size == openTimes.length) {
+				grow();
+			}
+			int moved = size - i;
+			if (moved > 0) {
+				System.arraycopy(openTimes, i, openTimes, i + 1, moved);
+				System.arraycopy(closeTimes, i, closeTimes, i + 1, moved);
+				System.arraycopy(this.open, i, this.open, i + 1, moved);
+				System.arraycopy(this.high, i, this.high, i + 1, moved);
+				System.arraycopy(this.low, i, this.low, i + 1, moved);
+				System.arraycopy(this.close, i, this.close, i + 1, moved);
+				System.arraycopy(this.volume, i, this.volume, i + 1, moved);
+				System.arraycopy(signals, i, signals, i + 1, moved);
+			}
+			size++;
+		}
+
+		openTimes[i] = openTime;
+		closeTimes[i] = closeTime;
+		this.open[i] = open;
+		this.high[i] = high;
+		this.low[i] = low;
+		this.close[i] = close;
+		this.volume[i] = volume;
+		signals[i] = (byte) signal.code;
+	}
+
+	private void grow() {
+		int capacity = openTimes.length + (openTimes.length >> 1) + 1;
+		openTimes = Arrays.copyOf(openTimes, capacity);
+		closeTimes = Arrays.copyOf(closeTimes, capacity);
+		open = Arrays.copyOf(open, capacity);
+		high = Arrays.copyOf(high, capacity);
+		low = Arrays.copyOf(low, capacity);
+		close = Arrays.copyOf(close, capacity);
+		volume = Arrays.copyOf(volume, capacity);
+		signals = Arrays.copyOf(signals, capacity);
+	}
+
+	synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the signal of the candle with the given open time.
+	 *
+	 * @return the signal stored for the candle, or {@link Signal#NEUTRAL} if no signal was stored for it.
+	 */
+	synchronized Signal signalAt(long openTime) {
+		int i = Arrays.binarySearch(openTimes, 0, size, openTime);
+		return i >= 0 ? signalOf(signals[i]) : Signal.NEUTRAL;
+	}
+
+	/**
+	 * Finds the position of an open time, starting from a position that is likely close to it.
+	 *
+	 * @return the position of the open time if found, otherwise {@code -(insertion point) - 1}
+	 */
+	private int find(long openTime, int hint) {
+		int from = 0;
+		if (hint <= size && (hint == 0 || openTimes[hint - 1] < openTime)) {
+			if (hint == size || openTimes[hint] > openTime) {
+				return -hint - 1;
+			} else if (openTimes[hint] == openTime) {
+				return hint;
+			}
+			from = hint;
+		}
+		return Arrays.binarySearch(openTimes, from, size, openTime);
+	}
+
+	private synchronized Signal signalAt(long openTime, Cursor cursor) {
+		int i = find(openTime, cursor.position);
+		if (i >= 0) {
+			cursor.position = i + 1;
+			return signalOf(signals[i]);
+		}
+		cursor.position = -i - 1;
+		return Signal.NEUTRAL;
+	}
+
+	/**
+	 * Looks up signals of candles visited in chronological order. Not thread-safe: each thread replaying signals
+	 * should use its own cursor.
+	 */
+	final class Cursor {
+		private int position;
+
+		/**
+		 * Returns the signal of the candle with the given open time.
+		 *
+		 * @return the signal stored for the candle, or {@link Signal#NEUTRAL} if no signal was stored for it.
+		 */
+		Signal signalAt(long openTime) {
+			return SignalHistory.this.signalAt(openTime, this);
+		}
+	}
+
+	Cursor cursor() {
+		return new Cursor();
+	}
+
+	interface RowConsumer {
+		void accept(long openTime, long closeTime, double open, double high, double low, double close, double volume, Signal signal);
+	}
+
+	synchronized void forEach(RowConsumer consumer) {
+		for (int i = 0; i < size; i++) {
+			consumer.accept(openTimes[i], closeTimes[i], open[i], high[i], low[i], close[i], volume[i], signalOf(signals[i]));
+		}
+	}
+
+	synchronized void writeTo(File file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + size * ROW_SIZE);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(size);
+		buffer.asLongBuffer().put(openTimes, 0, size);
+		buffer.position(buffer.position() + size * 8);
+		buffer.asLongBuffer().put(closeTimes, 0, size);
+		buffer.position(buffer.position() + size * 8);
+		for (double[] column : new double[][]{open, high, low, close, volume}) {
+			buffer.asDoubleBuffer().put(column, 0, size);
+			buffer.position(buffer.position() + size * 8);
+		}
+		buffer.put(signals, 0, size);
+		buffer.flip();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	static SignalHistory readFrom(File file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+			throw new IOException("Not a signal history file: " + file.getAbsolutePath());
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported signal history version " + version + " in file " + file.getAbsolutePath());
+		}
+		int size = buffer.getInt();
+		if (size < 0 || buffer.remaining() != (long) size * ROW_SIZE) {
+			throw new IOException("Corrupted signal history file: " + file.getAbsolutePath());
+		}
+
+		SignalHistory out = new SignalHistory(Math.max(size, 1));
+		buffer.asLongBuffer().get(out.openTimes, 0, size);
+		buffer.position(buffer.position() + size * 8);
+		buffer.asLongBuffer().get(out.closeTimes, 0, size);
+		buffer.position(buffer.position() + size * 8);
+		for (double[] column : new double[][]{out.open, out.high, out.low, out.close, out.volume}) {
+			buffer.asDoubleBuffer().get(column, 0, size);
+			buffer.position(buffer.position() + size * 8);
+		}
+		buffer.get(out.signals, 0, size);
+		for (int i = 0; i < size; i++) {
+			signalOf(out.signals[i]);
+			if (i > 0 && out.openTimes[i - 1] >= out.openTimes[i]) {
+				throw new IOException("Signal history file is not sorted by open time: " + file.getAbsolutePath());
+			}
+		}
+		out.size = size;
+		return out;
+	}
+}
@@ -11,13 +11,25 @@ import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
 
+/**
+ * Stores the signals produced by strategies for each candle, so they can be replayed later with a
+ * {@link SignalReproducer}.
+ *
+ * Signals of each symbol are kept in a compact {@link SignalHistory}, indexed by the open time of their candles.
+ * {@link #save()} writes them into CSV files, one per symbol. When {@link #binaryFormat(boolean)} is enabled, signals
+ * are saved into binary files instead (with the {@code .signals} extension), which {@link #load()} reads without any
+ * parsing. {@link #load()} reads the binary file of a symbol if there is one, unless its CSV file was modified after
+ * it.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
 public class SignalRepository {
 	private static final Logger log = LoggerFactory.getLogger(SignalRepository.class);
 	private static final String[] HEADERS = {"OPEN_TIME", "CLOSE_TIME", "OPEN", "HIGH", "LOW", "CLOSE", "VOLUME", "SIGNAL"};
 
 	private final RepositoryDir repositoryDir;
-	private final Map<String, Map<Candle, Signal>> signals = new ConcurrentHashMap<>();
-
+	private final Map<String, SignalHistory> signals = new ConcurrentHashMap<>();
+	private boolean binaryFormat;
 
 	public SignalRepository(File repositoryDir) {
 		this(new RepositoryDir(repositoryDir));
@@ -37,15 +49,76 @@ public class SignalRepository {
 	}
 
 	public void add(String symbol, Signal signal, Candle candle) {
-		signals.computeIfAbsent(symbol, s -> new ConcurrentSkipListMap<>()).put(candle, signal);
+		history(symbol).add(candle.openTime, candle.closeTime, candle.open, candle.high, candle.low, candle.close, candle.volume, signal);
+	}
+
+	private SignalHistory history(String symbol) {
+		return signals.computeIfAbsent(symbol, s -> new SignalHistory());
+	}
+
+	public boolean binaryFormat() {
+		return binaryFormat;
 	}
 
+	/**
+	 * Selects the format of the files written by {@link #save()}.
+	 *
+	 * @param binaryFormat {@code true} to save signals into binary files, or {@code false} to save them into CSV
+	 *                     files (the default).
+	 *
+	 * @return this repository, for convenience.
+	 */
+	public SignalRepository binaryFormat(boolean binaryFormat) {
+		this.binaryFormat = binaryFormat;
+		return this;
+	}
+
+	/**
+	 * Writes the signals of each symbol into a file in the repository dir, in the format selected with
+	 * {@link #binaryFormat(boolean)}.
+	 */
 	public void save() {
+		if (binaryFormat) {
+			saveBinary();
+		} else {
+			saveCsv();
+		}
+	}
+
+	/**
+	 * Writes the signals of each symbol into a binary file in the repository dir.
+	 */
+	public void saveBinary() {
 		if (repositoryDir.isNotConfigured()) {
 			log.warn("Not saving any signals. No repository dir defined");
 			return;
 		}
 		log.info("Saving signals to repository dir: {}", repositoryDir);
+
+		List<Thread> threads = new ArrayList<>();
+		signals.forEach((symbol, history) ->
+				threads.add(new Thread(() -> {
+					File output = new File(repositoryDir.get(), symbol + SignalHistory.EXTENSION);
+					try {
+						history.writeTo(output);
+					} catch (IOException e) {
+						log.error("Error saving " + symbol + " signals to " + output.getAbsolutePath(), e);
+					}
+				}))
+		);
+		runThreads(threads);
+		log.info("All signals saved to repository dir: {}", repositoryDir);
+	}
+
+	/**
+	 * Writes the signals of each symbol into a CSV file in the repository dir.
+	 */
+	public void saveCsv() {
+		if (repositoryDir.isNotConfigured()) {
+			log.warn("Not saving any signals. No repository dir defined");
+			return;
+		}
+		log.info("Saving signals as CSV to repository dir: {}", repositoryDir);
 		CsvWriterSettings settings = new CsvWriterSettings();
 		settings.setHeaderWritingEnabled(true);
 		settings.setHeaders(HEADERS);
@@ -53,27 +126,18 @@ public class SignalRepository {
 		List<Thread> threads = new ArrayList<>();
 
 		Map<String, File> entries = repositoryDir.entries();
-		signals.forEach((symbol, v) ->
+		signals.forEach((symbol, history) ->
 				threads.add(new Thread(() -> {
-					File output = entries.get(symbol);
+					File output = entries.getOrDefault(symbol, new File(repositoryDir.get(), symbol + ".csv"));
 					CsvWriter writer = new CsvWriter(output, "UTF-8", settings);
-					v.forEach((candle, signal) ->
-							writer.writeRow(
-									candle.openTime,
-									candle.closeTime,
-									candle.open,
-									candle.high,
-									candle.low,
-									candle.close,
-									candle.volume,
-									signal
-							)
+					history.forEach((openTime, closeTime, open, high, low, close, volume, signal) ->
+							writer.writeRow(openTime, closeTime, open, high, low, close, volume, signal)
 					);
 					writer.close();
 				}))
 		);
 		runThreads(threads);
-		log.info("All signals saved to repository dir: {}", repositoryDir);
+		log.info("All signals saved as CSV to repository dir: {}", repositoryDir);
 	}
 
 	public void load(String symbol, Reader input) {
@@ -88,12 +152,33 @@ public class SignalRepository {
 		log.info("Loading signals from repository dir: {}", repositoryDir);
 
 		List<Thread> threads = new ArrayList<>();
-		repositoryDir.readEntries().forEach((symbol, input) -> threads.add(new Thread(() -> parseInput(symbol, input))));
+		Map<String, File> csvEntries = repositoryDir.entries();
+		Map<String, File> binaryEntries = repositoryDir.entries(SignalHistory.EXTENSION);
+		binaryEntries.forEach((symbol, file) -> {
+			File csv = csvEntries.get(symbol);
+			if (csv == null) {
+				threads.add(new Thread(() -> readBinary(symbol, file)));
+			} else if (csv.lastModified() > file.lastModified()) {
+				log.warn("Signal file {} is newer than {}. Loading {} signals from the CSV file.", csv.getName(), file.getName(), symbol);
+			} else {
+				csvEntries.remove(symbol);
+				threads.add(new Thread(() -> readBinary(symbol, file)));
+			}
+		});
+		csvEntries.forEach((symbol, file) -> threads.add(new Thread(() -> parseInput(symbol, repositoryDir.readEntry(symbol)))));
 
 		runThreads(threads);
 		log.info("All signals loaded from repository dir: {}", repositoryDir);
 	}
 
+	private void readBinary(String symbol, File file) {
+		try {
+			signals.put(symbol, SignalHistory.readFrom(file));
+		} catch (Exception e) {
+			log.error("Error reading " + symbol + " signal history from " + file.getAbsolutePath(), e);
+		}
+	}
+
 	private void parseInput(String symbol, Reader reader) {
 		CsvParserSettings settings = new CsvParserSettings();
 		settings.setLineSeparatorDetectionEnabled(true);
@@ -104,17 +189,19 @@ public class SignalRepository {
 
 		try {
 			parser.beginParsing(reader);
+			SignalHistory history = history(symbol);
 			com.univocity.parsers.common.record.Record record;
 			while ((record = parser.parseNextRecord()) != null) {
-				add(symbol, record.getValue("SIGNAL", Signal.class), new Candle(
+				history.add(
 						record.getLong("OPEN_TIME"),
 						record.getLong("CLOSE_TIME"),
 						record.getDouble("OPEN"),
 						record.getDouble("HIGH"),
 						record.getDouble("LOW"),
 						record.getDouble("CLOSE"),
-						record.getDouble("VOLUME")
-				));
+						record.getDouble("VOLUME"),
+						record.getValue("SIGNAL", Signal.class)
+				);
 			}
 		} catch (Exception e) {
 			log.error("Error parsing " + symbol + " signal history ", e);
@@ -133,16 +220,22 @@ public class SignalRepository {
 		});
 	}
 
-	Map<Candle, Signal> signalsFor(String symbol) {
-		return signals.get(symbol);
+	private SignalHistory historyOf(String symbol) {
+		SignalHistory history = signals.get(symbol);
+		if (history == null) {
+			throw new IllegalArgumentException("No signals for " + symbol + " in repository");
+		}
+		return history;
 	}
 
 	Signal signalFor(String symbol, Candle candle) {
-		Map<Candle, Signal> signals = signalsFor(symbol);
-		if (signals == null) {
-			throw new IllegalArgumentException("No signals for " + symbol + " in repository");
-		}
-		return signals.getOrDefault(candle, Signal.NEUTRAL);
+		return historyOf(symbol).signalAt(candle.openTime);
 	}
 
+	/**
+	 * Creates a cursor to look up signals of a symbol for candles visited in chronological order.
+	 */
+	SignalHistory.Cursor cursor(String symbol) {
+		return historyOf(symbol).cursor();
+	}
 }
@@ -14,6 +14,8 @@ public class SignalReproducer implements Strategy {
 	private static final Logger log = LoggerFactory.getLogger(SignalReproducer.class);
 
 	private final SignalRepository signalRepository;
+	private SignalHistory.Cursor cursor;
+	private String cursorSymbol;
 
 	public SignalReproducer(String symbol, Reader input) {
 		this(new SignalRepository(symbol, input));
@@ -33,6 +35,11 @@ public class SignalReproducer implements Strategy {
 
 	@Override
 	public Signal getSignal(Candle candle, Context context) {
-		return signalRepository.signalFor(context.symbol(), candle);
+		String symbol = context.symbol();
+		if (cursor == null || !symbol.equals(cursorSymbol)) {
+			cursor = signalRepository.cursor(symbol);
+			cursorSymbol = symbol;
+		}
+		return cursor.signalAt(candle.openTime);
 	}
 }
@@ -0,0 +1,342 @@
+package com.univocity.trader.strategy;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.base.*;
+import org.slf4j.*;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Graph of all indicators used by the {@link IndicatorGroup}s of a {@link TradingEngine}, including the nested
+ * indicators each one uses internally. Indicators that are structurally identical (i.e. of the same class, built
+ * with the same parameters, time interval and value getter, and with identical nested indicators) are collapsed into
+ * a single instance, so that the calculations are performed only once for every candle received.
+ *
+ * Indicators are compared field by field before any candle is processed, when their state is determined entirely by
+ * how they were built. References to a collapsed indicator found in fields of the indicator groups, fields of other
+ * indicators, arrays and modifiable collections are replaced by the instance that remains. Indicators referenced from
+ * anywhere else (such as lambdas or unmodifiable collections) are kept as they are.
+ *
+ * Only subclasses of {@link AggregatedTicksIndicator} are collapsed, as these process each candle of their
+ * {@link Aggregator} only once no matter how many times they are accumulated.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+final class IndicatorGraph {
+
+	private static final Logger log = LoggerFactory.getLogger(IndicatorGraph.class);
+	private static final Map<Class<?>, Field[]> fields = Collections.synchronizedMap(new WeakHashMap<>());
+	private static final Map<Class<?>, Field[]> primitiveFields = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final List<Indicator> nodes = new ArrayList<>();
+	private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Set<Indicator> pinned = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Set<Object> path = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Map<Indicator, Indicator> replacements = new IdentityHashMap<>();
+	private final List<Object> collections = new ArrayList<>();
+
+	private IndicatorGraph(IndicatorGroup[] groups) {
+		for (IndicatorGroup group : groups) {
+			visit(group.indicators, true);
+			visitFields(group, true);
+		}
+	}
+
+	/**
+	 * Collapses structurally identical indicators used by the given groups, which must have been initialized with
+	 * the same root {@link Aggregator}.
+	 *
+	 * @param groups the indicator groups (strategies and monitors) that process candles of the same symbol
+	 *
+	 * @return the number of indicator instances that no longer need to process candles.
+	 */
+	static int collapse(IndicatorGroup[] groups) {
+		IndicatorGraph graph = new IndicatorGraph(groups);
+		int before = graph.nodes.size();
+		if (!graph.findReplacements()) {
+			return 0;
+		}
+		for (Object collection : graph.collections) {
+			graph.rewrite(collection);
+		}
+
+		Set<Object> rewritten = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (IndicatorGroup group : groups) {
+			graph.rewrite(group.indicators, rewritten);
+			graph.rewriteFields(group, rewritten);
+		}
+
+		int after = new IndicatorGraph(groups).nodes.size();
+		return before - after;
+	}
+
+	private boolean findReplacements() {
+		Map<Class<?>, List<Indicator>> distinct = new HashMap<>();
+		for (Indicator node : nodes) {
+			List<Indicator> candidates = distinct.computeIfAbsent(node.getClass(), c -> new ArrayList<>());
+			Indicator existing = null;
+			if (node instanceof AggregatedTicksIndicator) {
+				for (Indicator candidate : candidates) {
+					if (equivalent(candidate, node, new IdentityHashMap<>())) {
+						existing = candidate;
+						break;
+					}
+				}
+			}
+			if (existing == null) {
+				candidates.add(node);
+			} else if (!pinned.contains(node)) {
+				replacements.put(node, existing);
+			}
+		}
+		return !replacements.isEmpty();
+	}
+
+	private static boolean isPlatformClass(Class<?> type) {
+		String name = type.getName();
+		return type.isPrimitive() || name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+	}
+
+	private static boolean isOpaque(Object o) {
+		return o instanceof IndicatorGroup || o instanceof Strategy || o instanceof Aggregator || o instanceof Class || o instanceof Thread;
+	}
+
+	private static Field[] fieldsOf(Class<?> type) {
+		return fields.computeIfAbsent(type, t -> {
+			List<Field> out = new ArrayList<>();
+			for (Class<?> c = t; c != null && c != Object.class && c != IndicatorGroup.class && !isPlatformClass(c); c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+						try {
+							field.setAccessible(true);
+							out.add(field);
+						} catch (RuntimeException e) {
+							log.trace("Unable to access field {}", field, e);
+						}
+					}
+				}
+			}
+			return out.toArray(new Field[0]);
+		});
+	}
+
+	private static Field[] primitiveFieldsOf(Class<?> type) {
+		return primitiveFields.computeIfAbsent(type, t -> {
+			List<Field> out = new ArrayList<>();
+			for (Class<?> c = t; c != null && c != Object.class; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers()) && field.getType().isPrimitive()) {
+						field.setAccessible(true);
+						out.add(field);
+					}
+				}
+			}
+			return out.toArray(new Field[0]);
+		});
+	}
+
+	private static Object read(Field field, Object owner) {
+		try {
+			return field.get(owner);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Unable to read field " + field, e);
+		}
+	}
+
+	private static boolean isRewritable(Field field) {
+		return !field.getDeclaringClass().isSynthetic() && !field.isSynthetic();
+	}
+
+	private void visitFields(Object owner, boolean rewritable) {
+		for (Field field : fieldsOf(owner.getClass())) {
+			visit(read(field, owner), rewritable && isRewritable(field));
+		}
+	}
+
+	private void visit(Object value, boolean rewritable) {
+		if (value == null || isOpaque(value)) {
+			return;
+		}
+		if (value instanceof Indicator) {
+			if (!rewritable && !path.contains(value)) { //indicators may have lambdas that reference themselves
+				pinned.add((Indicator) value);
+			}
+			if (visited.add(value)) {
+				nodes.add((Indicator) value);
+				path.add(value);
+				visitFields(value, true);
+				path.remove(value);
+			}
+		} else if (value instanceof Object[]) {
+			if (visited.add(value) || !rewritable) {
+				for (Object element : (Object[]) value) {
+					visit(element, rewritable);
+				}
+			}
+		} else if (value instanceof Collection || value instanceof Map) {
+			boolean first = visited.add(value);
+			if (first && rewritable && (value instanceof List || value instanceof Set || value instanceof Map)) {
+				collections.add(value);
+			}
+			if (first || !rewritable) {
+				if (value instanceof Map) {
+					for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+						visit(e.getKey(), false);
+						visit(e.getValue(), rewritable);
+					}
+				} else {
+					boolean elementsRewritable = rewritable && (value instanceof List || value instanceof Set);
+					for (Object element : (Collection<?>) value) {
+						visit(element, elementsRewritable);
+					}
+				}
+			}
+		} else if (!isPlatformClass(value.getClass()) && !value.getClass().isArray() && visited.add(value)) {
+			visitFields(value, false); //lambdas and other objects that might hold indicators
+		}
+	}
+
+	private Indicator replacement(Object value) {
+		return value instanceof Indicator ? replacements.get(value) : null;
+	}
+
+	/**
+	 * Replaces duplicates in a collection held by an indicator group or indicator. Duplicates in collections that
+	 * can't be modified are kept, as they might be read from the collection afterwards.
+	 */
+	@SuppressWarnings("unchecked")
+	private void rewrite(Object collection) {
+		if (collection instanceof List) {
+			List<Object> list = (List<Object>) collection;
+			for (int i = 0; i < list.size(); i++) {
+				Indicator replacement = replacement(list.get(i));
+				if (replacement != null) {
+					try {
+						list.set(i, replacement);
+					} catch (RuntimeException e) {
+						replacements.remove(list.get(i));
+					}
+				}
+			}
+		} else if (collection instanceof Set) {
+			Set<Object> set = (Set<Object>) collection;
+			for (Object element : set.toArray()) {
+				Indicator replacement = replacement(element);
+				if (replacement != null) {
+					try {
+						set.remove(element);
+						set.add(replacement);
+					} catch (RuntimeException e) {
+						replacements.remove(element);
+					}
+				}
+			}
+		} else if (collection instanceof Map) {
+			for (Map.Entry<Object, Object> e : ((Map<Object, Object>) collection).entrySet()) {
+				Indicator replacement = replacement(e.getValue());
+				if (replacement != null) {
+					try {
+						e.setValue(replacement);
+					} catch (RuntimeException ex) {
+						replacements.remove(e.getValue());
+					}
+				}
+			}
+		}
+	}
+
+	private void rewriteFields(Object owner, Set<Object> rewritten) {
+		if (!rewritten.add(owner)) {
+			return;
+		}
+		for (Field field : fieldsOf(owner.getClass())) {
+			Object value = read(field, owner);
+			Indicator replacement = replacement(value);
+			if (replacement != null && isRewritable(field)) {
+				try {
+					field.set(owner, replacement);
+					value = replacement;
+				} catch (Exception e) {
+					log.debug("Unable to replace duplicate indicator in field {}", field, e);
+				}
+			}
+			if (value instanceof Indicator && !isOpaque(value)) {
+				rewriteFields(value, rewritten);
+			} else if (value instanceof Object[]) {
+				rewrite((Object[]) value, rewritten);
+			}
+		}
+	}
+
+	private void rewrite(Object[] array, Set<Object> rewritten) {
+		if (array == null || !rewritten.add(array)) {
+			return;
+		}
+		for (int i = 0; i < array.length; i++) {
+			Indicator replacement = replacement(array[i]);
+			if (replacement != null && array.getClass().getComponentType().isInstance(replacement)) {
+				array[i] = replacement;
+			}
+			if (array[i] instanceof Indicator && !isOpaque(array[i])) {
+				rewriteFields(array[i], rewritten);
+			} else if (array[i] instanceof Object[]) {
+				rewrite((Object[]) array[i], rewritten);
+			}
+		}
+	}
+
+	private static boolean equivalent(Object a, Object b, Map<Object, Object> assumed) {
+		if (a == b) {
+			return true;
+		}
+		if (a == null || b == null || a.getClass() != b.getClass() || isOpaque(a)) {
+			return false;
+		}
+		if (assumed.get(a) == b) {
+			return true; //already being compared further up (cyclic reference)
+		}
+
+		Class<?> type = a.getClass();
+		if (type.isArray()) {
+			if (type.getComponentType().isPrimitive()) {
+				return Objects.deepEquals(a, b);
+			}
+			Object[] x = (Object[]) a;
+			Object[] y = (Object[]) b;
+			if (x.length != y.length) {
+				return false;
+			}
+			assumed.put(a, b);
+			for (int i = 0; i < x.length; i++) {
+				if (!equivalent(x[i], y[i], assumed)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (isPlatformClass(type)) {
+			if (a instanceof List) {
+				return equivalent(((List<?>) a).toArray(), ((List<?>) b).toArray(), assumed);
+			}
+			return a.equals(b);
+		}
+
+		assumed.put(a, b);
+		try {
+			for (Field field : primitiveFieldsOf(type)) {
+				if (!field.get(a).equals(field.get(b))) {
+					return false;
+				}
+			}
+			for (Field field : fieldsOf(type)) {
+				if (!equivalent(field.get(a), field.get(b), assumed)) {
+					return false;
+				}
+			}
+		} catch (IllegalAccessException | RuntimeException e) {
+			return false;
+		}
+		return true;
+	}
+}
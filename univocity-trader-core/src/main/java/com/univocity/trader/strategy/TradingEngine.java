@@ -28,6 +28,7 @@ public final class TradingEngine implements Engine {
 
 	private final TradingManager tradingManager;
 	private final Aggregator[] aggregators;
+	private final int collapsedIndicators;
 
 	public TradingEngine(TradingManager tradingManager, Set<Object> allInstances) {
 		this(tradingManager, Parameters.NULL, allInstances);
@@ -57,6 +58,10 @@ public final class TradingEngine implements Engine {
 			indicatorGroups[i].initialize(rootAggregator);
 		}
 		aggregators = rootAggregator.getAggregators();
+		collapsedIndicators = IndicatorGraph.collapse(indicatorGroups);
+		if (collapsedIndicators > 0) {
+			log.debug("{}: {} duplicate indicators shared among strategies and monitors", trader.symbol(), collapsedIndicators);
+		}
 		this.plainStrategies = plainStrategies.toArray(new Strategy[0]);
 	}
 
@@ -103,4 +108,14 @@ public final class TradingEngine implements Engine {
 		return tradingManager.getSymbol();
 	}
 
+	/**
+	 * Returns how many indicators of the strategies and monitors of this engine were found to be identical to
+	 * another and were replaced by it, so that each calculation is performed only once per candle.
+	 *
+	 * @return the number of indicator instances removed from the processing of candles.
+	 */
+	public int getCollapsedIndicatorCount() {
+		return collapsedIndicators;
+	}
+
 }
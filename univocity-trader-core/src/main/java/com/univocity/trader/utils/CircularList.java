@@ -5,8 +5,11 @@ public class CircularList {
 	public int i;
 	private double sum;
 	private double last;
+	private double replaced;
 	private boolean updating;
 	private long count;
+	private MonotonicDeque minima;
+	private MonotonicDeque maxima;
 
 	public CircularList(int length) {
 		this.values = new double[length];
@@ -26,16 +29,36 @@ public class CircularList {
 		return last;
 	}
 
+	/**
+	 * Returns the value overwritten by the latest call to {@link #add(double)} or {@link #update(double)}. It is the
+	 * value that left the list if its {@link #size()} didn't grow, i.e. the oldest value or the previous update of the
+	 * latest value.
+	 *
+	 * @return the value previously held by the position written last.
+	 */
+	public final double replaced() {
+		return replaced;
+	}
+
 	public void update(double value) {
 		update(value, true);
 	}
 
 	protected void update(double value, boolean updating) {
-		sum -= values[i];
+		replaced = values[i];
+		sum -= replaced;
 		sum += value;
 		values[i] = value;
 		last = value;
 		this.updating = updating;
+		if (updating) {
+			if (minima != null) {
+				minima.update(value);
+			}
+			if (maxima != null) {
+				maxima.update(value);
+			}
+		}
 	}
 
 	public final void accumulate(double value, boolean updating) {
@@ -48,6 +71,12 @@ public class CircularList {
 
 	public void add(double value) {
 		update(value, false);
+		if (minima != null) {
+			minima.add(value);
+		}
+		if (maxima != null) {
+			maxima.add(value);
+		}
 		count++;
 		i = (i + 1) % values.length;
 
@@ -92,43 +121,64 @@ public class CircularList {
 		return backwardCount;
 	}
 
-	public final double avg() {
-		return sum / size();
-	}
-
+	/**
+	 * @deprecated minimum and maximum values are no longer calculated with predicates.
+	 */
+	@Deprecated
 	public interface DoublePredicate {
 		boolean test(double d1, double d2);
 	}
 
-	private double calculateOnSection(int backwardCount, DoublePredicate predicate) {
-		final int len = size();
-		int start = i - backwardCount;
-		if (start < 0) {
-			start = 0;
-		}
-		double out = 0.0;
-		for (int i = start; i < len && backwardCount > 0; i++, backwardCount--) {
-			double v = values[i];
-			if (v != 0.0 && (out == 0.0 || predicate.test(out, v))) {
-				out = v;
-			}
+	public final double avg() {
+		return sum / size();
+	}
+
+	private MonotonicDeque extremes(boolean highest) {
+		MonotonicDeque out = new MonotonicDeque(values.length, highest);
+		int available = (int) Math.min(count, updating ? values.length - 1 : values.length);
+		for (int n = available; n > 0; n--) {
+			out.add(values[(i - n + values.length) % values.length]);
 		}
-		for (int i = len - 1; i >= 0 && backwardCount > 0; i--, backwardCount--) {
-			double v = values[i];
-			if (v != 0.0 && (out == 0.0 || predicate.test(out, v))) {
-				out = v;
-			}
+		if (updating) {
+			out.update(values[i]);
 		}
-
 		return out;
 	}
 
+	/**
+	 * Returns the lowest of the most recent values of this list. A value set with {@link #update(double)} counts as
+	 * the latest value until it is replaced by the next call to {@link #add(double)} or {@link #update(double)}.
+	 * Queries for a window that grows with each value added, e.g. the values since a trend started, take constant
+	 * time. Other queries run in logarithmic time.
+	 *
+	 * @param backwardCount the number of latest values to consider
+	 *
+	 * @return the lowest value found, or {@code 0.0} if the list is empty or {@code backwardCount} is not positive.
+	 */
 	public final double getMin(int backwardCount) {
-		return calculateOnSection(backwardCount, (min, v) -> v < min);
-	}
-
+		if (minima == null) {
+			minima = extremes(false);
+		}
+		double min = minima.get(backwardCount);
+		return Double.isNaN(min) ? 0.0 : min;
+	}
+
+	/**
+	 * Returns the highest of the most recent values of this list. A value set with {@link #update(double)} counts as
+	 * the latest value until it is replaced by the next call to {@link #add(double)} or {@link #update(double)}.
+	 * Queries for a window that grows with each value added, e.g. the values since a trend started, take constant
+	 * time. Other queries run in logarithmic time.
+	 *
+	 * @param backwardCount the number of latest values to consider
+	 *
+	 * @return the highest value found, or {@code 0.0} if the list is empty or {@code backwardCount} is not positive.
+	 */
 	public final double getMax(int backwardCount) {
-		return calculateOnSection(backwardCount, (max, v) -> v > max);
+		if (maxima == null) {
+			maxima = extremes(true);
+		}
+		double max = maxima.get(backwardCount);
+		return Double.isNaN(max) ? 0.0 : max;
 	}
 
 	public final double getRecentValue(int backwardCount) {
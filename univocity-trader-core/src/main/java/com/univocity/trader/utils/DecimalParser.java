@@ -0,0 +1,99 @@
+package com.univocity.trader.utils;
+
+/**
+ * Parses plain decimal numbers (such as {@code "-123.45600"}) straight from a {@link CharSequence}, without creating
+ * intermediate {@code String} or {@code BigDecimal} instances.
+ *
+ * Numbers whose digits fit in the 53-bit mantissa of a {@code double}, with up to 22 decimal places, are converted
+ * with a single division of two exactly representable values, which is correctly rounded and therefore produces the
+ * same result of {@link Double#parseDouble(String)}. That covers prices and quantities as reported by exchanges.
+ * Anything else (exponents, longer numbers, etc.) is handed over to {@link Double#parseDouble(String)}.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class DecimalParser {
+
+	private static final long MAX_EXACT = 1L << 53;
+
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private DecimalParser() {
+
+	}
+
+	/**
+	 * Parses a decimal number.
+	 *
+	 * @param s the text with the number
+	 *
+	 * @return the {@code double} value of the given number
+	 *
+	 * @throws NumberFormatException if the text is not a valid number
+	 */
+	public static double parseDouble(CharSequence s) {
+		return parseDouble(s, 0, s.length());
+	}
+
+	/**
+	 * Parses a decimal number from a section of a text.
+	 *
+	 * @param s     the text with the number
+	 * @param start index of the first character of the number
+	 * @param end   index after the last character of the number
+	 *
+	 * @return the {@code double} value of the given number
+	 *
+	 * @throws NumberFormatException if the text is not a valid number
+	 */
+	public static double parseDouble(CharSequence s, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end) {
+			char ch = s.charAt(i);
+			if (ch == '-') {
+				negative = true;
+				i++;
+			} else if (ch == '+') {
+				i++;
+			}
+		}
+
+		long mantissa = 0;
+		int decimals = -1;
+		int digits = 0;
+		for (; i < end; i++) {
+			char ch = s.charAt(i);
+			if (ch >= '0' && ch <= '9') {
+				mantissa = mantissa * 10 + (ch - '0');
+				digits++;
+				if (decimals >= 0) {
+					decimals++;
+				}
+				if (mantissa >= MAX_EXACT) {
+					return slowParse(s, start, end);
+				}
+			} else if (ch == '.' && decimals < 0) {
+				decimals = 0;
+			} else {
+				return slowParse(s, start, end);
+			}
+		}
+
+		if (digits == 0 || decimals >= POWERS_OF_TEN.length) {
+			return slowParse(s, start, end);
+		}
+
+		double value = mantissa;
+		if (decimals > 0) {
+			value = value / POWERS_OF_TEN[decimals];
+		}
+		return negative ? -value : value;
+	}
+
+	private static double slowParse(CharSequence s, int start, int end) {
+		return Double.parseDouble(s.subSequence(start, end).toString());
+	}
+}
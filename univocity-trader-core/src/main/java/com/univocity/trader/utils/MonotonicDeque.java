@@ -0,0 +1,192 @@
+package com.univocity.trader.utils;
+
+/**
+ * Keeps track of the highest (or lowest) value in a sliding window of the most recent values, in amortized
+ * constant time per value.
+ *
+ * Values are held in a ring buffer in the order they were added, and each value added discards the older values
+ * it dominates, as these can't be selected anymore. The value at the front of the buffer is then always the
+ * extreme of the window, and values after it are the extremes of progressively shorter windows.
+ *
+ * A partial value can be set with {@link #update(double)} to represent a candle still being formed: it takes the
+ * place of the oldest value of the window until {@link #add(double)} receives the final value.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class MonotonicDeque {
+
+	private final boolean highest;
+	private final int window;
+	private final double[] values;
+	private final long[] indexes;
+	private int head;
+	private int size;
+	private long count;
+
+	private boolean updating;
+	private double partial;
+
+	// extreme of the values added from index cachedFrom, when cachedCount values had been added
+	private long cachedFrom = -1;
+	private long cachedCount;
+	private double cachedValue;
+
+	/**
+	 * Creates a deque for a window of the given length.
+	 *
+	 * @param window  the number of values in the sliding window
+	 * @param highest {@code true} to select the highest value of the window, {@code false} to select the lowest.
+	 */
+	public MonotonicDeque(int window, boolean highest) {
+		if (window < 1) {
+			throw new IllegalArgumentException("Window length must be at least 1, got " + window);
+		}
+		this.window = window;
+		this.highest = highest;
+		this.values = new double[window];
+		this.indexes = new long[window];
+	}
+
+	private boolean dominates(double v1, double v2) {
+		return highest ? v1 >= v2 : v1 <= v2;
+	}
+
+	private int slot(int position) {
+		position += head;
+		return position >= window ? position - window : position;
+	}
+
+	/**
+	 * Adds a value to the window, replacing any partial value set with {@link #update(double)}.
+	 *
+	 * @param value the value to add
+	 */
+	public void add(double value) {
+		updating = false;
+		long index = count++;
+		while (size > 0 && dominates(value, values[slot(size - 1)])) {
+			size--;
+		}
+		if (size > 0 && indexes[head] <= index - window) {
+			head = slot(1);
+			size--;
+		}
+		int slot = slot(size++);
+		values[slot] = value;
+		indexes[slot] = index;
+	}
+
+	/**
+	 * Sets the value that is not yet final, e.g. the latest price of a candle still open. The partial value takes
+	 * the place of the oldest value in the window, and is discarded on the next call to {@link #add(double)}.
+	 *
+	 * @param value the partial value.
+	 */
+	public void update(double value) {
+		updating = true;
+		partial = value;
+	}
+
+	private int first() {
+		if (updating && size > 0 && indexes[head] <= count - window) {
+			return 1; //oldest value was pushed out of the window by the partial value
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the highest (or lowest) value of the window, or {@link Double#NaN} if no values have been added yet.
+	 */
+	public double get() {
+		int first = first();
+		if (updating) {
+			if (first >= size) {
+				return partial;
+			}
+			double v = values[slot(first)];
+			return dominates(partial, v) ? partial : v;
+		}
+		return size == 0 ? Double.NaN : values[head];
+	}
+
+	/**
+	 * @return how many values were added after the highest (or lowest) value of the window, counting a partial value.
+	 * If the same value occurs multiple times, the most recent occurrence is used.
+	 */
+	public int age() {
+		int first = first();
+		if (updating && (first >= size || dominates(partial, values[slot(first)]))) {
+			return 0;
+		}
+		if (size == 0) {
+			return 0;
+		}
+		return (int) (count - 1 - indexes[slot(first)]) + (updating ? 1 : 0);
+	}
+
+	/**
+	 * Returns the highest (or lowest) among the most recent values, counting a partial value set with
+	 * {@link #update(double)} as the latest one. Only values still in the window are considered.
+	 *
+	 * Querying the same starting point as the previous query after a value is added, as done when tracking the extreme
+	 * since some event, takes constant time. Other queries run in logarithmic time.
+	 *
+	 * @param backwardCount how many of the latest values to consider
+	 *
+	 * @return the highest (or lowest) of the given number of latest values, or {@link Double#NaN} if no values have
+	 * been added or updated yet.
+	 */
+	public double get(int backwardCount) {
+		if (backwardCount <= 0) {
+			return Double.NaN;
+		}
+		if (updating) {
+			double v = added(backwardCount - 1, window - 1);
+			return Double.isNaN(v) || dominates(partial, v) ? partial : v;
+		}
+		return added(backwardCount, window);
+	}
+
+	private double added(int backwardCount, int available) {
+		backwardCount = Math.min(backwardCount, available);
+		if (size == 0 || backwardCount <= 0) {
+			return Double.NaN;
+		}
+		long from = Math.max(0, count - backwardCount);
+		if (from == cachedFrom) {
+			if (cachedCount == count) {
+				return cachedValue;
+			}
+			if (cachedCount == count - 1) {
+				double latest = values[slot(size - 1)];
+				if (dominates(latest, cachedValue)) {
+					cachedValue = latest;
+				}
+				cachedCount = count;
+				return cachedValue;
+			}
+		}
+
+		int low = 0;
+		int high = size - 1; //last element always holds the latest value
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (indexes[slot(mid)] >= from) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		cachedFrom = from;
+		cachedCount = count;
+		cachedValue = values[slot(low)];
+		return cachedValue;
+	}
+
+	/**
+	 * @return the number of values added so far.
+	 */
+	public long count() {
+		return count;
+	}
+}
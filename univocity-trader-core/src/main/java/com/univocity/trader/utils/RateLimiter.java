@@ -0,0 +1,80 @@
+package com.univocity.trader.utils;
+
+import java.util.concurrent.*;
+
+/**
+ * A token bucket used to pace requests made by many threads against a shared budget, such as the request rate
+ * limit imposed by an exchange.
+ *
+ * One permit is released every {@code interval} milliseconds, and up to {@code capacity} unused permits accumulate
+ * while the limiter is idle. Each call to {@link #acquire()} reserves the next free permit and sleeps until it is
+ * released, so the callers are served in the order they arrive and the total rate never exceeds the budget,
+ * regardless of how many threads compete for it.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class RateLimiter {
+
+	private final long interval;
+	private final long burst;
+	private long nextPermit;
+
+	/**
+	 * Creates a limiter that releases one permit per interval, without accumulating permits while idle.
+	 *
+	 * @param interval the time, in milliseconds, between two consecutive permits.
+	 */
+	public RateLimiter(long interval) {
+		this(interval, 1);
+	}
+
+	/**
+	 * Creates a limiter that releases one permit per interval.
+	 *
+	 * @param interval the time, in milliseconds, between two consecutive permits.
+	 * @param capacity the maximum number of permits that can be acquired at once after the limiter stays idle.
+	 */
+	public RateLimiter(long interval, int capacity) {
+		if (interval < 0) {
+			throw new IllegalArgumentException("Interval between permits can't be negative");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1");
+		}
+		this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+		this.burst = (capacity - 1) * this.interval;
+		this.nextPermit = System.nanoTime() - burst;
+	}
+
+	/**
+	 * Reserves the next permit available, without waiting for it to be released.
+	 *
+	 * @return the time to wait, in nanoseconds, until the permit reserved is released.
+	 */
+	public long reserve() {
+		if (interval == 0) {
+			return 0;
+		}
+		synchronized (this) {
+			long now = System.nanoTime();
+			long permit = Math.max(nextPermit, now - burst);
+			nextPermit = permit + interval;
+			return Math.max(0, permit - now);
+		}
+	}
+
+	/**
+	 * Waits until a permit is released to the current thread. If interrupted, returns immediately with the
+	 * interrupted flag of the thread set.
+	 */
+	public void acquire() {
+		long wait = reserve();
+		if (wait > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -54,6 +54,10 @@ public class RepositoryDir {
 	}
 
 	public Map<String, File> entries() {
+		return entries(".csv");
+	}
+
+	public Map<String, File> entries(String extension) {
 		Map<String, File> out = new TreeMap<>();
 
 		File[] files = directory.listFiles();
@@ -61,9 +65,9 @@ public class RepositoryDir {
 			return out;
 		}
 		for (File file : files) {
-			if (file.toString().toLowerCase().endsWith(".csv")) {
+			if (file.toString().toLowerCase().endsWith(extension)) {
 				String filename = file.getName();
-				String symbol = filename.substring(0, filename.length() - 4);
+				String symbol = filename.substring(0, filename.length() - extension.length());
 				symbol = cleanSymbol(symbol);
 				out.put(symbol, file);
 			}
@@ -0,0 +1,90 @@
+package com.univocity.trader.utils;
+
+import org.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Runs tasks one at a time, in the order they were submitted, using the threads of another {@link Executor}.
+ *
+ * Many serial executors can share the same thread pool, each one acting as an independent lane: tasks of different
+ * lanes run in parallel, while tasks of the same lane never overlap. No thread is held by a lane while it has no
+ * tasks to run, and a lane yields its thread after a batch of tasks so that busy lanes don't starve the others.
+ *
+ * The queue of a lane is unbounded, as submitting a task never blocks nor fails while the underlying executor accepts
+ * tasks. Lanes are meant for work that must not be dropped nor delay its producer (e.g. a web socket thread), and that
+ * is processed at least as fast as it arrives on average. Use {@link #pendingTasks()} to monitor lanes that may fall
+ * behind.
+ *
+ * @author uniVocity Software Pty Ltd - <a href="mailto:dev@univocity.com">dev@univocity.com</a>
+ */
+public final class SerialExecutor implements Executor {
+
+	private static final Logger log = LoggerFactory.getLogger(SerialExecutor.class);
+
+	private static final int BATCH_SIZE = 64;
+
+	private final Executor executor;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Runnable drain = this::drain;
+
+	/**
+	 * Creates a lane that runs its tasks on the threads of the given executor.
+	 *
+	 * @param executor the executor whose threads will run the tasks submitted to this lane.
+	 */
+	public SerialExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		tasks.offer(task);
+		schedule();
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(drain);
+			} catch (RejectedExecutionException e) {
+				scheduled.set(false);
+				tasks.clear();
+				throw e;
+			}
+		}
+	}
+
+	private void drain() {
+		try {
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				Runnable task = tasks.poll();
+				if (task == null) {
+					break;
+				}
+				try {
+					task.run();
+				} catch (Exception e) {
+					log.error("Error running task", e);
+				}
+			}
+		} finally {
+			scheduled.set(false);
+		}
+		if (!tasks.isEmpty()) {
+			schedule();
+		}
+	}
+
+	/**
+	 * Returns the number of tasks waiting to run in this lane.
+	 *
+	 * @return the number of pending tasks
+	 */
+	public int pendingTasks() {
+		return tasks.size();
+	}
+}
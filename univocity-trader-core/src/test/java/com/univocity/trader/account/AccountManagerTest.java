@@ -11,7 +11,7 @@ public class AccountManagerTest extends OrderFillChecker {
 	@Test
 	public void testFundAllocationBasics() {
 		SimulatedAccountManager account = getSimulatedAccountManager();
-		account.balanceUpdateCounts.clear();
+		account.clearBalanceUpdateCounts();
 		AccountConfiguration<?> cfg = account.configuration;
 
 		account.setAmount("USDT", 350);
@@ -2,6 +2,9 @@ package com.univocity.trader.account;
 
 import org.junit.*;
 
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
 import static org.junit.Assert.*;
 
 public class OrderBookTest {
@@ -105,5 +108,121 @@ public class OrderBookTest {
 		assertEquals(0.011730481500000778, spread, 0.0001);
 	}
 
-}
+	@Test
+	public void testDepthIsLimited() {
+		OrderBook book = new OrderBook(null, null, 3);
+		book.addAsk(4.0, 1.0);
+		book.addAsk(2.0, 1.0);
+		book.addAsk(3.0, 1.0);
+		book.addAsk(5.0, 1.0);
+		book.addAsk(1.0, 1.0);
+		assertEquals("{1.0=1.0, 2.0=1.0, 3.0=1.0}", book.getAsks().toString());
+
+		book.addBid(1.0, 1.0);
+		book.addBid(3.0, 1.0);
+		book.addBid(2.0, 1.0);
+		book.addBid(0.5, 1.0);
+		book.addBid(4.0, 1.0);
+		assertEquals("{4.0=1.0, 3.0=1.0, 2.0=1.0}", book.getBids().toString());
+	}
+
+	@Test
+	public void testMissingLevels() {
+		OrderBook book = new OrderBook(null, null, 3);
+		book.addAsk(1.0, 1.0);
+		book.addAsk(2.0, 1.0);
+		book.addAsk(1.0, 0.0);
+		assertFalse(book.isMissingLevels(2)); // side was never full, so no levels are unknown
+
+		book.addAsk(3.0, 1.0);
+		book.addAsk(4.0, 1.0);
+		book.addAsk(5.0, 1.0); // dropped: 5.0 will be missing once a better level is removed
+		assertFalse(book.isMissingLevels(3));
+
+		book.addAsk(2.0, 0.0);
+		assertTrue(book.isMissingLevels(3));
+		assertFalse(book.isMissingLevels(2));
+
+		book.update(new double[0], new double[0], 0, new double[]{3.0, 4.0}, new double[]{1.0, 1.0}, 2, true);
+		assertFalse(book.isMissingLevels(3));
+	}
+
+	@Test
+	public void testZeroQuantityRemovesLevel() {
+		book.addAsk(4.209, 0.0);
+		assertEquals(4.210, book.getAverageAskAmount(1), 0.0001);
+
+		book.addBid(4.203, 0.0);
+		book.addBid(4.100, 0.0);
+		assertEquals(4.202, book.getAverageBidAmount(1), 0.0001);
+		assertEquals(7, book.getBids().size());
+	}
 
+	@Test
+	public void testBatchUpdate() {
+		double[] bidPrices = {4.204, 4.203};
+		double[] bidQuantities = {10.0, 0.0};
+		double[] askPrices = {4.209, 4.208};
+		double[] askQuantities = {50.0, 0.0};
+
+		book.update(bidPrices, bidQuantities, 2, askPrices, askQuantities, 1, false);
+		assertEquals(4.204, book.getAverageBidAmount(1), 0.0001);
+		assertEquals((4.204 * 10.0 + 4.202 * 0.1) / 10.1, book.getAverageBidAmount(10.1), 0.0001);
+		assertEquals(4.209, book.getAverageAskAmount(1), 0.0001);
+		assertEquals((4.209 * 50.0 + 4.210 * 50.0) / 100.0, book.getAverageAskAmount(100.0), 0.0001);
+
+		book.update(askPrices, askQuantities, 1, bidPrices, bidQuantities, 1, true);
+		assertEquals("{4.209=50.0}", book.getBids().toString());
+		assertEquals("{4.204=10.0}", book.getAsks().toString());
+
+		book.clear();
+		assertTrue(book.isEmpty());
+	}
+
+	@Test
+	public void testCopyTruncatesDepth() {
+		OrderBook copy = book.copy(3);
+		assertEquals(3, copy.getDepth());
+		assertEquals(Arrays.asList(4.203, 4.202, 4.201), new ArrayList<>(copy.getBids().keySet()));
+		assertEquals(Arrays.asList(4.209, 4.210, 4.211), new ArrayList<>(copy.getAsks().keySet()));
+		assertEquals(357.676, copy.getBids().get(4.203), 0.0);
+
+		//copies are not updated along with the original book
+		book.addBid(4.204, 10.0);
+		assertEquals(4.203, copy.getAverageBidAmount(1), 0.0);
+		assertEquals(book.getBids(), book.copy(10).getBids());
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception {
+		OrderBook book = new OrderBook(null, null, 20);
+		double[] prices = new double[20];
+		double[] quantities = new double[20];
+		Arrays.fill(quantities, 1.0);
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicReference<String> error = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			while (running.get()) {
+				// every snapshot has 20 levels one unit apart, so the average of the first two is always 0.5 away from the best price
+				double best = book.getAverageAskAmount(1);
+				double average = book.getAverageAskAmount(2);
+				double spread = average - best;
+				if (best != 0.0 && (average - Math.floor(average) != 0.5 || spread < 0.0)) {
+					error.set("Inconsistent snapshot: best=" + best + ", average=" + average);
+				}
+			}
+		});
+		reader.start();
+
+		for (int i = 0; i < 20_000; i++) {
+			for (int j = 0; j < prices.length; j++) {
+				prices[j] = i + j;
+			}
+			book.update(null, null, 0, prices, quantities, prices.length, true);
+		}
+		running.set(false);
+		reader.join();
+		assertNull(error.get());
+	}
+}
@@ -0,0 +1,209 @@
+package com.univocity.trader.account;
+
+import com.univocity.trader.*;
+import com.univocity.trader.config.*;
+import com.univocity.trader.indicators.*;
+import com.univocity.trader.indicators.base.*;
+import com.univocity.trader.simulation.*;
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static com.univocity.trader.account.Order.Side.*;
+import static org.junit.Assert.*;
+
+public class OrderUpdateStreamTest {
+
+	private static final class StreamingAccount implements ClientAccount {
+		final AtomicInteger polledOrders = new AtomicInteger();
+		volatile OrderUpdateListener listener;
+
+		@Override
+		public Order updateOrderStatus(Order order) {
+			polledOrders.incrementAndGet();
+			return copy(order, order.getStatus(), order.getExecutedQuantity());
+		}
+
+		@Override
+		public void streamOrderUpdates(OrderUpdateListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public Order executeOrder(OrderRequest orderDetails) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public ConcurrentHashMap<String, Balance> updateBalances(boolean force) {
+			return new ConcurrentHashMap<>();
+		}
+
+		@Override
+		public OrderBook getOrderBook(String symbol, int depth) {
+			return null;
+		}
+
+		@Override
+		public void cancel(Order order) {
+		}
+	}
+
+	private static final class CountingOrderManager extends DefaultOrderManager {
+		final AtomicInteger unchanged = new AtomicInteger();
+
+		@Override
+		public TimeInterval getOrderUpdateFrequency() {
+			return TimeInterval.millis(5);
+		}
+
+		@Override
+		public void unchanged(Order order, Trader trader, Consumer<Order> resubmission) {
+			unchanged.incrementAndGet();
+		}
+	}
+
+	private static Order copy(Order order, Order.Status status, double executedQuantity) {
+		Order out = new Order(order.getInternalId(), order.getAssetsSymbol(), order.getFundsSymbol(), order.getSide(), order.getTradeSide(), order.getTime());
+		out.setOrderId(order.getOrderId());
+		out.setQuantity(order.getQuantity());
+		out.setPrice(order.getPrice());
+		out.setStatus(status);
+		out.setExecutedQuantity(executedQuantity);
+		return out;
+	}
+
+	private static Order newOrder(long id, String orderId) {
+		Order order = new Order(id, "ADA", "USDT", BUY, Trade.Side.LONG, System.currentTimeMillis());
+		order.setOrderId(orderId);
+		order.setQuantity(100);
+		order.setPrice(0.5);
+		order.setStatus(Order.Status.NEW);
+		return order;
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue("Timeout waiting for condition", System.currentTimeMillis() < timeout);
+			Thread.sleep(5);
+		}
+	}
+
+	private static AccountManager newAccount(StreamingAccount exchangeAccount) {
+		SimulationAccount cfg = new SimulationConfiguration().account();
+		cfg.referenceCurrency("USDT")
+				.tradeWithPair("ADA", "USDT")
+				.orderManager(new CountingOrderManager())
+				.strategies().add(() -> (candle, context) -> Signal.NEUTRAL);
+
+		AccountManager account = new AccountManager(exchangeAccount, cfg, () -> null);
+		account.createTradingManager("ADAUSDT", new MockExchange(), null, Parameters.NULL);
+		account.startOrderUpdateStream();
+		return account;
+	}
+
+	@Test
+	public void testUpdatesProcessedInOrderOffTheListenerThread() throws Exception {
+		StreamingAccount exchangeAccount = new StreamingAccount();
+		AccountManager account = newAccount(exchangeAccount);
+		exchangeAccount.listener.connected();
+
+		OrderTracker tracker = account.getTradingManagersOf("ADAUSDT")[0].orderTracker;
+		Order order = newOrder(1, "42");
+		tracker.waitForFill(order);
+
+		CountDownLatch release = new CountDownLatch(1);
+		Thread listenerThread = Thread.currentThread();
+		AtomicBoolean ranOnListenerThread = new AtomicBoolean();
+		exchangeAccount.listener.orderUpdated("ADAUSDT", "42", o -> {
+			ranOnListenerThread.set(Thread.currentThread() == listenerThread);
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return copy(o, Order.Status.PARTIALLY_FILLED, 40);
+		});
+		// returns while the first update is blocked
+		exchangeAccount.listener.orderUpdated("ADAUSDT", "42", o -> copy(o, Order.Status.PARTIALLY_FILLED, o.getExecutedQuantity() + 20));
+		assertEquals(0, tracker.getOrder(order).getExecutedQuantity(), 0.0);
+
+		release.countDown();
+		waitUntil(() -> tracker.getOrder(order).getExecutedQuantity() == 60);
+		assertFalse(ranOnListenerThread.get());
+	}
+
+	@Test
+	public void testCloseStopsPolling() throws Exception {
+		StreamingAccount exchangeAccount = new StreamingAccount();
+		AccountManager account = newAccount(exchangeAccount);
+
+		OrderTracker tracker = account.getTradingManagersOf("ADAUSDT")[0].orderTracker;
+		tracker.waitForFill(newOrder(1, "42"));
+		waitUntil(() -> exchangeAccount.polledOrders.get() >= 2);
+
+		account.close();
+		Thread.sleep(50); // lets a poll in progress finish
+		int polled = exchangeAccount.polledOrders.get();
+		tracker.waitForFill(newOrder(2, "43"));
+		Thread.sleep(100);
+		assertEquals(polled, exchangeAccount.polledOrders.get());
+	}
+
+	@Test
+	public void testPushedUpdatesReplacePolling() throws Exception {
+		CountingOrderManager orderManager = new CountingOrderManager();
+		SimulationAccount cfg = new SimulationConfiguration().account();
+		cfg.referenceCurrency("USDT")
+				.tradeWithPair("ADA", "USDT")
+				.orderManager(orderManager)
+				.strategies().add(() -> (candle, context) -> Signal.NEUTRAL);
+
+		StreamingAccount exchangeAccount = new StreamingAccount();
+		AccountManager account = new AccountManager(exchangeAccount, cfg, () -> null);
+		account.createTradingManager("ADAUSDT", new MockExchange(), null, Parameters.NULL);
+		account.startOrderUpdateStream();
+		assertNotNull(exchangeAccount.listener);
+
+		OrderTracker tracker = account.getTradingManagersOf("ADAUSDT")[0].orderTracker;
+		Order order = newOrder(1, "42");
+		tracker.waitForFill(order);
+
+		// not connected: status is polled from the exchange
+		waitUntil(() -> exchangeAccount.polledOrders.get() >= 2);
+
+		// connected: one poll to reconcile, then only pushed updates
+		int polled = exchangeAccount.polledOrders.get();
+		exchangeAccount.listener.connected();
+		waitUntil(() -> exchangeAccount.polledOrders.get() > polled);
+		int unchanged = orderManager.unchanged.get();
+		waitUntil(() -> orderManager.unchanged.get() > unchanged + 2); // lets any poll started before connecting finish
+		int reconciled = exchangeAccount.polledOrders.get();
+		int unchangedAfterReconciliation = orderManager.unchanged.get();
+		waitUntil(() -> orderManager.unchanged.get() > unchangedAfterReconciliation + 5);
+		assertEquals(reconciled, exchangeAccount.polledOrders.get());
+
+		AtomicBoolean untracked = new AtomicBoolean();
+		exchangeAccount.listener.orderUpdated("ADAUSDT", "99", o -> {
+			untracked.set(true);
+			return o;
+		});
+		exchangeAccount.listener.orderUpdated("ADAUSDT", "42", o -> copy(o, Order.Status.PARTIALLY_FILLED, 40));
+		waitUntil(() -> tracker.getOrder(order).getExecutedQuantity() == 40);
+		assertFalse(untracked.get());
+		assertTrue(tracker.waitingForFill("ADA", BUY, Trade.Side.LONG));
+
+		exchangeAccount.listener.orderUpdated("ADAUSDT", "42", o -> copy(o, Order.Status.FILLED, 100));
+		waitUntil(() -> !tracker.waitingForFill("ADA", BUY, Trade.Side.LONG));
+		assertEquals(reconciled, exchangeAccount.polledOrders.get());
+
+		// disconnected: polling resumes for new orders
+		exchangeAccount.listener.disconnected();
+		tracker.waitForFill(newOrder(2, "43"));
+		waitUntil(() -> exchangeAccount.polledOrders.get() > reconciled + 1);
+	}
+}
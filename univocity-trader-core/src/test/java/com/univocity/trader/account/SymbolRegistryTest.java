@@ -0,0 +1,62 @@
+package com.univocity.trader.account;
+
+import org.junit.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SymbolRegistryTest {
+
+	private static SymbolRegistry newRegistry() {
+		Map<String, String[]> pairs = new LinkedHashMap<>();
+		pairs.put("ADAUSDT", new String[]{"ADA", "USDT"});
+		pairs.put("BTCUSDT", new String[]{"BTC", "USDT"});
+		return new SymbolRegistry(pairs, "USDT");
+	}
+
+	@Test
+	public void testSymbolIds() {
+		SymbolRegistry symbols = newRegistry();
+		assertEquals(3, symbols.size());
+		assertEquals(0, symbols.find("USDT"));
+		assertEquals(1, symbols.find("ADA"));
+		assertEquals(2, symbols.find("BTC"));
+		assertEquals(-1, symbols.find("ETH"));
+
+		assertEquals(3, symbols.id("ETH"));
+		assertEquals(3, symbols.find("ETH"));
+		assertEquals("ETH", symbols.symbol(3));
+		assertEquals(4, symbols.size());
+	}
+
+	@Test
+	public void testBalanceUpdateCounts() {
+		SymbolRegistry symbols = newRegistry();
+		int ada = symbols.find("ADA");
+		symbols.balanceUpdateCount(ada).incrementAndGet();
+		symbols.id("ETH");
+		assertEquals(1, symbols.balanceUpdateCount(ada).get());
+
+		symbols.clearBalanceUpdateCounts();
+		assertEquals(0, symbols.balanceUpdateCount(ada).get());
+	}
+
+	@Test
+	public void testLatestPrices() {
+		SymbolRegistry symbols = newRegistry();
+		int usdt = symbols.find("USDT");
+		int ada = symbols.find("ADA");
+		int btc = symbols.find("BTC");
+
+		double[] price = new double[]{0.5};
+		symbols.setLatestPrice(ada, usdt, price);
+		assertSame(price, symbols.getLatestPrice(ada, usdt));
+		assertNull(symbols.getLatestPrice(usdt, ada));
+		assertNull(symbols.getLatestPrice(btc, usdt));
+		assertNull(symbols.getLatestPrice(-1, usdt));
+
+		symbols.clearLatestPrices();
+		assertNull(symbols.getLatestPrice(ada, usdt));
+	}
+}
@@ -0,0 +1,121 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.simulation.*;
+import com.univocity.trader.utils.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BinaryCandleRepositoryTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static List<Candle> toList(Enumeration<Candle> candles) {
+		List<Candle> out = new ArrayList<>();
+		while (candles.hasMoreElements()) {
+			Candle c = candles.nextElement();
+			if (c != null) {
+				out.add(c);
+			}
+		}
+		return out;
+	}
+
+	private static void assertSameCandle(Candle expected, Candle actual) {
+		assertEquals(expected.openTime, actual.openTime);
+		assertEquals(expected.closeTime, actual.closeTime);
+		assertEquals(expected.open, actual.open, 0.0);
+		assertEquals(expected.high, actual.high, 0.0);
+		assertEquals(expected.low, actual.low, 0.0);
+		assertEquals(expected.close, actual.close, 0.0);
+		assertEquals(expected.volume, actual.volume, 0.0);
+	}
+
+	@Test
+	public void testImportAndLoadCandles() throws Exception {
+		FileCandleRepository csv = new FileCandleRepository(new RepositoryDir(FileBasedSimulation.pathToRepositoryDir()), FileBasedSimulation.csvFileFormat());
+		BinaryCandleRepository binary = new BinaryCandleRepository(new RepositoryDir(tmp.newFolder("binary")));
+
+		assertEquals(365, binary.importFrom(csv));
+		assertEquals(Collections.singleton("BTCUSD"), binary.getKnownSymbols());
+
+		List<Candle> expected = toList(csv.iterate("BTCUSD", null, null, false));
+		List<Candle> actual = toList(binary.iterate("BTCUSD", null, null, false));
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertSameCandle(expected.get(i), actual.get(i));
+		}
+
+		assertSameCandle(expected.get(0), binary.firstCandle("BTCUSD"));
+		assertSameCandle(expected.get(expected.size() - 1), binary.lastCandle("BTCUSD"));
+
+		List<Candle> cached = toList(binary.iterate("BTCUSD", null, null, true));
+		assertEquals(expected.size(), cached.size());
+	}
+
+	@Test
+	public void testSameBoundsAsFileRepository() throws Exception {
+		FileCandleRepository csv = new FileCandleRepository(new RepositoryDir(FileBasedSimulation.pathToRepositoryDir()), FileBasedSimulation.csvFileFormat());
+		BinaryCandleRepository binary = new BinaryCandleRepository(new RepositoryDir(tmp.newFolder("binary")));
+		binary.importFrom(csv);
+
+		List<Candle> all = toList(csv.iterate("BTCUSD", null, null, false));
+		Candle first = all.get(10);
+		Candle last = all.get(20);
+		long[][] bounds = {
+				{first.openTime, last.closeTime},
+				{first.openTime, last.closeTime - 1},
+				{first.openTime, last.closeTime + 1},
+				{first.openTime - 1, last.openTime},
+				{first.openTime + 1, last.openTime + 1},
+		};
+		for (long[] bound : bounds) {
+			Instant from = Instant.ofEpochMilli(bound[0]);
+			Instant to = Instant.ofEpochMilli(bound[1]);
+			List<Candle> expected = toList(csv.iterate("BTCUSD", from, to, false));
+			List<Candle> actual = toList(binary.iterate("BTCUSD", from, to, false));
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertSameCandle(expected.get(i), actual.get(i));
+			}
+			assertEquals(expected.size(), binary.countCandles("BTCUSD", from, to));
+		}
+	}
+
+	@Test
+	public void testSeekByTime() throws Exception {
+		BinaryCandleRepository binary = new BinaryCandleRepository(new RepositoryDir(tmp.newFolder("binary")));
+		try (BinaryCandleWriter writer = new BinaryCandleWriter(tmp.newFolder("binary", "TEST"), false)) {
+			for (int i = 0; i < 100; i++) {
+				assertTrue(writer.write(CandleHelper.newCandle(i, i)));
+			}
+			assertFalse(writer.write(CandleHelper.newCandle(50, 50)));
+		}
+
+		Instant from = Instant.ofEpochMilli(CandleHelper.newCandle(10, 0).openTime);
+		Instant to = Instant.ofEpochMilli(CandleHelper.newCandle(19, 0).closeTime);
+
+		List<Candle> candles = toList(binary.iterate("TEST", from, to, false));
+		assertEquals(10, candles.size());
+		assertEquals(10.0, candles.get(0).close, 0.0);
+		assertEquals(19.0, candles.get(9).close, 0.0);
+		assertEquals(10, binary.countCandles("TEST", from, to));
+
+		// the candle closing after the end time is included, as in the file repository
+		Instant midCandle = Instant.ofEpochMilli(CandleHelper.newCandle(19, 0).openTime);
+		assertEquals(10, toList(binary.iterate("TEST", from, midCandle, false)).size());
+		assertEquals(100, binary.countCandles("TEST"));
+
+		try (BinaryCandleWriter writer = new BinaryCandleWriter(new java.io.File(binary.getRepositoryDir().get(), "TEST"), true)) {
+			assertEquals(100, writer.rowCount());
+			assertFalse(writer.write(CandleHelper.newCandle(99, 99)));
+			assertTrue(writer.write(CandleHelper.newCandle(100, 100)));
+		}
+		assertEquals(100.0, binary.lastCandle("TEST").close, 0.0);
+	}
+}
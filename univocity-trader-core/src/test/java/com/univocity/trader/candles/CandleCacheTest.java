@@ -0,0 +1,128 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.simulation.*;
+import com.univocity.trader.utils.*;
+import org.junit.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class CandleCacheTest {
+
+	private static CandleSeries series(int count) {
+		CandleSeries out = new CandleSeries(count);
+		for (int i = 0; i < count; i++) {
+			out.add(new Candle(i * 60_000L, (i + 1) * 60_000L - 1, i, i + 2, i - 1, i + 1, 10));
+		}
+		return out;
+	}
+
+	private static List<Candle> toList(Enumeration<Candle> e) {
+		List<Candle> out = new ArrayList<>();
+		while (e.hasMoreElements()) {
+			Candle c = e.nextElement();
+			if (c != null) {
+				out.add(c);
+			}
+		}
+		return out;
+	}
+
+	@Test
+	public void testRepositoryCaching() {
+		FileCandleRepository repository = new FileCandleRepository(new RepositoryDir(FileBasedSimulation.pathToRepositoryDir()), FileBasedSimulation.csvFileFormat());
+		Instant from = LocalDate.of(2020, 5, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+		Instant to = LocalDate.of(2020, 12, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+
+		List<Candle> streamed = toList(repository.iterate("BTCUSD", from, to, false));
+		List<Candle> loaded = toList(repository.iterate("BTCUSD", from, to, true));
+		List<Candle> cached = toList(repository.iterate("BTCUSD", from, to, true));
+
+		CandleCache cache = repository.getCache();
+		assertEquals(1, cache.misses());
+		assertEquals(1, cache.hits());
+		assertEquals(0, cache.evictions());
+		assertEquals(streamed.size() * CandleSeries.BYTES_PER_CANDLE, cache.size());
+
+		assertEquals(streamed.size(), loaded.size());
+		assertEquals(streamed.size(), cached.size());
+		for (int i = 0; i < streamed.size(); i++) {
+			assertEquals(streamed.get(i).toString(), cached.get(i).toString());
+			assertEquals(streamed.get(i).volume, cached.get(i).volume, 0.0);
+		}
+
+		repository.clearCaches();
+		assertEquals(0, cache.size());
+		toList(repository.iterate("BTCUSD", from, to, true));
+		assertEquals(2, cache.misses());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		CandleCache cache = new CandleCache(250L * CandleSeries.BYTES_PER_CANDLE);
+
+		assertNull(cache.get("a", "A"));
+		cache.put("a", series(100));
+		assertNull(cache.get("b", "B"));
+		cache.put("b", series(100));
+
+		assertNotNull(cache.get("a", "A"));
+
+		assertNull(cache.get("c", "C"));
+		cache.put("c", series(100));
+
+		assertEquals(1, cache.evictions());
+		assertEquals(200L * CandleSeries.BYTES_PER_CANDLE, cache.size());
+		assertNotNull(cache.get("a", "A"));
+		assertNotNull(cache.get("c", "C"));
+		assertNull(cache.get("b", "B"));
+
+		cache.put("b", series(300));
+		assertEquals(2, cache.evictions());
+		assertNull(cache.get("b", "B"));
+	}
+
+	@Test
+	public void testWaitForLoadInProgress() throws Exception {
+		CandleCache cache = new CandleCache(Long.MAX_VALUE);
+		assertNull(cache.get("a", "A"));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<CandleSeries> waiting = executor.submit(() -> cache.get("a", "A"));
+			Thread.sleep(50);
+			assertFalse(waiting.isDone());
+
+			CandleSeries loaded = series(10);
+			cache.put("a", loaded);
+			assertSame(loaded, waiting.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFailedLoadReleasesWaitingThreads() throws Exception {
+		CandleCache cache = new CandleCache(Long.MAX_VALUE);
+		assertNull(cache.get("a", "A"));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<CandleSeries> waiting = executor.submit(() -> cache.get("a", "A"));
+			Thread.sleep(50);
+			cache.failed("a", new IllegalStateException("boom"));
+			try {
+				waiting.get(5, TimeUnit.SECONDS);
+				fail("Expected loading error");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+			assertNull(cache.get("a", "A"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
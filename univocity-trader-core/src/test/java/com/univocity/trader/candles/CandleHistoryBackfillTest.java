@@ -0,0 +1,123 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.config.*;
+import com.univocity.trader.indicators.base.*;
+import com.univocity.trader.simulation.*;
+import com.univocity.trader.utils.*;
+import org.junit.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+import static org.junit.Assert.*;
+
+public class CandleHistoryBackfillTest {
+
+	private static final int MINUTES = 60;
+
+	private static Candle candle(int minute) {
+		double price = 100 + minute;
+		return new Candle(minute * MINUTE.ms, (minute + 1) * MINUTE.ms - 1, price, price, price, price, 10);
+	}
+
+	private static class HistoryExchange extends MockExchange {
+		final Set<String> requests = ConcurrentHashMap.newKeySet();
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger maxActive = new AtomicInteger();
+
+		@Override
+		public IncomingCandles<Candle> getLatestTicks(String symbol, TimeInterval interval) {
+			return getHistoricalTicks(symbol, interval, (MINUTES - 5) * MINUTE.ms, MINUTES * MINUTE.ms);
+		}
+
+		@Override
+		public IncomingCandles<Candle> getHistoricalTicks(String symbol, TimeInterval interval, long startTime, long endTime) {
+			maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+			try {
+				assertTrue("Duplicate request", requests.add(symbol + startTime + "-" + endTime));
+				Thread.sleep(20);
+				List<Candle> out = new ArrayList<>();
+				for (int i = 0; i < MINUTES; i++) {
+					Candle candle = candle(i);
+					if (candle.openTime >= startTime && candle.openTime <= endTime) {
+						out.add(candle);
+					}
+				}
+				return IncomingCandles.fromCollection(out);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} finally {
+				active.decrementAndGet();
+			}
+		}
+
+		@Override
+		public int historicalCandleCountLimit() {
+			return 10;
+		}
+
+		@Override
+		public long timeToWaitPerRequest() {
+			return 5;
+		}
+	}
+
+	private static List<Candle> history(DatabaseCandleRepository repository, String symbol) {
+		List<Candle> out = new ArrayList<>();
+		Enumeration<Candle> e = repository.iterate(symbol, null, null, false);
+		while (e.hasMoreElements()) {
+			Candle c = e.nextElement();
+			if (c != null) {
+				out.add(c);
+			}
+		}
+		return out;
+	}
+
+	@Test
+	public void testFillGapsOfMultipleSymbols() {
+		DatabaseCandleRepository repository = new DatabaseCandleRepository(new DatabaseConfiguration().embedded("mem:backfill"));
+		HistoryExchange exchange = new HistoryExchange();
+		List<String> symbols = List.of("ADAUSDT", "BTCUSDT", "ETHUSDT", "XRPUSDT");
+
+		CandleHistoryBackfill backfill = new CandleHistoryBackfill(repository);
+		backfill.parallelism(4);
+		backfill.fillHistoryGaps(exchange, symbols, Instant.EPOCH, Instant.ofEpochMilli(MINUTES * MINUTE.ms), MINUTE);
+
+		assertTrue(exchange.maxActive.get() > 1);
+		for (String symbol : symbols) {
+			List<Candle> history = history(repository, symbol);
+			assertEquals(symbol, MINUTES, history.size());
+			for (int i = 0; i < history.size(); i++) {
+				assertEquals(symbol, candle(i).openTime, history.get(i).openTime);
+			}
+		}
+	}
+
+	@Test
+	public void testFailureOfOneSymbolDoesNotStopOthers() {
+		DatabaseCandleRepository repository = new DatabaseCandleRepository(new DatabaseConfiguration().embedded("mem:backfillFailure"));
+		HistoryExchange exchange = new HistoryExchange() {
+			@Override
+			public IncomingCandles<Candle> getLatestTicks(String symbol, TimeInterval interval) {
+				if (symbol.equals("BADUSDT")) {
+					return IncomingCandles.fromCollection(Collections.emptyList());
+				}
+				return super.getLatestTicks(symbol, interval);
+			}
+		};
+
+		CandleHistoryBackfill backfill = new CandleHistoryBackfill(repository);
+		try {
+			backfill.fillHistoryGaps(exchange, List.of("BADUSDT", "BTCUSDT"), Instant.EPOCH, Instant.ofEpochMilli(MINUTES * MINUTE.ms), MINUTE);
+			fail("Expected failure of BADUSDT to be reported");
+		} catch (IllegalStateException e) {
+			assertEquals("No recent history data received", e.getMessage());
+		}
+		assertEquals(MINUTES, history(repository, "BTCUSDT").size());
+	}
+}
@@ -0,0 +1,218 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.config.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+import java.io.*;
+import java.math.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class CandleJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static PreciseCandle candle(int minute) {
+		BigDecimal price = new BigDecimal("100.25").add(BigDecimal.valueOf(minute));
+		return new PreciseCandle(minute * 60_000L, (minute + 1) * 60_000L - 1, price, price, price, price, new BigDecimal("0.000123"));
+	}
+
+	private static final class CollectingSink implements CandleJournal.Sink {
+		final Map<String, List<PreciseCandle>> persisted = new ConcurrentHashMap<>();
+		volatile int failures;
+
+		@Override
+		public void persist(String symbol, List<PreciseCandle> candles) {
+			if (failures > 0) {
+				failures--;
+				throw new IllegalStateException("database unavailable");
+			}
+			persisted.computeIfAbsent(symbol, s -> new CopyOnWriteArrayList<>()).addAll(candles);
+		}
+	}
+
+	private static void assertCandles(List<PreciseCandle> candles, int from, int to) {
+		assertEquals(to - from, candles.size());
+		for (int i = from; i < to; i++) {
+			assertEquals(candle(i).toString(), candles.get(i - from).toString());
+		}
+	}
+
+	@Test
+	public void testCandlesFlushedToSink() throws Exception {
+		CollectingSink sink = new CollectingSink();
+		sink.failures = 2;
+		Path dir = folder.newFolder().toPath();
+
+		try (CandleJournal journal = new CandleJournal(dir, 4, sink)) {
+			for (int i = 0; i < 10; i++) {
+				journal.append("BTCUSDT", candle(i));
+				journal.append("ETHUSDT", candle(i));
+			}
+			assertEquals(candle(9).openTime, journal.lastOpenTime("BTCUSDT"));
+			assertEquals(Long.MIN_VALUE, journal.lastOpenTime("ADAUSDT"));
+
+			assertTrue(journal.awaitFlush(10_000));
+			assertNull(journal.lastError());
+		}
+
+		assertCandles(sink.persisted.get("BTCUSDT"), 0, 10);
+		assertCandles(sink.persisted.get("ETHUSDT"), 0, 10);
+	}
+
+	@Test
+	public void testUnflushedCandlesReplayedWhenReopened() throws Exception {
+		Path dir = folder.newFolder().toPath();
+
+		CandleJournal.Sink unavailable = (symbol, candles) -> {
+			throw new IOException("database unavailable");
+		};
+		try (CandleJournal journal = new CandleJournal(dir, 100, unavailable)) {
+			for (int i = 0; i < 5; i++) {
+				journal.append("BTCUSDT", candle(i));
+			}
+			assertFalse(journal.awaitFlush(300));
+			assertNotNull(journal.lastError());
+		}
+
+		CollectingSink sink = new CollectingSink();
+		try (CandleJournal journal = new CandleJournal(dir, 100, sink)) {
+			assertEquals(candle(4).openTime, journal.lastOpenTime("BTCUSDT"));
+			journal.append("BTCUSDT", candle(5));
+			assertTrue(journal.awaitFlush(10_000));
+		}
+		assertCandles(sink.persisted.get("BTCUSDT"), 0, 6);
+
+		sink = new CollectingSink();
+		try (CandleJournal journal = new CandleJournal(dir, 100, sink)) {
+			assertTrue(journal.awaitFlush(10_000));
+		}
+		assertNull(sink.persisted.get("BTCUSDT")); //nothing written twice
+	}
+
+	@Test
+	public void testSegmentsRolledAndDeleted() throws Exception {
+		CollectingSink sink = new CollectingSink();
+		Path dir = folder.newFolder().toPath();
+
+		try (CandleJournal journal = new CandleJournal(dir, CandleJournal.HEADER_SIZE + 512, 7, sink)) {
+			for (int i = 0; i < 100; i++) {
+				journal.append("BTCUSDT", candle(i));
+			}
+			assertTrue(journal.awaitFlush(10_000));
+		}
+
+		assertCandles(sink.persisted.get("BTCUSDT"), 0, 100);
+		assertTrue(dir.toFile().list((d, name) -> name.endsWith(".journal")).length <= 1);
+	}
+
+	@Test
+	public void testDirectoryLockedWhileOpen() throws Exception {
+		Path dir = folder.newFolder().toPath();
+		CollectingSink sink = new CollectingSink();
+
+		try (CandleJournal journal = new CandleJournal(dir, 100, sink)) {
+			try {
+				new CandleJournal(dir.resolve("../" + dir.getFileName()), 100, sink).close();
+				fail("Expected journal directory to be locked");
+			} catch (IllegalStateException e) {
+				assertTrue(e.getMessage().endsWith("is already in use"));
+			}
+			journal.append("BTCUSDT", candle(0));
+		}
+
+		try (CandleJournal journal = new CandleJournal(dir, 100, sink)) {
+			assertTrue(journal.awaitFlush(10_000));
+		}
+		assertCandles(sink.persisted.get("BTCUSDT"), 0, 1);
+	}
+
+	@Test
+	public void testJournalSharedWithinProcess() throws Exception {
+		Path dir = folder.newFolder().toPath();
+		CollectingSink sink = new CollectingSink();
+
+		CandleJournal first = CandleJournal.open(dir, 100, sink);
+		CandleJournal second = CandleJournal.open(dir.resolve("."), 100, (symbol, candles) -> fail("Sink of shared journal must not be replaced"));
+		assertSame(first, second);
+
+		first.close();
+		second.append("BTCUSDT", candle(0)); //still open
+		assertTrue(second.awaitFlush(10_000));
+		second.close();
+
+		try {
+			second.append("BTCUSDT", candle(1));
+			fail("Expected journal to be closed");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+		CandleJournal reopened = CandleJournal.open(dir, 100, sink);
+		assertNotSame(first, reopened);
+		reopened.close();
+		assertCandles(sink.persisted.get("BTCUSDT"), 0, 1);
+	}
+
+	@Test
+	public void testRepositoryWritesJournaledCandles() throws Exception {
+		Path dir = folder.newFolder().toPath();
+		DatabaseCandleRepository repository = new DatabaseCandleRepository(new DatabaseConfiguration().embedded("mem:journaled").batchSize(3).journalDir(dir));
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(repository.addToHistory("BTCUSDT", candle(i), false));
+		}
+		assertTrue(repository.addToHistory("BTCUSDT", candle(9), false)); //update of latest candle
+		assertEquals(candle(8).openTime, repository.lastFullCandle("BTCUSDT").openTime);
+
+		assertTrue(repository.awaitJournalFlush(10_000));
+		Enumeration<Candle> history = repository.iterate("BTCUSDT", null, null, false);
+		int count = 0;
+		while (history.hasMoreElements()) {
+			Candle candle = history.nextElement();
+			if (candle != null) {
+				assertEquals(count++ * 60_000L, candle.openTime);
+			}
+		}
+		assertEquals(9, count); //last candle is kept in memory until a newer one arrives
+
+		DatabaseCandleRepository restarted = new DatabaseCandleRepository(new DatabaseConfiguration().embedded("mem:journaled").journalDir(folder.newFolder().toPath()));
+		restarted.addToHistory("BTCUSDT", candle(2), true);
+		assertFalse(restarted.addToHistory("BTCUSDT", candle(3), true)); //candle 2 is already in the database
+		restarted.close();
+		repository.close();
+	}
+
+	@Test
+	public void testRepositoryCloseFlushesJournal() throws Exception {
+		Path dir = folder.newFolder().toPath();
+		DatabaseConfiguration config = new DatabaseConfiguration().embedded("mem:closing").batchSize(3).journalDir(dir);
+		DatabaseCandleRepository repository = new DatabaseCandleRepository(config);
+		DatabaseCandleRepository other = new DatabaseCandleRepository(config); //shares the journal of the same directory
+
+		for (int i = 0; i < 10; i++) {
+			repository.addToHistory("BTCUSDT", candle(i), false);
+		}
+		other.close();
+		repository.close();
+
+		CollectingSink sink = new CollectingSink();
+		try (CandleJournal journal = new CandleJournal(dir, 100, sink)) { //lock released
+			assertEquals(0, journal.pending());
+		}
+		assertNull(sink.persisted.get("BTCUSDT"));
+
+		int count = 0;
+		Enumeration<Candle> history = other.iterate("BTCUSDT", null, null, false);
+		while (history.hasMoreElements()) {
+			if (history.nextElement() != null) {
+				count++;
+			}
+		}
+		assertEquals(9, count);
+	}
+}
@@ -0,0 +1,91 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.simulation.*;
+import com.univocity.trader.utils.*;
+import org.junit.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CandleSeriesTest {
+
+	private static CandleSeries series(int count) {
+		CandleSeries out = new CandleSeries(4);
+		for (int i = 0; i < count; i++) {
+			out.add(new Candle(i * 60_000L, (i + 1) * 60_000L - 1, i, i + 2, i - 1, i + 1, 10 * i));
+		}
+		return out;
+	}
+
+	@Test
+	public void testColumns() {
+		CandleSeries series = series(100);
+		assertEquals(100, series.size());
+
+		Candle c = series.get(42);
+		assertEquals(42 * 60_000L, c.openTime);
+		assertEquals(43 * 60_000L - 1, c.closeTime);
+		assertEquals(42.0, c.open, 0.0);
+		assertEquals(44.0, c.high, 0.0);
+		assertEquals(41.0, c.low, 0.0);
+		assertEquals(43.0, c.close, 0.0);
+		assertEquals(420.0, c.volume, 0.0);
+		assertNotSame(c, series.get(42));
+
+		series.trim();
+		assertEquals(100L * CandleSeries.BYTES_PER_CANDLE, series.sizeInBytes());
+
+		assertEquals(0, series.indexOf(-1));
+		assertEquals(10, series.indexOf(10 * 60_000L));
+		assertEquals(11, series.indexOf(10 * 60_000L + 1));
+		assertEquals(100, series.indexOf(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testCursor() {
+		CandleSeries series = series(10);
+		CandleSeries.Cursor cursor = series.cursor();
+
+		int count = 0;
+		while (cursor.next()) {
+			assertEquals(count, cursor.position());
+			assertEquals(count * 60_000L, cursor.openTime());
+			assertEquals(count, cursor.open(), 0.0);
+
+			Candle candle = cursor.candle();
+			assertEquals(cursor.openTime(), candle.openTime);
+			assertEquals(cursor.close(), candle.close, 0.0);
+			assertNotSame(candle, cursor.candle());
+			count++;
+		}
+		assertEquals(10, count);
+		assertFalse(cursor.next());
+
+		cursor.seek(series.indexOf(5 * 60_000L));
+		assertTrue(cursor.next());
+		assertEquals(5 * 60_000L, cursor.openTime());
+	}
+
+	@Test
+	public void testLoadSeries() {
+		FileCandleRepository repository = new FileCandleRepository(new RepositoryDir(FileBasedSimulation.pathToRepositoryDir()), FileBasedSimulation.csvFileFormat());
+
+		List<Candle> expected = new ArrayList<>();
+		Enumeration<Candle> candles = repository.iterate("BTCUSD", null, null, false);
+		while (candles.hasMoreElements()) {
+			Candle c = candles.nextElement();
+			if (c != null) {
+				expected.add(c);
+			}
+		}
+
+		CandleSeries series = repository.loadSeries("BTCUSD", null, null, false);
+		assertEquals(expected.size(), series.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).openTime, series.openTime(i));
+			assertEquals(expected.get(i).close, series.close(i), 0.0);
+		}
+		assertEquals(0, repository.getCache().misses());
+	}
+}
@@ -0,0 +1,47 @@
+package com.univocity.trader.candles;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CandleStreamTest {
+
+	private static void produce(CandleStream stream, int count) {
+		Thread producer = new Thread(() -> {
+			try {
+				for (int i = 0; i < count; i++) {
+					stream.accept(new Candle(i, i + 1, i, i, i, i, i));
+				}
+			} finally {
+				stream.close();
+			}
+		});
+		producer.setDaemon(true);
+		producer.start();
+	}
+
+	@Test
+	public void testCandlesConsumedInOrder() {
+		int count = CandleStream.CHUNK_SIZE * CandleStream.CHUNKS * 10 + 7;
+		CandleStream stream = new CandleStream();
+		produce(stream, count);
+
+		int consumed = 0;
+		while (stream.hasMoreElements()) {
+			Candle candle = stream.nextElement();
+			assertNotNull(candle);
+			assertEquals(consumed, candle.openTime);
+			consumed++;
+		}
+		assertEquals(count, consumed);
+		assertNull(stream.nextElement());
+	}
+
+	@Test
+	public void testEmptyStream() {
+		CandleStream stream = new CandleStream();
+		produce(stream, 0);
+		assertFalse(stream.hasMoreElements());
+		assertNull(stream.nextElement());
+	}
+}
@@ -0,0 +1,130 @@
+package com.univocity.trader.candles;
+
+import com.univocity.trader.config.*;
+import org.junit.*;
+
+import java.math.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DatabaseCandleRepositoryTest {
+
+	private static PreciseCandle candle(int minute) {
+		BigDecimal price = BigDecimal.valueOf(100 + minute);
+		return new PreciseCandle(minute * 60_000L, (minute + 1) * 60_000L - 1, price, price, price, price, BigDecimal.TEN);
+	}
+
+	private static List<PreciseCandle> candles(int from, int to) {
+		List<PreciseCandle> out = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			out.add(candle(i));
+		}
+		return out;
+	}
+
+	private static DatabaseCandleRepository repository(String name) {
+		return new DatabaseCandleRepository(new DatabaseConfiguration().embedded("mem:" + name).batchSize(3));
+	}
+
+	private static List<Candle> history(DatabaseCandleRepository repository, String symbol) {
+		List<Candle> out = new ArrayList<>();
+		Enumeration<Candle> e = repository.iterate(symbol, null, null, false);
+		while (e.hasMoreElements()) {
+			Candle c = e.nextElement();
+			if (c != null) {
+				out.add(c);
+			}
+		}
+		return out;
+	}
+
+	@Test
+	public void testBatchedInsertsMatchSingleInserts() {
+		DatabaseCandleRepository single = repository("singleInserts");
+		DatabaseCandleRepository batched = repository("batchedInserts");
+
+		int accepted = 0;
+		for (PreciseCandle candle : candles(0, 10)) {
+			if (single.addToHistory("BTCUSDT", candle, true)) {
+				accepted++;
+			}
+		}
+
+		assertEquals(accepted, batched.addToHistory("BTCUSDT", candles(0, 10), true));
+		assertEquals(9, history(batched, "BTCUSDT").size()); //last candle is kept in memory until a newer one arrives
+		assertEquals(history(single, "BTCUSDT").toString(), history(batched, "BTCUSDT").toString());
+		assertEquals(candle(8).openTime, batched.lastFullCandle("BTCUSDT").openTime);
+
+		batched.addToHistory("BTCUSDT", candles(10, 11), true);
+		assertEquals(10, history(batched, "BTCUSDT").size());
+	}
+
+	@Test
+	public void testDuplicatesSkipped() {
+		DatabaseCandleRepository repository = repository("duplicates");
+
+		for (PreciseCandle candle : candles(2, 5)) {
+			repository.addToHistory("ETHUSDT", candle, true);
+		}
+		repository.addToHistory("ETHUSDT", candle(4), true);
+		assertEquals(2, history(repository, "ETHUSDT").size());
+
+		// candles 2 and 3 are already in the database, 0, 1 and 4 to 7 are new. Candle 8 is kept in memory.
+		DatabaseCandleRepository other = repository("duplicates");
+		int accepted = other.addToHistory("ETHUSDT", candles(0, 9), true);
+
+		assertEquals(1 + 6, accepted); // first candle, plus candles 0, 1, 4, 5, 6 and 7 inserted
+		List<Candle> history = history(other, "ETHUSDT");
+		assertEquals(8, history.size());
+		for (int i = 0; i < history.size(); i++) {
+			assertEquals(i * 60_000L, history.get(i).openTime);
+		}
+	}
+
+	@Test
+	public void testLastFullCandleSkipsDuplicates() {
+		DatabaseCandleRepository repository = repository("lastFullCandle");
+		for (PreciseCandle candle : candles(2, 5)) {
+			repository.addToHistory("ETHUSDT", candle, true);
+		}
+
+		// batches [0, 1, 2] and [3]: candles 2 and 3 are already in the database. Candle 4 is kept in memory.
+		DatabaseCandleRepository other = repository("lastFullCandle");
+		other.addToHistory("ETHUSDT", candles(0, 5), true);
+		assertEquals(candle(1).openTime, other.lastFullCandle("ETHUSDT").openTime);
+	}
+
+	private static String toString(List<long[]> gaps) {
+		StringBuilder out = new StringBuilder();
+		for (long[] gap : gaps) {
+			out.append(gap[0] / 60_000L).append('-').append(gap[1] / 60_000L).append(' ');
+		}
+		return out.toString().trim();
+	}
+
+	@Test
+	public void testFindGaps() {
+		DatabaseCandleRepository repository = repository("findGaps");
+		List<PreciseCandle> candles = new ArrayList<>();
+		candles.addAll(candles(5, 10));
+		candles.addAll(candles(12, 13));
+		candles.addAll(candles(20, 30));
+		candles.addAll(candles(31, 40));
+		repository.addToHistory("BTCUSDT", candles, true);
+		repository.addToHistory("ETHUSDT", candles(0, 40), true);
+
+		Instant from = Instant.ofEpochMilli(0);
+		Instant to = Instant.ofEpochMilli(100 * 60_000L);
+		assertEquals("0-5 9-12 12-20 29-31", toString(repository.findGaps("BTCUSDT", from, to, 60_000L)));
+		assertEquals("9-12 12-20 29-31", toString(repository.findGaps("BTCUSDT", null, null, 60_000L)));
+		assertEquals("12-20", toString(repository.findGaps("BTCUSDT", null, null, 3 * 60_000L)));
+		assertEquals("", toString(repository.findGaps("ETHUSDT", from, to, 60_000L)));
+
+		assertEquals("0-5 9-12 12-20 29-31", toString(repository.findGapsFromOpenTimes("BTCUSDT", from, to, 60_000L)));
+		assertEquals("9-12 12-20 29-31", toString(repository.findGapsFromOpenTimes("BTCUSDT", null, null, 60_000L)));
+		assertEquals("12-20", toString(repository.findGapsFromOpenTimes("BTCUSDT", null, null, 3 * 60_000L)));
+		assertEquals("", toString(repository.findGapsFromOpenTimes("ETHUSDT", from, to, 60_000L)));
+	}
+}
@@ -4,13 +4,19 @@ import com.univocity.trader.simulation.*;
 import com.univocity.trader.utils.*;
 import org.apache.commons.lang3.*;
 import org.junit.*;
+import org.junit.rules.*;
 
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
 import java.util.*;
 
 import static org.junit.Assert.*;
 
 public class FileCandleRepositoryTest {
 
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
 
 	@Test
 	public void testCandleLoadingProcess() {
@@ -50,6 +56,53 @@ public class FileCandleRepositoryTest {
 		assertEquals(lastStr, cleanDateString(last.toString()));
 	}
 
+	private static List<Candle> toList(Enumeration<Candle> candles) {
+		List<Candle> out = new ArrayList<>();
+		while (candles.hasMoreElements()) {
+			Candle c = candles.nextElement();
+			if (c != null) {
+				out.add(c);
+			}
+		}
+		return out;
+	}
+
+	@Test
+	public void testSeekWithTimeIndex() throws Exception {
+		File dir = tmp.newFolder("data");
+		File csv = new File(dir, "BTC-USD.csv");
+		Files.copy(FileBasedSimulation.pathToRepositoryDir().resolve("BTC-USD.csv"), csv.toPath());
+
+		FileCandleRepository indexed = new FileCandleRepository(new RepositoryDir(dir), FileBasedSimulation.csvFileFormat(), 10);
+		FileCandleRepository plain = new FileCandleRepository(new RepositoryDir(dir), FileBasedSimulation.csvFileFormat(), 0);
+
+		List<Candle> all = toList(plain.iterate("BTCUSD", null, null, false));
+		for (int i : new int[]{0, 1, 9, 10, 11, 155, 300, 364}) {
+			Instant from = Instant.ofEpochMilli(all.get(i).openTime);
+			Instant to = Instant.ofEpochMilli(all.get(Math.min(i + 20, all.size() - 1)).closeTime);
+
+			List<Candle> expected = toList(plain.iterate("BTCUSD", from, to, false));
+			List<Candle> actual = toList(indexed.iterate("BTCUSD", from, to, false));
+
+			assertEquals(expected.size(), actual.size());
+			for (int j = 0; j < expected.size(); j++) {
+				assertEquals(expected.get(j).toString(), actual.get(j).toString());
+			}
+			assertEquals(all.get(i).toString(), actual.get(0).toString());
+		}
+		assertTrue(new File(dir, "BTC-USD.csv.idx").exists());
+
+		//rebuilds index when file changes
+		List<String> lines = Files.readAllLines(csv.toPath());
+		Files.write(csv.toPath(), lines.subList(0, 101));
+		assertTrue(csv.setLastModified(csv.lastModified() + 10_000));
+
+		Instant from = Instant.ofEpochMilli(all.get(95).openTime);
+		List<Candle> candles = toList(indexed.iterate("BTCUSD", from, null, false));
+		assertEquals(5, candles.size());
+		assertEquals(all.get(95).toString(), candles.get(0).toString());
+	}
+
 	private static String cleanDateString(String s) {
 		return StringUtils.replace(s, "Jan.", "Jan");
 	}
@@ -0,0 +1,41 @@
+package com.univocity.trader.candles;
+
+import org.junit.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class KnownGapsTest {
+
+	@Test
+	public void testMergeIntervals() {
+		KnownGaps gaps = new KnownGaps(List.of(
+				new long[]{50, 60},
+				new long[]{10, 20},
+				new long[]{20, 30},
+				new long[]{15, 25},
+				new long[]{100, 110}
+		));
+		assertEquals(3, gaps.size());
+
+		assertTrue(gaps.contains(10, 30));
+		assertTrue(gaps.contains(12, 28));
+		assertTrue(gaps.contains(50, 60));
+		assertTrue(gaps.contains(100, 100));
+
+		assertFalse(gaps.contains(5, 15));
+		assertFalse(gaps.contains(25, 35));
+		assertFalse(gaps.contains(30, 50));
+		assertFalse(gaps.contains(55, 105));
+		assertFalse(gaps.contains(111, 120));
+		assertFalse(gaps.contains(0, 5));
+	}
+
+	@Test
+	public void testEmpty() {
+		KnownGaps gaps = new KnownGaps(Collections.emptyList());
+		assertEquals(0, gaps.size());
+		assertFalse(gaps.contains(0, 0));
+	}
+}
@@ -0,0 +1,26 @@
+package com.univocity.trader.config;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class DatabaseConfigurationTest {
+
+	@Test
+	public void testLocalInfileDisabledByDefault() {
+		DatabaseConfiguration config = new DatabaseConfiguration();
+		assertFalse(config.loadLocalInfile());
+
+		assertNotNull(config.dataSource());
+		assertTrue(config.jdbcUrl().startsWith("jdbc:mysql:"));
+		assertFalse(config.jdbcUrl().contains("allowLoadLocalInfile"));
+	}
+
+	@Test
+	public void testLocalInfileOptIn() {
+		DatabaseConfiguration config = new DatabaseConfiguration().loadLocalInfile(true);
+
+		assertNotNull(config.dataSource());
+		assertTrue(config.jdbcUrl().endsWith("&allowLoadLocalInfile=true"));
+	}
+}
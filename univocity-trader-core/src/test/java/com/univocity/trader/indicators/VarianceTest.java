@@ -2,8 +2,11 @@ package com.univocity.trader.indicators;
 
 import com.univocity.trader.candles.CandleHelper;
 import com.univocity.trader.indicators.base.TimeInterval;
+import com.univocity.trader.candles.Candle;
 import org.junit.Test;
 
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
 
 public class VarianceTest {
@@ -114,4 +117,69 @@ public class VarianceTest {
 
     }
 
+    /**
+     * Recalculates the variance from every value of the window, as {@link Variance} used to do.
+     */
+    private static final class RecalculatedVariance extends MovingAverage {
+        private double value;
+
+        RecalculatedVariance(int length, TimeInterval interval) {
+            super(length, interval);
+        }
+
+        @Override
+        protected boolean calculateIndicatorValue(Candle candle, double value, boolean updating) {
+            super.calculateIndicatorValue(candle, value, updating);
+            final double average = super.getValue();
+            final int count = values.size();
+            double variance = 0;
+            for (int i = 0; i < count; i++) {
+                double v = values.get(i) - average;
+                variance += v * v;
+            }
+            this.value = variance / count;
+            return true;
+        }
+
+        @Override
+        public double getValue() {
+            return value;
+        }
+    }
+
+    private static void assertSameAsRecalculated(int length, TimeInterval interval, boolean recalculateEveryTick) {
+        Variance variance = new Variance(length, interval);
+        StandardDeviation deviation = new StandardDeviation(length, interval);
+        RecalculatedVariance expected = new RecalculatedVariance(length, interval);
+        variance.recalculateEveryTick(recalculateEveryTick);
+        deviation.recalculateEveryTick(recalculateEveryTick);
+        expected.recalculateEveryTick(recalculateEveryTick);
+
+        Random random = new Random(length);
+        double price = 40_000.0;
+        for (int i = 0; i < 20_000; i++) {
+            price += random.nextGaussian() * (i % 3000 < 1500 ? 25.0 : 0.01); //alternate volatile and quiet periods
+            Candle candle = CandleHelper.newCandle(i, price);
+            variance.accumulate(candle);
+            deviation.accumulate(candle);
+            expected.accumulate(candle);
+
+            double tolerance = 1e-9 * Math.max(1.0, expected.getValue()) + 1e-6;
+            assertEquals("Variance at candle " + i, expected.getValue(), variance.getValue(), tolerance);
+            assertEquals("Standard deviation at candle " + i, Math.sqrt(expected.getValue()), deviation.getValue(), 1e-3);
+        }
+    }
+
+    @Test
+    public void incrementalVarianceMatchesRecalculatedVariance() {
+        assertSameAsRecalculated(4, TimeInterval.MINUTE, false);
+        assertSameAsRecalculated(200, TimeInterval.MINUTE, false);
+        assertSameAsRecalculated(1000, TimeInterval.MINUTE, false);
+    }
+
+    @Test
+    public void incrementalVarianceMatchesRecalculatedVarianceWhileUpdating() {
+        assertSameAsRecalculated(4, TimeInterval.minutes(5), true);
+        assertSameAsRecalculated(200, TimeInterval.minutes(5), true);
+    }
 }
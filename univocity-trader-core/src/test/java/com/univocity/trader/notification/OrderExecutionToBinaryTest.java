@@ -0,0 +1,238 @@
+package com.univocity.trader.notification;
+
+import com.univocity.parsers.csv.*;
+import com.univocity.trader.account.*;
+import com.univocity.trader.config.*;
+import com.univocity.trader.indicators.*;
+import com.univocity.trader.simulation.*;
+import com.univocity.trader.simulation.local.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class OrderExecutionToBinaryTest {
+
+	// columns formatted by OrderExecutionToCsv from the state of orders and trades when the simulation ends
+	private static final Set<String> LAZY_COLUMNS = new HashSet<>(Arrays.asList(
+			"quantity", "price", "averagePrice", "executedQuantity", "valueTransacted",
+			"minPrice", "minChangePct", "maxChangePct", "maxPrice", "shortedQuantity", "marginReserve"));
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static void simulate(OrderListener... listeners) {
+		Strategy.Simulator simulator = Strategy.simulator();
+		simulator.configure().fileRepository()
+				.dir(FileBasedSimulation.pathToRepositoryDir())
+				.rowFormat(FileBasedSimulation.csvFileFormat());
+
+		SimulationAccount account = simulator.configure().account();
+		account.referenceCurrency("USD").tradeWith("BTC").maximumInvestmentAmountPerTrade(250.0);
+		account.strategies().add(() -> {
+			int[] count = new int[1];
+			return (candle, context) -> ++count[0] % 3 == 0 ? ((count[0] / 3) % 2 == 0 ? Signal.SELL : Signal.BUY) : Signal.NEUTRAL;
+		});
+		for (OrderListener listener : listeners) {
+			account.listeners().add(listener);
+		}
+
+		simulator.configure().simulation()
+				.initialFunds(1000.0)
+				.simulateFrom(LocalDate.of(2020, 5, 1).atStartOfDay())
+				.simulateTo(LocalDate.of(2020, 12, 1).atStartOfDay());
+		simulator.symbolInformation("USD").priceDecimalPlaces(2).quantityDecimalPlaces(2);
+		simulator.run();
+	}
+
+	private static List<String[]> read(File csv) {
+		CsvParserSettings settings = new CsvParserSettings();
+		settings.setHeaderExtractionEnabled(false);
+		return new CsvParser(settings).parseAll(csv, OrderExecutionToCsv.CHARSET);
+	}
+
+	private static long count(List<String[]> rows, String operation) {
+		return rows.stream().filter(r -> operation.equals(r[3])).count();
+	}
+
+	private void assertSameOutput(boolean omitZeroTrades, boolean omitOrderOpening) throws IOException {
+		File dir = tmp.newFolder();
+		simulate(
+				new OrderExecutionToCsv(dir, "expected.csv").omitZeroTrades(omitZeroTrades).omitOrderOpening(omitOrderOpening),
+				new OrderExecutionToBinary(dir, "simulation")
+		);
+
+		File csv = new File(dir, "actual.csv");
+		long written = OrderExecutionToBinary.toCsv(new File(dir, "simulation.orders"), csv, omitZeroTrades, omitOrderOpening);
+
+		File expectedFile = new File(dir, "expected.csv");
+		List<String[]> expected = expectedFile.exists() ? read(expectedFile) : Collections.emptyList();
+		List<String[]> actual = read(csv);
+
+		assertEquals(expected.size(), actual.size());
+		if (expected.isEmpty()) {
+			assertEquals(0, written);
+			return;
+		}
+		assertEquals(expected.size() - 2, written);
+
+		String[] headers = expected.get(0);
+		assertArrayEquals(OrderExecutionToCsv.HEADERS, headers);
+		assertArrayEquals(headers, actual.get(0));
+		for (int i = 1; i < expected.size(); i++) {
+			for (int c = 0; c < headers.length; c++) {
+				if (!LAZY_COLUMNS.contains(headers[c])) {
+					assertEquals("Row " + i + ", column " + headers[c], expected.get(i)[c], actual.get(i)[c]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testConvertsToCsvLayout() throws IOException {
+		assertSameOutput(true, false);
+	}
+
+	@Test
+	public void testConvertsToCsvLayoutWithDefaultFilters() throws IOException {
+		assertSameOutput(true, true);
+	}
+
+	@Test
+	public void testConvertsToCsvLayoutWithoutZeroTradeFilter() throws IOException {
+		assertSameOutput(false, false);
+	}
+
+	@Test
+	public void testAppendsSimulationsToSameFile() throws IOException {
+		File dir = tmp.newFolder();
+		OrderExecutionToBinary listener = new OrderExecutionToBinary(dir, "simulation");
+		simulate(listener);
+
+		File input = new File(dir, "simulation.orders");
+		File single = new File(dir, "single.csv");
+		long rows = OrderExecutionToBinary.toCsv(input, single, true, false);
+		assertTrue(rows > 0);
+		long size = input.length();
+
+		simulate(listener);
+		assertTrue(input.length() > size);
+
+		File twice = new File(dir, "twice.csv");
+		assertEquals(rows * 2, OrderExecutionToBinary.toCsv(input, twice, true, false));
+
+		List<String[]> first = read(single);
+		List<String[]> both = read(twice);
+		assertEquals(1, count(first, "END"));
+		assertEquals(2, count(both, "END"));
+		assertEquals(first.size() * 2 - 1, both.size());
+		for (int i = 1; i < first.size(); i++) {
+			assertArrayEquals(first.get(i), both.get(i));
+			assertArrayEquals(first.get(i), both.get(i + first.size() - 1));
+		}
+
+		new OrderExecutionToBinary(dir, "empty").simulationEnded(null, null);
+		assertFalse(new File(dir, "empty.orders").exists());
+	}
+
+	@Test
+	public void testReopensFileClosedDuringSimulation() throws IOException {
+		File dir = tmp.newFolder();
+		OrderExecutionToBinary reopened = new OrderExecutionToBinary(dir, "reopened");
+		simulate(new OrderExecutionToBinary(dir, "simulation"), new OrderListener() {
+			@Override
+			public void orderSubmitted(Order order, Trade trade, Client client) {
+				reopened.orderSubmitted(order, trade, client);
+				reopened.close();
+			}
+
+			@Override
+			public void orderFinalized(Order order, Trade trade, Client client) {
+				reopened.orderFinalized(order, trade, client);
+				reopened.close();
+			}
+
+			@Override
+			public void simulationEnded(Trader trader, Client client) {
+				reopened.simulationEnded(trader, client);
+			}
+		});
+
+		File expected = new File(dir, "expected.csv");
+		File actual = new File(dir, "actual.csv");
+		long rows = OrderExecutionToBinary.toCsv(new File(dir, "simulation.orders"), expected, true, false);
+		assertTrue(rows > 0);
+		assertEquals(rows, OrderExecutionToBinary.toCsv(new File(dir, "reopened.orders"), actual, true, false));
+
+		List<String[]> expectedRows = read(expected);
+		List<String[]> actualRows = read(actual);
+		assertEquals(expectedRows.size(), actualRows.size());
+		for (int i = 0; i < expectedRows.size(); i++) {
+			assertArrayEquals(expectedRows.get(i), actualRows.get(i));
+		}
+	}
+
+	@Test
+	public void testConvertsUnfinishedSimulation() throws IOException {
+		File dir = tmp.newFolder();
+		OrderExecutionToBinary unfinished = new OrderExecutionToBinary(dir, "unfinished");
+		simulate(new OrderExecutionToBinary(dir, "simulation"), new OrderListener() {
+			@Override
+			public void orderSubmitted(Order order, Trade trade, Client client) {
+				unfinished.orderSubmitted(order, trade, client);
+			}
+
+			@Override
+			public void orderFinalized(Order order, Trade trade, Client client) {
+				unfinished.orderFinalized(order, trade, client);
+			}
+		});
+
+		File input = new File(dir, "unfinished.orders");
+		assertTrue("Orders of finalized trades must be flushed to the file", input.length() > 8);
+
+		List<String[]> finished = read(convert(new File(dir, "simulation.orders"), new File(dir, "finished.csv")));
+		List<String[]> flushed = read(convert(input, new File(dir, "flushed.csv")));
+		assertEquals(1, count(finished, "END"));
+		assertEquals(0, count(flushed, "END"));
+		assertTrue(flushed.size() > 1);
+		assertTrue(flushed.size() < finished.size());
+
+		// last record partially written
+		try (RandomAccessFile file = new RandomAccessFile(input, "rw")) {
+			file.setLength(file.length() - 10);
+		}
+		List<String[]> truncated = read(convert(input, new File(dir, "truncated.csv")));
+		assertTrue(truncated.size() > 1);
+		assertTrue(truncated.size() <= flushed.size());
+
+		Set<String> finishedRows = new HashSet<>();
+		finished.forEach(row -> finishedRows.add(Arrays.toString(row)));
+		for (String[] row : truncated) {
+			assertTrue(Arrays.toString(row), finishedRows.contains(Arrays.toString(row)));
+		}
+	}
+
+	private static File convert(File input, File output) {
+		OrderExecutionToBinary.toCsv(input, output, true, false);
+		return output;
+	}
+
+	@Test
+	public void testRejectsOtherFiles() throws IOException {
+		File input = tmp.newFile("other.orders");
+		try (Writer out = new FileWriter(input)) {
+			out.write("not an order execution file");
+		}
+		try {
+			OrderExecutionToBinary.toCsv(input, new File(tmp.getRoot(), "out.csv"), true, true);
+			fail("Expected invalid file to be rejected");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause().getMessage().startsWith("Not an order execution file"));
+		}
+	}
+}
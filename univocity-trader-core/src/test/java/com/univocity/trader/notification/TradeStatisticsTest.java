@@ -0,0 +1,134 @@
+package com.univocity.trader.notification;
+
+import org.junit.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TradeStatisticsTest {
+
+	private static final double DELTA = 1e-9;
+
+	private static double[][] trades(int count, long seed) {
+		Random random = new Random(seed);
+		double[][] out = new double[count][];
+		long time = 0;
+		for (int i = 0; i < count; i++) {
+			double pct = random.nextGaussian() * 3.0 + 0.2;
+			long duration = 60_000L * (1 + random.nextInt(60));
+			long idle = 60_000L * random.nextInt(60);
+			out[i] = new double[]{pct * 10.0, pct, time + idle, time + idle + duration};
+			time += idle + duration;
+		}
+		return out;
+	}
+
+	private static TradeStatistics statistics(double[][] trades, int from, int to) {
+		TradeStatistics out = new TradeStatistics();
+		for (int i = from; i < to; i++) {
+			out.add(trades[i][0], trades[i][1], (long) trades[i][2], (long) trades[i][3]);
+		}
+		return out;
+	}
+
+	@Test
+	public void testMatchesBatchComputation() {
+		double[][] trades = trades(10_000, 42);
+		TradeStatistics stats = statistics(trades, 0, trades.length);
+
+		int wins = 0;
+		double grossProfit = 0.0;
+		double grossLoss = 0.0;
+		double sum = 0.0;
+		double downside = 0.0;
+		double equity = 0.0;
+		double peak = 0.0;
+		double maxDrawdown = 0.0;
+		long exposure = 0L;
+		for (double[] trade : trades) {
+			if (trade[0] > 0) {
+				wins++;
+				grossProfit += trade[0];
+			} else {
+				grossLoss -= trade[0];
+			}
+			sum += trade[1];
+			if (trade[1] < 0) {
+				downside += trade[1] * trade[1];
+			}
+			equity += trade[0];
+			peak = Math.max(peak, equity);
+			maxDrawdown = Math.max(maxDrawdown, peak - equity);
+			exposure += (long) trade[3] - (long) trade[2];
+		}
+		double mean = sum / trades.length;
+		double squares = 0.0;
+		for (double[] trade : trades) {
+			squares += (trade[1] - mean) * (trade[1] - mean);
+		}
+		double deviation = Math.sqrt(squares / (trades.length - 1));
+
+		assertEquals(trades.length, stats.count());
+		assertEquals(wins, stats.wins());
+		assertEquals(trades.length - wins, stats.losses());
+		assertEquals((double) wins / trades.length, stats.winRate(), DELTA);
+		assertEquals(grossProfit, stats.grossProfit(), 1e-6);
+		assertEquals(grossLoss, stats.grossLoss(), 1e-6);
+		assertEquals(grossProfit / grossLoss, stats.profitFactor(), DELTA);
+		assertEquals(mean, stats.averageReturnPct(), DELTA);
+		assertEquals(deviation, stats.returnPctStandardDeviation(), DELTA);
+		assertEquals(mean / deviation, stats.sharpeRatio(), DELTA);
+		assertEquals(mean / Math.sqrt(downside / trades.length), stats.sortinoRatio(), DELTA);
+		assertEquals(maxDrawdown, stats.maxDrawdown(), 1e-6);
+		assertEquals(exposure, stats.exposureTime());
+		assertEquals((double) exposure / ((long) trades[trades.length - 1][3] - (long) trades[0][2]), stats.exposure(), DELTA);
+	}
+
+	@Test
+	public void testMergeMatchesSequentialAccumulation() {
+		double[][] trades = trades(5_000, 7);
+		TradeStatistics all = statistics(trades, 0, trades.length);
+
+		TradeStatistics merged = new TradeStatistics();
+		merged.merge(statistics(trades, 0, 1_234));
+		merged.merge(statistics(trades, 1_234, 1_234));
+		merged.merge(statistics(trades, 1_234, 3_000));
+		merged.merge(statistics(trades, 3_000, trades.length));
+
+		assertEquals(all.count(), merged.count());
+		assertEquals(all.wins(), merged.wins());
+		assertEquals(all.netProfitLoss(), merged.netProfitLoss(), 1e-6);
+		assertEquals(all.averageGain(), merged.averageGain(), 1e-9);
+		assertEquals(all.averageLossPct(), merged.averageLossPct(), 1e-9);
+		assertEquals(all.averageReturnPct(), merged.averageReturnPct(), 1e-9);
+		assertEquals(all.returnPctVariance(), merged.returnPctVariance(), 1e-9);
+		assertEquals(all.sortinoRatio(), merged.sortinoRatio(), 1e-9);
+		assertEquals(all.maxDrawdown(), merged.maxDrawdown(), 1e-6);
+		assertEquals(all.exposureTime(), merged.exposureTime());
+		assertEquals(all.exposure(), merged.exposure(), 1e-9);
+	}
+
+	@Test
+	public void testEmptyAndSingleTrade() {
+		TradeStatistics stats = new TradeStatistics();
+		assertEquals(0, stats.count());
+		assertEquals(0.0, stats.winRate(), 0.0);
+		assertEquals(0.0, stats.sharpeRatio(), 0.0);
+		assertEquals(0.0, stats.profitFactor(), 0.0);
+		assertEquals(0.0, stats.exposure(), 0.0);
+
+		stats.add(10.0, 1.0, 0L, 60_000L);
+		assertEquals(1, stats.wins());
+		assertEquals(0.0, stats.returnPctVariance(), 0.0);
+		assertEquals(Double.POSITIVE_INFINITY, stats.profitFactor(), 0.0);
+		assertEquals(0.0, stats.maxDrawdown(), 0.0);
+		assertEquals(1.0, stats.exposure(), 0.0);
+
+		stats.add(-4.0, -0.4, 60_000L, 120_000L);
+		stats.add(-4.0, -0.4, 120_000L, 180_000L);
+		assertEquals(8.0, stats.maxDrawdown(), 0.0);
+		assertEquals(-4.0, stats.averageLoss(), 0.0);
+		assertEquals(10.0 / 8.0, stats.profitFactor(), 0.0);
+	}
+}
@@ -0,0 +1,127 @@
+package com.univocity.trader.simulation;
+
+import com.univocity.trader.account.*;
+import com.univocity.trader.candles.*;
+import com.univocity.trader.config.*;
+import com.univocity.trader.indicators.*;
+import com.univocity.trader.notification.*;
+import com.univocity.trader.simulation.local.*;
+import com.univocity.trader.strategy.Engine;
+import org.junit.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+import static org.junit.Assert.*;
+
+public class MarketSimulatorTest {
+
+	private static final LocalDateTime START = LocalDate.of(2020, 1, 1).atStartOfDay();
+	private static final long S = START.toInstant(ZoneOffset.UTC).toEpochMilli();
+	private static final long DAY = 24 * HOUR.ms;
+
+	private static Candle candle(long openTime, long closeTime) {
+		return new Candle(openTime, closeTime, 1.0, 1.0, 1.0, 1.0, 1.0);
+	}
+
+	private static MarketSimulator.MarketReader reader(String symbol, List<String> log, Candle... candles) {
+		MarketSimulator.MarketReader reader = new MarketSimulator.MarketReader();
+		reader.symbol = symbol;
+		reader.input = Collections.enumeration(Arrays.asList(candles));
+		reader.engines = new Engine[]{new Engine() {
+			@Override
+			public TradingManager getTradingManager() {
+				return null;
+			}
+
+			@Override
+			public String getSymbol() {
+				return symbol;
+			}
+
+			@Override
+			public void process(Candle candle, boolean initializing) {
+				log.add(symbol + "@" + (candle.openTime - S) / 1000);
+			}
+		}};
+		return reader;
+	}
+
+	@Test
+	public void testCandlesProcessedInTimeOrder() {
+		Strategy.Simulator simulator = Strategy.simulator();
+		simulator.configure().simulation()
+				.simulateFrom(START)
+				.simulateTo(START.plusDays(2));
+
+		List<String> log = new ArrayList<>();
+		long m = MINUTE.ms;
+		MarketSimulator.MarketReader[] readers = new MarketSimulator.MarketReader[]{
+				reader("A", log, candle(S, S + 29_999), candle(S + 30_000, S + m - 1), candle(S + 5 * m, S + 6 * m - 1)),
+				reader("B", log, candle(S, S + m - 1), candle(S + DAY, S + DAY + m - 1)),
+				reader("C", log, candle(S + 5 * m, S + HOUR.ms + 5 * m - 1), new Candle(S + 6 * m, S + 7 * m - 1, 0, 0, 0, 0, 0), candle(S + 3 * DAY, S + 3 * DAY + m)),
+		};
+
+		simulator.executeSimulation(readers);
+
+		assertEquals(Arrays.asList("A@0", "B@0", "A@30", "A@300", "C@300", "B@86400"), log);
+	}
+
+	private static Map<String, String> runSweep(int parallelism, int batchSize) {
+		Strategy.Simulator simulator = Strategy.simulator();
+		simulator.configure().fileRepository()
+				.dir(FileBasedSimulation.pathToRepositoryDir())
+				.rowFormat(FileBasedSimulation.csvFileFormat());
+
+		Map<String, String> results = new ConcurrentHashMap<>();
+
+		SimulationAccount account = simulator.configure().account();
+		account.referenceCurrency("USD").tradeWith("BTC").maximumInvestmentAmountPerTrade(250.0);
+		account.strategies().add((symbol, parameters) -> {
+			long period = ((LongParameters) parameters).params[0];
+			int[] count = new int[1];
+			return (candle, context) -> ++count[0] % period == 0 ? ((count[0] / period) % 2 == 0 ? Signal.SELL : Signal.BUY) : Signal.NEUTRAL;
+		});
+		account.listeners().add((symbol, parameters) -> new OrderListener() {
+			@Override
+			public void simulationEnded(Trader trader, Client client) {
+				results.put(parameters.toString(), trader.balanceOf("USD") + " " + trader.balanceOf("BTC"));
+			}
+		});
+
+		simulator.configure().simulation()
+				.initialFunds(1000.0)
+				.fillOrdersImmediately()
+				.parallelism(parallelism)
+				.batchSize(batchSize)
+				.simulateFrom(LocalDate.of(2020, 5, 1).atStartOfDay())
+				.simulateTo(LocalDate.of(2020, 12, 1).atStartOfDay());
+
+		for (long period = 2; period < 12; period++) {
+			simulator.configure().simulation().addParameters(new LongParameters(period));
+		}
+
+		simulator.symbolInformation("USD").priceDecimalPlaces(2).quantityDecimalPlaces(2);
+		simulator.run();
+		return results;
+	}
+
+	@Test
+	public void testParallelSweepMatchesSequential() {
+		Map<String, String> sequential = runSweep(1, 1);
+		Map<String, String> parallel = runSweep(4, 1);
+
+		assertEquals(10, sequential.size());
+		assertEquals(sequential, parallel);
+	}
+
+	@Test
+	public void testBatchedSweepMatchesSequential() {
+		Map<String, String> sequential = runSweep(1, 1);
+
+		assertEquals(sequential, runSweep(1, 3));
+		assertEquals(sequential, runSweep(3, 4));
+	}
+}
@@ -0,0 +1,143 @@
+package com.univocity.trader.simulation;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.*;
+import org.junit.*;
+import org.junit.rules.*;
+
+import java.io.*;
+import java.nio.file.*;
+
+import static org.junit.Assert.*;
+
+public class SignalRepositoryTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static final String INPUT = "OPEN_TIME,CLOSE_TIME,OPEN,HIGH,LOW,CLOSE,VOLUME,SIGNAL\n" +
+			"1532218500000,1532218559999,83.28,83.32,83.22,83.31,103.97525,BUY\n" +
+			"1532218560000,1532218619999,83.23,83.35,83.23,83.35,39.01225,SELL\n" +
+			"1532218740000,1532218799999,83.37,83.48,83.34,83.38,309.5456,BUY\n" +
+			"1532227380000,1532227439999,83.21,83.21,83.06,83.06,319.33566,SELL\n";
+
+	private static Candle candle(long openTime) {
+		return new Candle(openTime, openTime + 59_999, 1, 1, 1, 1, 1);
+	}
+
+	private static void assertSignals(SignalRepository repository) {
+		assertEquals(Signal.BUY, repository.signalFor("LTCUSDT", candle(1532218500000L)));
+		assertEquals(Signal.SELL, repository.signalFor("LTCUSDT", candle(1532218560000L)));
+		assertEquals(Signal.NEUTRAL, repository.signalFor("LTCUSDT", candle(1532218620000L)));
+		assertEquals(Signal.BUY, repository.signalFor("LTCUSDT", candle(1532218740000L)));
+		assertEquals(Signal.SELL, repository.signalFor("LTCUSDT", candle(1532227380000L)));
+	}
+
+	@Test
+	public void testLoadCsv() {
+		assertSignals(new SignalRepository("LTCUSDT", new StringReader(INPUT)));
+	}
+
+	@Test
+	public void testCursorReplay() {
+		SignalRepository repository = new SignalRepository("LTCUSDT", new StringReader(INPUT));
+		SignalHistory.Cursor cursor = repository.cursor("LTCUSDT");
+
+		StringBuilder replay = new StringBuilder();
+		for (long time = 1532218440000L; time <= 1532227440000L; time += 60_000) {
+			Signal signal = cursor.signalAt(time);
+			if (signal != Signal.NEUTRAL) {
+				replay.append(signal.code);
+			}
+		}
+		assertEquals("BSBS", replay.toString());
+
+		//going back in time works too
+		assertEquals(Signal.SELL, cursor.signalAt(1532218560000L));
+		assertEquals(Signal.NEUTRAL, cursor.signalAt(1532218620000L));
+		assertEquals(Signal.BUY, cursor.signalAt(1532218740000L));
+		assertEquals(Signal.NEUTRAL, cursor.signalAt(1532218500001L));
+		assertEquals(Signal.BUY, cursor.signalAt(1532218500000L));
+	}
+
+	@Test
+	public void testAddOutOfOrder() {
+		SignalRepository repository = new SignalRepository("LTCUSDT", new StringReader(""));
+		repository.add("LTCUSDT", Signal.SELL, candle(1532227380000L));
+		repository.add("LTCUSDT", Signal.BUY, candle(1532218740000L));
+		repository.add("LTCUSDT", Signal.SELL, candle(1532218500000L));
+		repository.add("LTCUSDT", Signal.SELL, candle(1532218560000L));
+		repository.add("LTCUSDT", Signal.BUY, candle(1532218500000L)); //replaces previous signal
+		assertSignals(repository);
+	}
+
+	@Test
+	public void testBinaryRoundTrip() throws Exception {
+		File dir = tmp.newFolder("signals");
+		SignalRepository original = new SignalRepository(dir).binaryFormat(true);
+		original.load("LTCUSDT", new StringReader(INPUT));
+		original.save();
+		assertTrue(new File(dir, "LTCUSDT.signals").isFile());
+		assertFalse(new File(dir, "LTCUSDT.csv").exists());
+
+		SignalRepository loaded = new SignalRepository(dir);
+		loaded.load();
+		assertSignals(loaded);
+	}
+
+	@Test
+	public void testCsvRoundTrip() throws Exception {
+		File dir = tmp.newFolder("csv");
+		SignalRepository original = new SignalRepository(dir);
+		original.load("LTCUSDT", new StringReader(INPUT));
+		original.saveCsv();
+
+		String csv = new String(Files.readAllBytes(new File(dir, "LTCUSDT.csv").toPath())).replace("\r\n", "\n");
+		assertEquals(INPUT, csv);
+
+		SignalRepository loaded = new SignalRepository(dir);
+		loaded.load();
+		assertSignals(loaded);
+	}
+
+	@Test
+	public void testSavesCsvByDefault() throws Exception {
+		File dir = tmp.newFolder("default");
+		SignalRepository original = new SignalRepository(dir);
+		original.load("LTCUSDT", new StringReader(INPUT));
+		original.save();
+
+		assertTrue(new File(dir, "LTCUSDT.csv").isFile());
+		assertFalse(new File(dir, "LTCUSDT.signals").exists());
+	}
+
+	@Test
+	public void testLoadsCsvNewerThanBinary() throws Exception {
+		File dir = tmp.newFolder("both");
+		SignalRepository original = new SignalRepository(dir);
+		original.load("LTCUSDT", new StringReader(INPUT));
+		original.saveBinary();
+
+		//CSV edited afterwards: last signal removed
+		File csv = new File(dir, "LTCUSDT.csv");
+		Files.write(csv.toPath(), INPUT.substring(0, INPUT.lastIndexOf("1532227380000")).getBytes());
+		File binary = new File(dir, "LTCUSDT.signals");
+		assertTrue(binary.setLastModified(csv.lastModified() - 10_000));
+
+		SignalRepository loaded = new SignalRepository(dir);
+		loaded.load();
+		assertEquals(Signal.BUY, loaded.signalFor("LTCUSDT", candle(1532218740000L)));
+		assertEquals(Signal.NEUTRAL, loaded.signalFor("LTCUSDT", candle(1532227380000L)));
+
+		//binary file is used when it's up to date
+		assertTrue(binary.setLastModified(csv.lastModified() + 10_000));
+		loaded = new SignalRepository(dir);
+		loaded.load();
+		assertSignals(loaded);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownSymbol() {
+		new SignalRepository("LTCUSDT", new StringReader(INPUT)).cursor("BTCUSDT");
+	}
+}
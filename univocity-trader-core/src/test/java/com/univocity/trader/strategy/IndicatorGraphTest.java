@@ -0,0 +1,97 @@
+package com.univocity.trader.strategy;
+
+import com.univocity.trader.candles.*;
+import com.univocity.trader.indicators.*;
+import org.junit.*;
+
+import java.util.*;
+import java.util.function.*;
+
+import static com.univocity.trader.candles.CandleHelper.*;
+import static com.univocity.trader.indicators.base.TimeInterval.*;
+import static junit.framework.TestCase.*;
+
+public class IndicatorGraphTest {
+
+	static class Group extends IndicatorGroup {
+		final RSI rsi = new RSI(14, minutes(5));
+		final StochasticOscillatorK stochastic = new StochasticOscillatorK(14, minutes(1));
+		final MovingAverage ma;
+		final RSI captured;
+		final ToDoubleFunction<Candle> capturedValue;
+
+		private final Set<Indicator> indicators = new HashSet<>();
+
+		Group(int maLength) {
+			ma = new MovingAverage(maLength, minutes(5));
+			RSI captured = new RSI(7, minutes(1));
+			this.captured = captured;
+			this.capturedValue = c -> captured.getValue();
+			Collections.addAll(indicators, rsi, stochastic, ma, captured);
+		}
+
+		@Override
+		protected Set<Indicator> getAllIndicators() {
+			return indicators;
+		}
+	}
+
+	private static Group[] initialize(Group... groups) {
+		Aggregator root = new Aggregator("test");
+		for (Group group : groups) {
+			group.initialize(root);
+		}
+		return groups;
+	}
+
+	private static void accumulate(Aggregator[] aggregators, Group[] groups, Candle candle) {
+		for (Aggregator aggregator : aggregators) {
+			aggregator.aggregate(candle);
+		}
+		for (Group group : groups) {
+			group.accumulate(candle);
+		}
+	}
+
+	@Test
+	public void testIdenticalIndicatorsCollapsed() {
+		Group[] shared = initialize(new Group(10), new Group(20));
+		Group[] separate = {initialize(new Group(10))[0], initialize(new Group(20))[0]};
+
+		int collapsed = IndicatorGraph.collapse(shared);
+		assertTrue(collapsed > 2); //nested indicators of RSI and stochastic are collapsed along with them
+
+		assertSame(shared[0].rsi, shared[1].rsi);
+		assertSame(shared[0].stochastic, shared[1].stochastic);
+		assertNotSame(shared[0].ma, shared[1].ma); //different length
+		assertNotSame(shared[0].captured, shared[1].captured); //referenced by a lambda, must stay as is
+		assertTrue(shared[1].indicators.contains(shared[0].rsi));
+		assertEquals(0, IndicatorGraph.collapse(shared));
+
+		Aggregator[] sharedAggregators = aggregators(shared[0]);
+		Aggregator[] separateAggregators0 = aggregators(separate[0]);
+		Aggregator[] separateAggregators1 = aggregators(separate[1]);
+
+		Random random = new Random(1);
+		double price = 100;
+		for (int i = 0; i < 500; i++) {
+			price += random.nextGaussian();
+			Candle candle = newCandle(i, price, price + random.nextDouble(), price + 1, price - 1);
+			accumulate(sharedAggregators, shared, candle);
+			accumulate(separateAggregators0, new Group[]{separate[0]}, candle);
+			accumulate(separateAggregators1, new Group[]{separate[1]}, candle);
+		}
+
+		for (int i = 0; i < 2; i++) {
+			assertEquals(separate[i].rsi.getValue(), shared[i].rsi.getValue(), 0.0);
+			assertEquals(separate[i].stochastic.getValue(), shared[i].stochastic.getValue(), 0.0);
+			assertEquals(separate[i].ma.getValue(), shared[i].ma.getValue(), 0.0);
+			assertEquals(separate[i].capturedValue.applyAsDouble(null), shared[i].capturedValue.applyAsDouble(null), 0.0);
+		}
+		assertEquals(separate[0].rsi.getAccumulationCount(), shared[0].rsi.getAccumulationCount());
+	}
+
+	private static Aggregator[] aggregators(Group group) {
+		return ((com.univocity.trader.indicators.base.AggregatedTicksIndicator) group.rsi).getAggregator().getAggregators();
+	}
+}
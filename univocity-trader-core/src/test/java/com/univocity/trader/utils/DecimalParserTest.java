@@ -0,0 +1,62 @@
+package com.univocity.trader.utils;
+
+import org.junit.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DecimalParserTest {
+
+	private static void assertParsed(String value) {
+		assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)), Double.doubleToLongBits(DecimalParser.parseDouble(value)));
+	}
+
+	@Test
+	public void testParseDecimals() {
+		assertParsed("0");
+		assertParsed("0.0");
+		assertParsed("-0.0");
+		assertParsed("1");
+		assertParsed("-1");
+		assertParsed("+1.5");
+		assertParsed(".5");
+		assertParsed("5.");
+		assertParsed("0.00100000");
+		assertParsed("4.21700000");
+		assertParsed("9261.47000000");
+		assertParsed("0.00000001");
+		assertParsed("123456789.12345678");
+		assertParsed("12345678901234567890.5");
+		assertParsed("1e-5");
+		assertParsed("0.1234567890123456789012345");
+	}
+
+	@Test
+	public void testParseSection() {
+		String json = "{\"o\":\"0.00100000\",\"c\":\"9261.47000000\"}";
+		int start = json.indexOf("9261");
+		assertEquals(9261.47, DecimalParser.parseDouble(json, start, json.indexOf('"', start)), 0.0);
+	}
+
+	@Test
+	public void testMatchesDoubleParsing() {
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			long units = random.nextLong() % 1_000_000_000_000L;
+			int scale = random.nextInt(12);
+			String value = new java.math.BigDecimal(units).movePointLeft(scale).toPlainString();
+			assertParsed(value);
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testInvalidNumber() {
+		DecimalParser.parseDouble("1.2.3");
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testEmpty() {
+		DecimalParser.parseDouble("");
+	}
+}
@@ -0,0 +1,183 @@
+package com.univocity.trader.utils;
+
+import org.junit.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class MonotonicDequeTest {
+
+	private static double select(List<Double> values, int from, int to, boolean highest) {
+		double out = values.get(from);
+		for (int i = from + 1; i < to; i++) {
+			out = highest ? Math.max(out, values.get(i)) : Math.min(out, values.get(i));
+		}
+		return out;
+	}
+
+	private static int age(List<Double> values, int from, int to, double selected) {
+		for (int i = to - 1; i >= from; i--) {
+			if (values.get(i) == selected) {
+				return to - 1 - i;
+			}
+		}
+		throw new IllegalStateException();
+	}
+
+	private static void assertMatchesScan(int window, boolean highest) {
+		Random random = new Random(window);
+		MonotonicDeque deque = new MonotonicDeque(window, highest);
+		List<Double> added = new ArrayList<>();
+
+		assertTrue(Double.isNaN(deque.get()));
+
+		for (int i = 0; i < 5_000; i++) {
+			double value = random.nextInt(20); //repeated values are common
+
+			if (random.nextInt(3) == 0) {
+				deque.update(value);
+				List<Double> all = new ArrayList<>(added);
+				all.add(value);
+				int from = Math.max(0, all.size() - window);
+				double expected = select(all, from, all.size(), highest);
+				assertEquals("Partial value " + i, expected, deque.get(), 0.0);
+				assertEquals("Age of partial value " + i, age(all, from, all.size(), expected), deque.age());
+				int backwardCount = 1 + random.nextInt(window);
+				assertEquals("Latest " + backwardCount + " values with partial at " + i, select(all, Math.max(from, all.size() - backwardCount), all.size(), highest), deque.get(backwardCount), 0.0);
+				value = random.nextInt(20);
+			}
+
+			deque.add(value);
+			added.add(value);
+			int from = Math.max(0, added.size() - window);
+			double expected = select(added, from, added.size(), highest);
+			assertEquals("Value " + i, expected, deque.get(), 0.0);
+			assertEquals("Age of value " + i, age(added, from, added.size(), expected), deque.age());
+
+			int backwardCount = 1 + random.nextInt(window);
+			assertEquals("Latest " + backwardCount + " values at " + i, select(added, Math.max(0, added.size() - backwardCount), added.size(), highest), deque.get(backwardCount), 0.0);
+		}
+	}
+
+	@Test
+	public void testHighestMatchesScan() {
+		assertMatchesScan(1, true);
+		assertMatchesScan(3, true);
+		assertMatchesScan(50, true);
+	}
+
+	@Test
+	public void testLowestMatchesScan() {
+		assertMatchesScan(1, false);
+		assertMatchesScan(3, false);
+		assertMatchesScan(50, false);
+	}
+
+	@Test
+	public void testCircularListMinMax() {
+		CircularList l = new CircularList(4);
+		assertEquals(0.0, l.getMax(3), 0.0);
+
+		l.add(5);
+		l.add(1);
+		assertEquals(5, l.getMax(4), 0.0);
+		assertEquals(1, l.getMin(4), 0.0);
+
+		l.add(3);
+		l.add(2);
+		l.update(9); // partial value replaces the oldest
+		assertEquals(9, l.getMax(1), 0.0);
+		assertEquals(9, l.getMax(4), 0.0);
+		assertEquals(2, l.getMin(2), 0.0);
+		assertEquals(1, l.getMin(4), 0.0);
+
+		l.update(0.5); // replaces the previous partial value
+		assertEquals(3, l.getMax(3), 0.0);
+		assertEquals(0.5, l.getMin(1), 0.0);
+
+		l.add(4); // 5 leaves the list
+		assertEquals(4, l.getMax(4), 0.0);
+		assertEquals(4, l.getMax(1), 0.0);
+		assertEquals(2, l.getMin(2), 0.0);
+		assertEquals(0.0, l.getMin(0), 0.0);
+	}
+
+	// getMin/getMax implementation of CircularList before it used MonotonicDeque
+	private static double previousScan(CircularList list, int backwardCount, boolean highest) {
+		final int len = list.size();
+		int start = list.i - backwardCount;
+		if (start < 0) {
+			start = 0;
+		}
+		double out = 0.0;
+		for (int i = start; i < len && backwardCount > 0; i++, backwardCount--) {
+			double v = list.values[i];
+			if (v != 0.0 && (out == 0.0 || (highest ? v > out : v < out))) {
+				out = v;
+			}
+		}
+		for (int i = len - 1; i >= 0 && backwardCount > 0; i--, backwardCount--) {
+			double v = list.values[i];
+			if (v != 0.0 && (out == 0.0 || (highest ? v > out : v < out))) {
+				out = v;
+			}
+		}
+		return out;
+	}
+
+	@Test
+	public void testCircularListMatchesPreviousScan() {
+		Random random = new Random(13);
+		for (int run = 0; run < 200; run++) {
+			CircularList list = new CircularList(100);
+			for (int added = 0; added < 99; added++) {
+				// the previous scan included a partial value only when asked for more values than were added
+				if (random.nextBoolean()) {
+					list.update(1 + random.nextInt(20));
+					int backwardCount = added + 1 + random.nextInt(5);
+					assertEquals(previousScan(list, backwardCount, true), list.getMax(backwardCount), 0.0);
+					assertEquals(previousScan(list, backwardCount, false), list.getMin(backwardCount), 0.0);
+				}
+				list.add(1 + random.nextInt(20));
+				int backwardCount = 1 + random.nextInt(added + 1);
+				assertEquals(previousScan(list, backwardCount, true), list.getMax(backwardCount), 0.0);
+				assertEquals(previousScan(list, backwardCount, false), list.getMin(backwardCount), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testCircularListMatchesScan() {
+		Random random = new Random(7);
+		for (int length : new int[]{1, 2, 5, 50}) {
+			CircularList list = new CircularList(length);
+			List<Double> added = new ArrayList<>();
+			int since = 0; // start of a growing window, as used by ParabolicSAR
+			for (int n = 0; n < 5_000; n++) {
+				if (random.nextInt(10) == 0) {
+					since = added.size();
+				}
+				for (int updates = random.nextInt(3); updates > 0; updates--) {
+					double partial = random.nextInt(20);
+					list.update(partial);
+					List<Double> all = new ArrayList<>(added);
+					all.add(partial);
+					assertLatest(list, all, all.size() - since, length);
+					assertLatest(list, all, 1 + random.nextInt(length), length);
+				}
+				double value = random.nextInt(20);
+				list.add(value);
+				added.add(value);
+				assertLatest(list, added, added.size() - since, length);
+				assertLatest(list, added, 1 + random.nextInt(length), length);
+			}
+		}
+	}
+
+	private static void assertLatest(CircularList list, List<Double> values, int backwardCount, int length) {
+		int from = Math.max(0, values.size() - Math.min(backwardCount, length));
+		assertEquals(select(values, from, values.size(), true), list.getMax(backwardCount), 0.0);
+		assertEquals(select(values, from, values.size(), false), list.getMin(backwardCount), 0.0);
+	}
+}
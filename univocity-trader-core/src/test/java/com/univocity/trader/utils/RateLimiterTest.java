@@ -0,0 +1,66 @@
+package com.univocity.trader.utils;
+
+import org.junit.*;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	public void testPermitsAreSpacedByInterval() {
+		RateLimiter limiter = new RateLimiter(1000);
+		assertEquals(0, limiter.reserve());
+
+		long second = limiter.reserve();
+		assertTrue(second > SECOND / 2 && second <= SECOND);
+
+		long third = limiter.reserve();
+		assertTrue(third > SECOND + SECOND / 2 && third <= 2 * SECOND);
+	}
+
+	@Test
+	public void testIdleLimiterAllowsBurst() {
+		RateLimiter limiter = new RateLimiter(1000, 3);
+		assertEquals(0, limiter.reserve());
+		assertEquals(0, limiter.reserve());
+		assertEquals(0, limiter.reserve());
+
+		long fourth = limiter.reserve();
+		assertTrue(fourth > SECOND / 2 && fourth <= SECOND);
+	}
+
+	@Test
+	public void testNoInterval() {
+		RateLimiter limiter = new RateLimiter(0);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, limiter.reserve());
+		}
+	}
+
+	@Test
+	public void testConcurrentCallersShareBudget() throws Exception {
+		RateLimiter limiter = new RateLimiter(20);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			long start = System.nanoTime();
+			for (int i = 0; i < 8; i++) {
+				executor.submit(limiter::acquire);
+			}
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+			long elapsed = System.nanoTime() - start;
+			assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(7 * 20));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCapacity() {
+		new RateLimiter(1000, 0);
+	}
+}
@@ -0,0 +1,75 @@
+package com.univocity.trader.utils;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class SerialExecutorTest {
+
+	@Test
+	public void testTasksOfLaneRunInOrder() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			int lanes = 8;
+			int tasks = 10_000;
+			SerialExecutor[] executors = new SerialExecutor[lanes];
+			List<List<Integer>> results = new ArrayList<>();
+			AtomicInteger[] running = new AtomicInteger[lanes];
+			AtomicBoolean overlapped = new AtomicBoolean();
+			for (int i = 0; i < lanes; i++) {
+				executors[i] = new SerialExecutor(pool);
+				results.add(new ArrayList<>());
+				running[i] = new AtomicInteger();
+			}
+
+			CountDownLatch done = new CountDownLatch(lanes * tasks);
+			for (int t = 0; t < tasks; t++) {
+				for (int i = 0; i < lanes; i++) {
+					int lane = i;
+					int task = t;
+					executors[i].execute(() -> {
+						if (running[lane].incrementAndGet() > 1) {
+							overlapped.set(true);
+						}
+						results.get(lane).add(task); // not thread safe: only works if tasks of a lane never overlap
+						running[lane].decrementAndGet();
+						done.countDown();
+					});
+				}
+			}
+			assertTrue(done.await(30, TimeUnit.SECONDS));
+			assertFalse(overlapped.get());
+
+			for (int i = 0; i < lanes; i++) {
+				List<Integer> result = results.get(i);
+				assertEquals(tasks, result.size());
+				for (int t = 0; t < tasks; t++) {
+					assertEquals(t, result.get(t).intValue());
+				}
+				assertEquals(0, executors[i].pendingTasks());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testErrorsDoNotStopLane() throws Exception {
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			SerialExecutor executor = new SerialExecutor(pool);
+			CountDownLatch done = new CountDownLatch(1);
+			executor.execute(() -> {
+				throw new IllegalStateException("expected");
+			});
+			executor.execute(done::countDown);
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}